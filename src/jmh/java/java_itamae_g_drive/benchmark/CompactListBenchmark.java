@@ -0,0 +1,144 @@
+package java_itamae_g_drive.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.api.services.drive.model.File;
+
+import java_itamae_g_drive.domain.model.CompactFileList;
+import java_itamae_g_drive.domain.model.DriveAttribute;
+import java_itamae_g_drive.domain.repository.drive.DriveRepository;
+import java_itamae_g_drive.domain.repository.drive.DriveRepositoryImpl;
+import java_itamae_g_drive.domain.repository.drive.MockDriveTransport;
+
+/**
+ * 200,000 件のファイル一覧を保持する際のメモリ消費量を {@link CompactFileList} と {@link File}
+ * の一覧で比較する。
+ * <p>
+ * 1 回の操作で一覧を取得し、取得前後に GC を実行して増加したヒープ使用量を件数で割った値を反復ごとに
+ * {@code retained: N bytes/entry} として出力する。取得中の割り当て量は {@code -prof gc} の
+ * gc.alloc.rate.norm で確認できる。
+ * </p>
+ *
+ * <pre>
+ * gradle jmh -PjmhArgs='CompactListBenchmark -prof gc'
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class CompactListBenchmark {
+    private static final int PAGE_COUNT = 200;
+    private static final int ENTRY_COUNT = PAGE_COUNT
+            * DriveRepository.MAX_PAGE_SIZE;
+
+    private byte[][] pages;
+    private DriveRepository repository;
+    private long retainedBytes;
+
+    @Setup
+    public void setUp() {
+        pages = new byte[PAGE_COUNT][];
+
+        for (int page = 0; page < PAGE_COUNT; page++) {
+            pages[page] = page(page).getBytes(StandardCharsets.UTF_8);
+        }
+
+        MockDriveTransport transport = new MockDriveTransport(
+                (method, request) -> {
+                    String token = MockDriveTransport
+                            .queryParameter(request.getUrl(), "pageToken");
+                    return new MockLowLevelHttpResponse()
+                            .setContentType("application/json")
+                            .setContent(pages[token == null ? 0
+                                    : Integer.parseInt(token)]);
+                });
+
+        DriveAttribute driveAttr = new DriveAttribute();
+        driveAttr.setRequestsPerSecond(0);
+        repository = new DriveRepositoryImpl(transport.newDrive(), driveAttr);
+    }
+
+    private String page(int page) {
+        StringBuilder json = new StringBuilder("{\"kind\":\"drive#fileList\",");
+
+        if (page + 1 < PAGE_COUNT) {
+            json.append("\"nextPageToken\":\"").append(page + 1).append("\",");
+        }
+
+        json.append("\"files\":[");
+
+        for (int i = 0; i < DriveRepository.MAX_PAGE_SIZE; i++) {
+            int index = page * DriveRepository.MAX_PAGE_SIZE + i;
+            // 100 件ごとに 1 つのディレクトリへ格納し、名前は 16 バイト前後とする。
+            json.append(i == 0 ? "{" : ",{");
+            json.append(String.format("\"id\":\"1a2B3c4D5e6F7g8H9i0JkLmNoP%07d\"",
+                    index));
+            json.append(",\"name\":\"report-").append(index).append(".csv\"");
+            json.append(",\"mimeType\":\"text/csv\"");
+            json.append(String.format(
+                    ",\"parents\":[\"0AbCdEfGhIjKlMnOpQrStUvWxYz%05d\"]}",
+                    index / 100));
+        }
+
+        return json.append("]}").toString();
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * 列形式で取得する。
+     */
+    @Benchmark
+    public int compact() throws Exception {
+        long before = usedHeap();
+        CompactFileList list = repository.findCompactByQuery(null);
+        retainedBytes = usedHeap() - before;
+        return list.size();
+    }
+
+    /**
+     * 変更前の経路。 {@link File} の一覧として取得する。
+     */
+    @Benchmark
+    public int fileList() throws Exception {
+        long before = usedHeap();
+        List<File> list = repository.findByQuery(null);
+        retainedBytes = usedHeap() - before;
+        return list.size();
+    }
+
+    @TearDown(Level.Iteration)
+    public void printRetained() {
+        // AuxCounters は反復間で合計されるため、 1 件あたりの値は標準出力へ出力する。
+        System.out.printf("retained: %d bytes/entry%n",
+                retainedBytes / ENTRY_COUNT);
+    }
+}
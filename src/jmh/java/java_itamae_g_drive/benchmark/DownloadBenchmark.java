@@ -0,0 +1,146 @@
+package java_itamae_g_drive.benchmark;
+
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.api.services.drive.Drive;
+import com.google.api.services.drive.model.File;
+
+import java_itamae_g_drive.domain.model.DriveAttribute;
+import java_itamae_g_drive.domain.repository.drive.DriveRepository;
+import java_itamae_g_drive.domain.repository.drive.DriveRepositoryImpl;
+import java_itamae_g_drive.domain.repository.drive.MockDriveTransport;
+
+/**
+ * ダウンロードの書き込み経路ごとのスループットを比較する。
+ * <p>
+ * 応答はメモリ上の {@link MockDriveTransport} から返すため、ネットワークを除いた
+ * HTTP 応答からファイルまでのコピーの費用のみを計測する。 割り当て量は {@code -prof gc} を指定して計測する。
+ * </p>
+ *
+ * <pre>
+ * gradle jmh -PjmhArgs='DownloadBenchmark -prof gc'
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DownloadBenchmark {
+    @Param({"8388608"})
+    public int contentSize;
+
+    @Param({"65536", "1048576"})
+    public int bufferSize;
+
+    private Drive drive;
+    private DriveRepository repository;
+    private File remoteFile;
+    private Path localDir;
+    private Path legacyFile;
+    private ByteBuffer readBuffer;
+    private ByteBuffer heapReadBuffer;
+
+    @Setup
+    public void setUp() throws Exception {
+        final byte[] content = new byte[contentSize];
+        new Random(1).nextBytes(content);
+
+        MockDriveTransport transport = new MockDriveTransport(
+                (method, request) -> new MockLowLevelHttpResponse()
+                        .setContent(content));
+        drive = transport.newDrive();
+
+        DriveAttribute driveAttr = new DriveAttribute();
+        driveAttr.setDownloadBufferSize(bufferSize);
+        driveAttr.setRequestsPerSecond(0);
+        repository = new DriveRepositoryImpl(drive, driveAttr);
+
+        remoteFile = new File().setId("a").setName("a.bin")
+                .setMimeType("application/octet-stream");
+        localDir = Files.createTempDirectory("download-benchmark");
+        legacyFile = localDir.resolve("legacy.bin");
+        readBuffer = ByteBuffer.allocateDirect(bufferSize);
+        heapReadBuffer = ByteBuffer.allocate(bufferSize);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(legacyFile);
+        Files.deleteIfExists(localDir.resolve(remoteFile.getName()));
+        Files.deleteIfExists(localDir);
+    }
+
+    /**
+     * 変更前の経路。 {@link FileOutputStream} へ既定の小さなバッファーで書き込む。
+     */
+    @Benchmark
+    public void outputStream() throws Exception {
+        try (OutputStream stream = new FileOutputStream(legacyFile.toFile())) {
+            drive.files().get(remoteFile.getId())
+                    .executeMediaAndDownloadTo(stream);
+        }
+    }
+
+    /**
+     * 再利用するバッファーを経由して {@link java.nio.channels.FileChannel} へ書き込む。
+     */
+    @Benchmark
+    public java.io.File fileChannel() throws Exception {
+        return repository.download(localDir.toString(), remoteFile);
+    }
+
+    /**
+     * ディスクへ書き込まずに内容をダイレクトバッファーへ読み込む。作業用の配列からのコピーを含む。
+     */
+    @Benchmark
+    public long readableByteChannel() throws Exception {
+        return read(readBuffer);
+    }
+
+    /**
+     * ディスクへ書き込まずに内容を配列を持つバッファーへ読み込む。
+     */
+    @Benchmark
+    public long readableByteChannelHeap() throws Exception {
+        return read(heapReadBuffer);
+    }
+
+    private long read(ByteBuffer buffer) throws Exception {
+        long total = 0;
+
+        try (ReadableByteChannel channel = repository
+                .openDownloadChannel(remoteFile.getId())) {
+            int read;
+
+            while ((read = channel.read(buffer)) >= 0) {
+                total += read;
+                buffer.clear();
+            }
+        }
+
+        return total;
+    }
+}
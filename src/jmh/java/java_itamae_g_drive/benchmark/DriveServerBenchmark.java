@@ -0,0 +1,199 @@
+package java_itamae_g_drive.benchmark;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.api.services.drive.model.File;
+
+import java_itamae_g_drive.domain.model.BatchResult;
+import java_itamae_g_drive.domain.model.DriveAttribute;
+import java_itamae_g_drive.domain.repository.drive.DriveRepository;
+import java_itamae_g_drive.domain.repository.drive.DriveRepositoryImpl;
+import java_itamae_g_drive.domain.repository.drive.FakeDriveServer;
+import java_itamae_g_drive.domain.repository.drive.FileIterator;
+
+/**
+ * {@link DriveRepositoryImpl} の一覧取得、アップロード、ダウンロード、削除のスループットを計測する。
+ * <p>
+ * リクエストはループバックアドレスで待ち受ける {@link FakeDriveServer} へ実際の HTTP
+ * で送信するため、接続の再利用、再試行、バッチリクエストを含めて計測できる。 latencyMillis
+ * で各リクエストの遅延、 errorRate で 503 を返すリクエストの割合を指定する。 contentSize に 5 MiB
+ * 以上を指定するとレジューム可能なアップロードを計測する。
+ * </p>
+ *
+ * <pre>
+ * gradle jmh -PjmhArgs='DriveServerBenchmark -p latencyMillis=0,20 -p errorRate=0,0.05'
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DriveServerBenchmark {
+    private static final int FOLDER_SIZE = 1000;
+    private static final int LIST_PAGE_SIZE = 100;
+    private static final int BATCH_SIZE = 100;
+
+    @Param({"0", "5"})
+    public long latencyMillis;
+
+    @Param({"0"})
+    public double errorRate;
+
+    @Param({"1048576"})
+    public int contentSize;
+
+    private FakeDriveServer server;
+    private DriveRepository repository;
+    private File folder;
+    private File remoteFile;
+    private Path workDir;
+    private Path localFile;
+    private Path localDir;
+
+    /**
+     * 1 回の削除の対象とするファイル。
+     */
+    @State(Scope.Thread)
+    public static class DeleteTarget {
+        String fileId;
+
+        @Setup(Level.Invocation)
+        public void setUp(DriveServerBenchmark benchmark) {
+            fileId = benchmark.server
+                    .addFile(FakeDriveServer.ROOT_ID, "delete.bin", new byte[1])
+                    .getId();
+        }
+    }
+
+    /**
+     * 1 回の一括削除の対象とするファイル。
+     */
+    @State(Scope.Thread)
+    public static class BatchTarget {
+        final List<String> fileIds = new ArrayList<>();
+
+        @Setup(Level.Invocation)
+        public void setUp(DriveServerBenchmark benchmark) {
+            fileIds.clear();
+
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                fileIds.add(benchmark.server.addFile(FakeDriveServer.ROOT_ID,
+                        "batch-" + i, new byte[1]).getId());
+            }
+        }
+    }
+
+    @Setup
+    public void setUp() throws Exception {
+        server = new FakeDriveServer();
+        server.setLatency(latencyMillis);
+        server.setErrorRate(errorRate, 503, "backendError");
+
+        byte[] content = new byte[contentSize];
+        new Random(1).nextBytes(content);
+        folder = server.addFolder(FakeDriveServer.ROOT_ID, "folder");
+
+        for (int i = 0; i < FOLDER_SIZE; i++) {
+            server.addFile(folder.getId(), "file-" + i + ".txt", new byte[1]);
+        }
+
+        remoteFile = server.addFile(FakeDriveServer.ROOT_ID, "download.bin",
+                content);
+
+        workDir = Files.createTempDirectory("drive-server-benchmark");
+        localFile = Files.write(workDir.resolve("upload.bin"), content);
+        localDir = Files.createDirectory(workDir.resolve("download"));
+
+        DriveAttribute driveAttr = new DriveAttribute();
+        driveAttr.setRequestsPerSecond(0);
+        driveAttr.setRetryInitialDelay(1);
+        driveAttr.setUploadSessionDirectory(workDir.resolve("sessions"));
+        repository = new DriveRepositoryImpl(server.newDrive(), driveAttr);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        server.close();
+
+        try (Stream<Path> paths = Files.walk(workDir)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile)
+                    .forEach(java.io.File::delete);
+        }
+    }
+
+    /**
+     * 1,000 件のディレクトリを 100 件ずつのページで走査する。
+     */
+    @Benchmark
+    public int list() throws Exception {
+        int count = 0;
+
+        try (FileIterator files = repository.iterateByParentId(folder.getId(),
+                LIST_PAGE_SIZE)) {
+            while (files.hasNext()) {
+                files.next();
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * contentSize バイトのファイルをアップロードする。アップロードしたファイルはサーバーから直接削除する。
+     */
+    @Benchmark
+    public File upload() throws Exception {
+        File file = repository.upload(localFile.toString(),
+                FakeDriveServer.ROOT_ID);
+        server.remove(file.getId());
+        return file;
+    }
+
+    /**
+     * contentSize バイトのファイルをダウンロードする。
+     */
+    @Benchmark
+    public java.io.File download() throws Exception {
+        return repository.download(localDir.toString(), remoteFile);
+    }
+
+    /**
+     * 1 件ずつ削除する。
+     */
+    @Benchmark
+    public void delete(DeleteTarget target) throws Exception {
+        repository.delete(target.fileId);
+    }
+
+    /**
+     * 100 件を 1 回のバッチリクエストで削除する。
+     */
+    @Benchmark
+    public List<BatchResult> deleteAll(BatchTarget target) throws Exception {
+        return repository.deleteAll(target.fileIds);
+    }
+}
@@ -0,0 +1,217 @@
+package java_itamae_g_drive.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.api.services.drive.Drive;
+import com.google.api.services.drive.model.File;
+import com.google.api.services.drive.model.FileList;
+
+import java_itamae_g_drive.domain.model.DriveAttribute;
+import java_itamae_g_drive.domain.model.FileField;
+import java_itamae_g_drive.domain.model.FileProjection;
+import java_itamae_g_drive.domain.repository.drive.DriveRepository;
+import java_itamae_g_drive.domain.repository.drive.DriveRepositoryImpl;
+import java_itamae_g_drive.domain.repository.drive.FileIterator;
+import java_itamae_g_drive.domain.repository.drive.MockDriveTransport;
+
+/**
+ * 100,000 件のファイル一覧を走査する際の転送量と割り当て量を射影ごとに比較する。
+ * <p>
+ * 応答はメモリ上の {@link MockDriveTransport} から返し、サーバーと同様に fields
+ * パラメータに含まれるフィールドのみを出力する。 1 回の操作が 100,000 件の走査に相当するため、
+ * {@code -prof gc} の gc.alloc.rate.norm が 100,000 件あたりの割り当て量となる。 転送量は
+ * wireBytes に出力する。
+ * </p>
+ *
+ * <pre>
+ * gradle jmh -PjmhArgs='ListBenchmark -prof gc'
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ListBenchmark {
+    private static final int PAGE_COUNT = 100;
+
+    /**
+     * 1 回の操作で受信したバイト数。
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class WireCounter {
+        public long wireBytes;
+
+        @Setup(Level.Invocation)
+        public void reset() {
+            wireBytes = 0;
+        }
+    }
+
+    @Param({"ID_ONLY", "DEFAULT", "ALL"})
+    public String projectionName;
+
+    private FileProjection projection;
+    private byte[][] pages;
+    private Drive drive;
+    private DriveRepository repository;
+    private volatile WireCounter counter;
+
+    @Setup
+    public void setUp() {
+        switch (projectionName) {
+            case "ID_ONLY" :
+                projection = FileProjection.ID_ONLY;
+                break;
+            case "DEFAULT" :
+                projection = FileProjection.DEFAULT;
+                break;
+            default :
+                projection = FileProjection.of(FileField.values());
+                break;
+        }
+
+        pages = new byte[PAGE_COUNT][];
+
+        for (int page = 0; page < PAGE_COUNT; page++) {
+            pages[page] = page(page).getBytes(StandardCharsets.UTF_8);
+        }
+
+        MockDriveTransport transport = new MockDriveTransport(
+                (method, request) -> {
+                    String token = MockDriveTransport
+                            .queryParameter(request.getUrl(), "pageToken");
+                    byte[] content = pages[token == null ? 0
+                            : Integer.parseInt(token)];
+                    counter.wireBytes += content.length;
+                    return new MockLowLevelHttpResponse()
+                            .setContentType("application/json")
+                            .setContent(content);
+                });
+        drive = transport.newDrive();
+
+        DriveAttribute driveAttr = new DriveAttribute();
+        driveAttr.setRequestsPerSecond(0);
+        repository = new DriveRepositoryImpl(drive, driveAttr);
+    }
+
+    private String page(int page) {
+        // Google Drive と同様に nextPageToken を files より前に出力する。
+        StringBuilder json = new StringBuilder("{\"kind\":\"drive#fileList\",");
+
+        if (page + 1 < PAGE_COUNT) {
+            json.append("\"nextPageToken\":\"").append(page + 1).append("\",");
+        }
+
+        json.append("\"files\":[");
+
+        for (int i = 0; i < DriveRepository.MAX_PAGE_SIZE; i++) {
+            int index = page * DriveRepository.MAX_PAGE_SIZE + i;
+            json.append(i == 0 ? "{" : ",{");
+            json.append(String.format("\"id\":\"1a2B3c4D5e6F7g8H9i0JkLmNoP%07d\"",
+                    index));
+
+            for (FileField field : projection.getFields()) {
+                String value;
+
+                switch (field) {
+                    case NAME :
+                        value = "\"report-" + index + ".csv\"";
+                        break;
+                    case MIME_TYPE :
+                        value = "\"text/csv\"";
+                        break;
+                    case PARENTS :
+                        value = "[\"0AbCdEfGhIjKlMnOpQrStUvWxYz0123\"]";
+                        break;
+                    case SIZE :
+                        value = "\"" + (index * 37L) + "\"";
+                        break;
+                    case MD5_CHECKSUM :
+                        value = String.format("\"%032x\"", index);
+                        break;
+                    case MODIFIED_TIME :
+                    case CREATED_TIME :
+                        value = "\"2026-01-01T00:00:00.000Z\"";
+                        break;
+                    case TRASHED :
+                        value = "false";
+                        break;
+                    case VERSION :
+                        value = "\"12\"";
+                        break;
+                    default :
+                        continue;
+                }
+
+                json.append(",\"").append(field.getFieldName()).append("\":")
+                        .append(value);
+            }
+
+            json.append('}');
+        }
+
+        return json.append("]}").toString();
+    }
+
+    /**
+     * 射影のフィールドマスクで要求し、 {@link File} を 1 件ずつ解析しながら走査する。
+     */
+    @Benchmark
+    public long projectedLazy(WireCounter wireCounter) throws Exception {
+        counter = wireCounter;
+        long count = 0;
+
+        try (FileIterator files = repository.iterateByQuery(null,
+                DriveRepository.MAX_PAGE_SIZE, projection)) {
+            while (files.hasNext()) {
+                count += files.next().getId().length();
+            }
+        }
+
+        return count;
+    }
+
+    /**
+     * 変更前の経路。 1 ページ分を {@link FileList} へ解析してから走査する。
+     */
+    @Benchmark
+    public long fileListEager(WireCounter wireCounter) throws Exception {
+        counter = wireCounter;
+        long count = 0;
+        String pageToken = null;
+        String fields = "nextPageToken,files(" + projection.toFieldMask() + ")";
+
+        do {
+            FileList fileList = drive.files().list().setFields(fields)
+                    .setPageSize(DriveRepository.MAX_PAGE_SIZE)
+                    .setPageToken(pageToken).execute();
+
+            for (File file : fileList.getFiles()) {
+                count += file.getId().length();
+            }
+
+            pageToken = fileList.getNextPageToken();
+        } while (pageToken != null);
+
+        return count;
+    }
+}
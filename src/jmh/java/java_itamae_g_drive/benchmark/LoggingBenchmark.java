@@ -0,0 +1,103 @@
+package java_itamae_g_drive.benchmark;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.api.services.drive.model.File;
+
+import java_itamae_g_drive.domain.model.DriveAttribute;
+import java_itamae_g_drive.domain.repository.drive.DriveRepository;
+import java_itamae_g_drive.domain.repository.drive.DriveRepositoryImpl;
+import java_itamae_g_drive.domain.repository.drive.MockDriveTransport;
+
+/**
+ * アップロード 1 件あたりのログ出力の費用を計測する。
+ * <p>
+ * ログレベルを WARN とした状態で、小さなファイルのアップロードと、変更前のログ出力のみを比較する。
+ * 変更前は INFO ログが無効な場合でも文字列の生成とパスの解決を行っていた。 応答はメモリ上の
+ * {@link MockDriveTransport} から返す。割り当て量は {@code -prof gc} を指定して計測する。
+ * </p>
+ *
+ * <pre>
+ * gradle jmh -PjmhArgs='LoggingBenchmark -prof gc'
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Dorg.slf4j.simpleLogger.defaultLogLevel=warn")
+public class LoggingBenchmark {
+    private static final Logger logger = LoggerFactory
+            .getLogger(LoggingBenchmark.class);
+
+    @Param({"false", "true"})
+    public boolean quiet;
+
+    private DriveRepository repository;
+    private File remoteFile;
+    private Path workDir;
+    private java.io.File localFile;
+
+    @Setup
+    public void setUp() throws Exception {
+        remoteFile = new File().setId("a").setName("a.txt")
+                .setMimeType("text/plain");
+        final File response = remoteFile;
+        MockDriveTransport transport = new MockDriveTransport(
+                (method, request) -> MockDriveTransport.json(response));
+
+        workDir = Files.createTempDirectory("logging-benchmark");
+        localFile = Files.write(workDir.resolve("a.txt"), new byte[16])
+                .toFile();
+
+        DriveAttribute driveAttr = new DriveAttribute();
+        driveAttr.setRequestsPerSecond(0);
+        driveAttr.setQuiet(quiet);
+        repository = new DriveRepositoryImpl(transport.newDrive(), driveAttr);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(localFile.toPath());
+        Files.deleteIfExists(workDir);
+    }
+
+    /**
+     * 16 バイトのファイルをアップロードする。
+     */
+    @Benchmark
+    public File upload() throws Exception {
+        return repository.upload(localFile.getPath(), DriveRepository.ROOT_ID);
+    }
+
+    /**
+     * 変更前の経路。アップロード 1 件ごとに出力していたログのみを実行する。
+     */
+    @Benchmark
+    public void legacyLogging() throws Exception {
+        logger.info(String.format("%s をアップロードしています......",
+                localFile.getName()));
+        logger.info("id: " + remoteFile.getId());
+        logger.info("name: " + remoteFile.getName());
+        logger.info("mime_type: " + remoteFile.getMimeType());
+        logger.info("path: " + localFile.getCanonicalPath());
+    }
+}
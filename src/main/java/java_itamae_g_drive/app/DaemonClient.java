@@ -0,0 +1,119 @@
+package java_itamae_g_drive.app;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.google.api.client.json.jackson2.JacksonFactory;
+
+/**
+ * コマンドを {@link DriveDaemon} へ転送し、出力と終了ステータスを受け取る。
+ */
+final class DaemonClient {
+    private static final int CONNECT_TIMEOUT = 1000;
+
+    private DaemonClient() {
+    }
+
+    /**
+     * @param stateFile
+     *            デーモンの状態ファイルのパスを指定する。
+     * @param args
+     *            転送するオプションを指定する。
+     * @param workDir
+     *            相対パスの基準とするディレクトリを指定する。
+     * @param out
+     *            デーモンが出力した一覧と進捗を書き込む {@link PrintStream} を指定する。
+     * @param warn
+     *            デーモンが出力した警告を受け取る {@link Consumer} を指定する。
+     * @return status デーモンから受け取った終了ステータスを返す。
+     *         デーモンが動作していない場合、またはコマンドを受け付けなかった場合は null を返す。
+     */
+    static Integer forward(Path stateFile, String[] args,
+            java.io.File workDir, PrintStream out, Consumer<String> warn) {
+        HttpURLConnection connection;
+
+        try {
+            List<String> lines = Files.readAllLines(stateFile,
+                    StandardCharsets.UTF_8);
+
+            if (lines.size() != 2) {
+                return null;
+            }
+
+            DriveDaemon.Request request = new DriveDaemon.Request();
+            request.workDir = workDir.getAbsolutePath();
+            request.args = Arrays.asList(args);
+            byte[] body = JacksonFactory.getDefaultInstance().toByteArray(
+                    request);
+
+            URL url = new URL("http", "127.0.0.1",
+                    Integer.parseInt(lines.get(0)), DriveDaemon.PATH);
+            connection = (HttpURLConnection) url.openConnection();
+            connection.setConnectTimeout(CONNECT_TIMEOUT);
+            // 転送が終わるまで応答が続くため、読み込みはタイムアウトさせない。
+            connection.setReadTimeout(0);
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(body.length);
+            connection.setRequestMethod("POST");
+            connection.setRequestProperty("Content-Type",
+                    "application/json; charset=UTF-8");
+            connection.setRequestProperty(DriveDaemon.TOKEN_HEADER,
+                    lines.get(1));
+
+            try (OutputStream stream = connection.getOutputStream()) {
+                stream.write(body);
+            }
+
+            if (connection.getResponseCode() != HttpURLConnection.HTTP_OK) {
+                connection.disconnect();
+                return null;
+            }
+        } catch (IOException | NumberFormatException e) {
+            // 状態ファイルがない場合と、デーモンが停止して状態ファイルのみが残っている場合。
+            return null;
+        }
+
+        // デーモンがコマンドを受け付けた後は、このプロセスでは実行しない。
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                connection.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                if (line.length() < 2) {
+                    continue;
+                }
+
+                String text = line.substring(2);
+
+                switch (line.charAt(0)) {
+                    case DriveDaemon.OUT :
+                        out.println(text);
+                        break;
+                    case DriveDaemon.WARN :
+                        warn.accept(text);
+                        break;
+                    case DriveDaemon.STATUS :
+                        return Integer.parseInt(text);
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            warn.accept(e.getMessage());
+        } finally {
+            connection.disconnect();
+        }
+
+        warn.accept("デーモンとの接続が切断されました。");
+        return 1;
+    }
+}
@@ -0,0 +1,353 @@
+package java_itamae_g_drive.app;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.api.client.json.GenericJson;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.client.util.Key;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java_itamae_g_drive.domain.model.DriveAttribute;
+import java_itamae_g_drive.domain.service.drive.DriveService;
+
+/**
+ * 認証済みの {@link DriveService} を保持し、 CLI から転送されたコマンドを実行する。
+ * <p>
+ * ループバックアドレスのランダムなポートで HTTP を待ち受け、ポート番号とトークンを状態ファイルへ保存する。
+ * 状態ファイルは所有者のみが読み取れるように作成し、トークンが一致しないリクエストは拒否する。
+ * </p>
+ * <p>
+ * {@link DriveService} はオプションの組み合わせごとに保持し、 serviceTtl
+ * を過ぎたものは次のコマンドで作り直す。ディレクトリのパスの解決結果は {@link DriveService}
+ * ごとに保持されるため、他のクライアントによる変更が反映されるまでの時間は serviceTtl 以内となる。 認証情報と HTTP
+ * 接続は作り直した後も共有する。
+ * </p>
+ */
+public class DriveDaemon implements AutoCloseable {
+    /**
+     * 状態ファイルの既定のパス。
+     */
+    public static final Path DEFAULT_STATE_FILE = Paths.get(
+            System.getProperty("user.home"), ".java-itamae-g-drive", "daemon");
+
+    static final String PATH = "/run";
+    static final String TOKEN_HEADER = "X-Daemon-Token";
+
+    /**
+     * 標準出力へ出力する行の接頭辞。
+     */
+    static final char OUT = 'O';
+
+    /**
+     * 警告として出力する行の接頭辞。
+     */
+    static final char WARN = 'W';
+
+    /**
+     * 終了ステータスを表す行の接頭辞。
+     */
+    static final char STATUS = 'S';
+
+    private final Function<DriveAttribute, DriveService> factory;
+    private final Path stateFile;
+    private final long serviceTtl;
+    private final String token;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ConcurrentMap<String, CachedService> services = new ConcurrentHashMap<>();
+    private final Logger logger = LoggerFactory.getLogger(DriveDaemon.class);
+
+    /**
+     * 転送されたコマンド。
+     */
+    public static class Request extends GenericJson {
+        @Key
+        String workDir;
+
+        @Key
+        List<String> args;
+    }
+
+    private static class CachedService {
+        private final DriveService service;
+        private final long createdAt = System.nanoTime();
+
+        private CachedService(DriveService service) {
+            this.service = service;
+        }
+    }
+
+    /**
+     * @param factory
+     *            オプションを反映した {@link DriveAttribute} から {@link DriveService}
+     *            を作成する {@link Function} を指定する。
+     * @param stateFile
+     *            ポート番号とトークンを保存するファイルのパスを指定する。
+     * @param serviceTtl
+     *            {@link DriveService} を保持する時間 (ミリ秒) を指定する。
+     * @throws IOException
+     *             {@link java.io.IOException}
+     */
+    public DriveDaemon(Function<DriveAttribute, DriveService> factory,
+            Path stateFile, long serviceTtl) throws IOException {
+        this.factory = factory;
+        this.stateFile = stateFile;
+        this.serviceTtl = serviceTtl;
+
+        byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        StringBuilder hex = new StringBuilder();
+
+        for (byte b : random) {
+            hex.append(String.format("%02x", b));
+        }
+
+        this.token = hex.toString();
+        this.server = HttpServer.create(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.executor = Executors.newCachedThreadPool();
+        server.createContext(PATH, this::handle);
+        server.setExecutor(executor);
+    }
+
+    /**
+     * 待ち受けを開始し、状態ファイルを保存する。
+     *
+     * @throws IOException
+     *             {@link java.io.IOException}
+     */
+    public void start() throws IOException {
+        server.start();
+
+        try {
+            writeStateFile();
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return port 待ち受けているポート番号を返す。
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * 待ち受けを終了する。状態ファイルは他のデーモンに上書きされていない場合のみ削除する。
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+
+        try {
+            List<String> lines = Files.readAllLines(stateFile,
+                    StandardCharsets.UTF_8);
+
+            if (lines.size() == 2 && token.equals(lines.get(1))) {
+                Files.delete(stateFile);
+            }
+        } catch (IOException e) {
+            logger.debug("状態ファイルを削除できませんでした。", e);
+        }
+    }
+
+    /**
+     * 状態ファイルは 1 行目にポート番号、 2 行目にトークンを保存する。読み込み途中のファイルを参照しないよう、
+     * 一時ファイルへ書き込んでから置き換える。
+     */
+    private void writeStateFile() throws IOException {
+        Path dir = stateFile.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path temp;
+
+        try {
+            temp = Files.createTempFile(dir, "daemon", ".tmp",
+                    PosixFilePermissions.asFileAttribute(
+                            PosixFilePermissions.fromString("rw-------")));
+        } catch (UnsupportedOperationException e) {
+            temp = Files.createTempFile(dir, "daemon", ".tmp");
+        }
+
+        try {
+            Files.write(temp, (getPort() + "\n" + token + "\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            Files.move(temp, stateFile, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * @param driveAttr
+     *            コマンドのオプションを反映した {@link DriveAttribute} を指定する。
+     * @return service オプションの組み合わせが同じコマンドで共有する {@link DriveService} を返す。
+     */
+    DriveService getService(DriveAttribute driveAttr) {
+        String key = String.format("%d/%d/%d/%d/%d/%b",
+                driveAttr.getChunkSize(), driveAttr.getMaxRetries(),
+                driveAttr.getRetryBudget(), driveAttr.getRangeParallelism(),
+                driveAttr.getTransportAttribute() == null ? 0
+                        : driveAttr.getTransportAttribute()
+                                .getMaxConnectionsPerRoute(),
+                driveAttr.isQuiet());
+        long now = System.nanoTime();
+
+        return services.compute(key, (k, cached) -> {
+            if (cached == null || TimeUnit.NANOSECONDS
+                    .toMillis(now - cached.createdAt) >= serviceTtl) {
+                return new CachedService(factory.apply(driveAttr));
+            }
+
+            return cached;
+        }).service;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String received = exchange.getRequestHeaders()
+                    .getFirst(TOKEN_HEADER);
+
+            if (!"POST".equals(exchange.getRequestMethod()) || received == null
+                    || !MessageDigest.isEqual(
+                            token.getBytes(StandardCharsets.UTF_8),
+                            received.getBytes(StandardCharsets.UTF_8))) {
+                exchange.sendResponseHeaders(403, -1);
+                return;
+            }
+
+            Request request;
+
+            try (InputStream in = exchange.getRequestBody()) {
+                request = JacksonFactory.getDefaultInstance()
+                        .fromInputStream(in, StandardCharsets.UTF_8,
+                                Request.class);
+            }
+
+            exchange.getResponseHeaders().set("Content-Type",
+                    "text/plain; charset=UTF-8");
+            // 進捗を逐次返すため、応答本文はチャンク形式で送信する。
+            exchange.sendResponseHeaders(200, 0);
+
+            try (OutputStream body = exchange.getResponseBody()) {
+                ResponseWriter writer = new ResponseWriter(body);
+                int status = execute(request, writer);
+                writer.writeLine(STATUS, String.valueOf(status));
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private int execute(Request request, ResponseWriter writer) {
+        Main command = new Main(request.args.toArray(new String[0]),
+                new java.io.File(request.workDir));
+        String message = command.validate();
+
+        if (message != null) {
+            writer.writeLines(WARN, message);
+            return 1;
+        }
+
+        logger.debug("コマンドを実行します: {}", request.args);
+
+        try (PrintStream out = new PrintStream(writer.newStream(OUT), true,
+                "UTF-8")) {
+            return command.run(getService(command.newDriveAttribute()), out,
+                    warning -> writer.writeLines(WARN, warning));
+        } catch (IOException e) {
+            writer.writeLines(WARN, e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * 応答本文を 1 文字の接頭辞と空白に続く 1 行の文字列の並びとして書き込む。複数のスレッドから書き込まれた行は混ざらない。
+     */
+    private static class ResponseWriter {
+        private final OutputStream body;
+        private boolean broken = false;
+
+        private ResponseWriter(OutputStream body) {
+            this.body = body;
+        }
+
+        private synchronized void writeLine(char kind, String text) {
+            if (broken) {
+                return;
+            }
+
+            try {
+                body.write((kind + " " + text + "\n")
+                        .getBytes(StandardCharsets.UTF_8));
+                body.flush();
+            } catch (IOException e) {
+                // クライアントが切断した場合も、実行中のコマンドは最後まで実行する。
+                broken = true;
+            }
+        }
+
+        private void writeLines(char kind, String text) {
+            for (String line : String.valueOf(text).split("\n", -1)) {
+                writeLine(kind, line);
+            }
+        }
+
+        /**
+         * @return stream 書き込まれた内容を改行ごとに 1 行として書き込む {@link OutputStream} を返す。
+         */
+        private OutputStream newStream(final char kind) {
+            return new OutputStream() {
+                private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+                @Override
+                public synchronized void write(int b) {
+                    if (b == '\r') {
+                        return;
+                    } else if (b == '\n') {
+                        writeLine(kind, new String(line.toByteArray(),
+                                StandardCharsets.UTF_8));
+                        line.reset();
+                    } else {
+                        line.write(b);
+                    }
+                }
+
+                @Override
+                public synchronized void close() {
+                    if (line.size() > 0) {
+                        write('\n');
+                    }
+                }
+            };
+        }
+    }
+}
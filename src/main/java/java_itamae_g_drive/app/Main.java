@@ -1,6 +1,11 @@
 package java_itamae_g_drive.app;
 
+import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -14,36 +19,207 @@ import java_itamae_contents.domain.model.ContentsAttribute;
 import java_itamae_g_auth.domain.model.AuthenticationAttribure;
 import java_itamae_g_auth.domain.service.authentication.AuthenticationService;
 import java_itamae_g_auth.domain.service.authentication.AuthenticationServiceImpl;
+import java_itamae_g_drive.domain.model.BatchResult;
+import java_itamae_g_drive.domain.model.DriveAttribute;
+import java_itamae_g_drive.domain.model.InMemoryDriveMetrics;
+import java_itamae_g_drive.domain.model.ManifestEntry;
+import java_itamae_g_drive.domain.model.ManifestResult;
+import java_itamae_g_drive.domain.model.TransferResult;
+import java_itamae_g_drive.domain.model.TransportAttribute;
+import java_itamae_g_drive.domain.repository.drive.DriveRepository;
+import java_itamae_g_drive.domain.repository.drive.FileIterator;
 import java_itamae_g_drive.domain.service.drive.DriveService;
 import java_itamae_g_drive.domain.service.drive.DriveServiceImpl;
 
 /**
  * CLI から Google Drive を操作する。
+ * <p>
+ * 終了時に Google Drive API の呼び出しを操作ごとに集計した件数、所要時間、転送量、エラーコードを標準エラー出力へ表示する。
+ * </p>
+ * <p>
+ * --daemon で起動したデーモンが動作している場合は、コマンドをデーモンへ転送して実行する。
+ * デーモンは認証済みの {@link DriveService} と HTTP 接続を保持するため、 JVM の起動と認証の費用はデーモンの起動時に 1
+ * 回のみとなる。
+ * </p>
  */
 public class Main {
+    private final java.io.File workDir;
+
+    private String clientSecret = "client_secret/client_secret.json";
+    private String encoding = "UTF-8";
+    private int pageSize = DriveRepository.MAX_PAGE_SIZE;
+    private int parallelism = 1;
+    private int chunkSize = DriveAttribute.DEFAULT_CHUNK_SIZE / (1024 * 1024);
+    private int maxRetries = DriveAttribute.DEFAULT_MAX_RETRIES;
+    private long retryBudget = DriveAttribute.DEFAULT_RETRY_BUDGET / 1000;
+    private int rangeParallelism = 1;
+
+    private int localPathFlag = 0;
+    private String localPath = null;
+    private List<String> localPathList = new ArrayList<>();
+
+    private int remoteFileIdFlag = 0;
+    private String remoteFileId = null;
+    private File resolvedFile = null;
+    private List<String> remoteFileIdList = new ArrayList<>();
+
+    private int remotePathFlag = 0;
+    private List<String> remotePathList = new ArrayList<>();
+
+    private int parentIdFlag = 0;
+    private String parentId = null;
+
+    private int listFlag = 0;
+    private int uploadFlag = 0;
+    private int downloadFlag = 0;
+    private int modifyFlag = 0;
+    private int removeFlag = 0;
+    private int syncFlag = 0;
+    private int quietFlag = 0;
+    private int daemonFlag = 0;
+    private int noDaemonFlag = 0;
+
+    private int manifestFlag = 0;
+    private String manifestPath = null;
+
     /**
      * @param args
      *            <ul>
      *            <li>-L, --local-path &lt;path&gt;:
-     *            操作対象とするローカルファイルまたはディレクトリのパスを指定する。</li>
+     *            操作対象とするローカルファイルまたはディレクトリのパスを指定する。 --upload
+     *            の場合は複数回指定できる。</li>
      *            <li>-R, --remote-file-id &lt;file_id&gt;:
-     *            操作対象とするファイルまたはディレクトリの File ID を指定する。</li>
+     *            操作対象とするファイルまたはディレクトリの File ID を指定する。 --remove
+     *            の場合は複数回指定できる。</li>
+     *            <li>-T, --remote-path &lt;path&gt;: 操作対象とする Google Drive
+     *            上のパスを "/" 区切りで指定する。 --upload, --list の場合はアップロード先・一覧表示の対象とする親ディレクトリ、
+     *            それ以外の場合は --remote-file-id の代わりとなる。 --remove の場合は複数回指定できる。</li>
      *            <li>-P, --parent-id &lt;file_id&gt;: 操作対象とする親ディレクトリの File ID
      *            を指定する。</li>
      *            <li>-C, --client-secret &lt;path&gt;: client_secret.json
      *            のパスを指定する。</li>
      *            <li>-E, --encoding &lt;encoding&gt;: client_secret.json
      *            のエンコーディングを指定する。</li>
+     *            <li>-S, --page-size &lt;size&gt;: 一覧表示時に 1
+     *            ページあたりに取得するファイル数を 1 から 1000 の範囲で指定する。</li>
+     *            <li>-p, --parallelism &lt;count&gt;:
+     *            アップロード・ダウンロード時に同時に実行する転送の上限数を指定する。</li>
+     *            <li>-c, --chunk-size &lt;MiB&gt;:
+     *            レジューム可能なアップロードで 1 回のリクエストで送信するサイズを MiB
+     *            単位で指定する。中断されたアップロードは同じコマンドを再実行すると続きから再開する。</li>
+     *            <li>-t, --max-retries &lt;count&gt;: レート制限や一時的なエラーで失敗した
+     *            API 呼び出しを 1 回の操作につき再試行する回数の上限を指定する。 0 の場合は再試行しない。</li>
+     *            <li>-B, --retry-budget &lt;seconds&gt;: 1
+     *            回の操作で再試行のために待機する時間の合計の上限を秒単位で指定する。</li>
+     *            <li>-g, --range-parallelism &lt;count&gt;: 64 MiB
+     *            以上のファイルをダウンロードする際に、ファイルを範囲に分割して同時に取得する範囲の上限数を指定する。
+     *            1 の場合は分割しない。</li>
+     *            <li>-q, --quiet: 操作ごとのログと成功した転送の進捗を表示しない。警告と失敗した転送は表示する。</li>
+     *            <li>-D, --daemon: デーモンとして起動し、ループバックアドレスでコマンドを待ち受ける。
+     *            待ち受けるポートとトークンは ~/.java-itamae-g-drive/daemon に保存する。
+     *            --client-secret, --encoding はデーモンの起動時の指定を使用する。</li>
+     *            <li>-n, --no-daemon: デーモンが動作している場合でもコマンドを転送せずに実行する。</li>
      *            <li>-l, --list: Google Drive 上に存在するファイル・ディレクトリの一覧を表示する。</li>
-     *            <li>-u, --upload: Google Drive へファイル・ディレクトリをアップロードする。</li>
-     *            <li>-d, --download: Google Drive からファイル・ディレクトリをダウンロードする。</li>
+     *            <li>-u, --upload: Google Drive へファイル・ディレクトリをアップロードする。
+     *            ディレクトリを指定した場合は配下のファイル・ディレクトリも再帰的にアップロードする。</li>
+     *            <li>-d, --download: Google Drive からファイル・ディレクトリをダウンロードする。
+     *            ディレクトリを指定した場合は配下のファイル・ディレクトリも再帰的にダウンロードする。</li>
      *            <li>-m, --modify: Google Drive 上に存在するファイル・ディレクトリを更新する。</li>
      *            <li>-r, --remove: Google Drive からファイル・ディレクトリを削除する。</li>
+     *            <li>-s, --sync: --local-path に指定したディレクトリと --remote-file-id
+     *            に指定したディレクトリを同期する。内容が同じファイルは転送しない。</li>
+     *            <li>-M, --manifest &lt;path&gt;: 1 行に 1 件の操作を JSON
+     *            またはタブ区切りで記述したマニフェストを実行する。結果は &lt;path&gt;.results
+     *            へ追記し、再実行時は成功した行を実行しない。</li>
      *            </ul>
      */
     public static void main(String[] args) {
+        Logger logger = LoggerFactory.getLogger(Main.class);
+        Main command = new Main(args, null);
+
+        // バリデーションチェック
+        String message = command.validate();
+
+        if (message != null) {
+            logger.warn(message);
+            System.exit(1);
+        }
+
+        if (command.daemonFlag == 0 && command.noDaemonFlag == 0) {
+            // デーモンが動作していない場合は null となり、このプロセスで実行する。
+            Integer status = DaemonClient.forward(
+                    DriveDaemon.DEFAULT_STATE_FILE, args,
+                    new java.io.File(System.getProperty("user.dir")),
+                    System.out, logger::warn);
+
+            if (status != null) {
+                System.exit(status);
+            }
+        }
+
+        // コマンドの実行
+        // 終了箇所が多いため、集計結果はシャットダウンフックで表示する。
+        final InMemoryDriveMetrics metrics = new InMemoryDriveMetrics();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            if (metrics.getOperations().iterator().hasNext()) {
+                System.err.print(metrics.summary());
+            }
+        }));
+
+        AuthenticationAttribure authAttr;
+        AuthenticationService authService;
+
+        try {
+            authAttr = new AuthenticationAttribure();
+            authAttr.addScope(DriveScopes.DRIVE);
+
+            authService = new AuthenticationServiceImpl();
+            authService.authorizeInstalledApp(command.newContentsAttribute(),
+                    authAttr);
+        } catch (Exception e) {
+            logger.warn(e.getMessage());
+            System.exit(1);
+            return;
+        }
+
+        Function<DriveAttribute, DriveService> factory = driveAttr -> {
+            driveAttr.setMetrics(metrics);
+            return new DriveServiceImpl(authAttr, driveAttr);
+        };
+
+        if (command.daemonFlag == 1) {
+            try {
+                DriveDaemon daemon = new DriveDaemon(factory,
+                        DriveDaemon.DEFAULT_STATE_FILE,
+                        DriveAttribute.DEFAULT_CACHE_TTL);
+                daemon.start();
+                Runtime.getRuntime().addShutdownHook(new Thread(daemon::close));
+                logger.info("{} 番ポートでコマンドを待ち受けています。", daemon.getPort());
+            } catch (Exception e) {
+                logger.warn(e.getMessage());
+                System.exit(1);
+            }
+
+            // 待ち受けを行うスレッドが終了するまでプロセスを継続する。
+            return;
+        }
+
+        DriveService driveService = factory.apply(command.newDriveAttribute());
+        System.exit(command.run(driveService, System.out, logger::warn));
+    }
+
+    /**
+     * @param args
+     *            {@link #main(String[])} と同じオプションを指定する。
+     * @param workDir
+     *            相対パスで指定された --local-path の基準とするディレクトリを指定する。カレントディレクトリを基準とする場合は
+     *            null を指定する。
+     */
+    Main(String[] args, java.io.File workDir) {
+        this.workDir = workDir;
+
         // オプションの設定
-        LongOpt[] longopts = new LongOpt[10];
+        LongOpt[] longopts = new LongOpt[22];
 
         longopts[0] = new LongOpt("local-path", LongOpt.REQUIRED_ARGUMENT, null,
                 'L');
@@ -60,39 +236,49 @@ public class Main {
         longopts[7] = new LongOpt("download", LongOpt.NO_ARGUMENT, null, 'd');
         longopts[8] = new LongOpt("modify", LongOpt.NO_ARGUMENT, null, 'm');
         longopts[9] = new LongOpt("remove", LongOpt.NO_ARGUMENT, null, 'r');
+        longopts[10] = new LongOpt("page-size", LongOpt.REQUIRED_ARGUMENT,
+                null, 'S');
+        longopts[11] = new LongOpt("parallelism", LongOpt.REQUIRED_ARGUMENT,
+                null, 'p');
+        longopts[12] = new LongOpt("chunk-size", LongOpt.REQUIRED_ARGUMENT,
+                null, 'c');
+        longopts[13] = new LongOpt("sync", LongOpt.NO_ARGUMENT, null, 's');
+        longopts[14] = new LongOpt("max-retries", LongOpt.REQUIRED_ARGUMENT,
+                null, 't');
+        longopts[15] = new LongOpt("retry-budget", LongOpt.REQUIRED_ARGUMENT,
+                null, 'B');
+        longopts[16] = new LongOpt("range-parallelism",
+                LongOpt.REQUIRED_ARGUMENT, null, 'g');
+        longopts[17] = new LongOpt("remote-path", LongOpt.REQUIRED_ARGUMENT,
+                null, 'T');
+        longopts[18] = new LongOpt("quiet", LongOpt.NO_ARGUMENT, null, 'q');
+        longopts[19] = new LongOpt("daemon", LongOpt.NO_ARGUMENT, null, 'D');
+        longopts[20] = new LongOpt("no-daemon", LongOpt.NO_ARGUMENT, null,
+                'n');
+        longopts[21] = new LongOpt("manifest", LongOpt.REQUIRED_ARGUMENT, null,
+                'M');
 
         int c;
 
-        String clientSecret = "client_secret/client_secret.json";
-        String encoding = "UTF-8";
-
-        int localPathFlag = 0;
-        String localPath = null;
-
-        int remoteFileIdFlag = 0;
-        String remoteFileId = null;
-
-        int parentIdFlag = 0;
-        String parentId = null;
-
-        int listFlag = 0;
-        int uploadFlag = 0;
-        int downloadFlag = 0;
-        int modifyFlag = 0;
-        int removeFlag = 0;
-
         // オプションの解析
-        Getopt options = new Getopt("Main", args, "L:R:P:C:E:ludmr", longopts);
+        Getopt options = new Getopt("Main", args,
+                "L:R:T:P:C:E:S:p:c:t:B:g:M:ludmrsqDn", longopts);
 
         while ((c = options.getopt()) != -1) {
             switch (c) {
                 case 'L' :
                     localPathFlag = 1;
-                    localPath = options.getOptarg();
+                    localPath = resolveLocalPath(options.getOptarg());
+                    localPathList.add(localPath);
                     break;
                 case 'R' :
                     remoteFileIdFlag = 1;
                     remoteFileId = options.getOptarg();
+                    remoteFileIdList.add(remoteFileId);
+                    break;
+                case 'T' :
+                    remotePathFlag = 1;
+                    remotePathList.add(options.getOptarg());
                     break;
                 case 'P' :
                     parentIdFlag = 1;
@@ -104,6 +290,49 @@ public class Main {
                 case 'E' :
                     encoding = options.getOptarg();
                     break;
+                case 'S' :
+                    try {
+                        pageSize = Integer.parseInt(options.getOptarg());
+                    } catch (NumberFormatException e) {
+                        pageSize = 0;
+                    }
+                    break;
+                case 'p' :
+                    try {
+                        parallelism = Integer.parseInt(options.getOptarg());
+                    } catch (NumberFormatException e) {
+                        parallelism = 0;
+                    }
+                    break;
+                case 'c' :
+                    try {
+                        chunkSize = Integer.parseInt(options.getOptarg());
+                    } catch (NumberFormatException e) {
+                        chunkSize = 0;
+                    }
+                    break;
+                case 't' :
+                    try {
+                        maxRetries = Integer.parseInt(options.getOptarg());
+                    } catch (NumberFormatException e) {
+                        maxRetries = -1;
+                    }
+                    break;
+                case 'B' :
+                    try {
+                        retryBudget = Long.parseLong(options.getOptarg());
+                    } catch (NumberFormatException e) {
+                        retryBudget = -1;
+                    }
+                    break;
+                case 'g' :
+                    try {
+                        rangeParallelism = Integer
+                                .parseInt(options.getOptarg());
+                    } catch (NumberFormatException e) {
+                        rangeParallelism = 0;
+                    }
+                    break;
                 case 'l' :
                     listFlag = 1;
                     break;
@@ -119,101 +348,374 @@ public class Main {
                 case 'r' :
                     removeFlag = 1;
                     break;
+                case 's' :
+                    syncFlag = 1;
+                    break;
+                case 'q' :
+                    quietFlag = 1;
+                    break;
+                case 'D' :
+                    daemonFlag = 1;
+                    break;
+                case 'n' :
+                    noDaemonFlag = 1;
+                    break;
+                case 'M' :
+                    manifestFlag = 1;
+                    manifestPath = resolveLocalPath(options.getOptarg());
+                    break;
             }
         }
+    }
+
+    private String resolveLocalPath(String path) {
+        if (workDir == null || new java.io.File(path).isAbsolute()) {
+            return path;
+        }
 
-        Logger logger = LoggerFactory.getLogger(Main.class);
+        return new java.io.File(workDir, path).getPath();
+    }
+
+    /**
+     * @return message オプションの指定に誤りがある場合は警告メッセージを返す。誤りがない場合は null を返す。
+     */
+    String validate() {
+        if (pageSize < 1 || pageSize > DriveRepository.MAX_PAGE_SIZE) {
+            return "--page-size オプションには 1 から 1000 の範囲の数値を指定してください。";
+        }
+
+        if (parallelism < 1) {
+            return "--parallelism オプションには 1 以上の数値を指定してください。";
+        }
+
+        if (chunkSize < 1 || chunkSize > 1024) {
+            return "--chunk-size オプションには 1 から 1024 の範囲の数値を指定してください。";
+        }
+
+        if (maxRetries < 0) {
+            return "--max-retries オプションには 0 以上の数値を指定してください。";
+        }
+
+        if (retryBudget < 0) {
+            return "--retry-budget オプションには 0 以上の数値を指定してください。";
+        }
+
+        if (rangeParallelism < 1) {
+            return "--range-parallelism オプションには 1 以上の数値を指定してください。";
+        }
 
-        // バリデーションチェック
         if (uploadFlag == 1) {
             if (localPathFlag == 0) {
-                logger.warn("--local-path オプションを指定してください。");
-                System.exit(1);
+                return "--local-path オプションを指定してください。";
             }
         }
 
         if (downloadFlag == 1) {
             if (localPathFlag == 0) {
-                logger.warn("--local-path オプションを指定してください。");
-                System.exit(1);
+                return "--local-path オプションを指定してください。";
             }
 
-            if (remoteFileIdFlag == 0) {
-                logger.warn("--remote-file-id オプションを指定してください。");
-                System.exit(1);
+            if (remoteFileIdFlag == 0 && remotePathFlag == 0) {
+                return "--remote-file-id または --remote-path オプションを指定してください。";
             }
         }
 
         if (modifyFlag == 1) {
             if (localPathFlag == 0) {
-                logger.warn("--local-path オプションを指定してください。");
-                System.exit(1);
+                return "--local-path オプションを指定してください。";
             }
 
-            if (remoteFileIdFlag == 0) {
-                logger.warn("--remote-file-id オプションを指定してください。");
-                System.exit(1);
+            if (remoteFileIdFlag == 0 && remotePathFlag == 0) {
+                return "--remote-file-id または --remote-path オプションを指定してください。";
+            }
+        }
+
+        if (syncFlag == 1) {
+            if (localPathFlag == 0) {
+                return "--local-path オプションを指定してください。";
+            }
+
+            if (remoteFileIdFlag == 0 && remotePathFlag == 0) {
+                return "--remote-file-id または --remote-path オプションを指定してください。";
             }
         }
 
         if (removeFlag == 1) {
-            if (remoteFileIdFlag == 0) {
-                logger.warn("--remote-file-id オプションを指定してください。");
-                System.exit(1);
+            if (remoteFileIdFlag == 0 && remotePathFlag == 0) {
+                return "--remote-file-id または --remote-path オプションを指定してください。";
             }
         }
 
-        // コマンドの実行
+        return null;
+    }
+
+    /**
+     * @return contentsAttr client_secret.json のパスとエンコーディングを返す。
+     */
+    ContentsAttribute newContentsAttribute() {
         ContentsAttribute contentsAttr = new ContentsAttribute();
         contentsAttr.setPath(clientSecret);
         contentsAttr.setEncoding(encoding);
+        return contentsAttr;
+    }
 
-        AuthenticationAttribure authAttr;
-        AuthenticationService authService;
-        DriveService driveService;
+    /**
+     * @return driveAttr オプションを反映した {@link DriveAttribute} を返す。
+     */
+    DriveAttribute newDriveAttribute() {
+        DriveAttribute driveAttr = new DriveAttribute();
+        driveAttr.setChunkSize(chunkSize * 1024 * 1024);
+        driveAttr.setMaxRetries(maxRetries);
+        driveAttr.setRetryBudget(retryBudget * 1000);
+        driveAttr.setRangeParallelism(rangeParallelism);
+        driveAttr.setQuiet(quietFlag == 1);
+        // 並列に転送する場合でも接続プールの空きを待たないよう、接続数の上限を並列数に合わせる。
+        TransportAttribute transportAttr = new TransportAttribute();
+        transportAttr.setMaxConnectionsPerRoute(Math.max(
+                TransportAttribute.DEFAULT_MAX_CONNECTIONS_PER_ROUTE,
+                parallelism * rangeParallelism * 2));
+        driveAttr.setTransportAttribute(transportAttr);
+        return driveAttr;
+    }
 
+    /**
+     * コマンドを実行する。 {@link #validate()} で誤りがないことを確認してから呼び出す。
+     *
+     * @param driveService
+     *            コマンドの実行に使用する {@link DriveService} を指定する。
+     * @param out
+     *            一覧と転送の進捗を出力する {@link PrintStream} を指定する。
+     * @param warn
+     *            警告メッセージを受け取る {@link Consumer} を指定する。
+     * @return status 終了ステータスを返す。変更を行った場合は 2 、変更がなかった場合は 0 、失敗した場合は 1 を返す。
+     */
+    int run(DriveService driveService, PrintStream out, Consumer<String> warn) {
         try {
-            authAttr = new AuthenticationAttribure();
-            authAttr.addScope(DriveScopes.DRIVE);
-
-            authService = new AuthenticationServiceImpl();
-            authService.authorizeInstalledApp(contentsAttr, authAttr);
+            if (parentIdFlag == 0) {
+                parentId = DriveRepository.ROOT_ID;
+            }
 
-            driveService = new DriveServiceImpl(authAttr);
+            // パスは 1 階層ごとに検索して解決する。解決済みのディレクトリは再度検索しない。
+            for (String remotePath : remotePathList) {
+                File remoteFile = driveService.resolvePath(remotePath);
 
-            if (parentIdFlag == 0) {
-                parentId = driveService.getDriveRootId();
+                if (listFlag == 1 || uploadFlag == 1) {
+                    parentId = remoteFile.getId();
+                } else {
+                    resolvedFile = remoteFile;
+                    remoteFileId = remoteFile.getId();
+                    remoteFileIdList.add(remoteFileId);
+                }
             }
 
             if (listFlag == 1) {
-                List<File> fileList = driveService.findByParentId(parentId);
                 String format = "id: %s name: %s mime_type: %s";
 
-                for (File file : fileList) {
-                    String message = String.format(format, file.getId(),
-                            file.getName(), file.getMimeType());
-                    System.out.println(message);
+                try (FileIterator fileList = driveService
+                        .iterateByParentId(parentId, pageSize)) {
+                    while (fileList.hasNext()) {
+                        File file = fileList.next();
+                        String message = String.format(format, file.getId(),
+                                file.getName(), file.getMimeType());
+                        out.println(message);
+                    }
                 }
 
-                System.exit(0);
+                return 0;
             } else if (uploadFlag == 1) {
-                driveService.upload(localPath, parentId);
-                System.exit(2);
+                final boolean quiet = quietFlag == 1;
+                final AtomicInteger completed = new AtomicInteger();
+                List<TransferResult> resultList;
+
+                if (localPathList.size() == 1
+                        && new java.io.File(localPath).isDirectory()) {
+                    resultList = driveService.uploadTree(localPath, parentId,
+                            parallelism, result -> {
+                                printProgress(out, result,
+                                        completed.incrementAndGet(), -1, quiet);
+                            });
+                } else if (localPathList.size() == 1 && parallelism == 1) {
+                    driveService.upload(localPath, parentId);
+                    return 2;
+                } else {
+                    final int total = localPathList.size();
+                    resultList = driveService.uploadAll(localPathList,
+                            parentId, parallelism, result -> {
+                                printProgress(out, result,
+                                        completed.incrementAndGet(), total,
+                                        quiet);
+                            });
+                }
+
+                for (TransferResult result : resultList) {
+                    if (!result.isSuccess()) {
+                        return 1;
+                    }
+                }
+
+                return 2;
             } else if (downloadFlag == 1) {
-                driveService.findByFileId(remoteFileId);
-                driveService.download(localPath, remoteFileId);
-                System.exit(2);
+                final boolean quiet = quietFlag == 1;
+                final AtomicInteger completed = new AtomicInteger();
+                Consumer<TransferResult> listener = result -> {
+                    printProgress(out, result, completed.incrementAndGet(), -1,
+                            quiet);
+                };
+                List<TransferResult> resultList;
+
+                // パスから解決済みの場合はメタデータを再取得しない。 "/" は名前を持たないため取得し直す。
+                if (resolvedFile != null && resolvedFile.getName() != null) {
+                    resultList = driveService.downloadTree(localPath,
+                            resolvedFile, parallelism, listener);
+                } else {
+                    resultList = driveService.downloadTree(localPath,
+                            remoteFileId, parallelism, listener);
+                }
+
+                for (TransferResult result : resultList) {
+                    if (!result.isSuccess()) {
+                        return 1;
+                    }
+                }
+
+                return 2;
             } else if (modifyFlag == 1) {
                 driveService.update(localPath, remoteFileId);
-                System.exit(2);
+                return 2;
             } else if (removeFlag == 1) {
-                driveService.delete(remoteFileId);
-                System.exit(2);
+                if (remoteFileIdList.size() == 1) {
+                    driveService.delete(remoteFileId);
+                    return 2;
+                }
+
+                int status = 2;
+
+                for (BatchResult result : driveService
+                        .deleteAll(remoteFileIdList)) {
+                    if (!result.isSuccess()) {
+                        warn.accept(String.format("%s: %s", result.getFileId(),
+                                result.getError().getMessage()));
+                        status = 1;
+                    }
+                }
+
+                return status;
+            } else if (manifestFlag == 1) {
+                final boolean quiet = quietFlag == 1;
+                final AtomicInteger failed = new AtomicInteger();
+                final AtomicInteger changed = new AtomicInteger();
+                driveService.runManifest(manifestPath,
+                        manifestPath + ".results", parallelism, result -> {
+                            if (!result.isSuccess()) {
+                                failed.incrementAndGet();
+                            } else if (!result.isSkipped()) {
+                                changed.incrementAndGet();
+                            }
+
+                            printProgress(out, result, quiet);
+                        });
+
+                if (failed.get() > 0) {
+                    return 1;
+                }
+
+                return changed.get() > 0 ? 2 : 0;
+            } else if (syncFlag == 1) {
+                final boolean quiet = quietFlag == 1;
+                final AtomicInteger completed = new AtomicInteger();
+                List<TransferResult> resultList = driveService.sync(localPath,
+                        remoteFileId, parallelism, result -> {
+                            printProgress(out, result,
+                                    completed.incrementAndGet(), -1, quiet);
+                        });
+                int status = 0;
+
+                for (TransferResult result : resultList) {
+                    if (!result.isSuccess()) {
+                        return 1;
+                    }
+
+                    if (!result.isSkipped()) {
+                        status = 2;
+                    }
+                }
+
+                return status;
             }
         } catch (Exception e) {
-            logger.warn(e.getMessage());
-            System.exit(1);
+            warn.accept(e.getMessage());
+            return 1;
+        }
+
+        return 0;
+    }
+
+    /**
+     * 転送結果を 1 行で表示する。
+     *
+     * @param out
+     *            出力先を指定する。
+     * @param result
+     *            転送結果を指定する。
+     * @param count
+     *            完了した転送の件数を指定する。
+     * @param total
+     *            転送の総数を指定する。総数が不明な場合は負の値を指定する。
+     * @param quiet
+     *            true の場合は失敗した転送のみを表示する。
+     */
+    private static void printProgress(PrintStream out, TransferResult result,
+            int count, int total, boolean quiet) {
+        if (quiet && result.isSuccess()) {
+            return;
+        }
+
+        String status;
+
+        if (!result.isSuccess()) {
+            status = "NG " + result.getError().getMessage();
+        } else if (result.isSkipped()) {
+            status = "SKIP";
+        } else {
+            status = "OK";
         }
+
+        String progress = total < 0 ? String.valueOf(count)
+                : String.format("%d/%d", count, total);
+        out.println(String.format("[%s] %s: %s", progress,
+                result.getLocalPath(), status));
     }
 
+    /**
+     * マニフェストの 1 行分の結果を 1 行で表示する。
+     *
+     * @param out
+     *            出力先を指定する。
+     * @param result
+     *            操作結果を指定する。
+     * @param quiet
+     *            true の場合は失敗した操作のみを表示する。
+     */
+    private static void printProgress(PrintStream out, ManifestResult result,
+            boolean quiet) {
+        if (quiet && result.isSuccess()) {
+            return;
+        }
+
+        ManifestEntry entry = result.getEntry();
+        String status;
+
+        if (!result.isSuccess()) {
+            status = "NG " + result.getError();
+        } else if (result.isSkipped()) {
+            status = "SKIP";
+        } else {
+            status = "OK";
+        }
+
+        String target = entry.getLocalPath() != null ? entry.getLocalPath()
+                : entry.getFileId();
+        out.println(String.format("[%d] %s %s: %s", entry.getLineNumber(),
+                entry.getOperation(), target, status));
+    }
 }
@@ -0,0 +1,65 @@
+package java_itamae_g_drive.domain.model;
+
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.services.drive.model.File;
+
+/**
+ * バッチリクエストに含めた 1 件分の操作の結果を管理する。
+ */
+public class BatchResult {
+    private String fileId;
+    private File file;
+    private GoogleJsonError error;
+
+    /**
+     * @return fileId 操作対象とした file_id を返す。
+     */
+    public String getFileId() {
+        return fileId;
+    }
+
+    /**
+     * @param fileId
+     *            操作対象とした file_id を指定する。
+     */
+    public void setFileId(String fileId) {
+        this.fileId = fileId;
+    }
+
+    /**
+     * @return file 操作結果のファイルを返す。削除の場合と操作に失敗した場合は null を返す。
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @param file
+     *            操作結果のファイルを指定する。
+     */
+    public void setFile(File file) {
+        this.file = file;
+    }
+
+    /**
+     * @return error 操作に失敗した原因を返す。操作に成功した場合は null を返す。
+     */
+    public GoogleJsonError getError() {
+        return error;
+    }
+
+    /**
+     * @param error
+     *            操作に失敗した原因を指定する。
+     */
+    public void setError(GoogleJsonError error) {
+        this.error = error;
+    }
+
+    /**
+     * @return status 操作に成功した場合は true を返す。
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+}
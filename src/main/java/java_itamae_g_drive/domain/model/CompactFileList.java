@@ -0,0 +1,447 @@
+package java_itamae_g_drive.domain.model;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.api.services.drive.model.File;
+
+/**
+ * 大量のファイル一覧を {@link File} を生成せずに列ごとの配列で保持する。
+ * <p>
+ * {@link File} は 1 件ごとに {@link com.google.api.client.json.GenericJson}
+ * のマップと複数の {@link String} を持つため、 1 件あたり数百バイトを消費する。 このクラスは各列を次の形式で保持し、
+ * {@link File} は {@link #toFile(int)} で必要な時にのみ生成する。
+ * </p>
+ * <ul>
+ * <li>id: 全件の id を連結した 1 つのバイト列と、各件の開始位置 (1 件あたり id の長さ + 4 バイト)</li>
+ * <li>name: 重複を除いた名前を連結したバイト列と、各件が参照する名前の番号 (1 件あたり 4 バイト +
+ * 重複しない名前の UTF-8 の長さ)</li>
+ * <li>親ディレクトリ: 一覧内の親の位置。一覧に含まれない親は重複を除いた id の表を参照する (1 件あたり 4 バイト)</li>
+ * <li>mimeType: 重複を除いた MIME タイプの表の番号 (1 件あたり 2 バイト)</li>
+ * <li>id の検索用に id の昇順に並べた位置 (1 件あたり 4 バイト)</li>
+ * </ul>
+ * <p>
+ * 33 文字の id と平均 16 バイトの名前の場合、 1 件あたり約 80 バイトとなる。 親ディレクトリは最初の 1
+ * 件のみを保持する。インスタンスは不変であり、複数のスレッドから共有できる。
+ * </p>
+ */
+public final class CompactFileList {
+    /**
+     * フォルダを表す MIME タイプ。
+     */
+    public static final String FOLDER_MIME_TYPE = "application/vnd.google-apps.folder";
+
+    /**
+     * 親ディレクトリを持たない場合に {@link #getParentIndex(int)} が返す値。
+     */
+    public static final int NO_PARENT = Integer.MIN_VALUE;
+
+    private final int size;
+    private final byte[] idData;
+    private final int[] idOffsets;
+    private final byte[] nameData;
+    private final int[] nameOffsets;
+    private final int[] nameRefs;
+    private final int[] parentIndexes;
+    private final String[] externalParents;
+    private final short[] mimeRefs;
+    private final String[] mimeTypes;
+    private final int[] idOrder;
+
+    private CompactFileList(Builder builder) {
+        size = builder.size;
+        idData = Arrays.copyOf(builder.idData, builder.idLength);
+        idOffsets = Arrays.copyOf(builder.idOffsets, size + 1);
+        nameData = Arrays.copyOf(builder.nameData, builder.nameLength);
+        nameOffsets = Arrays.copyOf(builder.nameOffsets,
+                builder.nameIds.size() + 1);
+        nameRefs = Arrays.copyOf(builder.nameRefs, size);
+        mimeRefs = Arrays.copyOf(builder.mimeRefs, size);
+        mimeTypes = builder.mimeTypeList.toArray(new String[0]);
+        idOrder = sortById();
+
+        // 親ディレクトリの id を一覧内の位置へ置き換え、一覧に含まれない親のみを id のまま残す。
+        String[] parentIds = builder.parentIdList.toArray(new String[0]);
+        int[] resolved = new int[parentIds.length];
+        List<String> externalList = new ArrayList<>();
+
+        for (int i = 0; i < parentIds.length; i++) {
+            int index = indexOf(parentIds[i]);
+
+            if (index >= 0) {
+                resolved[i] = index;
+            } else {
+                externalList.add(parentIds[i]);
+                resolved[i] = -externalList.size();
+            }
+        }
+
+        parentIndexes = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            int ref = builder.parentRefs[i];
+            parentIndexes[i] = ref < 0 ? NO_PARENT : resolved[ref];
+        }
+
+        externalParents = externalList.toArray(new String[0]);
+    }
+
+    /**
+     * @return size 一覧の件数を返す。
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index
+     *            一覧内の位置を指定する。
+     * @return id ファイルの id を返す。
+     */
+    public String getId(int index) {
+        checkIndex(index);
+        return new String(idData, idOffsets[index],
+                idOffsets[index + 1] - idOffsets[index],
+                StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * @param index
+     *            一覧内の位置を指定する。
+     * @return name ファイルの名前を返す。
+     */
+    public String getName(int index) {
+        checkIndex(index);
+        int ref = nameRefs[index];
+        return new String(nameData, nameOffsets[ref],
+                nameOffsets[ref + 1] - nameOffsets[ref],
+                StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param index
+     *            一覧内の位置を指定する。
+     * @return mimeType ファイルの MIME タイプを返す。取得していない場合は null を返す。
+     */
+    public String getMimeType(int index) {
+        checkIndex(index);
+        return mimeTypes[mimeRefs[index]];
+    }
+
+    /**
+     * @param index
+     *            一覧内の位置を指定する。
+     * @return result フォルダの場合は true を返す。
+     */
+    public boolean isFolder(int index) {
+        return FOLDER_MIME_TYPE.equals(getMimeType(index));
+    }
+
+    /**
+     * @param index
+     *            一覧内の位置を指定する。
+     * @return parentIndex 親ディレクトリが一覧に含まれる場合はその位置を返す。含まれない場合は負の値を返し、親を持たない場合は
+     *         {@link #NO_PARENT} を返す。
+     */
+    public int getParentIndex(int index) {
+        checkIndex(index);
+        return parentIndexes[index];
+    }
+
+    /**
+     * @param index
+     *            一覧内の位置を指定する。
+     * @return parentId 親ディレクトリの id を返す。親を持たない場合は null を返す。
+     */
+    public String getParentId(int index) {
+        int parentIndex = getParentIndex(index);
+
+        if (parentIndex == NO_PARENT) {
+            return null;
+        } else if (parentIndex < 0) {
+            return externalParents[-parentIndex - 1];
+        }
+
+        return getId(parentIndex);
+    }
+
+    /**
+     * @param id
+     *            検索対象とする id を指定する。
+     * @return index 一覧内の位置を返す。存在しない場合は -1 を返す。
+     */
+    public int indexOf(String id) {
+        byte[] key = id.getBytes(StandardCharsets.ISO_8859_1);
+        int low = 0;
+        int high = size - 1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int compared = compareId(idOrder[middle], key);
+
+            if (compared < 0) {
+                low = middle + 1;
+            } else if (compared > 0) {
+                high = middle - 1;
+            } else {
+                return idOrder[middle];
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * @param index
+     *            一覧内の位置を指定する。
+     * @return file 指定した位置のファイルを新たに生成して返す。
+     */
+    public File toFile(int index) {
+        File file = new File().setId(getId(index)).setName(getName(index))
+                .setMimeType(getMimeType(index));
+        String parentId = getParentId(index);
+
+        if (parentId != null) {
+            file.setParents(Collections.singletonList(parentId));
+        }
+
+        return file;
+    }
+
+    /**
+     * @return bytes 各列の配列が消費するおおよそのバイト数を返す。配列ごとに 16 バイトのヘッダーを含める。
+     */
+    public long memoryUsage() {
+        long bytes = 0;
+        bytes += 16 + idData.length;
+        bytes += 16 + 4L * idOffsets.length;
+        bytes += 16 + nameData.length;
+        bytes += 16 + 4L * nameOffsets.length;
+        bytes += 16 + 4L * nameRefs.length;
+        bytes += 16 + 4L * parentIndexes.length;
+        bytes += 16 + 2L * mimeRefs.length;
+        bytes += 16 + 4L * idOrder.length;
+
+        for (String parentId : externalParents) {
+            bytes += 4 + 40 + parentId.length();
+        }
+
+        for (String mimeType : mimeTypes) {
+            bytes += 4 + 40 + (mimeType == null ? 0 : mimeType.length());
+        }
+
+        return bytes;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException(
+                    "index: " + index + ", size: " + size);
+        }
+    }
+
+    private int compareId(int index, byte[] key) {
+        int start = idOffsets[index];
+        int length = idOffsets[index + 1] - start;
+        int common = Math.min(length, key.length);
+
+        for (int i = 0; i < common; i++) {
+            int compared = (idData[start + i] & 0xff) - (key[i] & 0xff);
+
+            if (compared != 0) {
+                return compared;
+            }
+        }
+
+        return length - key.length;
+    }
+
+    private int compareIds(int left, int right) {
+        int leftStart = idOffsets[left];
+        int leftLength = idOffsets[left + 1] - leftStart;
+        int rightStart = idOffsets[right];
+        int rightLength = idOffsets[right + 1] - rightStart;
+        int common = Math.min(leftLength, rightLength);
+
+        for (int i = 0; i < common; i++) {
+            int compared = (idData[leftStart + i] & 0xff)
+                    - (idData[rightStart + i] & 0xff);
+
+            if (compared != 0) {
+                return compared;
+            }
+        }
+
+        return leftLength - rightLength;
+    }
+
+    /**
+     * @return order id の昇順に並べた一覧内の位置を返す。
+     */
+    private int[] sortById() {
+        int[] order = new int[size];
+
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+
+        // 位置を Integer へボックス化せずに並べ替えるため、配列の併合ソートを使用する。
+        int[] work = new int[size];
+
+        for (int width = 1; width < size; width *= 2) {
+            for (int low = 0; low < size; low += width * 2) {
+                int middle = Math.min(low + width, size);
+                int high = Math.min(low + width * 2, size);
+                int left = low;
+                int right = middle;
+
+                for (int k = low; k < high; k++) {
+                    if (left < middle && (right >= high
+                            || compareIds(order[left], order[right]) <= 0)) {
+                        work[k] = order[left++];
+                    } else {
+                        work[k] = order[right++];
+                    }
+                }
+            }
+
+            int[] swap = order;
+            order = work;
+            work = swap;
+        }
+
+        return order;
+    }
+
+    /**
+     * 一覧を 1 件ずつ追加して {@link CompactFileList} を生成する。 名前、親ディレクトリ、 MIME
+     * タイプの重複は追加時に取り除く。スレッドセーフではない。
+     */
+    public static final class Builder {
+        private int size;
+        private byte[] idData = new byte[1024];
+        private int idLength;
+        private int[] idOffsets = new int[64];
+        private byte[] nameData = new byte[1024];
+        private int nameLength;
+        private int[] nameOffsets = new int[64];
+        private int[] nameRefs = new int[64];
+        private int[] parentRefs = new int[64];
+        private short[] mimeRefs = new short[64];
+        private final Map<String, Integer> nameIds = new HashMap<>();
+        private final Map<String, Integer> parentIds = new HashMap<>();
+        private final List<String> parentIdList = new ArrayList<>();
+        private final Map<String, Integer> mimeTypeIds = new HashMap<>();
+        private final List<String> mimeTypeList = new ArrayList<>();
+
+        /**
+         * @param id
+         *            ファイルの id を指定する。
+         * @param name
+         *            ファイルの名前を指定する。
+         * @param mimeType
+         *            ファイルの MIME タイプを指定する。不明な場合は null を指定する。
+         * @param parentId
+         *            親ディレクトリの id を指定する。親を持たない場合は null を指定する。
+         * @return builder この Builder を返す。
+         */
+        public Builder add(String id, String name, String mimeType,
+                String parentId) {
+            if (size + 1 >= idOffsets.length) {
+                int capacity = idOffsets.length + (idOffsets.length >> 1);
+                idOffsets = Arrays.copyOf(idOffsets, capacity);
+                nameRefs = Arrays.copyOf(nameRefs, capacity);
+                parentRefs = Arrays.copyOf(parentRefs, capacity);
+                mimeRefs = Arrays.copyOf(mimeRefs, capacity);
+            }
+
+            byte[] idBytes = id.getBytes(StandardCharsets.ISO_8859_1);
+            idData = ensureCapacity(idData, idLength + idBytes.length);
+            System.arraycopy(idBytes, 0, idData, idLength, idBytes.length);
+            idLength += idBytes.length;
+            idOffsets[size + 1] = idLength;
+
+            nameRefs[size] = internName(name == null ? "" : name);
+            parentRefs[size] = parentId == null ? -1
+                    : intern(parentIds, parentIdList, parentId);
+            mimeRefs[size] = (short) intern(mimeTypeIds, mimeTypeList,
+                    mimeType);
+
+            if (mimeTypeList.size() > Short.MAX_VALUE) {
+                throw new IllegalStateException("MIME タイプの種類が多すぎます。");
+            }
+
+            size++;
+            return this;
+        }
+
+        /**
+         * @param file
+         *            追加するファイルを指定する。
+         * @return builder この Builder を返す。
+         */
+        public Builder add(File file) {
+            List<String> parents = file.getParents();
+            return add(file.getId(), file.getName(), file.getMimeType(),
+                    parents == null || parents.isEmpty() ? null
+                            : parents.get(0));
+        }
+
+        private int internName(String name) {
+            Integer ref = nameIds.get(name);
+
+            if (ref != null) {
+                return ref;
+            }
+
+            int id = nameIds.size();
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            nameData = ensureCapacity(nameData, nameLength + bytes.length);
+            System.arraycopy(bytes, 0, nameData, nameLength, bytes.length);
+            nameLength += bytes.length;
+
+            if (id + 1 >= nameOffsets.length) {
+                nameOffsets = Arrays.copyOf(nameOffsets,
+                        nameOffsets.length + (nameOffsets.length >> 1));
+            }
+
+            nameOffsets[id + 1] = nameLength;
+            nameIds.put(name, id);
+            return id;
+        }
+
+        private static int intern(Map<String, Integer> ids, List<String> list,
+                String value) {
+            Integer ref = ids.get(value);
+
+            if (ref == null) {
+                ref = list.size();
+                ids.put(value, ref);
+                list.add(value);
+            }
+
+            return ref;
+        }
+
+        private static byte[] ensureCapacity(byte[] data, int required) {
+            if (required <= data.length) {
+                return data;
+            }
+
+            return Arrays.copyOf(data,
+                    Math.max(required, data.length + (data.length >> 1)));
+        }
+
+        /**
+         * @return list 追加したファイルの一覧を返す。
+         */
+        public CompactFileList build() {
+            return new CompactFileList(this);
+        }
+    }
+}
@@ -0,0 +1,413 @@
+package java_itamae_g_drive.domain.model;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import com.google.api.client.googleapis.media.MediaHttpUploader;
+
+/**
+ * Google Drive の操作方法に関する設定値を管理する。
+ */
+public class DriveAttribute {
+    /**
+     * レジューム可能なアップロードで 1 回のリクエストで送信するバイト数の既定値。
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    /**
+     * レジューム可能なアップロードへ切り替えるファイルサイズの既定値。
+     */
+    public static final long DEFAULT_RESUMABLE_THRESHOLD = 5L * 1024 * 1024;
+
+    /**
+     * メタデータキャッシュの有効期限の既定値 (ミリ秒) 。
+     */
+    public static final long DEFAULT_CACHE_TTL = 60 * 1000;
+
+    /**
+     * 1 回の操作で再試行する回数の上限の既定値。
+     */
+    public static final int DEFAULT_MAX_RETRIES = 5;
+
+    /**
+     * 1 回の操作で再試行のために待機する時間の合計の上限の既定値 (ミリ秒) 。
+     */
+    public static final long DEFAULT_RETRY_BUDGET = 2 * 60 * 1000;
+
+    /**
+     * 1 秒あたりのリクエスト数の初期値の既定値。
+     */
+    public static final double DEFAULT_REQUESTS_PER_SECOND = 100;
+
+    /**
+     * 1 秒あたりのリクエスト数の上限の既定値。
+     */
+    public static final double DEFAULT_MAX_REQUESTS_PER_SECOND = 200;
+
+    /**
+     * ダウンロード時にファイルへ書き込む単位となるバイト数の既定値。
+     */
+    public static final int DEFAULT_DOWNLOAD_BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * 範囲に分割してダウンロードするファイルサイズの既定値。
+     */
+    public static final long DEFAULT_RANGED_DOWNLOAD_THRESHOLD = 64L * 1024
+            * 1024;
+
+    /**
+     * 範囲に分割してダウンロードする際の 1 つの範囲のバイト数の既定値。
+     */
+    public static final long DEFAULT_RANGE_SIZE = 16L * 1024 * 1024;
+
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+    private long resumableThreshold = DEFAULT_RESUMABLE_THRESHOLD;
+    private Path uploadSessionDirectory = Paths
+            .get(System.getProperty("user.home"), ".java-itamae-g-drive",
+                    "upload-sessions");
+    private int cacheMaxEntries = 0;
+    private long cacheTtl = DEFAULT_CACHE_TTL;
+    private Path indexDirectory = null;
+    private int maxRetries = DEFAULT_MAX_RETRIES;
+    private long retryInitialDelay = 1000;
+    private long retryMaxDelay = 32 * 1000;
+    private long retryBudget = DEFAULT_RETRY_BUDGET;
+    private double requestsPerSecond = DEFAULT_REQUESTS_PER_SECOND;
+    private double maxRequestsPerSecond = DEFAULT_MAX_REQUESTS_PER_SECOND;
+    private TransportAttribute transportAttribute = null;
+    private int downloadBufferSize = DEFAULT_DOWNLOAD_BUFFER_SIZE;
+    private int rangeParallelism = 1;
+    private long rangedDownloadThreshold = DEFAULT_RANGED_DOWNLOAD_THRESHOLD;
+    private long rangeSize = DEFAULT_RANGE_SIZE;
+    private DriveMetrics metrics = DriveMetrics.NOOP;
+    private boolean quiet = false;
+
+    /**
+     * @return chunkSize レジューム可能なアップロードで 1 回のリクエストで送信するバイト数を返す。
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * @param chunkSize
+     *            レジューム可能なアップロードで 1 回のリクエストで送信するバイト数を
+     *            {@link MediaHttpUploader#MINIMUM_CHUNK_SIZE} の倍数で指定する。
+     */
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize <= 0
+                || chunkSize % MediaHttpUploader.MINIMUM_CHUNK_SIZE != 0) {
+            throw new IllegalArgumentException(String.format(
+                    "chunkSize には %d の倍数を指定してください。: %d",
+                    MediaHttpUploader.MINIMUM_CHUNK_SIZE, chunkSize));
+        }
+
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @return resumableThreshold レジューム可能なアップロードへ切り替えるファイルサイズを返す。
+     */
+    public long getResumableThreshold() {
+        return resumableThreshold;
+    }
+
+    /**
+     * @param resumableThreshold
+     *            レジューム可能なアップロードへ切り替えるファイルサイズを指定する。このサイズ未満のファイルは 1
+     *            回のリクエストでアップロードする。
+     */
+    public void setResumableThreshold(long resumableThreshold) {
+        this.resumableThreshold = resumableThreshold;
+    }
+
+    /**
+     * @return uploadSessionDirectory アップロードセッションの状態を保存するディレクトリを返す。
+     */
+    public Path getUploadSessionDirectory() {
+        return uploadSessionDirectory;
+    }
+
+    /**
+     * @param uploadSessionDirectory
+     *            アップロードセッションの状態を保存するディレクトリを指定する。
+     */
+    public void setUploadSessionDirectory(Path uploadSessionDirectory) {
+        this.uploadSessionDirectory = uploadSessionDirectory;
+    }
+
+    /**
+     * @return cacheMaxEntries メタデータキャッシュに保持するエントリー数の上限を返す。
+     */
+    public int getCacheMaxEntries() {
+        return cacheMaxEntries;
+    }
+
+    /**
+     * @param cacheMaxEntries
+     *            メタデータキャッシュに保持するエントリー数の上限を指定する。 0
+     *            を指定した場合はキャッシュを使用しない。
+     */
+    public void setCacheMaxEntries(int cacheMaxEntries) {
+        this.cacheMaxEntries = cacheMaxEntries;
+    }
+
+    /**
+     * @return cacheTtl メタデータキャッシュの有効期限 (ミリ秒) を返す。
+     */
+    public long getCacheTtl() {
+        return cacheTtl;
+    }
+
+    /**
+     * @param cacheTtl
+     *            メタデータキャッシュの有効期限 (ミリ秒) を指定する。
+     */
+    public void setCacheTtl(long cacheTtl) {
+        this.cacheTtl = cacheTtl;
+    }
+
+    /**
+     * @return indexDirectory メタデータインデックスを保存するディレクトリを返す。
+     */
+    public Path getIndexDirectory() {
+        return indexDirectory;
+    }
+
+    /**
+     * @param indexDirectory
+     *            メタデータインデックスを保存するディレクトリを指定する。 null の場合はインデックスを使用しない。
+     */
+    public void setIndexDirectory(Path indexDirectory) {
+        this.indexDirectory = indexDirectory;
+    }
+
+    /**
+     * @return maxRetries 1 回の操作で再試行する回数の上限を返す。
+     */
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * @param maxRetries
+     *            1 回の操作で再試行する回数の上限を指定する。 0 の場合は再試行しない。
+     */
+    public void setMaxRetries(int maxRetries) {
+        if (maxRetries < 0) {
+            throw new IllegalArgumentException(
+                    "maxRetries には 0 以上の数値を指定してください。: " + maxRetries);
+        }
+
+        this.maxRetries = maxRetries;
+    }
+
+    /**
+     * @return retryInitialDelay 初回の再試行で待機する時間の上限 (ミリ秒) を返す。
+     */
+    public long getRetryInitialDelay() {
+        return retryInitialDelay;
+    }
+
+    /**
+     * @param retryInitialDelay
+     *            初回の再試行で待機する時間の上限 (ミリ秒) を指定する。再試行の度に 2 倍となる。
+     */
+    public void setRetryInitialDelay(long retryInitialDelay) {
+        this.retryInitialDelay = retryInitialDelay;
+    }
+
+    /**
+     * @return retryMaxDelay 再試行で 1 回に待機する時間の上限 (ミリ秒) を返す。
+     */
+    public long getRetryMaxDelay() {
+        return retryMaxDelay;
+    }
+
+    /**
+     * @param retryMaxDelay
+     *            再試行で 1 回に待機する時間の上限 (ミリ秒) を指定する。
+     */
+    public void setRetryMaxDelay(long retryMaxDelay) {
+        this.retryMaxDelay = retryMaxDelay;
+    }
+
+    /**
+     * @return retryBudget 1 回の操作で再試行のために待機する時間の合計の上限 (ミリ秒) を返す。
+     */
+    public long getRetryBudget() {
+        return retryBudget;
+    }
+
+    /**
+     * @param retryBudget
+     *            1 回の操作で再試行のために待機する時間の合計の上限 (ミリ秒) を指定する。
+     *            Retry-After で指定された待機時間もこの上限に含める。
+     */
+    public void setRetryBudget(long retryBudget) {
+        this.retryBudget = retryBudget;
+    }
+
+    /**
+     * @return requestsPerSecond 1 秒あたりのリクエスト数の初期値を返す。
+     */
+    public double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    /**
+     * @param requestsPerSecond
+     *            1 秒あたりのリクエスト数の初期値を指定する。レート制限のエラーを受け取ると下がり、成功が続くと
+     *            maxRequestsPerSecond まで上がる。 0 の場合は送信間隔を調整しない。
+     */
+    public void setRequestsPerSecond(double requestsPerSecond) {
+        this.requestsPerSecond = requestsPerSecond;
+    }
+
+    /**
+     * @return maxRequestsPerSecond 1 秒あたりのリクエスト数の上限を返す。
+     */
+    public double getMaxRequestsPerSecond() {
+        return maxRequestsPerSecond;
+    }
+
+    /**
+     * @param maxRequestsPerSecond
+     *            1 秒あたりのリクエスト数の上限を指定する。
+     */
+    public void setMaxRequestsPerSecond(double maxRequestsPerSecond) {
+        this.maxRequestsPerSecond = maxRequestsPerSecond;
+    }
+
+    /**
+     * @return transportAttribute HTTP 接続の設定を返す。既定値は null で、認証時に作成されたトランスポートを使用する。
+     */
+    public TransportAttribute getTransportAttribute() {
+        return transportAttribute;
+    }
+
+    /**
+     * @param transportAttribute
+     *            HTTP 接続の設定を指定する。指定した場合は接続プールを持つトランスポートを使用する。 null
+     *            の場合は認証時に作成されたトランスポートをそのまま使用する。
+     */
+    public void setTransportAttribute(TransportAttribute transportAttribute) {
+        this.transportAttribute = transportAttribute;
+    }
+
+    /**
+     * @return downloadBufferSize ダウンロード時にファイルへ書き込む単位となるバイト数を返す。
+     */
+    public int getDownloadBufferSize() {
+        return downloadBufferSize;
+    }
+
+    /**
+     * @param downloadBufferSize
+     *            ダウンロード時にファイルへ書き込む単位となるバイト数を指定する。同時に実行するダウンロードごとに
+     *            この大きさのバッファーを 1 つ使用し、 CPU 数までを再利用のために保持する。
+     */
+    public void setDownloadBufferSize(int downloadBufferSize) {
+        if (downloadBufferSize < 1) {
+            throw new IllegalArgumentException(
+                    "downloadBufferSize には 1 以上の数値を指定してください。: "
+                            + downloadBufferSize);
+        }
+
+        this.downloadBufferSize = downloadBufferSize;
+    }
+
+    /**
+     * @return rangeParallelism 1 つのファイルを範囲に分割してダウンロードする際に同時に取得する範囲の上限数を返す。
+     */
+    public int getRangeParallelism() {
+        return rangeParallelism;
+    }
+
+    /**
+     * @param rangeParallelism
+     *            1 つのファイルを範囲に分割してダウンロードする際に同時に取得する範囲の上限数を指定する。 1
+     *            の場合は分割しない。
+     */
+    public void setRangeParallelism(int rangeParallelism) {
+        if (rangeParallelism < 1) {
+            throw new IllegalArgumentException(
+                    "rangeParallelism には 1 以上の数値を指定してください。: "
+                            + rangeParallelism);
+        }
+
+        this.rangeParallelism = rangeParallelism;
+    }
+
+    /**
+     * @return rangedDownloadThreshold 範囲に分割してダウンロードするファイルサイズを返す。
+     */
+    public long getRangedDownloadThreshold() {
+        return rangedDownloadThreshold;
+    }
+
+    /**
+     * @param rangedDownloadThreshold
+     *            範囲に分割してダウンロードするファイルサイズを指定する。このサイズ未満のファイルは 1
+     *            回のリクエストでダウンロードする。
+     */
+    public void setRangedDownloadThreshold(long rangedDownloadThreshold) {
+        this.rangedDownloadThreshold = rangedDownloadThreshold;
+    }
+
+    /**
+     * @return rangeSize 範囲に分割してダウンロードする際の 1 つの範囲のバイト数を返す。
+     */
+    public long getRangeSize() {
+        return rangeSize;
+    }
+
+    /**
+     * @param rangeSize
+     *            範囲に分割してダウンロードする際の 1 つの範囲のバイト数を指定する。
+     */
+    public void setRangeSize(long rangeSize) {
+        if (rangeSize < 1) {
+            throw new IllegalArgumentException(
+                    "rangeSize には 1 以上の数値を指定してください。: " + rangeSize);
+        }
+
+        this.rangeSize = rangeSize;
+    }
+
+    /**
+     * @return metrics API の呼び出しごとの計測値を記録する {@link DriveMetrics} を返す。
+     */
+    public DriveMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @param metrics
+     *            API の呼び出しごとの計測値を記録する {@link DriveMetrics} を指定する。記録しない場合は
+     *            {@link DriveMetrics#NOOP} を指定する。
+     */
+    public void setMetrics(DriveMetrics metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException("metrics には null 以外を指定してください。");
+        }
+
+        this.metrics = metrics;
+    }
+
+    /**
+     * @return quiet 操作ごとのログを出力しない場合は true を返す。
+     */
+    public boolean isQuiet() {
+        return quiet;
+    }
+
+    /**
+     * @param quiet
+     *            大量のファイルを操作する場合など、操作ごとの INFO ログを出力しない場合は true
+     *            を指定する。警告は出力する。
+     */
+    public void setQuiet(boolean quiet) {
+        this.quiet = quiet;
+    }
+}
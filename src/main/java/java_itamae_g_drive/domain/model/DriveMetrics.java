@@ -0,0 +1,116 @@
+package java_itamae_g_drive.domain.model;
+
+/**
+ * Google Drive API の呼び出しごとの計測値を受け取る。
+ * <p>
+ * 計測値は操作名ごとに記録する。 1 回の呼び出しが再試行された場合は、試行ごとに
+ * {@link #recordRequest(String, long, String)} を呼び出す。実装は複数のスレッドから同時に呼び出される。
+ * </p>
+ */
+public interface DriveMetrics {
+    /**
+     * files().list() の操作名。
+     */
+    public static final String LIST = "files.list";
+
+    /**
+     * files().get() でメタデータを取得する操作の操作名。
+     */
+    public static final String GET = "files.get";
+
+    /**
+     * files().create() でディレクトリまたは小さなファイルを作成する操作の操作名。
+     */
+    public static final String CREATE = "files.create";
+
+    /**
+     * レジューム可能なアップロードの操作名。
+     */
+    public static final String UPLOAD = "files.upload";
+
+    /**
+     * files().update() の操作名。
+     */
+    public static final String UPDATE = "files.update";
+
+    /**
+     * files().delete() の操作名。
+     */
+    public static final String DELETE = "files.delete";
+
+    /**
+     * ファイルの内容をダウンロードする操作の操作名。
+     */
+    public static final String DOWNLOAD = "files.download";
+
+    /**
+     * 範囲を指定してファイルの内容をダウンロードする操作の操作名。
+     */
+    public static final String DOWNLOAD_RANGE = "files.downloadRange";
+
+    /**
+     * バッチリクエストの操作名。
+     */
+    public static final String BATCH = "batch";
+
+    /**
+     * changes().getStartPageToken() と changes().list() の操作名。
+     */
+    public static final String CHANGES = "changes.list";
+
+    /**
+     * 何も記録しない {@link DriveMetrics} 。
+     */
+    public static final DriveMetrics NOOP = new DriveMetrics() {
+        @Override
+        public void recordRequest(String operation, long latencyNanos,
+                String errorCode) {
+        }
+
+        @Override
+        public void recordRetry(String operation) {
+        }
+
+        @Override
+        public void recordBytesSent(String operation, long bytes) {
+        }
+
+        @Override
+        public void recordBytesReceived(String operation, long bytes) {
+        }
+    };
+
+    /**
+     * @param operation
+     *            操作名を指定する。
+     * @param latencyNanos
+     *            リクエストの送信から応答の処理までに要した時間をナノ秒単位で指定する。
+     * @param errorCode
+     *            失敗した場合はステータスコードと理由 (例: 403 rateLimitExceeded) または例外のクラス名を指定する。
+     *            成功した場合は null を指定する。
+     */
+    public void recordRequest(String operation, long latencyNanos,
+            String errorCode);
+
+    /**
+     * @param operation
+     *            再試行した操作の操作名を指定する。
+     */
+    public void recordRetry(String operation);
+
+    /**
+     * @param operation
+     *            操作名を指定する。
+     * @param bytes
+     *            送信したファイルの内容のバイト数を指定する。
+     */
+    public void recordBytesSent(String operation, long bytes);
+
+    /**
+     * @param operation
+     *            操作名を指定する。
+     * @param bytes
+     *            受信した応答本文のバイト数を指定する。
+     */
+    public void recordBytesReceived(String operation, long bytes);
+}
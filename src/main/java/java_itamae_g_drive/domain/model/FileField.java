@@ -0,0 +1,30 @@
+package java_itamae_g_drive.domain.model;
+
+/**
+ * {@link FileProjection} で取得対象として指定できるファイルのフィールド。
+ */
+public enum FileField {
+    ID("id"),
+    NAME("name"),
+    MIME_TYPE("mimeType"),
+    PARENTS("parents"),
+    SIZE("size"),
+    MD5_CHECKSUM("md5Checksum"),
+    MODIFIED_TIME("modifiedTime"),
+    CREATED_TIME("createdTime"),
+    TRASHED("trashed"),
+    VERSION("version");
+
+    private final String fieldName;
+
+    private FileField(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    /**
+     * @return fieldName Google Drive API のフィールド名を返す。
+     */
+    public String getFieldName() {
+        return fieldName;
+    }
+}
@@ -0,0 +1,116 @@
+package java_itamae_g_drive.domain.model;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * ファイルを取得する際に応答へ含めるフィールドの組み合わせを管理する。
+ * <p>
+ * 指定したフィールドのみを要求するフィールドマスクを生成するため、不要なフィールドの転送と解析を省くことができる。
+ * {@link FileField#ID} は常に含む。インスタンスは不変であり、複数のスレッドから共有できる。
+ * </p>
+ */
+public final class FileProjection {
+    /**
+     * {@link FileField#ID} のみを取得する。
+     */
+    public static final FileProjection ID_ONLY = of(FileField.ID);
+
+    /**
+     * 射影を指定しない操作で取得するフィールド。
+     */
+    public static final FileProjection DEFAULT = of(FileField.ID,
+            FileField.NAME, FileField.MIME_TYPE, FileField.PARENTS);
+
+    private final Set<FileField> fields;
+    private final String fieldMask;
+
+    private FileProjection(EnumSet<FileField> fields) {
+        fields.add(FileField.ID);
+        this.fields = Collections.unmodifiableSet(fields);
+
+        StringBuilder mask = new StringBuilder();
+
+        for (FileField field : fields) {
+            if (mask.length() > 0) {
+                mask.append(',');
+            }
+
+            mask.append(field.getFieldName());
+        }
+
+        this.fieldMask = mask.toString();
+    }
+
+    /**
+     * @param fields
+     *            取得対象とするフィールドを指定する。
+     * @return projection 指定したフィールドと {@link FileField#ID} を取得する射影を返す。
+     */
+    public static FileProjection of(FileField... fields) {
+        EnumSet<FileField> set = EnumSet.noneOf(FileField.class);
+        Collections.addAll(set, fields);
+        return new FileProjection(set);
+    }
+
+    /**
+     * @param additionalFields
+     *            追加するフィールドを指定する。
+     * @return projection この射影に指定したフィールドを追加した射影を返す。
+     */
+    public FileProjection with(FileField... additionalFields) {
+        EnumSet<FileField> set = EnumSet.copyOf(fields);
+        Collections.addAll(set, additionalFields);
+        return new FileProjection(set);
+    }
+
+    /**
+     * @param field
+     *            確認対象とするフィールドを指定する。
+     * @return result フィールドを含む場合は true を返す。
+     */
+    public boolean contains(FileField field) {
+        return fields.contains(field);
+    }
+
+    /**
+     * @param other
+     *            比較対象とする射影を指定する。
+     * @return result other の全てのフィールドを含む場合は true を返す。
+     */
+    public boolean covers(FileProjection other) {
+        return fields.containsAll(other.fields);
+    }
+
+    /**
+     * @return fields 取得対象とするフィールドを返す。
+     */
+    public Set<FileField> getFields() {
+        return fields;
+    }
+
+    /**
+     * @return fieldMask files().get() の fields パラメータに指定するフィールドマスクを返す。
+     *         (例: id,name,size)
+     */
+    public String toFieldMask() {
+        return fieldMask;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof FileProjection
+                && fields.equals(((FileProjection) obj).fields);
+    }
+
+    @Override
+    public int hashCode() {
+        return fields.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return fieldMask;
+    }
+}
@@ -0,0 +1,255 @@
+package java_itamae_g_drive.domain.model;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 計測値をメモリ上で集計する {@link DriveMetrics} 。
+ * <p>
+ * 所要時間はマイクロ秒単位の対数ヒストグラムで集計する。 2 の累乗ごとの区間を 4 分割するため、
+ * パーセンタイルの誤差は最大で 19% 程度となる。記録はロックを取得しない。
+ * </p>
+ */
+public class InMemoryDriveMetrics implements DriveMetrics {
+    private static final int SUB_BUCKETS = 4;
+    private static final int BUCKET_COUNT = 64 * SUB_BUCKETS;
+
+    private final ConcurrentMap<String, OperationStats> operations = new ConcurrentHashMap<>();
+
+    /**
+     * 1 つの操作の計測値。
+     */
+    private static class OperationStats {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder bytesSent = new LongAdder();
+        private final LongAdder bytesReceived = new LongAdder();
+        private final LongAdder totalMicros = new LongAdder();
+        private final LongAccumulator maxMicros = new LongAccumulator(Math::max,
+                0);
+        private final AtomicLongArray buckets = new AtomicLongArray(
+                BUCKET_COUNT);
+        private final ConcurrentMap<String, LongAdder> errors = new ConcurrentHashMap<>();
+    }
+
+    private OperationStats stats(String operation) {
+        OperationStats stats = operations.get(operation);
+
+        if (stats == null) {
+            stats = operations.computeIfAbsent(operation,
+                    key -> new OperationStats());
+        }
+
+        return stats;
+    }
+
+    @Override
+    public void recordRequest(String operation, long latencyNanos,
+            String errorCode) {
+        OperationStats stats = stats(operation);
+        long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+        stats.requests.increment();
+        stats.totalMicros.add(micros);
+        stats.maxMicros.accumulate(micros);
+        stats.buckets.incrementAndGet(bucketOf(micros));
+
+        if (errorCode != null) {
+            stats.errors.computeIfAbsent(errorCode, key -> new LongAdder())
+                    .increment();
+        }
+    }
+
+    @Override
+    public void recordRetry(String operation) {
+        stats(operation).retries.increment();
+    }
+
+    @Override
+    public void recordBytesSent(String operation, long bytes) {
+        stats(operation).bytesSent.add(bytes);
+    }
+
+    @Override
+    public void recordBytesReceived(String operation, long bytes) {
+        stats(operation).bytesReceived.add(bytes);
+    }
+
+    /**
+     * @param micros
+     *            所要時間をマイクロ秒単位で指定する。
+     * @return bucket 所要時間を集計する区間の番号を返す。
+     */
+    static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        int mantissa = (int) (micros >>> (exponent - 2)) & (SUB_BUCKETS - 1);
+        return exponent * SUB_BUCKETS + mantissa;
+    }
+
+    /**
+     * @param bucket
+     *            区間の番号を指定する。
+     * @return micros 区間の下限をマイクロ秒単位で返す。
+     */
+    static long lowerBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS * 2) {
+            return bucket < SUB_BUCKETS ? bucket : SUB_BUCKETS;
+        }
+
+        int exponent = bucket / SUB_BUCKETS;
+        int mantissa = bucket % SUB_BUCKETS;
+        return (long) (SUB_BUCKETS + mantissa) << (exponent - 2);
+    }
+
+    /**
+     * @return operations 記録済みの操作名を昇順で返す。
+     */
+    public Iterable<String> getOperations() {
+        return new TreeMap<>(operations).keySet();
+    }
+
+    /**
+     * @param operation
+     *            操作名を指定する。
+     * @return count 試行したリクエストの件数を返す。
+     */
+    public long getRequestCount(String operation) {
+        OperationStats stats = operations.get(operation);
+        return stats == null ? 0 : stats.requests.sum();
+    }
+
+    /**
+     * @param operation
+     *            操作名を指定する。
+     * @return count 再試行した回数を返す。
+     */
+    public long getRetryCount(String operation) {
+        OperationStats stats = operations.get(operation);
+        return stats == null ? 0 : stats.retries.sum();
+    }
+
+    /**
+     * @param operation
+     *            操作名を指定する。
+     * @return bytes 送信したバイト数を返す。
+     */
+    public long getBytesSent(String operation) {
+        OperationStats stats = operations.get(operation);
+        return stats == null ? 0 : stats.bytesSent.sum();
+    }
+
+    /**
+     * @param operation
+     *            操作名を指定する。
+     * @return bytes 受信したバイト数を返す。
+     */
+    public long getBytesReceived(String operation) {
+        OperationStats stats = operations.get(operation);
+        return stats == null ? 0 : stats.bytesReceived.sum();
+    }
+
+    /**
+     * @param operation
+     *            操作名を指定する。
+     * @return errors エラーコードごとの件数を返す。
+     */
+    public Map<String, Long> getErrorCounts(String operation) {
+        Map<String, Long> result = new TreeMap<>();
+        OperationStats stats = operations.get(operation);
+
+        if (stats != null) {
+            for (Map.Entry<String, LongAdder> entry : stats.errors
+                    .entrySet()) {
+                result.put(entry.getKey(), entry.getValue().sum());
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @param operation
+     *            操作名を指定する。
+     * @param percentile
+     *            0 より大きく 100 以下のパーセンタイルを指定する。
+     * @return micros 所要時間のパーセンタイルをマイクロ秒単位で返す。該当する区間の上限を返す。記録がない場合は 0 を返す。
+     */
+    public long getLatencyPercentile(String operation, double percentile) {
+        OperationStats stats = operations.get(operation);
+
+        if (stats == null) {
+            return 0;
+        }
+
+        long total = 0;
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += stats.buckets.get(i);
+        }
+
+        long rank = (long) Math.ceil(total * percentile / 100);
+        long count = 0;
+
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            count += stats.buckets.get(i);
+
+            if (count >= rank && count > 0) {
+                return Math.min(lowerBoundOf(i + 1) - 1,
+                        stats.maxMicros.get());
+            }
+        }
+
+        return stats.maxMicros.get();
+    }
+
+    /**
+     * @return summary 操作ごとの件数、所要時間 (ミリ秒) 、転送量、エラーコードを表形式で返す。
+     */
+    public String summary() {
+        StringBuilder summary = new StringBuilder(String.format(
+                "%-20s %8s %7s %7s %9s %9s %9s %9s %9s %13s %13s%n",
+                "operation", "requests", "errors", "retries", "avg(ms)",
+                "p50(ms)", "p90(ms)", "p99(ms)", "max(ms)", "sent(B)",
+                "received(B)"));
+
+        for (String operation : getOperations()) {
+            OperationStats stats = operations.get(operation);
+            long requests = stats.requests.sum();
+            long errors = 0;
+
+            for (LongAdder count : stats.errors.values()) {
+                errors += count.sum();
+            }
+
+            summary.append(String.format(
+                    "%-20s %8d %7d %7d %9.1f %9.1f %9.1f %9.1f %9.1f %13d %13d%n",
+                    operation, requests, errors, stats.retries.sum(),
+                    requests == 0 ? 0.0
+                            : stats.totalMicros.sum() / 1000.0 / requests,
+                    getLatencyPercentile(operation, 50) / 1000.0,
+                    getLatencyPercentile(operation, 90) / 1000.0,
+                    getLatencyPercentile(operation, 99) / 1000.0,
+                    stats.maxMicros.get() / 1000.0, stats.bytesSent.sum(),
+                    stats.bytesReceived.sum()));
+        }
+
+        for (String operation : getOperations()) {
+            for (Map.Entry<String, Long> entry : getErrorCounts(operation)
+                    .entrySet()) {
+                summary.append(String.format("error: %s %s x%d%n", operation,
+                        entry.getKey(), entry.getValue()));
+            }
+        }
+
+        return summary.toString();
+    }
+}
@@ -0,0 +1,141 @@
+package java_itamae_g_drive.domain.model;
+
+/**
+ * マニフェストの 1 行分の操作を管理する。
+ */
+public class ManifestEntry {
+    /**
+     * ローカルファイルを親ディレクトリへアップロードする操作。
+     */
+    public static final String UPLOAD = "upload";
+
+    /**
+     * ファイルをローカルディレクトリへダウンロードする操作。
+     */
+    public static final String DOWNLOAD = "download";
+
+    /**
+     * ファイルの内容をローカルファイルで更新する操作。
+     */
+    public static final String UPDATE = "update";
+
+    /**
+     * ファイルまたはディレクトリを削除する操作。
+     */
+    public static final String DELETE = "delete";
+
+    /**
+     * ファイルまたはディレクトリのメタデータを取得する操作。
+     */
+    public static final String GET = "get";
+
+    /**
+     * ファイルまたはディレクトリの名前を変更する操作。
+     */
+    public static final String RENAME = "rename";
+
+    private long lineNumber;
+    private String operation;
+    private String localPath;
+    private String fileId;
+    private String parentId;
+    private String name;
+
+    /**
+     * @return lineNumber マニフェスト上の 1 から始まる行番号を返す。
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @param lineNumber
+     *            マニフェスト上の 1 から始まる行番号を指定する。
+     */
+    public void setLineNumber(long lineNumber) {
+        this.lineNumber = lineNumber;
+    }
+
+    /**
+     * @return operation {@link #UPLOAD} などの操作名を返す。
+     */
+    public String getOperation() {
+        return operation;
+    }
+
+    /**
+     * @param operation
+     *            {@link #UPLOAD} などの操作名を指定する。
+     */
+    public void setOperation(String operation) {
+        this.operation = operation;
+    }
+
+    /**
+     * @return localPath アップロード・更新元のローカルファイル、またはダウンロード先のローカルディレクトリのパスを返す。
+     */
+    public String getLocalPath() {
+        return localPath;
+    }
+
+    /**
+     * @param localPath
+     *            アップロード・更新元のローカルファイル、またはダウンロード先のローカルディレクトリのパスを指定する。
+     */
+    public void setLocalPath(String localPath) {
+        this.localPath = localPath;
+    }
+
+    /**
+     * @return fileId 操作対象とするファイルまたはディレクトリの file_id を返す。
+     */
+    public String getFileId() {
+        return fileId;
+    }
+
+    /**
+     * @param fileId
+     *            操作対象とするファイルまたはディレクトリの file_id を指定する。
+     */
+    public void setFileId(String fileId) {
+        this.fileId = fileId;
+    }
+
+    /**
+     * @return parentId アップロード先の親ディレクトリの file_id を返す。
+     */
+    public String getParentId() {
+        return parentId;
+    }
+
+    /**
+     * @param parentId
+     *            アップロード先の親ディレクトリの file_id を指定する。
+     */
+    public void setParentId(String parentId) {
+        this.parentId = parentId;
+    }
+
+    /**
+     * @return name 変更後の名前を返す。
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @param name
+     *            変更後の名前を指定する。
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return key 操作名と引数が同じ行で等しくなる文字列を返す。
+     */
+    public String getKey() {
+        return operation + '\t' + fileId + '\t' + localPath + '\t' + parentId
+                + '\t' + name;
+    }
+}
@@ -0,0 +1,81 @@
+package java_itamae_g_drive.domain.model;
+
+import com.google.api.services.drive.model.File;
+
+/**
+ * マニフェストの 1 行分の操作結果を管理する。
+ */
+public class ManifestResult {
+    private ManifestEntry entry;
+    private File remoteFile;
+    private String error;
+    private boolean skipped;
+
+    /**
+     * @return entry 実行した操作を返す。
+     */
+    public ManifestEntry getEntry() {
+        return entry;
+    }
+
+    /**
+     * @param entry
+     *            実行した操作を指定する。
+     */
+    public void setEntry(ManifestEntry entry) {
+        this.entry = entry;
+    }
+
+    /**
+     * @return remoteFile 操作対象の Google Drive 上のファイルを返す。削除した場合と失敗した場合は null
+     *         を返す。
+     */
+    public File getRemoteFile() {
+        return remoteFile;
+    }
+
+    /**
+     * @param remoteFile
+     *            操作対象の Google Drive 上のファイルを指定する。
+     */
+    public void setRemoteFile(File remoteFile) {
+        this.remoteFile = remoteFile;
+    }
+
+    /**
+     * @return error 操作に失敗した原因を返す。成功した場合は null を返す。
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * @param error
+     *            操作に失敗した原因を指定する。
+     */
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    /**
+     * @return status 操作に成功した場合は true を返す。
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * @return skipped 重複した操作のため実行しなかった場合は true を返す。
+     */
+    public boolean isSkipped() {
+        return skipped;
+    }
+
+    /**
+     * @param skipped
+     *            操作を実行しなかった場合は true を指定する。
+     */
+    public void setSkipped(boolean skipped) {
+        this.skipped = skipped;
+    }
+}
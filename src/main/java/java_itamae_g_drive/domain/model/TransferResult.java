@@ -0,0 +1,81 @@
+package java_itamae_g_drive.domain.model;
+
+import com.google.api.services.drive.model.File;
+
+/**
+ * ファイル 1 件分の転送結果を管理する。
+ */
+public class TransferResult {
+    private String localPath;
+    private File remoteFile;
+    private Exception error;
+    private boolean skipped;
+
+    /**
+     * @return localPath 転送元または転送先のローカルファイルのパスを返す。
+     */
+    public String getLocalPath() {
+        return localPath;
+    }
+
+    /**
+     * @param localPath
+     *            転送元または転送先のローカルファイルのパスを指定する。
+     */
+    public void setLocalPath(String localPath) {
+        this.localPath = localPath;
+    }
+
+    /**
+     * @return remoteFile 転送元または転送先の Google Drive 上のファイルを返す。アップロードに失敗した場合は
+     *         null を返す。
+     */
+    public File getRemoteFile() {
+        return remoteFile;
+    }
+
+    /**
+     * @param remoteFile
+     *            転送元または転送先の Google Drive 上のファイルを指定する。
+     */
+    public void setRemoteFile(File remoteFile) {
+        this.remoteFile = remoteFile;
+    }
+
+    /**
+     * @return error 転送に失敗した原因を返す。転送に成功した場合は null を返す。
+     */
+    public Exception getError() {
+        return error;
+    }
+
+    /**
+     * @param error
+     *            転送に失敗した原因を指定する。
+     */
+    public void setError(Exception error) {
+        this.error = error;
+    }
+
+    /**
+     * @return status 転送に成功した場合は true を返す。
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * @return skipped 転送先に同じ内容のファイルが存在したため転送を省略した場合は true を返す。
+     */
+    public boolean isSkipped() {
+        return skipped;
+    }
+
+    /**
+     * @param skipped
+     *            転送を省略した場合は true を指定する。
+     */
+    public void setSkipped(boolean skipped) {
+        this.skipped = skipped;
+    }
+}
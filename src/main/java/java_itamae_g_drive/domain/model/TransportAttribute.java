@@ -0,0 +1,121 @@
+package java_itamae_g_drive.domain.model;
+
+/**
+ * Google Drive API との通信に使用する HTTP 接続の設定値を管理する。
+ */
+public class TransportAttribute {
+    /**
+     * 接続先 1 件あたりに保持する接続数の上限の既定値。
+     */
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 20;
+
+    /**
+     * 全ての接続先で保持する接続数の上限の既定値。
+     */
+    public static final int DEFAULT_MAX_CONNECTIONS_TOTAL = 200;
+
+    /**
+     * 接続のタイムアウトの既定値 (ミリ秒) 。
+     */
+    public static final int DEFAULT_CONNECT_TIMEOUT = 20 * 1000;
+
+    /**
+     * 読み込みのタイムアウトの既定値 (ミリ秒) 。
+     */
+    public static final int DEFAULT_READ_TIMEOUT = 60 * 1000;
+
+    private int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+    private int maxConnectionsTotal = DEFAULT_MAX_CONNECTIONS_TOTAL;
+    private int connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+    private int readTimeout = DEFAULT_READ_TIMEOUT;
+    private boolean gzip = true;
+
+    /**
+     * @return maxConnectionsPerRoute 接続先 1 件あたりに保持する接続数の上限を返す。
+     */
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    /**
+     * @param maxConnectionsPerRoute
+     *            接続先 1 件あたりに保持する接続数の上限を指定する。同時に実行する転送の数以上を指定する。
+     */
+    public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        if (maxConnectionsPerRoute < 1) {
+            throw new IllegalArgumentException(
+                    "maxConnectionsPerRoute には 1 以上の数値を指定してください。: "
+                            + maxConnectionsPerRoute);
+        }
+
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    }
+
+    /**
+     * @return maxConnectionsTotal 全ての接続先で保持する接続数の上限を返す。
+     */
+    public int getMaxConnectionsTotal() {
+        return maxConnectionsTotal;
+    }
+
+    /**
+     * @param maxConnectionsTotal
+     *            全ての接続先で保持する接続数の上限を指定する。
+     */
+    public void setMaxConnectionsTotal(int maxConnectionsTotal) {
+        if (maxConnectionsTotal < 1) {
+            throw new IllegalArgumentException(
+                    "maxConnectionsTotal には 1 以上の数値を指定してください。: "
+                            + maxConnectionsTotal);
+        }
+
+        this.maxConnectionsTotal = maxConnectionsTotal;
+    }
+
+    /**
+     * @return connectTimeout 接続のタイムアウト (ミリ秒) を返す。
+     */
+    public int getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * @param connectTimeout
+     *            接続のタイムアウト (ミリ秒) を指定する。接続プールの空きを待機する時間にも適用される。 0
+     *            の場合はタイムアウトしない。
+     */
+    public void setConnectTimeout(int connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    /**
+     * @return readTimeout 読み込みのタイムアウト (ミリ秒) を返す。
+     */
+    public int getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * @param readTimeout
+     *            読み込みのタイムアウト (ミリ秒) を指定する。 0 の場合はタイムアウトしない。
+     */
+    public void setReadTimeout(int readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * @return gzip リクエスト・レスポンスを gzip で圧縮する場合は true を返す。
+     */
+    public boolean isGzip() {
+        return gzip;
+    }
+
+    /**
+     * @param gzip
+     *            リクエスト・レスポンスを gzip で圧縮する場合は true を指定する。
+     *            レジューム可能なアップロードのチャンクは圧縮しない。
+     */
+    public void setGzip(boolean gzip) {
+        this.gzip = gzip;
+    }
+}
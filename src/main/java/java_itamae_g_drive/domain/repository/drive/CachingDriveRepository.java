@@ -0,0 +1,472 @@
+package java_itamae_g_drive.domain.repository.drive;
+
+import java.io.InputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import com.google.api.services.drive.model.File;
+
+import java_itamae_g_drive.domain.model.BatchResult;
+import java_itamae_g_drive.domain.model.FileProjection;
+
+/**
+ * {@link #findByFileId(String)}, {@link #findByParentId(String)},
+ * {@link #getDriveRootId()} の結果をメモリ上にキャッシュする。
+ * <p>
+ * エントリー数が上限を超えた場合は最も長く参照されていないエントリーから破棄し、有効期限を過ぎたエントリーは参照時に破棄する。
+ * このインスタンスを経由したアップロード・更新・削除では、影響を受けるエントリーを更新または破棄する。
+ * ディレクトリを削除した場合は、キャッシュ上でその配下に位置するファイルのエントリーも破棄する。
+ * 他のプロセスや他のインスタンスによる変更は有効期限が切れるまで反映されない。
+ * </p>
+ */
+public class CachingDriveRepository extends DriveRepositoryDecorator {
+    private static final String FILE_KEY = "file:";
+    private static final String CHILDREN_KEY = "children:";
+
+    private static class CacheEntry {
+        final Object value;
+        final long expiresAt;
+
+        CacheEntry(Object value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final Map<String, CacheEntry> entries;
+    private volatile String rootId;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * @param delegate
+     *            処理を委譲する {@link DriveRepository} を指定する。
+     * @param maxEntries
+     *            キャッシュに保持するエントリー数の上限を指定する。
+     * @param ttl
+     *            エントリーの有効期限を指定する。
+     * @param unit
+     *            ttl の単位を指定する。
+     */
+    public CachingDriveRepository(DriveRepository delegate, int maxEntries,
+            long ttl, TimeUnit unit) {
+        this(delegate, maxEntries, ttl, unit, System::nanoTime);
+    }
+
+    CachingDriveRepository(DriveRepository delegate, final int maxEntries,
+            long ttl, TimeUnit unit, LongSupplier clock) {
+        super(delegate);
+
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException(
+                    "maxEntries には 1 以上の数値を指定してください。: " + maxEntries);
+        }
+
+        this.ttlNanos = unit.toNanos(ttl);
+        this.clock = clock;
+        this.entries = new LinkedHashMap<String, CacheEntry>(16, 0.75f,
+                true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<String, CacheEntry> eldest) {
+                if (size() > maxEntries) {
+                    evictionCount++;
+                    return true;
+                }
+
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public List<File> findByParentId(String parentId) throws Exception {
+        @SuppressWarnings("unchecked")
+        List<File> cached = (List<File>) get(CHILDREN_KEY + parentId);
+
+        if (cached != null) {
+            return copyOf(cached);
+        }
+
+        List<File> result = delegate.findByParentId(parentId);
+        put(CHILDREN_KEY + parentId, copyOf(result));
+
+        for (File file : result) {
+            put(FILE_KEY + file.getId(), file.clone());
+        }
+
+        return result;
+    }
+
+    @Override
+    public List<File> findByParentId(String parentId,
+            FileProjection projection) throws Exception {
+        // キャッシュは既定のフィールドのみを保持するため、それ以外のフィールドを要求された場合は委譲する。
+        if (FileProjection.DEFAULT.covers(projection)) {
+            return findByParentId(parentId);
+        }
+
+        return delegate.findByParentId(parentId, projection);
+    }
+
+    @Override
+    public File findByFileId(String fileId, FileProjection projection)
+            throws Exception {
+        if (FileProjection.DEFAULT.covers(projection)) {
+            return findByFileId(fileId);
+        }
+
+        return delegate.findByFileId(fileId, projection);
+    }
+
+    @Override
+    public File findByFileId(String fileId) throws Exception {
+        File cached = (File) get(FILE_KEY + fileId);
+
+        if (cached != null) {
+            return cached.clone();
+        }
+
+        File result = delegate.findByFileId(fileId);
+        put(FILE_KEY + fileId, result.clone());
+        return result;
+    }
+
+    @Override
+    public List<BatchResult> findByFileIds(Collection<String> fileIds)
+            throws Exception {
+        List<BatchResult> resultList = new ArrayList<>();
+        List<String> missingIds = new ArrayList<>();
+
+        for (String fileId : fileIds) {
+            BatchResult result = new BatchResult();
+            result.setFileId(fileId);
+
+            File cached = (File) get(FILE_KEY + fileId);
+
+            if (cached != null) {
+                result.setFile(cached.clone());
+            } else {
+                missingIds.add(fileId);
+            }
+
+            resultList.add(result);
+        }
+
+        if (missingIds.isEmpty()) {
+            return resultList;
+        }
+
+        Iterator<BatchResult> fetched = delegate.findByFileIds(missingIds)
+                .iterator();
+
+        for (int i = 0; i < resultList.size(); i++) {
+            if (resultList.get(i).getFile() == null) {
+                BatchResult result = fetched.next();
+                resultList.set(i, result);
+
+                if (result.isSuccess()) {
+                    put(FILE_KEY + result.getFileId(),
+                            result.getFile().clone());
+                }
+            }
+        }
+
+        return resultList;
+    }
+
+    @Override
+    public File upload(String localFilePath, String remoteParentId)
+            throws Exception {
+        return uploaded(delegate.upload(localFilePath, remoteParentId),
+                remoteParentId);
+    }
+
+    @Override
+    public File upload(String localFilePath) throws Exception {
+        return upload(localFilePath, ROOT_ID);
+    }
+
+    @Override
+    public File upload(InputStream content, String name, String remoteParentId)
+            throws Exception {
+        return uploaded(delegate.upload(content, name, remoteParentId),
+                remoteParentId);
+    }
+
+    @Override
+    public File upload(ReadableByteChannel content, String name,
+            String remoteParentId) throws Exception {
+        return uploaded(delegate.upload(content, name, remoteParentId),
+                remoteParentId);
+    }
+
+    private File uploaded(File result, String remoteParentId) {
+        invalidateChildren(remoteParentId);
+        put(FILE_KEY + result.getId(), result.clone());
+        return result;
+    }
+
+    @Override
+    public java.io.File download(String localDirPath, String remoteFileId)
+            throws Exception {
+        return delegate.download(localDirPath, findByFileId(remoteFileId));
+    }
+
+    @Override
+    public File update(String localFilePath, String remoteFileId)
+            throws Exception {
+        File before = peek(FILE_KEY + remoteFileId);
+        File result = delegate.update(localFilePath, remoteFileId);
+        updated(before, result);
+        return result;
+    }
+
+    @Override
+    public void delete(String fileId) throws Exception {
+        File before = peek(FILE_KEY + fileId);
+        delegate.delete(fileId);
+        deleted(fileId, before);
+    }
+
+    @Override
+    public List<BatchResult> updateMetadataAll(Map<String, File> metaFiles)
+            throws Exception {
+        List<File> beforeList = new ArrayList<>();
+
+        for (String fileId : metaFiles.keySet()) {
+            beforeList.add(peek(FILE_KEY + fileId));
+        }
+
+        List<BatchResult> resultList = delegate.updateMetadataAll(metaFiles);
+
+        for (int i = 0; i < resultList.size(); i++) {
+            BatchResult result = resultList.get(i);
+
+            if (result.isSuccess()) {
+                updated(beforeList.get(i), result.getFile());
+            }
+        }
+
+        return resultList;
+    }
+
+    @Override
+    public List<BatchResult> deleteAll(Collection<String> fileIds)
+            throws Exception {
+        List<File> beforeList = new ArrayList<>();
+
+        for (String fileId : fileIds) {
+            beforeList.add(peek(FILE_KEY + fileId));
+        }
+
+        List<BatchResult> resultList = delegate.deleteAll(fileIds);
+
+        for (int i = 0; i < resultList.size(); i++) {
+            BatchResult result = resultList.get(i);
+
+            if (result.isSuccess()) {
+                deleted(result.getFileId(), beforeList.get(i));
+            }
+        }
+
+        return resultList;
+    }
+
+    @Override
+    public String getDriveRootId() throws Exception {
+        String cached = rootId;
+
+        if (cached != null) {
+            synchronized (this) {
+                hitCount++;
+            }
+
+            return cached;
+        }
+
+        synchronized (this) {
+            missCount++;
+        }
+
+        // ルートディレクトリの file_id は変化しないため、有効期限を設けない。
+        rootId = delegate.getDriveRootId();
+        return rootId;
+    }
+
+    /**
+     * @return hitCount キャッシュから結果を返した回数を返す。
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * @return missCount キャッシュに有効なエントリーが存在しなかった回数を返す。
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return evictionCount エントリー数の上限を超えたために破棄したエントリーの件数を返す。
+     */
+    public synchronized long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return size 現在保持しているエントリーの件数を返す。
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * 全てのエントリーを破棄する。
+     */
+    public synchronized void clear() {
+        entries.clear();
+        rootId = null;
+    }
+
+    private synchronized Object get(String key) {
+        CacheEntry entry = entries.get(key);
+
+        if (entry != null && clock.getAsLong() - entry.expiresAt >= 0) {
+            entries.remove(key);
+            entry = null;
+        }
+
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+
+        hitCount++;
+        return entry.value;
+    }
+
+    /**
+     * 統計値を更新せずにエントリーを参照する。
+     */
+    private synchronized File peek(String key) {
+        CacheEntry entry = entries.get(key);
+        return entry == null ? null : (File) entry.value;
+    }
+
+    private synchronized void put(String key, Object value) {
+        entries.put(key,
+                new CacheEntry(value, clock.getAsLong() + ttlNanos));
+    }
+
+    private synchronized void invalidateChildren(String parentId) {
+        entries.remove(CHILDREN_KEY + parentId);
+
+        // ルートディレクトリは別名と実際の file_id の両方で参照され得る。
+        if (ROOT_ID.equals(parentId) || parentId.equals(rootId)) {
+            entries.remove(CHILDREN_KEY + ROOT_ID);
+
+            if (rootId != null) {
+                entries.remove(CHILDREN_KEY + rootId);
+            }
+        }
+    }
+
+    private synchronized void invalidateAllChildren() {
+        entries.keySet().removeIf(key -> key.startsWith(CHILDREN_KEY));
+    }
+
+    private synchronized void invalidateParentsOf(File file) {
+        if (file == null || file.getParents() == null) {
+            // 親ディレクトリが不明な場合はどの一覧が影響を受けたか判断できない。
+            invalidateAllChildren();
+            return;
+        }
+
+        for (String parentId : file.getParents()) {
+            invalidateChildren(parentId);
+        }
+    }
+
+    private synchronized void updated(File before, File after) {
+        if (before != null) {
+            invalidateParentsOf(before);
+        }
+
+        invalidateParentsOf(after);
+        put(FILE_KEY + after.getId(), after.clone());
+    }
+
+    private synchronized void deleted(String fileId, File before) {
+        invalidateDescendants(fileId);
+        invalidateParentsOf(before);
+    }
+
+    /**
+     * 指定したファイルと、キャッシュ上でその配下に位置するエントリーを破棄する。
+     * <p>
+     * ディレクトリを削除するとその配下のファイルもまとめて削除されるため、親ディレクトリを辿って子孫のエントリーも破棄する。
+     * </p>
+     */
+    private synchronized void invalidateDescendants(String fileId) {
+        Deque<String> pending = new ArrayDeque<>();
+        Set<String> removed = new HashSet<>();
+        pending.add(fileId);
+
+        while (!pending.isEmpty()) {
+            String id = pending.poll();
+
+            if (!removed.add(id)) {
+                continue;
+            }
+
+            entries.remove(FILE_KEY + id);
+            entries.remove(CHILDREN_KEY + id);
+
+            for (Iterator<Map.Entry<String, CacheEntry>> it = entries
+                    .entrySet().iterator(); it.hasNext();) {
+                Map.Entry<String, CacheEntry> entry = it.next();
+
+                if (!entry.getKey().startsWith(FILE_KEY)) {
+                    continue;
+                }
+
+                List<String> parents = ((File) entry.getValue().value)
+                        .getParents();
+
+                if (parents != null && parents.contains(id)) {
+                    it.remove();
+                    pending.add(entry.getKey().substring(FILE_KEY.length()));
+                }
+            }
+        }
+    }
+
+    private static List<File> copyOf(List<File> fileList) {
+        List<File> copy = new ArrayList<>(fileList.size());
+
+        for (File file : fileList) {
+            copy.add(file.clone());
+        }
+
+        return copy;
+    }
+}
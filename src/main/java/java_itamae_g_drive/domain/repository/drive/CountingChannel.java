@@ -0,0 +1,45 @@
+package java_itamae_g_drive.domain.repository.drive;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * 読み込んだバイト数を数える {@link ReadableByteChannel} 。
+ */
+class CountingChannel implements ReadableByteChannel {
+    private final ReadableByteChannel channel;
+    private long count;
+
+    CountingChannel(ReadableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        int read = channel.read(dst);
+
+        if (read > 0) {
+            count += read;
+        }
+
+        return read;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return channel.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * @return count これまでに読み込んだバイト数を返す。
+     */
+    long getCount() {
+        return count;
+    }
+}
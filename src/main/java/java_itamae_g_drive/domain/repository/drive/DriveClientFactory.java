@@ -0,0 +1,189 @@
+package java_itamae_g_drive.domain.repository.drive;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.security.GeneralSecurityException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.apache.http.conn.params.ConnManagerParams;
+import org.apache.http.conn.params.ConnPerRouteBean;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.params.HttpParams;
+
+import com.google.api.client.googleapis.GoogleUtils;
+import com.google.api.client.http.HttpRequestInitializer;
+import com.google.api.client.http.HttpTransport;
+import com.google.api.client.http.apache.ApacheHttpTransport;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.services.drive.Drive;
+
+import java_itamae_g_auth.domain.model.AuthenticationAttribure;
+import java_itamae_g_drive.domain.model.DriveAttribute;
+import java_itamae_g_drive.domain.model.TransportAttribute;
+
+/**
+ * {@link Drive} と、その通信に使用する HTTP トランスポートを作成する。
+ * <p>
+ * 接続プールを持つ Apache HttpClient のトランスポートは設定値ごとに 1 つだけ作成し、全てのリポジトリで共有する。
+ * {@link Drive} も認証情報とトランスポートの組み合わせごとに共有するため、 {@link RateLimiter}
+ * も同じユーザーの全ての操作で共有される。 {@link Drive} は認証情報を参照するため弱参照で保持し、
+ * 使用するリポジトリがなくなった時点で認証情報と共に破棄できるようにする。
+ * </p>
+ */
+public final class DriveClientFactory {
+    private static final Map<String, HttpTransport> TRANSPORTS = new HashMap<>();
+    private static final Map<Object, Map<String, WeakReference<Drive>>> DRIVES = new WeakHashMap<>();
+
+    private DriveClientFactory() {
+    }
+
+    /**
+     * @param transportAttr
+     *            HTTP 接続の設定を指定する。
+     * @return transport 設定値が同じ場合は作成済みのトランスポートを返す。
+     * @throws GeneralSecurityException
+     *             {@link java.security.GeneralSecurityException}
+     * @throws IOException
+     *             {@link java.io.IOException}
+     */
+    public static HttpTransport getSharedTransport(
+            TransportAttribute transportAttr)
+            throws GeneralSecurityException, IOException {
+        String key = transportAttr.getMaxConnectionsPerRoute() + "/"
+                + transportAttr.getMaxConnectionsTotal();
+
+        synchronized (TRANSPORTS) {
+            HttpTransport transport = TRANSPORTS.get(key);
+
+            if (transport == null) {
+                transport = newPooledTransport(transportAttr);
+                TRANSPORTS.put(key, transport);
+            }
+
+            return transport;
+        }
+    }
+
+    /**
+     * @param transportAttr
+     *            HTTP 接続の設定を指定する。
+     * @return transport 接続プールを持つ新しいトランスポートを返す。
+     * @throws GeneralSecurityException
+     *             {@link java.security.GeneralSecurityException}
+     * @throws IOException
+     *             {@link java.io.IOException}
+     */
+    static ApacheHttpTransport newPooledTransport(
+            TransportAttribute transportAttr)
+            throws GeneralSecurityException, IOException {
+        ApacheHttpTransport.Builder builder = new ApacheHttpTransport.Builder()
+                .trustCertificates(GoogleUtils.getCertificateTrustStore());
+        HttpParams params = builder.getHttpParams();
+        ConnManagerParams.setMaxConnectionsPerRoute(params,
+                new ConnPerRouteBean(
+                        transportAttr.getMaxConnectionsPerRoute()));
+        ConnManagerParams.setMaxTotalConnections(params,
+                transportAttr.getMaxConnectionsTotal());
+        // 再利用前にサーバー側で切断済みの接続を検出する。確認後に切断された場合は
+        // NoHttpResponseException となり、 RetryPolicy が再試行する。
+        HttpConnectionParams.setStaleCheckingEnabled(params, true);
+        HttpConnectionParams.setTcpNoDelay(params, true);
+        return builder.build();
+    }
+
+    /**
+     * @param transport
+     *            通信に使用するトランスポートを指定する。
+     * @param jsonFactory
+     *            JSON の解析に使用する {@link JsonFactory} を指定する。
+     * @param credential
+     *            リクエストに認証情報を付与する {@link HttpRequestInitializer} を指定する。不要な場合は
+     *            null を指定する。
+     * @param transportAttr
+     *            タイムアウトと圧縮の設定を指定する。
+     * @return builder 設定を適用した {@link Drive.Builder} を返す。
+     */
+    public static Drive.Builder newDriveBuilder(HttpTransport transport,
+            JsonFactory jsonFactory, final HttpRequestInitializer credential,
+            final TransportAttribute transportAttr) {
+        HttpRequestInitializer initializer = request -> {
+            if (credential != null) {
+                credential.initialize(request);
+            }
+
+            request.setConnectTimeout(transportAttr.getConnectTimeout());
+            request.setReadTimeout(transportAttr.getReadTimeout());
+
+            if (!transportAttr.isGzip()) {
+                request.getHeaders().setAcceptEncoding(null);
+            }
+        };
+
+        // API のリクエストはヘッダーを初期化後に上書きするため、こちらでも設定する。
+        return new Drive.Builder(transport, jsonFactory, initializer)
+                .setGoogleClientRequestInitializer(request -> {
+                    request.setDisableGZipContent(!transportAttr.isGzip());
+
+                    if (!transportAttr.isGzip()) {
+                        request.getRequestHeaders().setAcceptEncoding(null);
+                    }
+                });
+    }
+
+    /**
+     * @param authAttr
+     *            認証情報を指定する。
+     * @param driveAttr
+     *            HTTP 接続の設定を指定する。 {@link DriveAttribute#getTransportAttribute()}
+     *            が null の場合は authAttr のトランスポートをそのまま使用する。
+     * @return drive 認証情報とトランスポートの組み合わせごとに共有する {@link Drive} を返す。
+     */
+    static Drive getDrive(AuthenticationAttribure authAttr,
+            DriveAttribute driveAttr) {
+        TransportAttribute transportAttr = driveAttr.getTransportAttribute();
+
+        if (transportAttr == null) {
+            return new Drive.Builder(authAttr.getHttpTransport(),
+                    authAttr.getJsonFactory(), authAttr.getCredential())
+                            .build();
+        }
+
+        HttpTransport transport;
+
+        try {
+            transport = getSharedTransport(transportAttr);
+        } catch (GeneralSecurityException | IOException e) {
+            throw new IllegalStateException("HTTP トランスポートを作成できませんでした。", e);
+        }
+
+        Object owner = authAttr.getCredential() == null ? DriveClientFactory.class
+                : authAttr.getCredential();
+
+        synchronized (DRIVES) {
+            Map<String, WeakReference<Drive>> drives = DRIVES.get(owner);
+
+            if (drives == null) {
+                drives = new HashMap<>();
+                DRIVES.put(owner, drives);
+            }
+
+            String key = String.format("%d/%d/%d/%d/%b",
+                    transportAttr.getMaxConnectionsPerRoute(),
+                    transportAttr.getMaxConnectionsTotal(),
+                    transportAttr.getConnectTimeout(),
+                    transportAttr.getReadTimeout(), transportAttr.isGzip());
+            WeakReference<Drive> reference = drives.get(key);
+            Drive drive = reference == null ? null : reference.get();
+
+            if (drive == null) {
+                drive = newDriveBuilder(transport, authAttr.getJsonFactory(),
+                        authAttr.getCredential(), transportAttr).build();
+                drives.put(key, new WeakReference<>(drive));
+            }
+
+            return drive;
+        }
+    }
+}
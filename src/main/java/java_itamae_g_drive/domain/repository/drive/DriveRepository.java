@@ -1,10 +1,35 @@
 package java_itamae_g_drive.domain.repository.drive;
 
+import java.io.InputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
+import com.google.api.services.drive.model.Change;
 import com.google.api.services.drive.model.File;
 
+import java_itamae_g_drive.domain.model.BatchResult;
+import java_itamae_g_drive.domain.model.CompactFileList;
+import java_itamae_g_drive.domain.model.FileProjection;
+
 public interface DriveRepository {
+    /**
+     * ルートディレクトリを表す file_id の別名。親ディレクトリの指定や検索条件に直接使用できる。
+     */
+    public static final String ROOT_ID = "root";
+
+    /**
+     * 1 ページあたりに取得するファイル数の上限値。
+     */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    /**
+     * 1 回のバッチリクエストにまとめる操作数の上限値。
+     */
+    public static final int MAX_BATCH_SIZE = 100;
+
     /**
      * Google Drive 上に存在する全てのファイル・ディレクトリの一覧を取得する。
      *
@@ -25,6 +50,20 @@ public interface DriveRepository {
      */
     public List<File> findByQuery(String query) throws Exception;
 
+    /**
+     * クエリに記述した検索条件に該当するファイル・ディレクトリの一覧を、指定したフィールドのみを取得して返す。
+     *
+     * @param query
+     *            検索対象とするクエリを指定する。
+     * @param projection
+     *            取得するフィールドを指定する。
+     * @return fileList ファイル・ディレクトリの一覧を返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public List<File> findByQuery(String query, FileProjection projection)
+            throws Exception;
+
     /**
      * 指定したディレクトリの配下に存在するファイル・ディレクトリの一覧を取得する。
      *
@@ -36,6 +75,123 @@ public interface DriveRepository {
      */
     public List<File> findByParentId(String parentId) throws Exception;
 
+    /**
+     * 指定したディレクトリの配下に存在するファイル・ディレクトリの一覧を、指定したフィールドのみを取得して返す。
+     *
+     * @param parentId
+     *            検索対象とするディレクトリの file_id を指定する。
+     * @param projection
+     *            取得するフィールドを指定する。
+     * @return fileList ファイル・ディレクトリの一覧を返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public List<File> findByParentId(String parentId,
+            FileProjection projection) throws Exception;
+
+    /**
+     * 指定したディレクトリの配下から、名前が一致するファイル・ディレクトリを検索する。ゴミ箱内のファイルは含まない。
+     *
+     * @param parentId
+     *            検索対象とするディレクトリの file_id を指定する。
+     * @param name
+     *            検索対象とする名前を指定する。
+     * @return fileList 名前が一致するファイル・ディレクトリの一覧を返す。 id, name, mimeType
+     *         が設定されている。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public List<File> findByParentIdAndName(String parentId, String name)
+            throws Exception;
+
+    /**
+     * Google Drive 上に存在する全てのファイル・ディレクトリをページ単位で遅延取得しながら走査する。
+     *
+     * @param pageSize
+     *            1 ページあたりに取得するファイル数を 1 から
+     *            {@link #MAX_PAGE_SIZE} の範囲で指定する。
+     * @return iterator ファイル・ディレクトリを走査する {@link FileIterator} を返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public FileIterator iterateAll(int pageSize) throws Exception;
+
+    /**
+     * クエリに記述した検索条件に該当するファイル・ディレクトリをページ単位で遅延取得しながら走査する。
+     *
+     * @param query
+     *            検索対象とするクエリを指定する。
+     * @param pageSize
+     *            1 ページあたりに取得するファイル数を 1 から
+     *            {@link #MAX_PAGE_SIZE} の範囲で指定する。
+     * @return iterator ファイル・ディレクトリを走査する {@link FileIterator} を返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public FileIterator iterateByQuery(String query, int pageSize)
+            throws Exception;
+
+    /**
+     * クエリに記述した検索条件に該当するファイル・ディレクトリを、指定したフィールドのみを取得しながらページ単位で走査する。
+     *
+     * @param query
+     *            検索対象とするクエリを指定する。全件を対象とする場合は null を指定する。
+     * @param pageSize
+     *            1 ページあたりに取得するファイル数を 1 から
+     *            {@link #MAX_PAGE_SIZE} の範囲で指定する。
+     * @param fields
+     *            取得するファイルのフィールドをカンマ区切りで指定する。 (例: id,name,md5Checksum)
+     * @return iterator ファイル・ディレクトリを走査する {@link FileIterator} を返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public FileIterator iterateByQuery(String query, int pageSize,
+            String fields) throws Exception;
+
+    /**
+     * クエリに記述した検索条件に該当するファイル・ディレクトリを、指定したフィールドのみを取得しながらページ単位で走査する。
+     *
+     * @param query
+     *            検索対象とするクエリを指定する。全件を対象とする場合は null を指定する。
+     * @param pageSize
+     *            1 ページあたりに取得するファイル数を 1 から
+     *            {@link #MAX_PAGE_SIZE} の範囲で指定する。
+     * @param projection
+     *            取得するフィールドを指定する。
+     * @return iterator ファイル・ディレクトリを走査する {@link FileIterator} を返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public FileIterator iterateByQuery(String query, int pageSize,
+            FileProjection projection) throws Exception;
+
+    /**
+     * 指定したディレクトリの配下に存在するファイル・ディレクトリをページ単位で遅延取得しながら走査する。
+     *
+     * @param parentId
+     *            検索対象とするディレクトリの file_id を指定する。
+     * @param pageSize
+     *            1 ページあたりに取得するファイル数を 1 から
+     *            {@link #MAX_PAGE_SIZE} の範囲で指定する。
+     * @return iterator ファイル・ディレクトリを走査する {@link FileIterator} を返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public FileIterator iterateByParentId(String parentId, int pageSize)
+            throws Exception;
+
+    /**
+     * クエリに記述した検索条件に該当するファイル・ディレクトリの id, name, mimeType, parents を、
+     * {@link File} を生成せずに列形式で取得する。
+     *
+     * @param query
+     *            検索対象とするクエリを指定する。全件を対象とする場合は null を指定する。
+     * @return list ファイル・ディレクトリの一覧を返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public CompactFileList findCompactByQuery(String query) throws Exception;
+
     /**
      * file_id をキーにファイルまたはディレクトリを検索する。
      *
@@ -47,6 +203,33 @@ public interface DriveRepository {
      */
     public File findByFileId(String fileId) throws Exception;
 
+    /**
+     * file_id をキーにファイルまたはディレクトリを検索し、指定したフィールドのみを取得して返す。
+     *
+     * @param fileId
+     *            検索対象とするファイルまたはディレクトリの file_id を指定する。
+     * @param projection
+     *            取得するフィールドを指定する。
+     * @return file ファイルまたはディレクトリを返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public File findByFileId(String fileId, FileProjection projection)
+            throws Exception;
+
+    /**
+     * 複数の file_id をキーにファイルまたはディレクトリを検索する。 {@link #MAX_BATCH_SIZE}
+     * 件ごとに 1 回のバッチリクエストへまとめて送信する。
+     *
+     * @param fileIds
+     *            検索対象とするファイルまたはディレクトリの file_id を指定する。
+     * @return resultList fileIds と同じ順序で操作結果を返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public List<BatchResult> findByFileIds(Collection<String> fileIds)
+            throws Exception;
+
     /**
      * ファイルまたはディレクトリをアップロードする。
      *
@@ -72,6 +255,43 @@ public interface DriveRepository {
      */
     public File upload(String localFilePath) throws Exception;
 
+    /**
+     * 長さが不明な内容をファイルとしてアップロードする。
+     * <p>
+     * 内容はレジューム可能なアップロードでチャンク単位に送信し、メモリには 1 チャンク分のみを保持する。
+     * ローカルファイルへの一時的な書き出しは行わない。 content は呼び出し元で閉じる。
+     * </p>
+     *
+     * @param content
+     *            アップロードする内容を指定する。
+     * @param name
+     *            作成するファイルの名前を指定する。
+     * @param remoteParentId
+     *            格納先ディレクトリの file_id を指定する。
+     * @return file アップロードされたファイルを返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public File upload(InputStream content, String name, String remoteParentId)
+            throws Exception;
+
+    /**
+     * 長さが不明な内容をファイルとしてアップロードする。
+     *
+     * @param content
+     *            アップロードする内容を指定する。呼び出し元で閉じる。
+     * @param name
+     *            作成するファイルの名前を指定する。
+     * @param remoteParentId
+     *            格納先ディレクトリの file_id を指定する。
+     * @return file アップロードされたファイルを返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     * @see #upload(InputStream, String, String)
+     */
+    public File upload(ReadableByteChannel content, String name,
+            String remoteParentId) throws Exception;
+
     /**
      * ファイルまたはディレクトリをダウンロードする。
      *
@@ -86,6 +306,47 @@ public interface DriveRepository {
     public java.io.File download(String localDirPath, String remoteFileId)
             throws Exception;
 
+    /**
+     * 取得済みのメタデータを使用してファイルまたはディレクトリをダウンロードする。メタデータの再取得は行わない。
+     *
+     * @param localDirPath
+     *            ダウンロード先ディレクトリのパスを指定する。
+     * @param remoteFile
+     *            ダウンロード対象とするファイルまたはディレクトリを指定する。 id, name, mimeType
+     *            が設定されている必要がある。
+     * @return file ダウンロードされたファイルまたはディレクトリを返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public java.io.File download(String localDirPath, File remoteFile)
+            throws Exception;
+
+    /**
+     * ファイルの内容を読み込む {@link ReadableByteChannel} を開く。内容はディスクへ書き込まず、受信した順に読み込める。
+     * 接続は close を呼び出すまで保持されるため、必ず close する。
+     *
+     * @param remoteFileId
+     *            読み込み対象とするファイルの file_id を指定する。
+     * @return channel ファイルの内容を読み込む {@link ReadableByteChannel} を返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public ReadableByteChannel openDownloadChannel(String remoteFileId)
+            throws Exception;
+
+    /**
+     * ファイルの内容を読み込む {@link InputStream} を開く。内容はディスクへ書き込まず、受信した順に読み込める。
+     * 接続は close を呼び出すまで保持されるため、必ず close する。
+     *
+     * @param remoteFileId
+     *            読み込み対象とするファイルの file_id を指定する。
+     * @return stream ファイルの内容を読み込む {@link InputStream} を返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public InputStream openDownloadStream(String remoteFileId)
+            throws Exception;
+
     /**
      * ファイルまたはディレクトリを更新する。
      *
@@ -110,6 +371,57 @@ public interface DriveRepository {
      */
     public void delete(String fileId) throws Exception;
 
+    /**
+     * 複数のファイルまたはディレクトリのメタデータを更新する。 {@link #MAX_BATCH_SIZE}
+     * 件ごとに 1 回のバッチリクエストへまとめて送信する。
+     *
+     * @param metaFiles
+     *            更新対象とする file_id と、更新後のメタデータの組を指定する。
+     * @return resultList metaFiles の反復順序と同じ順序で操作結果を返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public List<BatchResult> updateMetadataAll(Map<String, File> metaFiles)
+            throws Exception;
+
+    /**
+     * 複数のファイルまたはディレクトリを削除する。 {@link #MAX_BATCH_SIZE}
+     * 件ごとに 1 回のバッチリクエストへまとめて送信する。
+     *
+     * @param fileIds
+     *            削除対象とするファイルまたはディレクトリの file_id を指定する。
+     * @return resultList fileIds と同じ順序で操作結果を返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public List<BatchResult> deleteAll(Collection<String> fileIds)
+            throws Exception;
+
+    /**
+     * 現時点以降の変更を {@link #findChanges(String, String, Consumer)} で取得するためのトークンを取得する。
+     *
+     * @return pageToken 変更一覧の開始位置を示すトークンを返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public String getStartPageToken() throws Exception;
+
+    /**
+     * 指定したトークン以降に発生したファイル・ディレクトリの変更を全てのページを辿って取得する。
+     *
+     * @param pageToken
+     *            変更一覧の開始位置を示すトークンを指定する。
+     * @param fields
+     *            変更後のファイルについて取得するフィールドをカンマ区切りで指定する。
+     * @param listener
+     *            変更を 1 件ずつ受け取るリスナーを指定する。
+     * @return newStartPageToken 次回の取得で使用するトークンを返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public String findChanges(String pageToken, String fields,
+            Consumer<Change> listener) throws Exception;
+
     /**
      * Google Drive のルートディレクトリの ID を取得する。
      *
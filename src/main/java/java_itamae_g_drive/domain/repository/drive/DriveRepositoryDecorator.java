@@ -0,0 +1,197 @@
+package java_itamae_g_drive.domain.repository.drive;
+
+import java.io.InputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import com.google.api.services.drive.model.Change;
+import com.google.api.services.drive.model.File;
+
+import java_itamae_g_drive.domain.model.BatchResult;
+import java_itamae_g_drive.domain.model.CompactFileList;
+import java_itamae_g_drive.domain.model.FileProjection;
+
+/**
+ * 全ての操作を別の {@link DriveRepository} へ委譲する。
+ * 特定の操作に処理を追加する DriveRepository は、このクラスを継承して必要なメソッドのみをオーバーライドする。
+ */
+public abstract class DriveRepositoryDecorator implements DriveRepository {
+    protected final DriveRepository delegate;
+
+    protected DriveRepositoryDecorator(DriveRepository delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public List<File> findAll() throws Exception {
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<File> findByQuery(String query) throws Exception {
+        return delegate.findByQuery(query);
+    }
+
+    @Override
+    public List<File> findByQuery(String query, FileProjection projection)
+            throws Exception {
+        return delegate.findByQuery(query, projection);
+    }
+
+    @Override
+    public List<File> findByParentId(String parentId) throws Exception {
+        return delegate.findByParentId(parentId);
+    }
+
+    @Override
+    public List<File> findByParentId(String parentId,
+            FileProjection projection) throws Exception {
+        return delegate.findByParentId(parentId, projection);
+    }
+
+    @Override
+    public List<File> findByParentIdAndName(String parentId, String name)
+            throws Exception {
+        return delegate.findByParentIdAndName(parentId, name);
+    }
+
+    @Override
+    public FileIterator iterateAll(int pageSize) throws Exception {
+        return delegate.iterateAll(pageSize);
+    }
+
+    @Override
+    public FileIterator iterateByQuery(String query, int pageSize)
+            throws Exception {
+        return delegate.iterateByQuery(query, pageSize);
+    }
+
+    @Override
+    public FileIterator iterateByQuery(String query, int pageSize,
+            String fields) throws Exception {
+        return delegate.iterateByQuery(query, pageSize, fields);
+    }
+
+    @Override
+    public FileIterator iterateByQuery(String query, int pageSize,
+            FileProjection projection) throws Exception {
+        return delegate.iterateByQuery(query, pageSize, projection);
+    }
+
+    @Override
+    public FileIterator iterateByParentId(String parentId, int pageSize)
+            throws Exception {
+        return delegate.iterateByParentId(parentId, pageSize);
+    }
+
+    @Override
+    public CompactFileList findCompactByQuery(String query) throws Exception {
+        return delegate.findCompactByQuery(query);
+    }
+
+    @Override
+    public File findByFileId(String fileId) throws Exception {
+        return delegate.findByFileId(fileId);
+    }
+
+    @Override
+    public File findByFileId(String fileId, FileProjection projection)
+            throws Exception {
+        return delegate.findByFileId(fileId, projection);
+    }
+
+    @Override
+    public List<BatchResult> findByFileIds(Collection<String> fileIds)
+            throws Exception {
+        return delegate.findByFileIds(fileIds);
+    }
+
+    @Override
+    public File upload(String localFilePath, String remoteParentId)
+            throws Exception {
+        return delegate.upload(localFilePath, remoteParentId);
+    }
+
+    @Override
+    public File upload(String localFilePath) throws Exception {
+        return delegate.upload(localFilePath);
+    }
+
+    @Override
+    public File upload(InputStream content, String name, String remoteParentId)
+            throws Exception {
+        return delegate.upload(content, name, remoteParentId);
+    }
+
+    @Override
+    public File upload(ReadableByteChannel content, String name,
+            String remoteParentId) throws Exception {
+        return delegate.upload(content, name, remoteParentId);
+    }
+
+    @Override
+    public java.io.File download(String localDirPath, String remoteFileId)
+            throws Exception {
+        return delegate.download(localDirPath, remoteFileId);
+    }
+
+    @Override
+    public java.io.File download(String localDirPath, File remoteFile)
+            throws Exception {
+        return delegate.download(localDirPath, remoteFile);
+    }
+
+    @Override
+    public ReadableByteChannel openDownloadChannel(String remoteFileId)
+            throws Exception {
+        return delegate.openDownloadChannel(remoteFileId);
+    }
+
+    @Override
+    public InputStream openDownloadStream(String remoteFileId)
+            throws Exception {
+        return delegate.openDownloadStream(remoteFileId);
+    }
+
+    @Override
+    public File update(String localFilePath, String remoteFileId)
+            throws Exception {
+        return delegate.update(localFilePath, remoteFileId);
+    }
+
+    @Override
+    public void delete(String fileId) throws Exception {
+        delegate.delete(fileId);
+    }
+
+    @Override
+    public List<BatchResult> updateMetadataAll(Map<String, File> metaFiles)
+            throws Exception {
+        return delegate.updateMetadataAll(metaFiles);
+    }
+
+    @Override
+    public List<BatchResult> deleteAll(Collection<String> fileIds)
+            throws Exception {
+        return delegate.deleteAll(fileIds);
+    }
+
+    @Override
+    public String getStartPageToken() throws Exception {
+        return delegate.getStartPageToken();
+    }
+
+    @Override
+    public String findChanges(String pageToken, String fields,
+            Consumer<Change> listener) throws Exception {
+        return delegate.findChanges(pageToken, fields, listener);
+    }
+
+    @Override
+    public String getDriveRootId() throws Exception {
+        return delegate.getDriveRootId();
+    }
+}
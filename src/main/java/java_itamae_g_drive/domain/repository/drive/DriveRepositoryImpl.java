@@ -1,74 +1,282 @@
 package java_itamae_g_drive.domain.repository.drive;
 
-import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.api.client.googleapis.batch.BatchRequest;
+import com.google.api.client.googleapis.batch.json.JsonBatchCallback;
+import com.google.api.client.googleapis.json.GoogleJsonError;
 import com.google.api.client.http.FileContent;
+import com.google.api.client.http.HttpHeaders;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.HttpResponseException;
 import com.google.api.services.drive.Drive;
+import com.google.api.services.drive.model.Change;
+import com.google.api.services.drive.model.ChangeList;
 import com.google.api.services.drive.model.File;
-import com.google.api.services.drive.model.FileList;
+import com.google.api.services.drive.model.StartPageToken;
 
 import java_itamae_g_auth.domain.model.AuthenticationAttribure;
+import java_itamae_g_drive.domain.model.BatchResult;
+import java_itamae_g_drive.domain.model.CompactFileList;
+import java_itamae_g_drive.domain.model.DriveAttribute;
+import java_itamae_g_drive.domain.model.DriveMetrics;
+import java_itamae_g_drive.domain.model.FileProjection;
 
 public class DriveRepositoryImpl implements DriveRepository {
+    /**
+     * ファイルを取得・作成・更新する際に応答へ含めるフィールド。
+     */
+    static final String FILE_FIELDS = FileProjection.DEFAULT.toFieldMask();
+
+    /**
+     * 範囲に分割してダウンロードする際に取得するフィールド。
+     */
+    static final String MEDIA_FIELDS = "size,md5Checksum";
+
+    /**
+     * 範囲に分割してダウンロードする際に各範囲をダウンロードする回数の上限。
+     */
+    private static final int RANGE_ATTEMPTS = 3;
+
+    private static final int STATUS_PARTIAL_CONTENT = 206;
+
     private final Drive drive;
+    private final DriveAttribute driveAttr;
+    private final ResumableUploader resumableUploader;
+    private final RangedDownloader rangedDownloader;
+    private final RetryPolicy retryPolicy;
+    private final RateLimiter rateLimiter;
+    private final DriveMetrics metrics;
     private final Logger logger;
+    private volatile String rootId;
 
     public DriveRepositoryImpl(AuthenticationAttribure authAttr) {
-        logger = LoggerFactory.getLogger(this.getClass());
+        this(authAttr, new DriveAttribute());
+    }
+
+    public DriveRepositoryImpl(AuthenticationAttribure authAttr,
+            DriveAttribute driveAttr) {
+        this(DriveClientFactory.getDrive(authAttr, driveAttr), driveAttr);
+    }
+
+    public DriveRepositoryImpl(Drive drive) {
+        this(drive, new DriveAttribute());
+    }
+
+    public DriveRepositoryImpl(Drive drive, DriveAttribute driveAttr) {
+        this(drive, driveAttr, new RetryPolicy(driveAttr));
+    }
+
+    DriveRepositoryImpl(Drive drive, DriveAttribute driveAttr,
+            RetryPolicy retryPolicy) {
+        this(drive, driveAttr, retryPolicy,
+                RateLimiter.forDrive(drive, driveAttr));
+    }
 
-        Drive.Builder builder = new Drive.Builder(authAttr.getHttpTransport(),
-                authAttr.getJsonFactory(), authAttr.getCredential());
-        drive = builder.build();
+    DriveRepositoryImpl(Drive drive, DriveAttribute driveAttr,
+            RetryPolicy retryPolicy, RateLimiter rateLimiter) {
+        logger = LoggerFactory.getLogger(this.getClass());
+        this.drive = drive;
+        this.driveAttr = driveAttr;
+        this.retryPolicy = retryPolicy;
+        this.rateLimiter = rateLimiter;
+        this.metrics = driveAttr.getMetrics();
+        this.resumableUploader = new ResumableUploader(drive,
+                driveAttr.getChunkSize(),
+                new UploadSessionStore(driveAttr.getUploadSessionDirectory()));
+        this.rangedDownloader = driveAttr.getRangeParallelism() > 1
+                ? new RangedDownloader(driveAttr.getRangeParallelism(),
+                        driveAttr.getRangeSize(), RANGE_ATTEMPTS)
+                : null;
     }
 
     @Override
     public List<File> findAll() throws Exception {
-        logger.info("ファイル一覧を取得しています......");
+        long start = System.nanoTime();
+        List<File> result = toList(iterateAll(MAX_PAGE_SIZE));
+        logListed(null, result.size(), start);
+        return result;
+    }
 
-        FileList fileList = drive.files().list()
-                .setFields("files(id,name,mimeType,parents)").execute();
-        List<File> result = fileList.getFiles();
+    @Override
+    public List<File> findByQuery(String query) throws Exception {
+        return findByQuery(query, FileProjection.DEFAULT);
+    }
 
+    @Override
+    public List<File> findByQuery(String query, FileProjection projection)
+            throws Exception {
+        long start = System.nanoTime();
+        List<File> result = toList(
+                iterateByQuery(query, MAX_PAGE_SIZE, projection));
+        logListed(query, result.size(), start);
         return result;
     }
 
     @Override
-    public List<File> findByQuery(String query) throws Exception {
-        logger.info("ファイル一覧を取得しています......");
-        logger.info(String.format("query: %s", query));
+    public List<File> findByParentId(String parentId) throws Exception {
+        return findByParentId(parentId, FileProjection.DEFAULT);
+    }
 
-        FileList fileList = drive.files().list()
-                .setFields("files(id,name,mimeType,parents)").setQ(query)
-                .execute();
-        List<File> result = fileList.getFiles();
+    @Override
+    public List<File> findByParentId(String parentId,
+            FileProjection projection) throws Exception {
+        String query = String.format("'%s' in parents", parentId);
+        List<File> result = findByQuery(query, projection);
+        return result;
+    }
 
+    @Override
+    public List<File> findByParentIdAndName(String parentId, String name)
+            throws Exception {
+        String query = String.format(
+                "name = '%s' and '%s' in parents and trashed = false",
+                name.replace("\\", "\\\\").replace("'", "\\'"),
+                parentId);
+        List<File> result = findByQuery(query, FileProjection.DEFAULT);
         return result;
     }
 
     @Override
-    public List<File> findByParentId(String parentId) throws Exception {
+    public FileIterator iterateAll(int pageSize) throws Exception {
+        return iterateByQuery(null, pageSize);
+    }
+
+    @Override
+    public FileIterator iterateByQuery(String query, int pageSize)
+            throws Exception {
+        return iterateByQuery(query, pageSize, FileProjection.DEFAULT);
+    }
+
+    @Override
+    public FileIterator iterateByQuery(String query, int pageSize,
+            FileProjection projection) throws Exception {
+        return iterateByQuery(query, pageSize, projection.toFieldMask());
+    }
+
+    @Override
+    public FileIterator iterateByQuery(final String query, final int pageSize,
+            String fields) throws Exception {
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException(String.format(
+                    "pageSize は 1 から %d の範囲で指定してください。: %d",
+                    MAX_PAGE_SIZE, pageSize));
+        }
+
+        // 応答は FileList へ解析せず、走査時に 1 件ずつ解析する。
+        return new FilePageIterator(pageFetcher(query, pageSize, fields));
+    }
+
+    private FilePageIterator.PageFetcher pageFetcher(final String query,
+            final int pageSize, String fields) {
+        final String listFields = "nextPageToken,files(" + fields + ")";
+        return pageToken -> {
+            FilePage page = execute(DriveMetrics.LIST,
+                    () -> FilePage.read(drive.getJsonFactory(),
+                            drive.files().list().setFields(listFields)
+                                    .setQ(query).setPageSize(pageSize)
+                                    .setPageToken(pageToken)
+                                    .executeUnparsed()));
+            metrics.recordBytesReceived(DriveMetrics.LIST,
+                    page.getContentLength());
+            return page;
+        };
+    }
+
+    @Override
+    public FileIterator iterateByParentId(String parentId, int pageSize)
+            throws Exception {
         String query = String.format("'%s' in parents", parentId);
-        List<File> result = findByQuery(query);
+        return iterateByQuery(query, pageSize);
+    }
+
+    @Override
+    public CompactFileList findCompactByQuery(String query) throws Exception {
+        long start = System.nanoTime();
+        FilePageIterator.PageFetcher fetcher = pageFetcher(query,
+                MAX_PAGE_SIZE, FILE_FIELDS);
+        CompactFileList.Builder builder = new CompactFileList.Builder();
+        String pageToken = null;
+
+        // 各ページの応答本文から直接追加するため、 File を生成しない。
+        do {
+            FilePage page = fetcher.fetch(pageToken);
+            page.appendTo(builder);
+            pageToken = page.getNextPageToken();
+        } while (pageToken != null);
+
+        CompactFileList result = builder.build();
+        logListed(query, result.size(), start);
+        return result;
+    }
+
+    private List<File> toList(FileIterator iterator) {
+        List<File> result = new ArrayList<>();
+
+        try (FileIterator files = iterator) {
+            while (files.hasNext()) {
+                result.add(files.next());
+            }
+        }
+
         return result;
     }
 
     @Override
     public File findByFileId(String fileId) throws Exception {
-        logger.info("ファイルを検索しています......");
-        File file = drive.files().get(fileId)
-                .setFields("id,name,mimeType,parents").execute();
+        return findByFileId(fileId, FileProjection.DEFAULT);
+    }
+
+    @Override
+    public File findByFileId(String fileId, FileProjection projection)
+            throws Exception {
+        long start = System.nanoTime();
+        File file = execute(DriveMetrics.GET, () -> drive.files().get(fileId)
+                .setFields(projection.toFieldMask()).execute());
+
+        if (isInfoEnabled()) {
+            logger.info("{}: id={} name={} elapsed={}ms", DriveMetrics.GET,
+                    file.getId(), file.getName(), elapsedMillis(start));
+        }
+
         return file;
     }
 
+    @Override
+    public List<BatchResult> findByFileIds(Collection<String> fileIds)
+            throws Exception {
+        long start = System.nanoTime();
+        List<BatchResult> result = executeBatch(fileIds,
+                (BatchQueuer<File>) (batch, fileId, callback) -> drive.files()
+                        .get(fileId).setFields(FILE_FIELDS)
+                        .queue(batch, callback));
+        logBatch(DriveMetrics.GET, result, start);
+        return result;
+    }
+
     @Override
     public File upload(String localFilePath) throws Exception {
-        String rootId = getDriveRootId();
-        File remoteFile = this.upload(localFilePath, rootId);
+        File remoteFile = this.upload(localFilePath, ROOT_ID);
         return remoteFile;
     }
 
@@ -80,8 +288,12 @@ public class DriveRepositoryImpl implements DriveRepository {
 
         java.io.File localFile = new java.io.File(localFilePath);
         metaFile.setName(localFile.getName());
-        logger.info(
-                String.format("%s をアップロードしています......", localFile.getName()));
+        logger.debug("{} をアップロードしています......", metaFile.getName());
+        long start = System.nanoTime();
+        // ディレクトリの判定とファイルサイズの取得はシステムコールとなるため、それぞれ 1 回のみとする。
+        boolean directory = localFile.isDirectory();
+        long length = directory ? 0 : localFile.length();
+        String operation;
 
         // 親ディレクトリを設定する。
         List<String> parentList = new ArrayList<>();
@@ -90,100 +302,615 @@ public class DriveRepositoryImpl implements DriveRepository {
 
         File remoteFile = null;
 
-        if (localFile.isDirectory()) {
+        if (directory) {
             // localFile がディレクトリである場合は mimeType を設定する。
             metaFile.setMimeType("application/vnd.google-apps.folder");
-            remoteFile = drive.files().create(metaFile).execute();
+            operation = DriveMetrics.CREATE;
+            remoteFile = execute(operation, () -> drive.files()
+                    .create(metaFile).setFields(FILE_FIELDS).execute());
+        } else if (isResumable(length)) {
+            // 大きなファイルはチャンク単位で送信し、中断時は続きから再開する。
+            // 再試行時は保存済みのセッションから再開するため、送信済みのチャンクは再送しない。
+            operation = DriveMetrics.UPLOAD;
+            remoteFile = execute(operation, () -> resumableUploader
+                    .upload(localFile, metaFile, null, null));
+            metrics.recordBytesSent(operation, length);
         } else {
             // localFile がディレクトリではない場合はファイルの内容を設定する。
-            FileContent fileContent = new FileContent(null, localFile);
-            remoteFile = drive.files().create(metaFile, fileContent).execute();
+            operation = DriveMetrics.CREATE;
+            remoteFile = execute(operation, () -> {
+                FileContent fileContent = new FileContent(null, localFile);
+                Drive.Files.Create create = drive.files().create(metaFile,
+                        fileContent);
+                create.getMediaHttpUploader().setDirectUploadEnabled(true);
+                return create.setFields(FILE_FIELDS).execute();
+            });
+            metrics.recordBytesSent(operation, length);
         }
 
-        logger.info("id: " + remoteFile.getId());
-        logger.info("name: " + remoteFile.getName());
-        logger.info("mime_type: " + remoteFile.getMimeType());
-        logger.info("path: " + localFile.getCanonicalPath());
+        logTransfer(operation, remoteFile, localFile, length, start);
+        return remoteFile;
+    }
+
+    @Override
+    public File upload(InputStream content, String name,
+            String remoteParentId) throws Exception {
+        return upload(Channels.newChannel(content), name, remoteParentId);
+    }
 
+    @Override
+    public File upload(ReadableByteChannel content, String name,
+            String remoteParentId) throws Exception {
+        File metaFile = new File();
+        metaFile.setName(name);
+        metaFile.setParents(Collections.singletonList(remoteParentId));
+        logger.debug("{} をアップロードしています......", name);
+        long start = System.nanoTime();
+
+        CountingChannel counting = new CountingChannel(content);
+        File remoteFile = resumableUploader.upload(counting, metaFile,
+                this::executeUploadChunk);
+        metrics.recordBytesSent(DriveMetrics.UPLOAD, counting.getCount());
+
+        logTransfer(DriveMetrics.UPLOAD, remoteFile, null, counting.getCount(),
+                start);
         return remoteFile;
     }
 
+    /**
+     * 送信間隔を調整しながらリクエストを実行し、一時的なエラーで失敗した場合は再試行する。試行ごとの所要時間と結果を
+     * {@link DriveMetrics} へ記録する。
+     *
+     * @param operation
+     *            {@link DriveMetrics} へ記録する操作名を指定する。
+     * @param call
+     *            実行する操作を指定する。再試行の度に呼び出されるため、リクエストは呼び出しの中で作成する。
+     * @return result 操作の結果を返す。
+     * @throws IOException
+     *             {@link java.io.IOException}
+     */
+    private <T> T execute(final String operation,
+            RetryPolicy.RetryableCall<T> call) throws IOException {
+        // 取り消された非同期処理がページの取得やチャンクの送信を続けないよう、送信前に割り込みを確認する。
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("リクエストの送信前に割り込まれました。");
+        }
+
+        final int[] attempts = new int[1];
+
+        return retryPolicy.execute(() -> {
+            if (attempts[0]++ > 0) {
+                metrics.recordRetry(operation);
+            }
+
+            if (rateLimiter != null) {
+                rateLimiter.acquire(1);
+            }
+
+            // 送信間隔の調整による待機は所要時間に含めない。
+            long start = System.nanoTime();
+
+            try {
+                T result = call.call();
+                metrics.recordRequest(operation, System.nanoTime() - start,
+                        null);
+
+                if (rateLimiter != null) {
+                    rateLimiter.onSuccess();
+                }
+
+                return result;
+            } catch (IOException e) {
+                metrics.recordRequest(operation, System.nanoTime() - start,
+                        RetryPolicy.errorCodeOf(e));
+
+                if (rateLimiter != null && e instanceof HttpResponseException
+                        && RateLimiter.isThrottled(
+                                ((HttpResponseException) e).getStatusCode(),
+                                RetryPolicy.reasonOf(e))) {
+                    rateLimiter.onThrottled();
+                }
+
+                throw e;
+            }
+        });
+    }
+
+    private <T> T executeUploadChunk(RetryPolicy.RetryableCall<T> call)
+            throws IOException {
+        return execute(DriveMetrics.UPLOAD, call);
+    }
+
+    /**
+     * @param length
+     *            アップロード対象とするファイルのバイト数を指定する。
+     * @return result レジューム可能なアップロードを使用する場合は true を返す。
+     */
+    private boolean isResumable(long length) {
+        return length >= driveAttr.getResumableThreshold();
+    }
+
     @Override
     public java.io.File download(String localDirPath, String remoteFileId)
             throws Exception {
         File remoteFile = findByFileId(remoteFileId);
+        java.io.File localFile = download(localDirPath, remoteFile);
+        return localFile;
+    }
+
+    @Override
+    public java.io.File download(String localDirPath, File remoteFile)
+            throws Exception {
         java.io.File localFile = new java.io.File(localDirPath,
                 remoteFile.getName());
-        logger.info(
-                String.format("%s をダウンロードしています......", remoteFile.getName()));
+        logger.debug("{} をダウンロードしています......", remoteFile.getName());
+        long start = System.nanoTime();
+        String operation = DriveMetrics.DOWNLOAD;
+        long bytes = 0;
 
         if (remoteFile.getMimeType()
                 .equals("application/vnd.google-apps.folder")) {
             localFile.mkdirs();
         } else {
-            try (FileOutputStream stream = new FileOutputStream(localFile)) {
-                drive.files().get(remoteFileId)
-                        .executeMediaAndDownloadTo(stream);
+            // 中断時に不完全なファイルが残らないよう、一時ファイルへ書き込んでから置き換える。
+            Path target = localFile.getAbsoluteFile().toPath();
+            Path temp = Files.createTempFile(target.getParent(), ".download-",
+                    ".part");
+
+            try {
+                File media = rangedDownloader == null ? null
+                        : getMedia(remoteFile);
+
+                if (media != null && media.getSize() != null && media
+                        .getSize() >= driveAttr.getRangedDownloadThreshold()) {
+                    downloadRanged(temp, remoteFile.getId(), media);
+                    operation = DriveMetrics.DOWNLOAD_RANGE;
+                    bytes = media.getSize();
+                } else {
+                    // 再試行時は一時ファイルを先頭から書き直す。
+                    long received = execute(DriveMetrics.DOWNLOAD, () -> {
+                        try (MediaChannel channel = new MediaChannel(drive
+                                .files().get(remoteFile.getId())
+                                .executeMedia());
+                                FileChannel out = FileChannel.open(temp,
+                                        StandardOpenOption.WRITE,
+                                        StandardOpenOption.TRUNCATE_EXISTING)) {
+                            return channel.transferTo(out,
+                                    driveAttr.getDownloadBufferSize());
+                        }
+                    });
+                    metrics.recordBytesReceived(DriveMetrics.DOWNLOAD,
+                            received);
+                    bytes = received;
+                }
+
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
             }
         }
 
-        logger.info("id: " + remoteFile.getId());
-        logger.info("name: " + remoteFile.getName());
-        logger.info("mime_type: " + remoteFile.getMimeType());
-        logger.info("path: " + localFile.getCanonicalPath());
-
+        logTransfer(operation, remoteFile, localFile, bytes, start);
         return localFile;
     }
 
+    /**
+     * @param remoteFile
+     *            ダウンロード対象とするファイルを指定する。
+     * @return media サイズと md5Checksum を含むファイルのメタデータを返す。
+     *         引数のファイルがサイズを含む場合はそのまま返す。
+     */
+    private File getMedia(File remoteFile) throws IOException {
+        if (remoteFile.getSize() != null) {
+            return remoteFile;
+        }
+
+        return execute(DriveMetrics.GET, () -> drive.files().get(remoteFile.getId())
+                .setFields(MEDIA_FIELDS).execute());
+    }
+
+    /**
+     * ファイルを範囲に分割して並列にダウンロードし、 md5Checksum と照合する。
+     */
+    private void downloadRanged(Path temp, String remoteFileId, File media)
+            throws IOException {
+        long size = media.getSize();
+        logger.debug("{} バイトを {} 件ずつ並列にダウンロードします。", size,
+                driveAttr.getRangeParallelism());
+
+        try (FileChannel out = FileChannel.open(temp,
+                StandardOpenOption.WRITE)) {
+            rangedDownloader.download(out, size,
+                    (channel, start, end) -> {
+                        long received = execute(DriveMetrics.DOWNLOAD_RANGE,
+                                () -> downloadRange(remoteFileId, channel,
+                                        start, end));
+                        metrics.recordBytesReceived(
+                                DriveMetrics.DOWNLOAD_RANGE, received);
+                        return received;
+                    });
+        }
+
+        if (media.getMd5Checksum() != null) {
+            String md5 = FileDigest.md5Hex(temp);
+
+            if (!md5.equals(media.getMd5Checksum())) {
+                throw new IOException(String.format(
+                        "ダウンロードしたファイルの md5Checksum が一致しません。: %s != %s",
+                        md5, media.getMd5Checksum()));
+            }
+        }
+    }
+
+    private long downloadRange(String remoteFileId, FileChannel out,
+            long start, long end) throws IOException {
+        Drive.Files.Get request = drive.files().get(remoteFileId);
+        request.getRequestHeaders()
+                .setRange(String.format("bytes=%d-%d", start, end));
+
+        try (MediaChannel channel = new MediaChannel(request.executeMedia())) {
+            if (channel.getStatusCode() != STATUS_PARTIAL_CONTENT) {
+                // 範囲の指定が無視された場合は他の範囲を上書きしないよう書き込まない。
+                throw new IOException(String.format(
+                        "範囲を指定したダウンロードの応答のステータスコードが %d でした。",
+                        channel.getStatusCode()));
+            }
+
+            return channel.transferTo(out, start,
+                    driveAttr.getDownloadBufferSize());
+        }
+    }
+
+    @Override
+    public ReadableByteChannel openDownloadChannel(String remoteFileId)
+            throws Exception {
+        logger.debug("{} を読み込んでいます......", remoteFileId);
+        // 接続の確立までは再試行するが、読み込みを開始した後の失敗は呼び出し元へ通知する。
+        HttpResponse response = execute(DriveMetrics.DOWNLOAD,
+                () -> drive.files().get(remoteFileId).executeMedia());
+        return new MediaChannel(response);
+    }
+
+    @Override
+    public InputStream openDownloadStream(String remoteFileId)
+            throws Exception {
+        return Channels.newInputStream(openDownloadChannel(remoteFileId));
+    }
+
     @Override
     public File update(String localFilePath, String remoteFileId)
             throws Exception {
         java.io.File localFile = new java.io.File(localFilePath);
-        File remoteFile = findByFileId(remoteFileId);
 
+        // 名前以外のメタデータは変更しないため、更新前のファイルを取得する必要はない。
         File metaFile = new File();
         metaFile.setName(localFile.getName());
-        metaFile.setMimeType(remoteFile.getMimeType());
-
-        List<String> parentsList = remoteFile.getParents();
-        String parents = String.join(",", parentsList);
-
-        logger.info(String.format("%s を更新しています......", remoteFile.getName()));
 
+        logger.debug("{} を更新しています......", remoteFileId);
+        long start = System.nanoTime();
+        boolean directory = localFile.isDirectory();
+        long length = directory ? 0 : localFile.length();
+        String operation;
         File result = null;
 
-        if (localFile.isDirectory()) {
-            result = drive.files().update(remoteFileId, metaFile)
-                    .setAddParents(parents).execute();
+        if (directory) {
+            operation = DriveMetrics.UPDATE;
+            result = execute(operation, () -> drive.files()
+                    .update(remoteFileId, metaFile).setFields(FILE_FIELDS)
+                    .execute());
+        } else if (isResumable(length)) {
+            operation = DriveMetrics.UPLOAD;
+            result = execute(operation, () -> resumableUploader
+                    .upload(localFile, metaFile, remoteFileId, null));
+            metrics.recordBytesSent(operation, length);
         } else {
-            FileContent fileContent = new FileContent(null, localFile);
-            result = drive.files().update(remoteFileId, metaFile, fileContent)
-                    .setAddParents(parents).execute();
+            operation = DriveMetrics.UPDATE;
+            result = execute(operation, () -> {
+                FileContent fileContent = new FileContent(null, localFile);
+                Drive.Files.Update request = drive.files()
+                        .update(remoteFileId, metaFile, fileContent);
+                request.getMediaHttpUploader().setDirectUploadEnabled(true);
+                return request.setFields(FILE_FIELDS).execute();
+            });
+            metrics.recordBytesSent(operation, length);
         }
 
-        logger.info("id: " + result.getId());
-        logger.info("name: " + result.getName());
-        logger.info("mime_type: " + result.getMimeType());
-        logger.info("path: " + localFile.getCanonicalPath());
-
+        logTransfer(operation, result, localFile, length, start);
         return result;
     }
 
     @Override
     public void delete(String fileId) throws Exception {
-        File file = findByFileId(fileId);
-        logger.info(String.format("%s を削除しています......", file.getName()));
-        drive.files().delete(fileId).execute();
+        logger.debug("{} を削除しています......", fileId);
+        long start = System.nanoTime();
+        execute(DriveMetrics.DELETE,
+                () -> drive.files().delete(fileId).execute());
+
+        if (isInfoEnabled()) {
+            logger.info("{}: id={} elapsed={}ms", DriveMetrics.DELETE, fileId,
+                    elapsedMillis(start));
+        }
+    }
+
+    @Override
+    public List<BatchResult> updateMetadataAll(
+            final Map<String, File> metaFiles) throws Exception {
+        long start = System.nanoTime();
+        List<BatchResult> result = executeBatch(metaFiles.keySet(),
+                (BatchQueuer<File>) (batch, fileId, callback) -> drive.files()
+                        .update(fileId, metaFiles.get(fileId))
+                        .setFields(FILE_FIELDS)
+                        .queue(batch, callback));
+        logBatch(DriveMetrics.UPDATE, result, start);
+        return result;
+    }
+
+    @Override
+    public List<BatchResult> deleteAll(Collection<String> fileIds)
+            throws Exception {
+        long start = System.nanoTime();
+        List<BatchResult> result = executeBatch(fileIds,
+                (BatchQueuer<Void>) (batch, fileId, callback) -> drive.files()
+                        .delete(fileId).queue(batch, callback));
+        logBatch(DriveMetrics.DELETE, result, start);
+        return result;
+    }
+
+    /**
+     * バッチリクエストへ 1 件分の操作を追加する。
+     */
+    private interface BatchQueuer<T> {
+        public void queue(BatchRequest batch, String fileId,
+                JsonBatchCallback<T> callback) throws IOException;
+    }
+
+    /**
+     * 操作を {@link #MAX_BATCH_SIZE} 件ごとのバッチリクエストにまとめて実行する。
+     * 再試行の対象となるエラーで失敗した操作は、待機した後にそれらのみをまとめて再送する。
+     */
+    private <T> List<BatchResult> executeBatch(Collection<String> fileIds,
+            BatchQueuer<T> queuer) throws IOException {
+        List<BatchResult> resultList = new ArrayList<>();
+
+        for (String fileId : fileIds) {
+            BatchResult result = new BatchResult();
+            result.setFileId(fileId);
+            resultList.add(result);
+        }
+
+        RetryPolicy.Budget budget = retryPolicy.newBudget();
+        List<BatchResult> pending = resultList;
+
+        while (true) {
+            final Map<BatchResult, String> retryAfter = new IdentityHashMap<>();
+
+            for (int from = 0; from < pending.size(); from += MAX_BATCH_SIZE) {
+                final List<BatchResult> chunk = pending.subList(from,
+                        Math.min(from + MAX_BATCH_SIZE, pending.size()));
+                retryPolicy.execute(() -> {
+                    if (rateLimiter != null) {
+                        // クォータはバッチ内の操作ごとに消費される。
+                        rateLimiter.acquire(chunk.size());
+                    }
+
+                    BatchRequest batch = drive.batch();
+
+                    for (BatchResult result : chunk) {
+                        result.setError(null);
+                        queuer.queue(batch, result.getFileId(),
+                                newBatchCallback(result, retryAfter));
+                    }
+
+                    long start = System.nanoTime();
+
+                    try {
+                        batch.execute();
+                        metrics.recordRequest(DriveMetrics.BATCH,
+                                System.nanoTime() - start, null);
+                    } catch (IOException e) {
+                        metrics.recordRequest(DriveMetrics.BATCH,
+                                System.nanoTime() - start,
+                                RetryPolicy.errorCodeOf(e));
+                        throw e;
+                    }
+
+                    if (rateLimiter != null) {
+                        onBatchExecuted(chunk);
+                    }
+
+                    return null;
+                });
+            }
+
+            List<BatchResult> retryable = new ArrayList<>();
+            String delayHint = null;
+
+            for (BatchResult result : pending) {
+                GoogleJsonError error = result.getError();
+
+                if (error != null && RetryPolicy.isRetryable(error.getCode(),
+                        RetryPolicy.reasonOf(error))) {
+                    retryable.add(result);
+
+                    if (delayHint == null) {
+                        delayHint = retryAfter.get(result);
+                    }
+                }
+            }
 
-        logger.info("id: " + file.getId());
-        logger.info("name: " + file.getName());
-        logger.info("mime_type: " + file.getMimeType());
+            if (retryable.isEmpty()) {
+                return resultList;
+            }
+
+            metrics.recordRetry(DriveMetrics.BATCH);
+
+            GoogleJsonError first = retryable.get(0).getError();
+            long delay = budget.nextDelay(first.getCode(),
+                    RetryPolicy.reasonOf(first), delayHint);
+
+            if (delay < 0) {
+                return resultList;
+            }
+
+            logger.warn("{} 件の操作を {} ミリ秒後に再試行します。", retryable.size(),
+                    delay);
+            budget.sleep(delay);
+            pending = retryable;
+        }
+    }
+
+    /**
+     * バッチ内の操作の結果を {@link RateLimiter} へ通知する。
+     */
+    private void onBatchExecuted(List<BatchResult> chunk) {
+        for (BatchResult result : chunk) {
+            GoogleJsonError error = result.getError();
+
+            if (error != null && RateLimiter.isThrottled(error.getCode(),
+                    RetryPolicy.reasonOf(error))) {
+                rateLimiter.onThrottled();
+                return;
+            }
+        }
+
+        rateLimiter.onSuccess();
+    }
+
+    private <T> JsonBatchCallback<T> newBatchCallback(final BatchResult result,
+            final Map<BatchResult, String> retryAfter) {
+        return new JsonBatchCallback<T>() {
+            @Override
+            public void onSuccess(T content, HttpHeaders responseHeaders) {
+                if (content instanceof File) {
+                    result.setFile((File) content);
+                }
+            }
+
+            @Override
+            public void onFailure(GoogleJsonError error,
+                    HttpHeaders responseHeaders) {
+                result.setError(error);
+
+                if (responseHeaders != null
+                        && responseHeaders.getRetryAfter() != null) {
+                    retryAfter.put(result, responseHeaders.getRetryAfter());
+                }
+            }
+        };
+    }
+
+    @Override
+    public String getStartPageToken() throws Exception {
+        StartPageToken token = execute(DriveMetrics.CHANGES,
+                () -> drive.changes().getStartPageToken().execute());
+        return token.getStartPageToken();
+    }
+
+    @Override
+    public String findChanges(String pageToken, String fields,
+            Consumer<Change> listener) throws Exception {
+        logger.debug("変更一覧を取得しています......");
+        long start = System.nanoTime();
+        String listFields = "nextPageToken,newStartPageToken,"
+                + "changes(fileId,removed,file(" + fields + "))";
+        int count = 0;
+
+        while (true) {
+            final String currentToken = pageToken;
+            ChangeList changeList = execute(DriveMetrics.CHANGES,
+                    () -> drive.changes().list(currentToken)
+                            .setFields(listFields).setPageSize(MAX_PAGE_SIZE)
+                            .execute());
+
+            if (changeList.getChanges() != null) {
+                for (Change change : changeList.getChanges()) {
+                    listener.accept(change);
+                }
+
+                count += changeList.getChanges().size();
+            }
+
+            if (changeList.getNewStartPageToken() != null) {
+                logChanges(count, start);
+                return changeList.getNewStartPageToken();
+            }
+
+            pageToken = changeList.getNextPageToken();
+        }
     }
 
     @Override
     public String getDriveRootId() throws Exception {
-        String id = findByFileId("root").getId();
-        return id;
+        String cached = rootId;
+
+        // ルートディレクトリの file_id は変化しないため、最初の 1 回のみ取得する。
+        if (cached == null) {
+            cached = findByFileId(ROOT_ID).getId();
+            rootId = cached;
+        }
+
+        return cached;
+    }
+
+    /**
+     * @return enabled 操作ごとの INFO ログを出力する場合は true を返す。
+     */
+    private boolean isInfoEnabled() {
+        return !driveAttr.isQuiet() && logger.isInfoEnabled();
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * 転送の完了を 1 件のログで出力する。出力しない場合は、引数の配列の生成やパスの解決を行わない。
+     *
+     * @param localFile
+     *            ローカルファイルがない場合は null を指定する。
+     */
+    private void logTransfer(String operation, File remoteFile,
+            java.io.File localFile, long bytes, long startNanos)
+            throws IOException {
+        if (isInfoEnabled()) {
+            logger.info(
+                    "{}: id={} name={} mime_type={} bytes={} elapsed={}ms path={}",
+                    operation, remoteFile.getId(), remoteFile.getName(),
+                    remoteFile.getMimeType(), bytes, elapsedMillis(startNanos),
+                    localFile == null ? null : localFile.getCanonicalPath());
+        }
+    }
+
+    private void logListed(String query, int count, long startNanos) {
+        if (isInfoEnabled()) {
+            logger.info("{}: query={} count={} elapsed={}ms", DriveMetrics.LIST,
+                    query, count, elapsedMillis(startNanos));
+        }
+    }
+
+    private void logChanges(int count, long startNanos) {
+        if (isInfoEnabled()) {
+            logger.info("{}: count={} elapsed={}ms", DriveMetrics.CHANGES,
+                    count, elapsedMillis(startNanos));
+        }
+    }
+
+    private void logBatch(String operation, List<BatchResult> resultList,
+            long startNanos) {
+        if (isInfoEnabled()) {
+            int failed = 0;
+
+            for (BatchResult result : resultList) {
+                if (!result.isSuccess()) {
+                    failed++;
+                }
+            }
+
+            logger.info("{}: {}: count={} failed={} elapsed={}ms",
+                    DriveMetrics.BATCH, operation, resultList.size(), failed,
+                    elapsedMillis(startNanos));
+        }
     }
 
 }
@@ -0,0 +1,68 @@
+package java_itamae_g_drive.domain.repository.drive;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * ローカルファイルのハッシュ値を Google Drive の md5Checksum と比較できる形式で求める。
+ */
+public final class FileDigest {
+    /**
+     * 1 回にメモリマップする範囲のバイト数。 Java 8 では明示的にアンマップできないため、
+     * 大きなファイルでもアドレス空間を使い切らないよう範囲を区切って読み込む。
+     */
+    static final int MAP_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private FileDigest() {
+    }
+
+    /**
+     * @param path
+     *            対象とするファイルのパスを指定する。
+     * @return md5 ファイルの MD5 ハッシュ値を 16 進数の小文字で返す。
+     * @throws IOException
+     *             {@link java.io.IOException}
+     */
+    public static String md5Hex(Path path) throws IOException {
+        MessageDigest digest;
+
+        try {
+            digest = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.READ)) {
+            long size = channel.size();
+
+            for (long position = 0; position < size;) {
+                long length = Math.min(MAP_WINDOW_SIZE, size - position);
+                MappedByteBuffer buffer = channel
+                        .map(FileChannel.MapMode.READ_ONLY, position, length);
+                digest.update(buffer);
+                position += length;
+            }
+        }
+
+        return toHex(digest.digest());
+    }
+
+    static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0x0f];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0x0f];
+        }
+
+        return new String(chars);
+    }
+}
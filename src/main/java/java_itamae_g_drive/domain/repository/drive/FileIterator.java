@@ -0,0 +1,18 @@
+package java_itamae_g_drive.domain.repository.drive;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+import com.google.api.services.drive.model.File;
+
+/**
+ * ファイル・ディレクトリの一覧をページ単位で遅延取得しながら走査する。
+ * 走査を途中で打ち切る場合は {@link #close()} を呼び出して先読み中のページを破棄すること。
+ */
+public interface FileIterator extends Iterator<File>, Closeable {
+    /**
+     * 先読み中のページを破棄する。
+     */
+    @Override
+    public void close();
+}
@@ -0,0 +1,270 @@
+package java_itamae_g_drive.domain.repository.drive;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.JsonParser;
+import com.google.api.client.json.JsonToken;
+import com.google.api.client.util.ByteStreams;
+import com.google.api.client.util.IOUtils;
+import com.google.api.services.drive.model.File;
+
+import java_itamae_g_drive.domain.model.CompactFileList;
+
+/**
+ * files().list() の 1 ページ分の応答。
+ * <p>
+ * 応答本文はバイト列のまま保持し、 {@link File} は {@link #iterator()} で取り出す度に 1 件ずつ解析する。
+ * {@link com.google.api.services.drive.model.FileList} へ解析する場合と異なり、
+ * 1 ページ分の {@link File} を同時に保持しない。 nextPageToken は先読みに必要なため、
+ * 受信時にオブジェクトを生成せずに字句のみを走査して取り出す。
+ * </p>
+ */
+class FilePage implements Iterable<File> {
+    private static final String FILES = "files";
+    private static final String ID = "id";
+    private static final String NAME = "name";
+    private static final String MIME_TYPE = "mimeType";
+    private static final String PARENTS = "parents";
+    private static final String NEXT_PAGE_TOKEN = "nextPageToken";
+
+    private final JsonFactory jsonFactory;
+    private final byte[] content;
+    private final String nextPageToken;
+
+    FilePage(JsonFactory jsonFactory, byte[] content) throws IOException {
+        this.jsonFactory = jsonFactory;
+        this.content = content;
+        this.nextPageToken = scanNextPageToken();
+    }
+
+    /**
+     * @param jsonFactory
+     *            応答の解析に使用する {@link JsonFactory} を指定する。
+     * @param response
+     *            files().list() の応答を指定する。読み込み後に切断する。
+     * @return page 応答本文を保持するページを返す。
+     * @throws IOException
+     *             {@link java.io.IOException}
+     */
+    static FilePage read(JsonFactory jsonFactory, HttpResponse response)
+            throws IOException {
+        try (InputStream in = response.getContent()) {
+            Long length = response.getHeaders().getContentLength();
+
+            if (in == null) {
+                return new FilePage(jsonFactory, new byte[0]);
+            } else if (length != null && response.getContentEncoding() == null) {
+                // 圧縮されていない場合は本文の長さが分かるため、コピーせずに読み込む。
+                byte[] content = new byte[length.intValue()];
+
+                if (ByteStreams.read(in, content, 0,
+                        content.length) < content.length) {
+                    throw new EOFException("ファイル一覧の応答が途中で切断されました。");
+                }
+
+                return new FilePage(jsonFactory, content);
+            }
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(8192);
+            IOUtils.copy(in, out, false);
+            return new FilePage(jsonFactory, out.toByteArray());
+        } finally {
+            response.disconnect();
+        }
+    }
+
+    /**
+     * @return nextPageToken 次のページのトークンを返す。最後のページの場合は null を返す。
+     */
+    String getNextPageToken() {
+        return nextPageToken;
+    }
+
+    /**
+     * @return size 応答本文のバイト数を返す。
+     */
+    int getContentLength() {
+        return content.length;
+    }
+
+    private String scanNextPageToken() throws IOException {
+        JsonParser parser = jsonFactory
+                .createJsonParser(new ByteArrayInputStream(content));
+
+        try {
+            if (!startObject(parser)) {
+                return null;
+            }
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                parser.nextToken();
+
+                if (NEXT_PAGE_TOKEN.equals(name)) {
+                    return parser.getText();
+                }
+
+                parser.skipChildren();
+            }
+
+            return null;
+        } finally {
+            parser.close();
+        }
+    }
+
+    private static boolean startObject(JsonParser parser) throws IOException {
+        return parser.nextToken() == JsonToken.START_OBJECT;
+    }
+
+    /**
+     * @param parser
+     *            応答本文の先頭を指す {@link JsonParser} を指定する。
+     * @return result files 配列の開始位置まで進めた場合は true を返す。
+     * @throws IOException
+     *             {@link java.io.IOException}
+     */
+    private static boolean startFiles(JsonParser parser) throws IOException {
+        if (startObject(parser)) {
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+
+                if (parser.nextToken() == JsonToken.START_ARRAY
+                        && FILES.equals(name)) {
+                    return true;
+                }
+
+                parser.skipChildren();
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return iterator ページ内のファイルを 1 件ずつ解析して返す {@link Iterator} を返す。
+     */
+    @Override
+    public Iterator<File> iterator() {
+        try {
+            JsonParser parser = jsonFactory
+                    .createJsonParser(new ByteArrayInputStream(content));
+
+            if (startFiles(parser)) {
+                return new FileArrayIterator(parser);
+            }
+
+            parser.close();
+            return Collections.emptyIterator();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * ページ内のファイルの id, name, mimeType, 先頭の parents を {@link File} を生成せずに字句から直接追加する。
+     *
+     * @param builder
+     *            追加先とする {@link CompactFileList.Builder} を指定する。
+     * @throws IOException
+     *             {@link java.io.IOException}
+     */
+    void appendTo(CompactFileList.Builder builder) throws IOException {
+        JsonParser parser = jsonFactory
+                .createJsonParser(new ByteArrayInputStream(content));
+
+        try {
+            if (!startFiles(parser)) {
+                return;
+            }
+
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                String id = null;
+                String name = null;
+                String mimeType = null;
+                String parentId = null;
+
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.getCurrentName();
+                    JsonToken value = parser.nextToken();
+
+                    if (value == JsonToken.VALUE_STRING) {
+                        if (ID.equals(field)) {
+                            id = parser.getText();
+                        } else if (NAME.equals(field)) {
+                            name = parser.getText();
+                        } else if (MIME_TYPE.equals(field)) {
+                            mimeType = parser.getText();
+                        }
+                    } else if (value == JsonToken.START_ARRAY
+                            && PARENTS.equals(field)) {
+                        while (parser.nextToken() == JsonToken.VALUE_STRING) {
+                            if (parentId == null) {
+                                parentId = parser.getText();
+                            }
+                        }
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+
+                if (id != null) {
+                    builder.add(id, name, mimeType, parentId);
+                }
+            }
+        } finally {
+            parser.close();
+        }
+    }
+
+    /**
+     * files 配列の要素を 1 件ずつ解析する。
+     */
+    private static class FileArrayIterator implements Iterator<File> {
+        private final JsonParser parser;
+        private JsonToken token;
+
+        FileArrayIterator(JsonParser parser) throws IOException {
+            this.parser = parser;
+            advance();
+        }
+
+        private void advance() throws IOException {
+            token = parser.nextToken();
+
+            if (token != JsonToken.START_OBJECT) {
+                parser.close();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return token == JsonToken.START_OBJECT;
+        }
+
+        @Override
+        public File next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            try {
+                File file = parser.parse(File.class);
+                advance();
+                return file;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
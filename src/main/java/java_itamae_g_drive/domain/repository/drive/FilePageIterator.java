@@ -0,0 +1,121 @@
+package java_itamae_g_drive.domain.repository.drive;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import com.google.api.services.drive.model.File;
+
+/**
+ * nextPageToken を辿りながら files().list() の結果を 1 ページずつ取得する。
+ * 現在のページを返している間に次のページを別スレッドで先読みするため、
+ * メモリ上に保持するのは最大 2 ページ分の応答本文となる。 {@link File} は取り出す度に解析する。
+ */
+class FilePageIterator implements FileIterator {
+    /**
+     * 1 ページ分のファイル一覧を取得する。
+     */
+    interface PageFetcher {
+        /**
+         * @param pageToken
+         *            取得対象とするページのトークンを指定する。先頭ページの場合は null を指定する。
+         * @return page ファイル一覧の 1 ページを返す。
+         * @throws Exception
+         *             {@link java.lang.Exception}
+         */
+        public FilePage fetch(String pageToken) throws Exception;
+    }
+
+    private static final ExecutorService PREFETCH_EXECUTOR = Executors
+            .newCachedThreadPool(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "drive-page-prefetch");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+
+    private final PageFetcher fetcher;
+    private Iterator<File> current = Collections.emptyIterator();
+    private CompletableFuture<FilePage> nextPage;
+
+    FilePageIterator(PageFetcher fetcher) {
+        this.fetcher = fetcher;
+        this.nextPage = prefetch(null);
+    }
+
+    private CompletableFuture<FilePage> prefetch(final String pageToken) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return fetcher.fetch(pageToken);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, PREFETCH_EXECUTOR);
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!current.hasNext()) {
+            if (nextPage == null) {
+                return false;
+            }
+
+            FilePage page = awaitNextPage();
+            String pageToken = page.getNextPageToken();
+            nextPage = pageToken == null ? null : prefetch(pageToken);
+            current = page.iterator();
+        }
+
+        return true;
+    }
+
+    private FilePage awaitNextPage() {
+        try {
+            return nextPage.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            nextPage = null;
+            Throwable cause = e.getCause();
+
+            if (cause instanceof IOException) {
+                throw new UncheckedIOException((IOException) cause);
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    @Override
+    public File next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        return current.next();
+    }
+
+    @Override
+    public void close() {
+        if (nextPage != null) {
+            nextPage.cancel(true);
+            nextPage = null;
+        }
+
+        current = Collections.emptyIterator();
+    }
+}
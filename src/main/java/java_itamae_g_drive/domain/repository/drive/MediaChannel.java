@@ -0,0 +1,213 @@
+package java_itamae_g_drive.domain.repository.drive;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import com.google.api.client.http.HttpResponse;
+
+/**
+ * HTTP 応答の本文を読み込む {@link ReadableByteChannel} 。
+ * <p>
+ * {@link java.nio.channels.Channels#newChannel(InputStream)} は 8 KiB
+ * ずつしか読み込まないため、読み込み先のバッファーの残り容量をまとめて要求する。 配列を持つバッファーへは直接読み込み、
+ * ダイレクトバッファーへは作業用の配列を経由して読み込む。
+ * </p>
+ * <p>
+ * 本文は {@link InputStream} からしか読み込めないため、ファイルへの転送には配列を持つバッファーを使用し、
+ * 作業用の配列を経由しない。ファイルへの書き込み時のダイレクトバッファーへのコピーは JDK が行う。
+ * </p>
+ */
+class MediaChannel implements ReadableByteChannel {
+    /**
+     * 転送に使用するバッファーの再利用先。仮想スレッドでも再利用できるよう、スレッドには紐付けない。
+     */
+    private static final BlockingQueue<ByteBuffer> BUFFER_POOL = new ArrayBlockingQueue<>(
+            Runtime.getRuntime().availableProcessors());
+
+    /**
+     * ダイレクトバッファーへ読み込む際の作業用の配列の再利用先。
+     */
+    private static final BlockingQueue<byte[]> STAGING_POOL = new ArrayBlockingQueue<>(
+            Runtime.getRuntime().availableProcessors());
+
+    private static final int STAGING_SIZE = 64 * 1024;
+
+    private final HttpResponse response;
+    private final InputStream content;
+    private byte[] staging;
+    private boolean open = true;
+
+    MediaChannel(HttpResponse response) throws IOException {
+        this.response = response;
+        this.content = response.getContent();
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+
+        if (content == null) {
+            return -1;
+        }
+
+        int length = dst.remaining();
+
+        if (length == 0) {
+            return 0;
+        }
+
+        if (dst.hasArray()) {
+            int read = content.read(dst.array(),
+                    dst.arrayOffset() + dst.position(), length);
+
+            if (read > 0) {
+                dst.position(dst.position() + read);
+            }
+
+            return read;
+        }
+
+        if (staging == null) {
+            staging = STAGING_POOL.poll();
+
+            if (staging == null) {
+                staging = new byte[STAGING_SIZE];
+            }
+        }
+
+        int read = content.read(staging, 0, Math.min(length, staging.length));
+
+        if (read > 0) {
+            dst.put(staging, 0, read);
+        }
+
+        return read;
+    }
+
+    /**
+     * 本文の全てをファイルの現在位置へ書き込む。
+     *
+     * @param out
+     *            書き込み先のファイルを指定する。
+     * @param bufferSize
+     *            転送に使用するバッファーのバイト数を指定する。
+     * @return size 書き込んだバイト数を返す。
+     * @throws IOException
+     *             {@link java.io.IOException}
+     */
+    long transferTo(FileChannel out, int bufferSize) throws IOException {
+        long position = out.position();
+        long total = transferTo(out, position, bufferSize);
+        out.position(position + total);
+        return total;
+    }
+
+    /**
+     * 本文の全てをファイルの指定した位置へ書き込む。ファイルの現在位置は変更しないため、
+     * 複数のスレッドから同じファイルの異なる範囲へ書き込むことができる。
+     *
+     * @param out
+     *            書き込み先のファイルを指定する。
+     * @param position
+     *            書き込みを開始するファイル上の位置を指定する。
+     * @param bufferSize
+     *            転送に使用するバッファーのバイト数を指定する。
+     * @return size 書き込んだバイト数を返す。
+     * @throws IOException
+     *             {@link java.io.IOException}
+     */
+    long transferTo(FileChannel out, long position, int bufferSize)
+            throws IOException {
+        ByteBuffer buffer = acquire(bufferSize);
+
+        try {
+            long total = 0;
+
+            while (read(buffer) >= 0) {
+                // バッファーが埋まるまで読み込んでから書き込み、システムコールの回数を抑える。
+                if (buffer.hasRemaining()) {
+                    continue;
+                }
+
+                total += drain(buffer, out, position + total);
+            }
+
+            total += drain(buffer, out, position + total);
+            return total;
+        } finally {
+            release(buffer);
+        }
+    }
+
+    private static ByteBuffer acquire(int bufferSize) {
+        ByteBuffer buffer = BUFFER_POOL.poll();
+
+        // 大きさが異なるバッファーは破棄して作り直す。
+        if (buffer == null || buffer.capacity() != bufferSize) {
+            return ByteBuffer.allocate(bufferSize);
+        }
+
+        buffer.clear();
+        return buffer;
+    }
+
+    private static void release(ByteBuffer buffer) {
+        // 再利用先が満杯の場合は破棄する。
+        BUFFER_POOL.offer(buffer);
+    }
+
+    private static int drain(ByteBuffer buffer, FileChannel out,
+            long position) throws IOException {
+        buffer.flip();
+        int written = buffer.remaining();
+
+        while (buffer.hasRemaining()) {
+            out.write(buffer, position + written - buffer.remaining());
+        }
+
+        buffer.clear();
+        return written;
+    }
+
+    /**
+     * @return statusCode HTTP 応答のステータスコードを返す。
+     */
+    int getStatusCode() {
+        return response.getStatusCode();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!open) {
+            return;
+        }
+
+        open = false;
+
+        if (staging != null) {
+            STAGING_POOL.offer(staging);
+            staging = null;
+        }
+
+        try {
+            if (content != null) {
+                content.close();
+            }
+        } finally {
+            response.disconnect();
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package java_itamae_g_drive.domain.repository.drive;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * ファイルをバイト範囲に分割し、各範囲を並列にダウンロードしてファイルの該当位置へ書き込む。
+ * <p>
+ * 書き込み先のファイルは事前に最終的なサイズまで拡張し、各範囲は位置を指定して書き込むため、
+ * 範囲ごとの完了順序は結果に影響しない。 失敗した範囲のみを次の試行でダウンロードし直す。
+ * </p>
+ */
+class RangedDownloader {
+    /**
+     * 1 つの範囲をダウンロードする。
+     */
+    interface RangeTransfer {
+        /**
+         * @param out
+         *            書き込み先のファイルを指定する。
+         * @param start
+         *            範囲の先頭のバイト位置を指定する。
+         * @param end
+         *            範囲の末尾のバイト位置 (この位置を含む) を指定する。
+         * @return size 書き込んだバイト数を返す。
+         * @throws IOException
+         *             {@link java.io.IOException}
+         */
+        long transfer(FileChannel out, long start, long end)
+                throws IOException;
+    }
+
+    /**
+     * ダウンロード対象とする範囲。
+     */
+    static class Range {
+        final long start;
+        final long end;
+
+        Range(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        long length() {
+            return end - start + 1;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("bytes=%d-%d", start, end);
+        }
+    }
+
+    private final int parallelism;
+    private final long rangeSize;
+    private final int maxAttempts;
+    private final Logger logger;
+
+    /**
+     * @param parallelism
+     *            同時にダウンロードする範囲の上限数を指定する。
+     * @param rangeSize
+     *            1 つの範囲のバイト数を指定する。
+     * @param maxAttempts
+     *            各範囲をダウンロードする回数の上限を指定する。
+     */
+    RangedDownloader(int parallelism, long rangeSize, int maxAttempts) {
+        this.parallelism = parallelism;
+        this.rangeSize = rangeSize;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.logger = LoggerFactory.getLogger(this.getClass());
+    }
+
+    /**
+     * @param size
+     *            ファイルのバイト数を指定する。
+     * @param rangeSize
+     *            1 つの範囲のバイト数を指定する。
+     * @return rangeList ファイルを先頭から分割した範囲の一覧を返す。
+     */
+    static List<Range> split(long size, long rangeSize) {
+        List<Range> rangeList = new ArrayList<>();
+
+        for (long start = 0; start < size; start += rangeSize) {
+            rangeList.add(
+                    new Range(start, Math.min(start + rangeSize, size) - 1));
+        }
+
+        return rangeList;
+    }
+
+    /**
+     * @param out
+     *            書き込み先のファイルを指定する。
+     * @param size
+     *            ファイルのバイト数を指定する。
+     * @param transfer
+     *            1 つの範囲をダウンロードする処理を指定する。
+     * @throws IOException
+     *             上限回数まで試行しても失敗した範囲が残る場合は最後に発生した例外を送出する。
+     */
+    void download(FileChannel out, long size, RangeTransfer transfer)
+            throws IOException {
+        preallocate(out, size);
+
+        List<Range> pending = split(size, rangeSize);
+        ExecutorService executor = WorkerPools.newWorkerPool(
+                Math.min(parallelism, Math.max(1, pending.size())),
+                "drive-range");
+
+        try {
+            for (int attempt = 1; !pending.isEmpty(); attempt++) {
+                List<Future<Long>> futureList = new ArrayList<>();
+
+                for (Range range : pending) {
+                    futureList.add(executor.submit(
+                            () -> transfer.transfer(out, range.start,
+                                    range.end)));
+                }
+
+                List<Range> failed = new ArrayList<>();
+                IOException lastError = null;
+
+                for (int i = 0; i < pending.size(); i++) {
+                    Range range = pending.get(i);
+
+                    try {
+                        long written = futureList.get(i).get();
+
+                        if (written != range.length()) {
+                            throw new IOException(String.format(
+                                    "%s の応答が %d バイトでした。", range, written));
+                        }
+                    } catch (ExecutionException e) {
+                        failed.add(range);
+                        lastError = toIOException(e.getCause());
+                    } catch (IOException e) {
+                        failed.add(range);
+                        lastError = e;
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException();
+                    }
+                }
+
+                if (!failed.isEmpty()) {
+                    if (attempt >= maxAttempts) {
+                        throw lastError;
+                    }
+
+                    logger.warn("{} 件の範囲のダウンロードに失敗しました。再試行します。 ({}/{}): {}",
+                            failed.size(), attempt, maxAttempts - 1,
+                            lastError);
+                }
+
+                pending = failed;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 末尾の 1 バイトを書き込んでファイルを最終的なサイズまで拡張する。 途中の領域は各範囲が書き込む。
+     */
+    private static void preallocate(FileChannel out, long size)
+            throws IOException {
+        if (size > 0 && out.size() < size) {
+            out.write(ByteBuffer.allocate(1), size - 1);
+        }
+    }
+
+    private static IOException toIOException(Throwable cause) {
+        if (cause instanceof IOException) {
+            return (IOException) cause;
+        } else if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+            throw (Error) cause;
+        }
+
+        return new IOException(cause);
+    }
+}
@@ -0,0 +1,185 @@
+package java_itamae_g_drive.domain.repository.drive;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import com.google.api.client.util.Sleeper;
+import com.google.api.services.drive.Drive;
+
+import java_itamae_g_drive.domain.model.DriveAttribute;
+
+/**
+ * Google Drive API へのリクエストの送信間隔を調整するトークンバケット。
+ * <p>
+ * 送信レートは AIMD 方式で調整する。レート制限のエラーを受け取った場合はレートを半分に下げ、
+ * 成功した場合は 1 秒あたり一定量ずつ上げる。同時に実行中のリクエストが揃ってエラーとなった場合に
+ * レートが下がり過ぎないよう、レートを下げた後の一定時間は再度下げない。
+ * </p>
+ * <p>
+ * Google Drive のクォータはユーザー単位で消費されるため、同じ {@link Drive} を使用する全てのスレッドで 1
+ * つのインスタンスを共有する。
+ * </p>
+ */
+class RateLimiter {
+    /**
+     * レートを下げた後、再度下げるまでの最短の間隔 (ナノ秒) 。
+     */
+    static final long DECREASE_COOLDOWN = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * 成功が続いた場合に 1 秒あたりに引き上げるリクエスト数。
+     */
+    static final double ADDITIVE_INCREASE = 2.0;
+
+    private static final double MIN_RATE = 0.5;
+    private static final Map<Drive, RateLimiter> SHARED = Collections
+            .synchronizedMap(new WeakHashMap<Drive, RateLimiter>());
+
+    private final double maxRate;
+    private final double additiveIncrease;
+    private final Sleeper sleeper;
+    private final LongSupplier nanoClock;
+
+    private double rate;
+    private double tokens;
+    private long lastRefill;
+    private long lastDecrease;
+
+    /**
+     * @param initialRate
+     *            1 秒あたりのリクエスト数の初期値を指定する。
+     * @param maxRate
+     *            1 秒あたりのリクエスト数の上限を指定する。
+     * @param additiveIncrease
+     *            成功が続いた場合に 1 秒あたりに引き上げるリクエスト数を指定する。
+     * @param sleeper
+     *            待機に使用する {@link Sleeper} を指定する。
+     * @param nanoClock
+     *            現在時刻 (ナノ秒) を返す関数を指定する。
+     */
+    RateLimiter(double initialRate, double maxRate, double additiveIncrease,
+            Sleeper sleeper, LongSupplier nanoClock) {
+        this.maxRate = maxRate;
+        this.additiveIncrease = additiveIncrease;
+        this.sleeper = sleeper;
+        this.nanoClock = nanoClock;
+        this.rate = Math.min(initialRate, maxRate);
+        this.tokens = Math.max(1, rate);
+        this.lastRefill = nanoClock.getAsLong();
+        this.lastDecrease = lastRefill - DECREASE_COOLDOWN;
+    }
+
+    /**
+     * @param drive
+     *            リクエストの送信に使用する {@link Drive} を指定する。
+     * @param driveAttr
+     *            レートの設定を指定する。同じ {@link Drive} に対して最初に指定した値が使用される。
+     * @return rateLimiter 指定した {@link Drive} で共有する RateLimiter を返す。レートを制限しない場合は
+     *         null を返す。
+     */
+    static RateLimiter forDrive(Drive drive, DriveAttribute driveAttr) {
+        if (driveAttr.getRequestsPerSecond() <= 0) {
+            return null;
+        }
+
+        synchronized (SHARED) {
+            RateLimiter rateLimiter = SHARED.get(drive);
+
+            if (rateLimiter == null) {
+                rateLimiter = new RateLimiter(driveAttr.getRequestsPerSecond(),
+                        driveAttr.getMaxRequestsPerSecond(), ADDITIVE_INCREASE,
+                        Sleeper.DEFAULT, System::nanoTime);
+                SHARED.put(drive, rateLimiter);
+            }
+
+            return rateLimiter;
+        }
+    }
+
+    /**
+     * 指定した数のリクエストを送信できるまで待機する。
+     *
+     * @param permits
+     *            送信するリクエストの数を指定する。バッチリクエストの場合は含まれる操作の数を指定する。
+     * @throws IOException
+     *             待機中に割り込まれた場合に送出する。
+     */
+    void acquire(int permits) throws IOException {
+        long waitNanos;
+
+        synchronized (this) {
+            refill();
+            tokens -= permits;
+            // 不足分は前借りし、後続のリクエストはその分だけ長く待機する。
+            waitNanos = tokens >= 0 ? 0
+                    : (long) (-tokens / rate * TimeUnit.SECONDS.toNanos(1));
+        }
+
+        if (waitNanos > 0) {
+            try {
+                sleeper.sleep(TimeUnit.NANOSECONDS.toMillis(waitNanos) + 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("送信の待機中に割り込まれました。");
+            }
+        }
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        double elapsed = (now - lastRefill) / (double) TimeUnit.SECONDS
+                .toNanos(1);
+        // 1 秒分を超えるバーストは許可しない。
+        tokens = Math.min(Math.max(1, rate), tokens + elapsed * rate);
+        lastRefill = now;
+    }
+
+    /**
+     * リクエストが成功したことを通知し、レートを引き上げる。
+     */
+    synchronized void onSuccess() {
+        refill();
+        // 上限のレートで送信し続けた場合に、 1 秒あたり additiveIncrease ずつ上がる。
+        rate = Math.min(maxRate, rate + additiveIncrease / rate);
+    }
+
+    /**
+     * レート制限のエラーを受け取ったことを通知し、レートを引き下げる。
+     */
+    synchronized void onThrottled() {
+        long now = nanoClock.getAsLong();
+
+        if (now - lastDecrease < DECREASE_COOLDOWN) {
+            return;
+        }
+
+        refill();
+        rate = Math.max(MIN_RATE, rate / 2);
+        tokens = Math.min(tokens, 0);
+        lastDecrease = now;
+    }
+
+    /**
+     * @return rate 現在の 1 秒あたりのリクエスト数の上限を返す。
+     */
+    synchronized double getRate() {
+        return rate;
+    }
+
+    /**
+     * @param statusCode
+     *            応答のステータスコードを指定する。
+     * @param reason
+     *            エラーの理由を指定する。不明な場合は null を指定する。
+     * @return result レート制限によるエラーの場合は true を返す。
+     */
+    static boolean isThrottled(int statusCode, String reason) {
+        return statusCode == 429 || (statusCode == 403
+                && RetryPolicy.isRetryable(statusCode, reason));
+    }
+}
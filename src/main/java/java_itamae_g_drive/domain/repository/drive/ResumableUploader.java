@@ -0,0 +1,392 @@
+package java_itamae_g_drive.domain.repository.drive;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.client.http.ByteArrayContent;
+import com.google.api.client.http.EmptyContent;
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.HttpContent;
+import com.google.api.client.http.HttpMethods;
+import com.google.api.client.http.HttpRequest;
+import com.google.api.client.http.HttpResponse;
+import com.google.api.client.http.json.JsonHttpContent;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.services.drive.Drive;
+import com.google.api.services.drive.model.File;
+
+/**
+ * Google Drive のレジューム可能なアップロードプロトコルでファイルをチャンク単位に送信する。
+ * <p>
+ * セッション URI と送信済みのバイト数を {@link UploadSessionStore} に保存するため、
+ * 途中で異常終了した場合でも再実行時に続きから送信できる。
+ * {@link com.google.api.client.googleapis.media.MediaHttpUploader}
+ * はセッション URI を外部に公開しないため、プロトコルを直接扱う。
+ * </p>
+ */
+class ResumableUploader {
+    private static final int STATUS_RESUME_INCOMPLETE = 308;
+
+    /**
+     * 受信済みのバイト数が増えない応答を連続して受け取った場合に、アップロードを中止するまでの回数。
+     */
+    static final int MAX_STALLED_CHUNKS = 3;
+
+    /**
+     * セッションの状態。 file が null ではない場合はアップロードが完了している。 offset が負の値の場合はセッションが失効している。
+     */
+    private static class Status {
+        final File file;
+        final long offset;
+
+        Status(File file, long offset) {
+            this.file = file;
+            this.offset = offset;
+        }
+    }
+
+    /**
+     * リクエストを実行する。 {@link DriveRepositoryImpl} の送信間隔の調整と再試行を適用するために使用する。
+     */
+    interface RequestExecutor {
+        <T> T execute(RetryPolicy.RetryableCall<T> call) throws IOException;
+    }
+
+    private final Drive drive;
+    private final int chunkSize;
+    private final UploadSessionStore store;
+    private final Logger logger;
+
+    ResumableUploader(Drive drive, int chunkSize, UploadSessionStore store) {
+        this.drive = drive;
+        this.chunkSize = chunkSize;
+        this.store = store;
+        this.logger = LoggerFactory.getLogger(this.getClass());
+    }
+
+    /**
+     * @param localFile
+     *            アップロード対象とするファイルを指定する。
+     * @param metaFile
+     *            ファイルのメタデータを指定する。
+     * @param remoteFileId
+     *            更新対象とするファイルの file_id を指定する。新規作成の場合は null を指定する。
+     * @param addParents
+     *            更新時に追加する親ディレクトリの file_id を指定する。不要な場合は null を指定する。
+     * @return file アップロードされたファイルを返す。
+     * @throws IOException
+     *             {@link java.io.IOException}
+     */
+    File upload(java.io.File localFile, File metaFile, String remoteFileId,
+            String addParents) throws IOException {
+        long total = localFile.length();
+        String target = remoteFileId == null
+                ? "create:" + String.join(",", metaFile.getParents())
+                : "update:" + remoteFileId;
+        String key = UploadSessionStore.key(localFile, target);
+
+        String sessionUri = null;
+        long offset = 0;
+
+        UploadSessionStore.Session saved = store.load(key);
+
+        if (saved != null) {
+            Status status = queryStatus(saved.uri, total);
+
+            if (status.file != null) {
+                store.delete(key);
+                return status.file;
+            } else if (status.offset >= 0) {
+                sessionUri = saved.uri;
+                offset = status.offset;
+                logger.info("{} バイト目からアップロードを再開します。", offset);
+            }
+        }
+
+        if (sessionUri == null) {
+            sessionUri = initiate(metaFile, remoteFileId, addParents, total);
+            store.save(key, sessionUri, offset);
+        }
+
+        byte[] buffer = new byte[(int) Math.max(1,
+                Math.min(chunkSize, total))];
+
+        try (FileChannel channel = FileChannel.open(localFile.toPath(),
+                StandardOpenOption.READ)) {
+            int stalled = 0;
+
+            while (true) {
+                int length = (int) Math.min(buffer.length, total - offset);
+                read(channel, buffer, length, offset);
+
+                Status status = putChunk(sessionUri, buffer, length, offset,
+                        String.valueOf(total));
+
+                if (status.file != null) {
+                    store.delete(key);
+                    return status.file;
+                } else if (status.offset < 0) {
+                    store.delete(key);
+                    throw new IOException("アップロードセッションが失効しました。: " + sessionUri);
+                }
+
+                stalled = status.offset > offset ? 0 : stalled + 1;
+
+                if (stalled >= MAX_STALLED_CHUNKS) {
+                    // 次回の実行では新しいセッションから送信する。
+                    store.delete(key);
+                    throw stalledException(sessionUri, offset);
+                }
+
+                offset = status.offset;
+                store.save(key, sessionUri, offset);
+            }
+        }
+    }
+
+    /**
+     * 長さが不明な内容をアップロードする。
+     * <p>
+     * 内容は 1 チャンクずつ読み込んで送信するため、メモリに保持するのは 1 チャンク分のみとなる。
+     * 読み込んだ内容は再読み込みできないため、中断したアップロードを再実行時に再開することはできない。
+     * チャンクの送信に失敗した場合は、サーバーが受信済みのバイト数を問い合わせてから残りを送信し直す。
+     * </p>
+     *
+     * @param content
+     *            アップロードする内容を指定する。
+     * @param metaFile
+     *            ファイルのメタデータを指定する。
+     * @param executor
+     *            各リクエストを実行する方法を指定する。
+     * @return file アップロードされたファイルを返す。
+     * @throws IOException
+     *             {@link java.io.IOException}
+     */
+    File upload(ReadableByteChannel content, File metaFile,
+            RequestExecutor executor) throws IOException {
+        String sessionUri = executor
+                .execute(() -> initiate(metaFile, null, null, -1));
+        ByteBuffer buffer = ByteBuffer.allocate(chunkSize);
+        long offset = 0;
+        int stalled = 0;
+
+        while (true) {
+            boolean eof = fill(content, buffer);
+            int length = buffer.position();
+            long chunkStart = offset;
+            String total = eof ? String.valueOf(offset + length) : "*";
+            boolean[] retried = {false};
+
+            Status status = executor.execute(() -> {
+                long start = chunkStart;
+
+                if (retried[0]) {
+                    // 前回の送信でサーバーが受信した位置から送り直す。
+                    Status current = send(sessionUri, new EmptyContent(),
+                            "bytes */" + total);
+
+                    if (current.file != null || current.offset < 0) {
+                        return current;
+                    }
+
+                    start = Math.max(chunkStart, current.offset);
+                }
+
+                retried[0] = true;
+                int skip = (int) (start - chunkStart);
+
+                if (skip == length && !eof) {
+                    return new Status(null, start);
+                }
+
+                return putChunk(sessionUri, buffer.array(), skip,
+                        length - skip, start, total);
+            });
+
+            if (status.file != null) {
+                return status.file;
+            } else if (status.offset < 0) {
+                throw new IOException("アップロードセッションが失効しました。: " + sessionUri);
+            }
+
+            stalled = status.offset > chunkStart ? 0 : stalled + 1;
+
+            if (stalled >= MAX_STALLED_CHUNKS) {
+                throw stalledException(sessionUri, chunkStart);
+            }
+
+            // サーバーが受信しなかった部分はバッファーの先頭へ移して次のチャンクで送信する。
+            int consumed = (int) (status.offset - chunkStart);
+            buffer.limit(length).position(consumed);
+            buffer.compact();
+            offset = status.offset;
+        }
+    }
+
+    /**
+     * @return exception 受信済みのバイト数が増えないまま同じチャンクを送り続けていることを表す例外を返す。
+     */
+    private static IOException stalledException(String sessionUri,
+            long offset) {
+        return new IOException(String.format(
+                "%d 回続けて %d バイト目以降が受信されなかったため、アップロードを中止しました。: %s",
+                MAX_STALLED_CHUNKS, offset, sessionUri));
+    }
+
+    /**
+     * バッファーが埋まるか内容の末尾に達するまで読み込む。
+     *
+     * @return eof 内容の末尾に達した場合は true を返す。
+     */
+    private static boolean fill(ReadableByteChannel content, ByteBuffer buffer)
+            throws IOException {
+        while (buffer.hasRemaining()) {
+            if (content.read(buffer) < 0) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void read(FileChannel channel, byte[] buffer, int length,
+            long position) throws IOException {
+        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, length);
+
+        while (byteBuffer.hasRemaining()) {
+            int read = channel.read(byteBuffer,
+                    position + byteBuffer.position());
+
+            if (read < 0) {
+                throw new EOFException("アップロード中にファイルが切り詰められました。");
+            }
+        }
+    }
+
+    private String initiate(File metaFile, String remoteFileId,
+            String addParents, long total) throws IOException {
+        GenericUrl url = new GenericUrl(drive.getRootUrl() + "upload/"
+                + drive.getServicePath() + "files"
+                + (remoteFileId == null ? "" : "/" + remoteFileId));
+        url.put("uploadType", "resumable");
+        url.put("fields", DriveRepositoryImpl.FILE_FIELDS);
+
+        if (addParents != null) {
+            url.put("addParents", addParents);
+        }
+
+        JsonHttpContent content = new JsonHttpContent(drive.getJsonFactory(),
+                metaFile);
+        HttpRequest request;
+
+        if (remoteFileId == null) {
+            request = drive.getRequestFactory()
+                    .buildPostRequest(url, content);
+        } else if (drive.getRequestFactory().getTransport()
+                .supportsMethod(HttpMethods.PATCH)) {
+            request = drive.getRequestFactory()
+                    .buildRequest(HttpMethods.PATCH, url, content);
+        } else {
+            request = drive.getRequestFactory()
+                    .buildPostRequest(url, content);
+            request.getHeaders().set("X-HTTP-Method-Override",
+                    HttpMethods.PATCH);
+        }
+
+        if (total >= 0) {
+            request.getHeaders().set("X-Upload-Content-Length", total);
+        }
+
+        HttpResponse response = GoogleJsonResponseException
+                .execute(drive.getJsonFactory(), request);
+
+        try {
+            String location = response.getHeaders().getLocation();
+
+            if (location == null) {
+                throw new IOException("アップロードセッション URI を取得できませんでした。");
+            }
+
+            return location;
+        } finally {
+            response.disconnect();
+        }
+    }
+
+    private Status queryStatus(String sessionUri, long total)
+            throws IOException {
+        return send(sessionUri, new EmptyContent(), "bytes */" + total);
+    }
+
+    private Status putChunk(String sessionUri, byte[] buffer, int length,
+            long offset, String total) throws IOException {
+        return putChunk(sessionUri, buffer, 0, length, offset, total);
+    }
+
+    /**
+     * @param total
+     *            内容の全体のバイト数を指定する。不明な場合は * を指定する。
+     */
+    private Status putChunk(String sessionUri, byte[] buffer, int start,
+            int length, long offset, String total) throws IOException {
+        if (length == 0) {
+            return send(sessionUri, new EmptyContent(), "bytes */" + total);
+        }
+
+        String range = String.format("bytes %d-%d/%s", offset,
+                offset + length - 1, total);
+        return send(sessionUri,
+                new ByteArrayContent(null, buffer, start, length), range);
+    }
+
+    private Status send(String sessionUri, HttpContent content,
+            String contentRange) throws IOException {
+        HttpRequest request = drive.getRequestFactory()
+                .buildPutRequest(new GenericUrl(sessionUri), content);
+        request.getHeaders().setContentRange(contentRange);
+        request.setParser(drive.getObjectParser());
+        request.setThrowExceptionOnExecuteError(false);
+
+        HttpResponse response = request.execute();
+
+        try {
+            int statusCode = response.getStatusCode();
+
+            if (response.isSuccessStatusCode()) {
+                return new Status(response.parseAs(File.class), 0);
+            } else if (statusCode == STATUS_RESUME_INCOMPLETE) {
+                return new Status(null,
+                        parseRange(response.getHeaders().getRange()));
+            } else if (statusCode == 404 || statusCode == 410) {
+                return new Status(null, -1);
+            }
+
+            throw GoogleJsonResponseException.from(drive.getJsonFactory(),
+                    response);
+        } finally {
+            response.disconnect();
+        }
+    }
+
+    /**
+     * @param range
+     *            Range ヘッダーの値 (例: bytes=0-262143) を指定する。
+     * @return offset サーバーが受信済みのバイト数を返す。
+     */
+    static long parseRange(String range) {
+        if (range == null) {
+            return 0;
+        }
+
+        int index = range.lastIndexOf('-');
+        return Long.parseLong(range.substring(index + 1).trim()) + 1;
+    }
+}
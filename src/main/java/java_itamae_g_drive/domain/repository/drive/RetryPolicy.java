@@ -0,0 +1,317 @@
+package java_itamae_g_drive.domain.repository.drive;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+import org.apache.http.NoHttpResponseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.api.client.googleapis.json.GoogleJsonError;
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.client.http.HttpResponseException;
+import com.google.api.client.util.Sleeper;
+
+import java_itamae_g_drive.domain.model.DriveAttribute;
+
+/**
+ * 一時的なエラーで失敗した Google Drive API の呼び出しを再試行する。
+ * <p>
+ * 429, 5xx および 403 (userRateLimitExceeded, rateLimitExceeded) と通信エラーを再試行の対象とする。
+ * 待機時間は Retry-After ヘッダーが存在する場合はその値に従い、存在しない場合は指数バックオフの上限値までの範囲から
+ * 一様に選ぶ (full jitter) 。 1 回の操作で再試行できる回数と待機時間の合計には上限を設ける。
+ * </p>
+ */
+class RetryPolicy {
+    /**
+     * 再試行の対象とする操作。
+     */
+    interface RetryableCall<T> {
+        T call() throws IOException;
+    }
+
+    /**
+     * 1 回の操作で消費した再試行の回数と待機時間を管理する。
+     */
+    class Budget {
+        private int attempt;
+        private long waited;
+
+        /**
+         * @param statusCode
+         *            応答のステータスコードを指定する。通信エラーの場合は 0 を指定する。
+         * @param reason
+         *            エラーの理由を指定する。不明な場合は null を指定する。
+         * @param retryAfter
+         *            Retry-After ヘッダーの値を指定する。存在しない場合は null を指定する。
+         * @return delay 再試行までの待機時間 (ミリ秒) を返す。再試行しない場合は負の値を返す。
+         */
+        long nextDelay(int statusCode, String reason, String retryAfter) {
+            if (!isRetryable(statusCode, reason) || attempt >= maxRetries) {
+                return -1;
+            }
+
+            long delay = parseRetryAfter(retryAfter);
+
+            if (delay < 0) {
+                long ceiling = initialDelay << Math.min(attempt, 30);
+                delay = (long) (random.getAsDouble()
+                        * Math.min(maxDelay, ceiling));
+            }
+
+            if (waited + delay > budget) {
+                return -1;
+            }
+
+            attempt++;
+            waited += delay;
+            return delay;
+        }
+
+        /**
+         * @param e
+         *            発生した例外を指定する。
+         * @return delay 再試行までの待機時間 (ミリ秒) を返す。再試行しない場合は負の値を返す。
+         */
+        long nextDelay(IOException e) {
+            if (e instanceof HttpResponseException) {
+                HttpResponseException response = (HttpResponseException) e;
+                return nextDelay(response.getStatusCode(), reasonOf(e),
+                        response.getHeaders() == null ? null
+                                : response.getHeaders().getRetryAfter());
+            } else if (e instanceof SocketException
+                    || e instanceof SocketTimeoutException
+                    || e instanceof NoHttpResponseException) {
+                // NoHttpResponseException は接続プールの接続がサーバー側で切断されていた場合に発生する。
+                return nextDelay(0, null, null);
+            }
+
+            return -1;
+        }
+
+        /**
+         * @param delay
+         *            待機時間 (ミリ秒) を指定する。
+         * @throws IOException
+         *             待機中に割り込まれた場合に送出する。
+         */
+        void sleep(long delay) throws IOException {
+            try {
+                sleeper.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException(
+                        "再試行の待機中に割り込まれました。");
+            }
+        }
+
+        /**
+         * @return attempt 再試行した回数を返す。
+         */
+        int getAttempt() {
+            return attempt;
+        }
+    }
+
+    private static final String[] RETRYABLE_REASONS = {
+            "userRateLimitExceeded", "rateLimitExceeded"};
+
+    private final int maxRetries;
+    private final long initialDelay;
+    private final long maxDelay;
+    private final long budget;
+    private final Sleeper sleeper;
+    private final DoubleSupplier random;
+    private final LongSupplier clock;
+    private final Logger logger;
+
+    RetryPolicy(DriveAttribute driveAttr) {
+        this(driveAttr.getMaxRetries(), driveAttr.getRetryInitialDelay(),
+                driveAttr.getRetryMaxDelay(), driveAttr.getRetryBudget(),
+                Sleeper.DEFAULT, () -> ThreadLocalRandom.current().nextDouble(),
+                System::currentTimeMillis);
+    }
+
+    /**
+     * @param maxRetries
+     *            1 回の操作で再試行する回数の上限を指定する。
+     * @param initialDelay
+     *            初回の再試行で待機する時間の上限 (ミリ秒) を指定する。
+     * @param maxDelay
+     *            1 回の待機時間の上限 (ミリ秒) を指定する。
+     * @param budget
+     *            1 回の操作で待機する時間の合計の上限 (ミリ秒) を指定する。
+     * @param sleeper
+     *            待機に使用する {@link Sleeper} を指定する。
+     * @param random
+     *            0 以上 1 未満の乱数を返す関数を指定する。
+     * @param clock
+     *            Retry-After が日時で指定された場合に使用する現在時刻 (ミリ秒) を返す関数を指定する。
+     */
+    RetryPolicy(int maxRetries, long initialDelay, long maxDelay, long budget,
+            Sleeper sleeper, DoubleSupplier random, LongSupplier clock) {
+        this.maxRetries = maxRetries;
+        this.initialDelay = initialDelay;
+        this.maxDelay = maxDelay;
+        this.budget = budget;
+        this.sleeper = sleeper;
+        this.random = random;
+        this.clock = clock;
+        this.logger = LoggerFactory.getLogger(this.getClass());
+    }
+
+    /**
+     * @return budget 新しい操作のための {@link Budget} を返す。
+     */
+    Budget newBudget() {
+        return new Budget();
+    }
+
+    /**
+     * 操作を実行し、再試行の対象となるエラーで失敗した場合は待機してから再度実行する。
+     *
+     * @param call
+     *            実行する操作を指定する。再試行の度に呼び出されるため、リクエストは呼び出しの中で作成する。
+     * @return result 操作の結果を返す。
+     * @throws IOException
+     *             再試行の対象ではないエラーが発生した場合、または再試行の上限に達した場合に最後の例外を送出する。
+     */
+    <T> T execute(RetryableCall<T> call) throws IOException {
+        Budget retryBudget = newBudget();
+
+        while (true) {
+            try {
+                return call.call();
+            } catch (IOException e) {
+                long delay = retryBudget.nextDelay(e);
+
+                if (delay < 0) {
+                    throw e;
+                }
+
+                logger.warn("{} ミリ秒後に再試行します。 ({}/{}): {}", delay,
+                        retryBudget.getAttempt(), maxRetries, describe(e));
+                retryBudget.sleep(delay);
+            }
+        }
+    }
+
+    /**
+     * @param statusCode
+     *            応答のステータスコードを指定する。通信エラーの場合は 0 を指定する。
+     * @param reason
+     *            エラーの理由を指定する。不明な場合は null を指定する。
+     * @return result 再試行の対象とするエラーの場合は true を返す。
+     */
+    static boolean isRetryable(int statusCode, String reason) {
+        switch (statusCode) {
+            case 0 :
+            case 408 :
+            case 429 :
+            case 500 :
+            case 502 :
+            case 503 :
+            case 504 :
+                return true;
+            case 403 :
+                for (String retryable : RETRYABLE_REASONS) {
+                    if (retryable.equals(reason)) {
+                        return true;
+                    }
+                }
+
+                return false;
+            default :
+                return false;
+        }
+    }
+
+    /**
+     * @return description ログへ出力するためのエラーの概要を返す。
+     */
+    private static String describe(IOException e) {
+        if (e instanceof HttpResponseException) {
+            return errorCodeOf(e);
+        }
+
+        return e.toString();
+    }
+
+    /**
+     * @return errorCode ステータスコードと理由 (例: 403 rateLimitExceeded) を返す。応答を受信していない場合は例外のクラス名を返す。
+     */
+    static String errorCodeOf(IOException e) {
+        if (e instanceof HttpResponseException) {
+            String reason = reasonOf(e);
+            return ((HttpResponseException) e).getStatusCode()
+                    + (reason == null ? "" : " " + reason);
+        }
+
+        return e.getClass().getSimpleName();
+    }
+
+    /**
+     * @return reason エラー応答の最初の理由を返す。存在しない場合は null を返す。
+     */
+    static String reasonOf(IOException e) {
+        if (e instanceof GoogleJsonResponseException) {
+            return reasonOf(((GoogleJsonResponseException) e).getDetails());
+        }
+
+        return null;
+    }
+
+    /**
+     * @return reason エラーの最初の理由を返す。存在しない場合は null を返す。
+     */
+    static String reasonOf(GoogleJsonError error) {
+        if (error == null) {
+            return null;
+        }
+
+        List<GoogleJsonError.ErrorInfo> errors = error.getErrors();
+        return errors == null || errors.isEmpty() ? null
+                : errors.get(0).getReason();
+    }
+
+    /**
+     * @param retryAfter
+     *            Retry-After ヘッダーの値 (秒数または HTTP 日付) を指定する。
+     * @return delay 待機時間 (ミリ秒) を返す。値が存在しないか解析できない場合は負の値を返す。
+     */
+    long parseRetryAfter(String retryAfter) {
+        if (retryAfter == null || retryAfter.trim().isEmpty()) {
+            return -1;
+        }
+
+        String value = retryAfter.trim();
+
+        try {
+            return Math.max(0, Long.parseLong(value) * 1000);
+        } catch (NumberFormatException e) {
+            // HTTP 日付の形式を試す。
+        }
+
+        try {
+            Instant until = ZonedDateTime
+                    .parse(value, DateTimeFormatter.RFC_1123_DATE_TIME)
+                    .toInstant();
+            return Math.max(0, Duration
+                    .between(Instant.ofEpochMilli(clock.getAsLong()), until)
+                    .toMillis());
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+}
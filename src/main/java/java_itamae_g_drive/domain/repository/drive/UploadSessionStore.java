@@ -0,0 +1,142 @@
+package java_itamae_g_drive.domain.repository.drive;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Properties;
+
+/**
+ * レジューム可能なアップロードのセッション URI と送信済みのバイト数をファイルへ保存する。
+ * プロセスが異常終了した場合でも、同じファイルを同じ宛先へ再度アップロードする際に続きから送信できる。
+ */
+class UploadSessionStore {
+    /**
+     * 保存されたアップロードセッション。
+     */
+    static class Session {
+        final String uri;
+        final long offset;
+
+        Session(String uri, long offset) {
+            this.uri = uri;
+            this.offset = offset;
+        }
+    }
+
+    private final Path directory;
+
+    UploadSessionStore(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * @param localFile
+     *            アップロード対象とするファイルを指定する。
+     * @param target
+     *            アップロード先を識別する文字列を指定する。
+     * @return key ファイルのパス・サイズ・更新日時とアップロード先から算出したキーを返す。
+     * @throws IOException
+     *             {@link java.io.IOException}
+     */
+    static String key(java.io.File localFile, String target)
+            throws IOException {
+        String source = String.join("\n", localFile.getCanonicalPath(),
+                String.valueOf(localFile.length()),
+                String.valueOf(localFile.lastModified()), target);
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest
+                    .digest(source.getBytes(StandardCharsets.UTF_8));
+            StringBuilder builder = new StringBuilder();
+
+            for (byte b : hash) {
+                builder.append(String.format("%02x", b));
+            }
+
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param key
+     *            セッションのキーを指定する。
+     * @return session 保存されたセッションを返す。存在しない場合は null を返す。
+     * @throws IOException
+     *             {@link java.io.IOException}
+     */
+    Session load(String key) throws IOException {
+        Path path = directory.resolve(key + ".properties");
+
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+
+        Properties properties = new Properties();
+
+        try (InputStream stream = Files.newInputStream(path)) {
+            properties.load(stream);
+        }
+
+        String uri = properties.getProperty("sessionUri");
+        String offset = properties.getProperty("offset");
+
+        if (uri == null || offset == null) {
+            return null;
+        }
+
+        return new Session(uri, Long.parseLong(offset));
+    }
+
+    /**
+     * セッションを保存する。書き込み途中で異常終了しても既存の内容が壊れないよう、一時ファイルへ書き込んでから置き換える。
+     *
+     * @param key
+     *            セッションのキーを指定する。
+     * @param uri
+     *            セッション URI を指定する。
+     * @param offset
+     *            送信済みのバイト数を指定する。
+     * @throws IOException
+     *             {@link java.io.IOException}
+     */
+    void save(String key, String uri, long offset) throws IOException {
+        Files.createDirectories(directory);
+
+        Properties properties = new Properties();
+        properties.setProperty("sessionUri", uri);
+        properties.setProperty("offset", String.valueOf(offset));
+
+        Path temp = Files.createTempFile(directory, key, ".tmp");
+
+        try {
+            try (OutputStream stream = Files.newOutputStream(temp)) {
+                properties.store(stream, null);
+            }
+
+            Files.move(temp, directory.resolve(key + ".properties"),
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * @param key
+     *            削除対象とするセッションのキーを指定する。
+     * @throws IOException
+     *             {@link java.io.IOException}
+     */
+    void delete(String key) throws IOException {
+        Files.deleteIfExists(directory.resolve(key + ".properties"));
+    }
+}
@@ -0,0 +1,66 @@
+package java_itamae_g_drive.domain.repository.drive;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 転送処理を実行するスレッドプールを生成する。スレッドは名前を持つデーモンスレッドとするため、
+ * 応答のない転送が JVM の終了を妨げず、スレッドダンプで識別できる。
+ */
+public final class WorkerPools {
+    /**
+     * 仮想スレッドを使用できない場合に、非同期処理を同時に実行するスレッド数。
+     */
+    public static final int ASYNC_PARALLELISM = Math.max(16,
+            Runtime.getRuntime().availableProcessors() * 4);
+
+    private WorkerPools() {
+    }
+
+    /**
+     * @param parallelism
+     *            同時に実行する転送処理の上限数を指定する。
+     * @param name
+     *            スレッド名の接頭辞を指定する。
+     * @return executor スレッド数が parallelism で固定されたスレッドプールを返す。
+     */
+    public static ExecutorService newWorkerPool(int parallelism, final String name) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException(
+                    "parallelism には 1 以上の数値を指定してください。: " + parallelism);
+        }
+
+        final AtomicInteger counter = new AtomicInteger();
+
+        return Executors.newFixedThreadPool(parallelism, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r,
+                        name + "-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * @param name
+     *            仮想スレッドを使用できない場合のスレッド名の接頭辞を指定する。
+     * @return executor 実行環境が仮想スレッドに対応している場合はタスクごとに仮想スレッドを生成する
+     *         {@link ExecutorService} を返す。対応していない場合は {@link #ASYNC_PARALLELISM}
+     *         個のスレッドを持つスレッドプールを返す。
+     */
+    public static ExecutorService newAsyncExecutor(String name) {
+        try {
+            // Java 8 でもコンパイルできるよう、 Java 21 以降の API はリフレクションで呼び出す。
+            Method method = Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return newWorkerPool(ASYNC_PARALLELISM, name);
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package java_itamae_g_drive.domain.repository.index;
+
+import java.io.InputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import com.google.api.services.drive.model.File;
+
+import java_itamae_g_drive.domain.model.BatchResult;
+import java_itamae_g_drive.domain.model.FileProjection;
+import java_itamae_g_drive.domain.repository.drive.DriveRepository;
+import java_itamae_g_drive.domain.repository.drive.DriveRepositoryDecorator;
+
+/**
+ * メタデータの検索を {@link MetadataIndex} から応答する {@link DriveRepository} 。
+ * <p>
+ * インデックスは初回の検索時に開き、Changes API で最新の状態へ更新する。
+ * 以降の更新は {@link #refresh()} を明示的に呼び出した場合のみ行う。
+ * インデックスはゴミ箱へ移動したファイルを含まないため、 {@link #findByParentId(String)}
+ * の結果にもゴミ箱内のファイルは含まれない。パスの解決に使用する
+ * {@link #findByParentIdAndName(String, String)} もインデックスから応答する。
+ * </p>
+ */
+public class IndexedDriveRepository extends DriveRepositoryDecorator {
+    private final Path indexDirectory;
+    private volatile MetadataIndex index;
+
+    /**
+     * @param delegate
+     *            委譲先とする {@link DriveRepository} を指定する。
+     * @param indexDirectory
+     *            インデックスを保存するディレクトリを指定する。
+     */
+    public IndexedDriveRepository(DriveRepository delegate,
+            Path indexDirectory) {
+        super(delegate);
+        this.indexDirectory = indexDirectory;
+    }
+
+    /**
+     * @return index 最新の状態へ更新済みのインデックスを返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    private MetadataIndex index() throws Exception {
+        MetadataIndex current = index;
+
+        if (current == null) {
+            synchronized (this) {
+                current = index;
+
+                if (current == null) {
+                    current = MetadataIndex.open(indexDirectory);
+                    current.refresh(delegate);
+                    index = current;
+                }
+            }
+        }
+
+        return current;
+    }
+
+    /**
+     * インデックスを開いていない場合は開き、前回の更新以降の変更を取り込む。
+     *
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public void refresh() throws Exception {
+        MetadataIndex current = index;
+
+        if (current == null) {
+            index();
+        } else {
+            current.refresh(delegate);
+        }
+    }
+
+    /**
+     * @param path
+     *            ルートディレクトリからのパスを / 区切りで指定する。 (例: /reports/2026)
+     * @return file パスに該当するファイルまたはディレクトリを返す。該当するものが存在しない場合は null を返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public File findByPath(String path) throws Exception {
+        return index().findByPath(path);
+    }
+
+    @Override
+    public List<File> findByParentId(String parentId) throws Exception {
+        return index().findByParentId(parentId);
+    }
+
+    @Override
+    public List<File> findByParentId(String parentId,
+            FileProjection projection) throws Exception {
+        if (MetadataIndex.PROJECTION.covers(projection)) {
+            return findByParentId(parentId);
+        }
+
+        return delegate.findByParentId(parentId, projection);
+    }
+
+    @Override
+    public List<File> findByParentIdAndName(String parentId, String name)
+            throws Exception {
+        List<File> fileList = new ArrayList<>();
+
+        for (File file : index().findByParentId(parentId)) {
+            if (name.equals(file.getName())) {
+                fileList.add(file);
+            }
+        }
+
+        return fileList;
+    }
+
+    @Override
+    public File findByFileId(String fileId, FileProjection projection)
+            throws Exception {
+        if (MetadataIndex.PROJECTION.covers(projection)) {
+            File file = index().findByFileId(fileId);
+
+            if (file != null) {
+                return file;
+            }
+        }
+
+        return delegate.findByFileId(fileId, projection);
+    }
+
+    @Override
+    public File findByFileId(String fileId) throws Exception {
+        File file = index().findByFileId(fileId);
+
+        if (file == null) {
+            // 共有ファイルなど、一覧に含まれないファイルは API から取得する。
+            file = delegate.findByFileId(fileId);
+        }
+
+        return file;
+    }
+
+    @Override
+    public File upload(String localFilePath, String remoteParentId)
+            throws Exception {
+        File file = delegate.upload(localFilePath, remoteParentId);
+        putIfOpen(file);
+        return file;
+    }
+
+    @Override
+    public File upload(String localFilePath) throws Exception {
+        File file = delegate.upload(localFilePath);
+        putIfOpen(file);
+        return file;
+    }
+
+    @Override
+    public File upload(InputStream content, String name, String remoteParentId)
+            throws Exception {
+        File file = delegate.upload(content, name, remoteParentId);
+        putIfOpen(file);
+        return file;
+    }
+
+    @Override
+    public File upload(ReadableByteChannel content, String name,
+            String remoteParentId) throws Exception {
+        File file = delegate.upload(content, name, remoteParentId);
+        putIfOpen(file);
+        return file;
+    }
+
+    @Override
+    public File update(String localFilePath, String remoteFileId)
+            throws Exception {
+        File file = delegate.update(localFilePath, remoteFileId);
+        putIfOpen(file);
+        return file;
+    }
+
+    @Override
+    public void delete(String fileId) throws Exception {
+        delegate.delete(fileId);
+        removeIfOpen(fileId);
+    }
+
+    @Override
+    public List<BatchResult> updateMetadataAll(Map<String, File> metaFiles)
+            throws Exception {
+        List<BatchResult> results = delegate.updateMetadataAll(metaFiles);
+
+        for (BatchResult result : results) {
+            if (result.isSuccess() && result.getFile() != null) {
+                mergeIfOpen(result.getFile());
+            }
+        }
+
+        return results;
+    }
+
+    @Override
+    public List<BatchResult> deleteAll(Collection<String> fileIds)
+            throws Exception {
+        List<BatchResult> results = delegate.deleteAll(fileIds);
+
+        for (BatchResult result : results) {
+            if (result.isSuccess()) {
+                removeIfOpen(result.getFileId());
+            }
+        }
+
+        return results;
+    }
+
+    @Override
+    public String getDriveRootId() throws Exception {
+        MetadataIndex current = index;
+
+        // ルートの file_id のみを取得するためにインデックスを作成しない。
+        if (current == null) {
+            return delegate.getDriveRootId();
+        }
+
+        return current.getRootId();
+    }
+
+    /**
+     * 変更操作の結果をインデックスへ反映する。インデックスを開いていない場合は次回の更新で取り込まれるため何もしない。
+     * 変更操作の応答は {@link MetadataIndex#PROJECTION} の一部のフィールドしか含まないため、
+     * md5Checksum などを欠いたまま登録しないよう取得し直す。
+     */
+    private void putIfOpen(File file) throws Exception {
+        MetadataIndex current = index;
+
+        if (current != null && file.getId() != null) {
+            current.put(delegate.findByFileId(file.getId(),
+                    MetadataIndex.PROJECTION));
+        }
+    }
+
+    /**
+     * メタデータのみの変更結果を登録済みの内容へ重ねて反映する。内容は変わらないため、 md5Checksum と size
+     * は登録済みの値を引き継ぐ。登録されていない場合は次回の更新で取り込まれるため何もしない。
+     */
+    private void mergeIfOpen(File file) throws Exception {
+        MetadataIndex current = index;
+
+        if (current == null || file.getId() == null) {
+            return;
+        }
+
+        File indexed = current.findByFileId(file.getId());
+
+        if (indexed == null) {
+            return;
+        }
+
+        if (file.getName() != null) {
+            indexed.setName(file.getName());
+        }
+
+        if (file.getParents() != null) {
+            indexed.setParents(file.getParents());
+        }
+
+        current.put(indexed);
+    }
+
+    private void removeIfOpen(String fileId) throws Exception {
+        MetadataIndex current = index;
+
+        if (current != null) {
+            current.remove(fileId);
+        }
+    }
+
+    /**
+     * インデックスのログファイルを閉じる。
+     *
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public void close() throws Exception {
+        MetadataIndex current = index;
+
+        if (current != null) {
+            current.close();
+        }
+    }
+}
@@ -0,0 +1,682 @@
+package java_itamae_g_drive.domain.repository.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.api.client.util.DateTime;
+import com.google.api.services.drive.model.Change;
+import com.google.api.services.drive.model.File;
+
+import java_itamae_g_drive.domain.model.FileField;
+import java_itamae_g_drive.domain.model.FileProjection;
+import java_itamae_g_drive.domain.repository.drive.DriveRepository;
+import java_itamae_g_drive.domain.repository.drive.FileIterator;
+
+/**
+ * Google Drive 上のファイル・ディレクトリのメタデータをローカルのファイルへ保存し、ネットワークを介さずに検索する。
+ * <p>
+ * 初回は files().list() で全件を取得し、以降は changes().list() で前回からの差分のみを取得する。
+ * メタデータは追記専用のログファイルへ記録し、起動時にメモリ上へ読み込む。
+ * 書き込み途中で異常終了した場合、末尾の不完全なレコードは読み込み時に切り捨てる。
+ * </p>
+ */
+public class MetadataIndex implements Closeable {
+    /**
+     * インデックスへ記録するフィールド。
+     */
+    public static final FileProjection PROJECTION = FileProjection.of(
+            FileField.ID, FileField.NAME, FileField.MIME_TYPE,
+            FileField.PARENTS, FileField.MD5_CHECKSUM, FileField.SIZE,
+            FileField.MODIFIED_TIME, FileField.TRASHED);
+
+    /**
+     * インデックスへ記録するフィールドのフィールドマスク。
+     */
+    public static final String FIELDS = PROJECTION.toFieldMask();
+
+    private static final String LOG_FILE_NAME = "index.log";
+    private static final byte PUT = 'P';
+    private static final byte REMOVE = 'D';
+    private static final byte PAGE_TOKEN = 'T';
+    private static final byte ROOT = 'R';
+
+    /**
+     * インデックスに記録された 1 件分のメタデータ。
+     */
+    private static final class Entry {
+        final String id;
+        final String name;
+        final String mimeType;
+        final String md5Checksum;
+        final long size;
+        final long modifiedTime;
+        final String[] parents;
+
+        Entry(String id, String name, String mimeType, String md5Checksum,
+                long size, long modifiedTime, String[] parents) {
+            this.id = id;
+            this.name = name;
+            this.mimeType = mimeType;
+            this.md5Checksum = md5Checksum;
+            this.size = size;
+            this.modifiedTime = modifiedTime;
+            this.parents = parents;
+        }
+
+        static Entry of(File file) {
+            List<String> parentList = file.getParents();
+            String[] parents = parentList == null ? new String[0]
+                    : parentList.toArray(new String[parentList.size()]);
+
+            return new Entry(file.getId(), file.getName(), file.getMimeType(),
+                    file.getMd5Checksum(),
+                    file.getSize() == null ? -1 : file.getSize(),
+                    file.getModifiedTime() == null ? -1
+                            : file.getModifiedTime().getValue(),
+                    parents);
+        }
+
+        File toFile() {
+            File file = new File().setId(id).setName(name)
+                    .setMimeType(mimeType)
+                    .setParents(new ArrayList<>(Arrays.asList(parents)));
+
+            if (md5Checksum != null) {
+                file.setMd5Checksum(md5Checksum);
+            }
+
+            if (size >= 0) {
+                file.setSize(size);
+            }
+
+            if (modifiedTime >= 0) {
+                file.setModifiedTime(new DateTime(modifiedTime));
+            }
+
+            return file;
+        }
+    }
+
+    /**
+     * 読み込んだバイト数を数える。
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+
+            if (b >= 0) {
+                count++;
+            }
+
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+
+            if (read > 0) {
+                count += read;
+            }
+
+            return read;
+        }
+    }
+
+    private final Path directory;
+    private final Path logFile;
+    private final Logger logger;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object refreshLock = new Object();
+
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Map<String, Set<String>> children = new HashMap<>();
+    private String pageToken;
+    private String rootId;
+
+    private DataOutputStream log;
+    private long recordCount;
+
+    private MetadataIndex(Path directory) {
+        this.directory = directory;
+        this.logFile = directory.resolve(LOG_FILE_NAME);
+        this.logger = LoggerFactory.getLogger(this.getClass());
+    }
+
+    /**
+     * インデックスを開く。保存済みのインデックスが存在する場合は読み込む。
+     *
+     * @param directory
+     *            インデックスを保存するディレクトリを指定する。
+     * @return index インデックスを返す。
+     * @throws IOException
+     *             {@link java.io.IOException}
+     */
+    public static MetadataIndex open(Path directory) throws IOException {
+        Files.createDirectories(directory);
+
+        MetadataIndex index = new MetadataIndex(directory);
+        index.load();
+        index.log = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(index.logFile.toFile(), true)));
+        return index;
+    }
+
+    private void load() throws IOException {
+        if (!Files.isRegularFile(logFile)) {
+            return;
+        }
+
+        long validLength = 0;
+
+        try (CountingInputStream counter = new CountingInputStream(
+                new BufferedInputStream(Files.newInputStream(logFile)));
+                DataInputStream in = new DataInputStream(counter)) {
+            while (true) {
+                int tag = in.read();
+
+                if (tag < 0) {
+                    break;
+                }
+
+                readRecord((byte) tag, in);
+                recordCount++;
+                validLength = counter.count;
+            }
+        } catch (EOFException e) {
+            logger.warn("インデックス末尾の不完全なレコードを破棄します。");
+        }
+
+        if (validLength < Files.size(logFile)) {
+            try (FileChannel channel = FileChannel.open(logFile,
+                    StandardOpenOption.WRITE)) {
+                channel.truncate(validLength);
+            }
+        }
+    }
+
+    private void readRecord(byte tag, DataInputStream in) throws IOException {
+        switch (tag) {
+            case PUT :
+                String id = in.readUTF();
+                String name = in.readUTF();
+                String mimeType = in.readUTF();
+                String md5Checksum = in.readBoolean() ? in.readUTF() : null;
+                long size = in.readLong();
+                long modifiedTime = in.readLong();
+                String[] parents = new String[in.readInt()];
+
+                for (int i = 0; i < parents.length; i++) {
+                    parents[i] = in.readUTF();
+                }
+
+                apply(new Entry(id, name, mimeType, md5Checksum, size,
+                        modifiedTime, parents));
+                break;
+            case REMOVE :
+                unlink(in.readUTF());
+                break;
+            case PAGE_TOKEN :
+                pageToken = in.readUTF();
+                break;
+            case ROOT :
+                rootId = in.readUTF();
+                break;
+            default :
+                throw new IOException("インデックスの形式が不正です。: " + tag);
+        }
+    }
+
+    private void writeEntry(DataOutputStream out, Entry entry)
+            throws IOException {
+        out.writeByte(PUT);
+        out.writeUTF(entry.id);
+        out.writeUTF(entry.name == null ? "" : entry.name);
+        out.writeUTF(entry.mimeType == null ? "" : entry.mimeType);
+        out.writeBoolean(entry.md5Checksum != null);
+
+        if (entry.md5Checksum != null) {
+            out.writeUTF(entry.md5Checksum);
+        }
+
+        out.writeLong(entry.size);
+        out.writeLong(entry.modifiedTime);
+        out.writeInt(entry.parents.length);
+
+        for (String parent : entry.parents) {
+            out.writeUTF(parent);
+        }
+    }
+
+    private void apply(Entry entry) {
+        unlink(entry.id);
+        entries.put(entry.id, entry);
+
+        for (String parent : entry.parents) {
+            Set<String> childIds = children.get(parent);
+
+            if (childIds == null) {
+                childIds = new LinkedHashSet<>();
+                children.put(parent, childIds);
+            }
+
+            childIds.add(entry.id);
+        }
+    }
+
+    private void unlink(String id) {
+        Entry old = entries.remove(id);
+
+        if (old == null) {
+            return;
+        }
+
+        for (String parent : old.parents) {
+            Set<String> childIds = children.get(parent);
+
+            if (childIds != null) {
+                childIds.remove(id);
+
+                if (childIds.isEmpty()) {
+                    children.remove(parent);
+                }
+            }
+        }
+    }
+
+    /**
+     * インデックスを最新の状態へ更新する。初回は全件を取得し、以降は前回の更新からの差分のみを取得する。
+     *
+     * @param repository
+     *            メタデータの取得に使用する {@link DriveRepository} を指定する。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public void refresh(DriveRepository repository) throws Exception {
+        synchronized (refreshLock) {
+            if (getPageToken() == null) {
+                bootstrap(repository);
+            } else {
+                String newToken = repository.findChanges(getPageToken(),
+                        FIELDS, this::apply);
+                writeToken(newToken);
+            }
+
+            if (recordCount > 2L * size() + 10000) {
+                compact();
+            }
+        }
+    }
+
+    private void bootstrap(DriveRepository repository) throws Exception {
+        logger.info("インデックスを作成しています......");
+
+        // 一覧の取得中に発生した変更を取りこぼさないよう、先にトークンを取得する。
+        String token = repository.getStartPageToken();
+        String root = repository.getDriveRootId();
+
+        lock.writeLock().lock();
+
+        try {
+            entries.clear();
+            children.clear();
+            rootId = root;
+            pageToken = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        rewrite();
+
+        try (FileIterator files = repository.iterateByQuery("trashed = false",
+                DriveRepository.MAX_PAGE_SIZE, PROJECTION)) {
+            // 1 件ごとには書き出さず、 writeToken でまとめて書き出す。
+            while (files.hasNext()) {
+                append(files.next());
+            }
+        }
+
+        writeToken(token);
+        logger.info("{} 件のメタデータを登録しました。", size());
+    }
+
+    private void apply(Change change) {
+        try {
+            File file = change.getFile();
+
+            if (Boolean.TRUE.equals(change.getRemoved()) || file == null
+                    || Boolean.TRUE.equals(file.getTrashed())) {
+                appendRemove(change.getFileId());
+            } else {
+                append(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void writeToken(String token) throws IOException {
+        lock.writeLock().lock();
+
+        try {
+            pageToken = token;
+            log.writeByte(PAGE_TOKEN);
+            log.writeUTF(token);
+            log.flush();
+            recordCount++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * ファイルまたはディレクトリのメタデータを登録する。登録済みの場合は置き換える。
+     *
+     * @param file
+     *            登録対象とするファイルまたはディレクトリを指定する。
+     * @throws IOException
+     *             {@link java.io.IOException}
+     */
+    public void put(File file) throws IOException {
+        lock.writeLock().lock();
+
+        try {
+            append(file);
+            log.flush();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * ファイルまたはディレクトリのメタデータを削除する。
+     *
+     * @param fileId
+     *            削除対象とするファイルまたはディレクトリの file_id を指定する。
+     * @throws IOException
+     *             {@link java.io.IOException}
+     */
+    public void remove(String fileId) throws IOException {
+        lock.writeLock().lock();
+
+        try {
+            appendRemove(fileId);
+            log.flush();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 登録してログへ追記する。書き出しは呼び出し元で行う。
+     */
+    private void append(File file) throws IOException {
+        Entry entry = Entry.of(file);
+        lock.writeLock().lock();
+
+        try {
+            apply(entry);
+            writeEntry(log, entry);
+            recordCount++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 削除してログへ追記する。書き出しは呼び出し元で行う。
+     */
+    private void appendRemove(String fileId) throws IOException {
+        lock.writeLock().lock();
+
+        try {
+            unlink(fileId);
+            log.writeByte(REMOVE);
+            log.writeUTF(fileId);
+            recordCount++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @param fileId
+     *            検索対象とするファイルまたはディレクトリの file_id を指定する。
+     * @return file ファイルまたはディレクトリを返す。登録されていない場合は null を返す。
+     */
+    public File findByFileId(String fileId) {
+        lock.readLock().lock();
+
+        try {
+            Entry entry = entries.get(resolveAlias(fileId));
+            return entry == null ? null : entry.toFile();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param parentId
+     *            検索対象とするディレクトリの file_id を指定する。
+     * @return fileList 指定したディレクトリの配下に存在するファイル・ディレクトリの一覧を返す。
+     */
+    public List<File> findByParentId(String parentId) {
+        lock.readLock().lock();
+
+        try {
+            Set<String> childIds = children.get(resolveAlias(parentId));
+
+            if (childIds == null) {
+                return new ArrayList<>();
+            }
+
+            List<File> fileList = new ArrayList<>(childIds.size());
+
+            for (String childId : childIds) {
+                fileList.add(entries.get(childId).toFile());
+            }
+
+            return fileList;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param path
+     *            ルートディレクトリからのパスを / 区切りで指定する。 (例: /reports/2026)
+     * @return file パスに該当するファイルまたはディレクトリを返す。該当するものが存在しない場合は null を返す。
+     *         同じ名前のファイルが複数存在する場合はいずれか 1 件を返す。
+     */
+    public File findByPath(String path) {
+        lock.readLock().lock();
+
+        try {
+            String currentId = rootId;
+
+            for (String name : path.split("/")) {
+                if (name.isEmpty()) {
+                    continue;
+                }
+
+                Set<String> childIds = children.get(currentId);
+                currentId = null;
+
+                if (childIds != null) {
+                    for (String childId : childIds) {
+                        if (name.equals(entries.get(childId).name)) {
+                            currentId = childId;
+                            break;
+                        }
+                    }
+                }
+
+                if (currentId == null) {
+                    return null;
+                }
+            }
+
+            Entry entry = entries.get(currentId);
+
+            if (entry == null) {
+                // ルートディレクトリ自体はインデックスに含まれない。
+                return currentId == null ? null
+                        : new File().setId(currentId).setName("");
+            }
+
+            return entry.toFile();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private String resolveAlias(String fileId) {
+        return DriveRepository.ROOT_ID.equals(fileId) && rootId != null
+                ? rootId
+                : fileId;
+    }
+
+    /**
+     * @return rootId ルートディレクトリの file_id を返す。インデックスが未作成の場合は null を返す。
+     */
+    public String getRootId() {
+        lock.readLock().lock();
+
+        try {
+            return rootId;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return pageToken 次回の更新で使用するトークンを返す。インデックスが未作成の場合は null を返す。
+     */
+    public String getPageToken() {
+        lock.readLock().lock();
+
+        try {
+            return pageToken;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return size 登録されているファイル・ディレクトリの件数を返す。
+     */
+    public int size() {
+        lock.readLock().lock();
+
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 現在の内容のみを含むようにログファイルを書き直し、置き換えや削除で不要になったレコードを取り除く。
+     *
+     * @throws IOException
+     *             {@link java.io.IOException}
+     */
+    public void compact() throws IOException {
+        rewrite();
+    }
+
+    private void rewrite() throws IOException {
+        lock.writeLock().lock();
+
+        try {
+            Path temp = Files.createTempFile(directory, LOG_FILE_NAME, ".tmp");
+            long count = 0;
+
+            try {
+                try (FileOutputStream stream = new FileOutputStream(
+                        temp.toFile());
+                        DataOutputStream out = new DataOutputStream(
+                                new BufferedOutputStream(stream))) {
+                    if (rootId != null) {
+                        out.writeByte(ROOT);
+                        out.writeUTF(rootId);
+                        count++;
+                    }
+
+                    for (Entry entry : entries.values()) {
+                        writeEntry(out, entry);
+                        count++;
+                    }
+
+                    if (pageToken != null) {
+                        out.writeByte(PAGE_TOKEN);
+                        out.writeUTF(pageToken);
+                        count++;
+                    }
+
+                    out.flush();
+                    stream.getFD().sync();
+                }
+
+                if (log != null) {
+                    log.close();
+                }
+
+                Files.move(temp, logFile, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+
+            log = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(logFile.toFile(), true)));
+            recordCount = count;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.writeLock().lock();
+
+        try {
+            log.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package java_itamae_g_drive.domain.service.drive;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.google.api.services.drive.model.File;
+
+import java_itamae_g_drive.domain.model.CompactFileList;
+import java_itamae_g_drive.domain.model.FileProjection;
+
+/**
+ * {@link DriveService} の操作を別スレッドで実行し、結果を {@link CompletableFuture} で返す。
+ * <p>
+ * 失敗した操作は例外で完了する。 {@link CompletableFuture#cancel(boolean)}
+ * を呼び出すと、開始前の操作は実行せず、実行中の操作はスレッドに割り込んで次のリクエストの送信前や再試行の待機中に中断する。
+ * {@code thenCompose} などで合成した後続の Future を取り消しても元の操作は取り消されないため、
+ * 元の Future を取り消すこと。
+ * </p>
+ */
+public interface AsyncDriveService extends AutoCloseable {
+    /**
+     * @see DriveService#findByParentId(String)
+     */
+    public CompletableFuture<List<File>> findByParentId(String parentId);
+
+    /**
+     * @see DriveService#findByParentId(String, FileProjection)
+     */
+    public CompletableFuture<List<File>> findByParentId(String parentId,
+            FileProjection projection);
+
+    /**
+     * @see DriveService#findCompactByQuery(String)
+     */
+    public CompletableFuture<CompactFileList> findCompactByQuery(String query);
+
+    /**
+     * @see DriveService#findByFileId(String)
+     */
+    public CompletableFuture<File> findByFileId(String fileId);
+
+    /**
+     * @see DriveService#resolvePath(String)
+     */
+    public CompletableFuture<File> resolvePath(String remotePath);
+
+    /**
+     * @see DriveService#upload(String, String)
+     */
+    public CompletableFuture<File> upload(String localFilePath,
+            String remoteParentId);
+
+    /**
+     * @see DriveService#download(String, String)
+     */
+    public CompletableFuture<java.io.File> download(String localDirPath,
+            String remoteFileId);
+
+    /**
+     * @see DriveService#download(String, File)
+     */
+    public CompletableFuture<java.io.File> download(String localDirPath,
+            File remoteFile);
+
+    /**
+     * 複数のファイルを同時にダウンロードする。いずれかが失敗した場合は残りのダウンロードを取り消し、その例外で完了する。
+     * 返した Future を取り消した場合も、全てのダウンロードを取り消す。
+     *
+     * @param localDirPath
+     *            ダウンロード先ディレクトリのパスを指定する。
+     * @param remoteFiles
+     *            ダウンロード対象とするファイルを指定する。
+     * @return future 指定した順にダウンロードしたファイルの一覧で完了する Future を返す。
+     */
+    public CompletableFuture<List<java.io.File>> downloadAll(
+            String localDirPath, Collection<File> remoteFiles);
+
+    /**
+     * @see DriveService#update(String, String)
+     */
+    public CompletableFuture<File> update(String localFilePath,
+            String remoteFileId);
+
+    /**
+     * @see DriveService#delete(String)
+     */
+    public CompletableFuture<Void> delete(String fileId);
+
+    /**
+     * このインスタンスが生成した {@link java.util.concurrent.ExecutorService} を停止する。
+     * 実行中の操作には割り込む。コンストラクタで指定した {@link java.util.concurrent.Executor} は停止しない。
+     */
+    @Override
+    public void close();
+}
@@ -0,0 +1,213 @@
+package java_itamae_g_drive.domain.service.drive;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+
+import com.google.api.services.drive.model.File;
+
+import java_itamae_g_drive.domain.model.CompactFileList;
+import java_itamae_g_drive.domain.model.FileProjection;
+import java_itamae_g_drive.domain.repository.drive.WorkerPools;
+
+public class AsyncDriveServiceImpl implements AsyncDriveService {
+    private final DriveService service;
+    private final Executor executor;
+    private final ExecutorService ownedExecutor;
+
+    /**
+     * 実行環境が対応している場合は仮想スレッド、対応していない場合はスレッドプールで操作を実行する。
+     *
+     * @param service
+     *            操作を委譲する {@link DriveService} を指定する。
+     */
+    public AsyncDriveServiceImpl(DriveService service) {
+        this.service = service;
+        this.ownedExecutor = WorkerPools.newAsyncExecutor("drive-async");
+        this.executor = ownedExecutor;
+    }
+
+    /**
+     * @param service
+     *            操作を委譲する {@link DriveService} を指定する。
+     * @param executor
+     *            操作を実行する {@link Executor} を指定する。 {@link #close()} では停止しない。
+     */
+    public AsyncDriveServiceImpl(DriveService service, Executor executor) {
+        this.service = service;
+        this.ownedExecutor = null;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<List<File>> findByParentId(String parentId) {
+        return submit(() -> service.findByParentId(parentId));
+    }
+
+    @Override
+    public CompletableFuture<List<File>> findByParentId(String parentId,
+            FileProjection projection) {
+        return submit(() -> service.findByParentId(parentId, projection));
+    }
+
+    @Override
+    public CompletableFuture<CompactFileList> findCompactByQuery(String query) {
+        return submit(() -> service.findCompactByQuery(query));
+    }
+
+    @Override
+    public CompletableFuture<File> findByFileId(String fileId) {
+        return submit(() -> service.findByFileId(fileId));
+    }
+
+    @Override
+    public CompletableFuture<File> resolvePath(String remotePath) {
+        return submit(() -> service.resolvePath(remotePath));
+    }
+
+    @Override
+    public CompletableFuture<File> upload(String localFilePath,
+            String remoteParentId) {
+        return submit(() -> service.upload(localFilePath, remoteParentId));
+    }
+
+    @Override
+    public CompletableFuture<java.io.File> download(String localDirPath,
+            String remoteFileId) {
+        return submit(() -> service.download(localDirPath, remoteFileId));
+    }
+
+    @Override
+    public CompletableFuture<java.io.File> download(String localDirPath,
+            File remoteFile) {
+        return submit(() -> service.download(localDirPath, remoteFile));
+    }
+
+    @Override
+    public CompletableFuture<List<java.io.File>> downloadAll(
+            String localDirPath, Collection<File> remoteFiles) {
+        final List<CompletableFuture<java.io.File>> futureList = new ArrayList<>();
+
+        for (File remoteFile : remoteFiles) {
+            futureList.add(download(localDirPath, remoteFile));
+        }
+
+        final CompletableFuture<List<java.io.File>> result = new CompletableFuture<>();
+
+        for (CompletableFuture<java.io.File> future : futureList) {
+            future.whenComplete((file, e) -> {
+                if (e != null) {
+                    result.completeExceptionally(e);
+                }
+            });
+        }
+
+        CompletableFuture
+                .allOf(futureList.toArray(new CompletableFuture<?>[0]))
+                .thenRun(() -> {
+                    List<java.io.File> fileList = new ArrayList<>();
+
+                    for (CompletableFuture<java.io.File> future : futureList) {
+                        fileList.add(future.join());
+                    }
+
+                    result.complete(fileList);
+                });
+
+        // 失敗・取り消しのいずれでも、残りのダウンロードを止める。
+        // 実行中の操作へ割り込むとスレッドが次の操作を開始するため、後に登録した未開始の操作から取り消す。
+        result.whenComplete((fileList, e) -> {
+            if (e != null) {
+                for (int i = futureList.size() - 1; i >= 0; i--) {
+                    futureList.get(i).cancel(true);
+                }
+            }
+        });
+
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<File> update(String localFilePath,
+            String remoteFileId) {
+        return submit(() -> service.update(localFilePath, remoteFileId));
+    }
+
+    @Override
+    public CompletableFuture<Void> delete(String fileId) {
+        return submit(() -> {
+            service.delete(fileId);
+            return null;
+        });
+    }
+
+    @Override
+    public void close() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdownNow();
+        }
+    }
+
+    private <T> CompletableFuture<T> submit(Callable<T> action) {
+        InterruptibleTask<T> task = new InterruptibleTask<>(action);
+        executor.execute(task);
+        return task;
+    }
+
+    /**
+     * 取り消された時に実行中のスレッドへ割り込む {@link CompletableFuture} 。
+     * {@link CompletableFuture#supplyAsync} は取り消されても実行中の処理を止めないため使用しない。
+     */
+    private static class InterruptibleTask<T> extends CompletableFuture<T>
+            implements Runnable {
+        private final Callable<T> action;
+        private Thread runner;
+
+        InterruptibleTask(Callable<T> action) {
+            this.action = action;
+        }
+
+        @Override
+        public void run() {
+            synchronized (this) {
+                if (isDone()) {
+                    return;
+                }
+
+                runner = Thread.currentThread();
+            }
+
+            try {
+                complete(action.call());
+            } catch (Throwable e) {
+                completeExceptionally(e);
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                }
+
+                // 取り消しによる割り込みを、スレッドプールの次のタスクへ持ち越さない。
+                Thread.interrupted();
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+
+            if (cancelled && mayInterruptIfRunning) {
+                synchronized (this) {
+                    if (runner != null) {
+                        runner.interrupt();
+                    }
+                }
+            }
+
+            return cancelled;
+        }
+    }
+}
@@ -1,9 +1,22 @@
 package java_itamae_g_drive.domain.service.drive;
 
+import java.io.InputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 import com.google.api.services.drive.model.File;
 
+import java_itamae_g_drive.domain.model.BatchResult;
+import java_itamae_g_drive.domain.model.CompactFileList;
+import java_itamae_g_drive.domain.model.FileProjection;
+import java_itamae_g_drive.domain.model.ManifestResult;
+import java_itamae_g_drive.domain.model.TransferResult;
+import java_itamae_g_drive.domain.repository.drive.DriveRepository;
+import java_itamae_g_drive.domain.repository.drive.FileIterator;
+
 public interface DriveService {
     /**
      * 指定したディレクトリの配下に存在するファイル・ディレクトリの一覧を取得する。
@@ -16,6 +29,46 @@ public interface DriveService {
      */
     public List<File> findByParentId(String parentId) throws Exception;
 
+    /**
+     * 指定したディレクトリの配下に存在するファイル・ディレクトリの一覧を、指定したフィールドのみを取得して返す。
+     *
+     * @param parentId
+     *            検索対象とするディレクトリの file_id を指定する。
+     * @param projection
+     *            取得するフィールドを指定する。
+     * @return fileList ファイル・ディレクトリの一覧を返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public List<File> findByParentId(String parentId,
+            FileProjection projection) throws Exception;
+
+    /**
+     * 指定したディレクトリの配下に存在するファイル・ディレクトリをページ単位で遅延取得しながら走査する。
+     *
+     * @param parentId
+     *            検索対象とするディレクトリの file_id を指定する。
+     * @param pageSize
+     *            1 ページあたりに取得するファイル数を 1 から
+     *            {@link DriveRepository#MAX_PAGE_SIZE} の範囲で指定する。
+     * @return iterator ファイル・ディレクトリを走査する {@link FileIterator} を返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public FileIterator iterateByParentId(String parentId, int pageSize)
+            throws Exception;
+
+    /**
+     * クエリに記述した検索条件に該当するファイル・ディレクトリの一覧を、メモリ消費の少ない列形式で取得する。
+     *
+     * @param query
+     *            検索対象とするクエリを指定する。全件を対象とする場合は null を指定する。
+     * @return list ファイル・ディレクトリの一覧を返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public CompactFileList findCompactByQuery(String query) throws Exception;
+
     /**
      * file_id をキーにファイルまたはディレクトリを検索する。
      *
@@ -27,6 +80,45 @@ public interface DriveService {
      */
     public File findByFileId(String fileId) throws Exception;
 
+    /**
+     * Google Drive 上のパスをファイルまたはディレクトリへ解決する。
+     * 解決済みのディレクトリは保持するため、同じディレクトリ配下のパスは未解決の階層の分のみ検索する。
+     *
+     * @param remotePath
+     *            解決対象とするパスを "/" 区切りで指定する。 (例: /reports/2026/q3)
+     * @return file ファイルまたはディレクトリを返す。
+     * @throws Exception
+     *             {@link java.lang.Exception} 存在しない場合は
+     *             {@link java.io.FileNotFoundException}
+     */
+    public File resolvePath(String remotePath) throws Exception;
+
+    /**
+     * file_id をキーにファイルまたはディレクトリを検索し、指定したフィールドのみを取得して返す。
+     *
+     * @param fileId
+     *            検索対象とするファイルまたはディレクトリの file_id を指定する。
+     * @param projection
+     *            取得するフィールドを指定する。
+     * @return file ファイルまたはディレクトリを返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public File findByFileId(String fileId, FileProjection projection)
+            throws Exception;
+
+    /**
+     * 複数の file_id をキーにファイルまたはディレクトリをバッチリクエストで検索する。
+     *
+     * @param fileIds
+     *            検索対象とするファイルまたはディレクトリの file_id を指定する。
+     * @return resultList fileIds と同じ順序で操作結果を返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public List<BatchResult> findByFileIds(Collection<String> fileIds)
+            throws Exception;
+
     /**
      * ファイルまたはディレクトリをアップロードする。
      *
@@ -52,6 +144,152 @@ public interface DriveService {
      */
     public File upload(String localFilePath) throws Exception;
 
+    /**
+     * Google Drive 上のパスで指定したディレクトリへファイルをアップロードする。
+     *
+     * @param localFilePath
+     *            アップロード対象とするファイルのパスを指定する。
+     * @param remoteDirPath
+     *            アップロード先ディレクトリのパスを "/" 区切りで指定する。
+     * @return file アップロードしたファイルを返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public File uploadByPath(String localFilePath, String remoteDirPath)
+            throws Exception;
+
+    /**
+     * 長さが不明な内容をファイルとしてアップロードする。
+     * <p>
+     * 内容はレジューム可能なアップロードでチャンク単位に送信し、メモリには 1 チャンク分のみを保持する。
+     * ローカルファイルへの一時的な書き出しは行わない。 content は呼び出し元で閉じる。
+     * </p>
+     *
+     * @param content
+     *            アップロードする内容を指定する。
+     * @param name
+     *            作成するファイルの名前を指定する。
+     * @param remoteParentId
+     *            格納先ディレクトリの file_id を指定する。
+     * @return file アップロードされたファイルを返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public File upload(InputStream content, String name, String remoteParentId)
+            throws Exception;
+
+    /**
+     * 長さが不明な内容をファイルとしてアップロードする。
+     *
+     * @param content
+     *            アップロードする内容を指定する。呼び出し元で閉じる。
+     * @param name
+     *            作成するファイルの名前を指定する。
+     * @param remoteParentId
+     *            格納先ディレクトリの file_id を指定する。
+     * @return file アップロードされたファイルを返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     * @see #upload(InputStream, String, String)
+     */
+    public File upload(ReadableByteChannel content, String name,
+            String remoteParentId) throws Exception;
+
+    /**
+     * 複数のファイルまたはディレクトリを並列にアップロードする。
+     * <p>
+     * 戻り値の一覧は localFilePaths の反復順序と同じ順序で並ぶ。 listener
+     * は呼び出し元のスレッドから転送が完了した順に呼び出される。 1 件の転送に失敗しても残りの転送は継続し、失敗した原因は
+     * {@link TransferResult#getError()} に格納される。
+     * </p>
+     *
+     * @param localFilePaths
+     *            アップロード対象とするファイルまたはディレクトリのパスを指定する。
+     * @param remoteParentId
+     *            格納先ディレクトリの file_id を指定する。
+     * @param parallelism
+     *            同時に実行するアップロードの上限数を指定する。
+     * @param listener
+     *            転送が 1 件完了する度に結果を受け取るリスナーを指定する。不要な場合は null を指定する。
+     * @return resultList ファイルごとの転送結果を返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public List<TransferResult> uploadAll(Collection<String> localFilePaths,
+            String remoteParentId, int parallelism,
+            Consumer<TransferResult> listener) throws Exception;
+
+    /**
+     * ディレクトリを配下のファイル・ディレクトリごと再帰的にアップロードする。
+     * <p>
+     * ディレクトリは親ディレクトリの作成完了後に作成され、兄弟関係にあるディレクトリは並列に作成される。
+     * ファイルは格納先ディレクトリが作成された時点から並列にアップロードされる。 戻り値の一覧はディレクトリツリーの走査順
+     * (親ディレクトリが子よりも先) に並び、 listener は呼び出し元のスレッドから転送が完了した順に呼び出される。
+     * ディレクトリの作成に失敗した場合、その配下は全て失敗として扱う。
+     * </p>
+     *
+     * @param localDirPath
+     *            アップロード対象とするディレクトリのパスを指定する。
+     * @param remoteParentId
+     *            格納先ディレクトリの file_id を指定する。
+     * @param parallelism
+     *            同時に実行するアップロードの上限数を指定する。
+     * @param listener
+     *            転送が 1 件完了する度に結果を受け取るリスナーを指定する。不要な場合は null を指定する。
+     * @return resultList ディレクトリ・ファイルごとの転送結果を返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public List<TransferResult> uploadTree(String localDirPath,
+            String remoteParentId, int parallelism,
+            Consumer<TransferResult> listener) throws Exception;
+
+    /**
+     * ローカルのディレクトリと Google Drive 上のディレクトリを同期する。
+     * <p>
+     * 同じ名前のファイルが存在する場合はサイズと md5Checksum を比較し、内容が異なるファイルのみを更新する。
+     * 存在しないファイル・ディレクトリはアップロードし、配下のディレクトリも再帰的に同期する。 ハッシュ値の計算と転送は
+     * parallelism 件まで並列に実行する。 Google Drive 上にのみ存在するファイルは削除しない。
+     * </p>
+     *
+     * @param localDirPath
+     *            同期元とするディレクトリのパスを指定する。
+     * @param remoteFolderId
+     *            同期先とするディレクトリの file_id を指定する。
+     * @param parallelism
+     *            同時に実行するハッシュ値の計算・転送の上限数を指定する。
+     * @param listener
+     *            ファイル・ディレクトリ 1 件の処理が完了する度に結果を受け取るリスナーを指定する。転送を省略した場合は
+     *            {@link TransferResult#isSkipped()} が true となる。不要な場合は null を指定する。
+     * @return resultList ディレクトリ・ファイルごとの処理結果を完了順に返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public List<TransferResult> sync(String localDirPath,
+            String remoteFolderId, int parallelism,
+            Consumer<TransferResult> listener) throws Exception;
+
+    /**
+     * マニフェストに記述された操作を実行する。取得・削除・名前の変更はバッチリクエストにまとめ、アップロード・ダウンロード・更新は並列に実行する。
+     * マニフェストは 1 行ずつ読み込み、結果は結果ファイルへ追記するため、行数によらず使用するメモリはほぼ一定となる。
+     * 結果ファイルが存在する場合は、成功した行を実行せずに続きから再開する。
+     *
+     * @param manifestPath
+     *            1 行に 1 件の操作を JSON またはタブ区切りで記述したマニフェストのパスを指定する。
+     * @param resultsPath
+     *            行番号ごとの結果を記録する結果ファイルのパスを指定する。
+     * @param parallelism
+     *            同時に実行する転送の上限数を指定する。
+     * @param listener
+     *            1 行分の操作が完了する度に結果を受け取るリスナーを指定する。重複した操作は
+     *            {@link ManifestResult#isSkipped()} が true となる。不要な場合は null を指定する。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public void runManifest(String manifestPath, String resultsPath,
+            int parallelism, Consumer<ManifestResult> listener)
+            throws Exception;
+
     /**
      * ファイルまたはディレクトリをダウンロードする。
      *
@@ -66,6 +304,103 @@ public interface DriveService {
     public java.io.File download(String localDirPath, String remoteFileId)
             throws Exception;
 
+    /**
+     * Google Drive 上のパスで指定したファイルをダウンロードする。
+     *
+     * @param localDirPath
+     *            ダウンロード先ディレクトリのパスを指定する。
+     * @param remotePath
+     *            ダウンロード対象とするファイルのパスを "/" 区切りで指定する。
+     * @return file ダウンロードしたファイルを返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public java.io.File downloadByPath(String localDirPath, String remotePath)
+            throws Exception;
+
+    /**
+     * ディレクトリを配下のファイル・ディレクトリごと再帰的にダウンロードする。
+     * <p>
+     * 配下の一覧はページ単位で取得し、ファイルは並列にダウンロードする。各ファイルは一時ファイルへ書き込んだ後に置き換えるため、
+     * 中断された場合でも途中まで書き込まれたファイルは残らない。 戻り値の一覧と listener の呼び出しは転送が完了した順となる。
+     * </p>
+     *
+     * @param localDirPath
+     *            ダウンロード先ディレクトリのパスを指定する。
+     * @param remoteFolderId
+     *            ダウンロード対象とするディレクトリの file_id を指定する。
+     * @param parallelism
+     *            同時に実行する一覧取得・ダウンロードの上限数を指定する。
+     * @param listener
+     *            転送が 1 件完了する度に結果を受け取るリスナーを指定する。不要な場合は null を指定する。
+     * @return resultList ディレクトリ・ファイルごとの転送結果を返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public List<TransferResult> downloadTree(String localDirPath,
+            String remoteFolderId, int parallelism,
+            Consumer<TransferResult> listener) throws Exception;
+
+    /**
+     * 取得済みのメタデータを使用してディレクトリを再帰的にダウンロードする。ダウンロード対象自体のメタデータの再取得は行わない。
+     *
+     * @param localDirPath
+     *            ダウンロード先ディレクトリのパスを指定する。
+     * @param remoteFolder
+     *            ダウンロード対象とするディレクトリを指定する。 id, name, mimeType が設定されている必要がある。
+     * @param parallelism
+     *            同時に実行する一覧取得・ダウンロードの上限数を指定する。
+     * @param listener
+     *            転送が 1 件完了する度に結果を受け取るリスナーを指定する。不要な場合は null を指定する。
+     * @return resultList ディレクトリ・ファイルごとの転送結果を返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     * @see #downloadTree(String, String, int, Consumer)
+     */
+    public List<TransferResult> downloadTree(String localDirPath,
+            File remoteFolder, int parallelism,
+            Consumer<TransferResult> listener) throws Exception;
+
+    /**
+     * 取得済みのメタデータを使用してファイルまたはディレクトリをダウンロードする。メタデータの再取得は行わない。
+     *
+     * @param localDirPath
+     *            ダウンロード先ディレクトリのパスを指定する。
+     * @param remoteFile
+     *            ダウンロード対象とするファイルまたはディレクトリを指定する。 id, name, mimeType
+     *            が設定されている必要がある。
+     * @return file ダウンロードされたファイルまたはディレクトリを返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public java.io.File download(String localDirPath, File remoteFile)
+            throws Exception;
+
+    /**
+     * ファイルの内容を読み込む {@link ReadableByteChannel} を開く。内容はディスクへ書き込まず、受信した順に読み込める。
+     *
+     * @param remoteFileId
+     *            読み込み対象とするファイルの file_id を指定する。
+     * @return channel ファイルの内容を読み込む {@link ReadableByteChannel} を返す。使用後は必ず close
+     *         する。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public ReadableByteChannel openDownloadChannel(String remoteFileId)
+            throws Exception;
+
+    /**
+     * ファイルの内容を読み込む {@link InputStream} を開く。内容はディスクへ書き込まず、受信した順に読み込める。
+     *
+     * @param remoteFileId
+     *            読み込み対象とするファイルの file_id を指定する。
+     * @return stream ファイルの内容を読み込む {@link InputStream} を返す。使用後は必ず close する。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public InputStream openDownloadStream(String remoteFileId)
+            throws Exception;
+
     /**
      * ファイルまたはディレクトリを更新する。
      *
@@ -90,6 +425,30 @@ public interface DriveService {
      */
     public void delete(String fileId) throws Exception;
 
+    /**
+     * 複数のファイルまたはディレクトリのメタデータをバッチリクエストで更新する。
+     *
+     * @param metaFiles
+     *            更新対象とする file_id と、更新後のメタデータの組を指定する。
+     * @return resultList metaFiles の反復順序と同じ順序で操作結果を返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public List<BatchResult> updateMetadataAll(Map<String, File> metaFiles)
+            throws Exception;
+
+    /**
+     * 複数のファイルまたはディレクトリをバッチリクエストで削除する。
+     *
+     * @param fileIds
+     *            削除対象とするファイルまたはディレクトリの file_id を指定する。
+     * @return resultList fileIds と同じ順序で操作結果を返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public List<BatchResult> deleteAll(Collection<String> fileIds)
+            throws Exception;
+
     /**
      * Google Drive のルートディレクトリの file_id を取得する。
      *
@@ -1,18 +1,71 @@
 package java_itamae_g_drive.domain.service.drive;
 
+import java.io.InputStream;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import com.google.api.services.drive.model.File;
 
 import java_itamae_g_auth.domain.model.AuthenticationAttribure;
+import java_itamae_g_drive.domain.model.BatchResult;
+import java_itamae_g_drive.domain.model.CompactFileList;
+import java_itamae_g_drive.domain.model.DriveAttribute;
+import java_itamae_g_drive.domain.model.FileProjection;
+import java_itamae_g_drive.domain.model.ManifestResult;
+import java_itamae_g_drive.domain.model.TransferResult;
+import java_itamae_g_drive.domain.repository.drive.CachingDriveRepository;
 import java_itamae_g_drive.domain.repository.drive.DriveRepository;
 import java_itamae_g_drive.domain.repository.drive.DriveRepositoryImpl;
+import java_itamae_g_drive.domain.repository.drive.FileIterator;
+import java_itamae_g_drive.domain.repository.drive.WorkerPools;
+import java_itamae_g_drive.domain.repository.index.IndexedDriveRepository;
 
 public class DriveServiceImpl implements DriveService {
     private final DriveRepository repository;
+    private final PathResolver pathResolver;
 
     public DriveServiceImpl(AuthenticationAttribure authAttr) {
-        repository = new DriveRepositoryImpl(authAttr);
+        this(new DriveRepositoryImpl(authAttr));
+    }
+
+    public DriveServiceImpl(AuthenticationAttribure authAttr,
+            DriveAttribute driveAttr) {
+        this(newRepository(authAttr, driveAttr));
+    }
+
+    public DriveServiceImpl(DriveRepository repository) {
+        this.repository = repository;
+        this.pathResolver = new PathResolver(repository);
+    }
+
+    private static DriveRepository newRepository(
+            AuthenticationAttribure authAttr, DriveAttribute driveAttr) {
+        DriveRepository repository = new DriveRepositoryImpl(authAttr,
+                driveAttr);
+
+        if (driveAttr.getIndexDirectory() != null) {
+            repository = new IndexedDriveRepository(repository,
+                    driveAttr.getIndexDirectory());
+        }
+
+        if (driveAttr.getCacheMaxEntries() > 0) {
+            repository = new CachingDriveRepository(repository,
+                    driveAttr.getCacheMaxEntries(), driveAttr.getCacheTtl(),
+                    TimeUnit.MILLISECONDS);
+        }
+
+        return repository;
     }
 
     @Override
@@ -21,12 +74,52 @@ public class DriveServiceImpl implements DriveService {
         return result;
     }
 
+    @Override
+    public List<File> findByParentId(String parentId,
+            FileProjection projection) throws Exception {
+        List<File> result = repository.findByParentId(parentId, projection);
+        return result;
+    }
+
+    @Override
+    public FileIterator iterateByParentId(String parentId, int pageSize)
+            throws Exception {
+        FileIterator result = repository.iterateByParentId(parentId, pageSize);
+        return result;
+    }
+
+    @Override
+    public CompactFileList findCompactByQuery(String query) throws Exception {
+        CompactFileList result = repository.findCompactByQuery(query);
+        return result;
+    }
+
     @Override
     public File findByFileId(String fileId) throws Exception {
         File result = repository.findByFileId(fileId);
         return result;
     }
 
+    @Override
+    public File resolvePath(String remotePath) throws Exception {
+        File result = pathResolver.resolve(remotePath);
+        return result;
+    }
+
+    @Override
+    public File findByFileId(String fileId, FileProjection projection)
+            throws Exception {
+        File result = repository.findByFileId(fileId, projection);
+        return result;
+    }
+
+    @Override
+    public List<BatchResult> findByFileIds(Collection<String> fileIds)
+            throws Exception {
+        List<BatchResult> result = repository.findByFileIds(fileIds);
+        return result;
+    }
+
     @Override
     public File upload(String localFilePath, String remoteParentId)
             throws Exception {
@@ -40,6 +133,132 @@ public class DriveServiceImpl implements DriveService {
         return result;
     }
 
+    @Override
+    public File uploadByPath(String localFilePath, String remoteDirPath)
+            throws Exception {
+        File remoteDir = pathResolver.resolve(remoteDirPath);
+        File result = repository.upload(localFilePath, remoteDir.getId());
+        return result;
+    }
+
+    @Override
+    public File upload(InputStream content, String name, String remoteParentId)
+            throws Exception {
+        File result = repository.upload(content, name, remoteParentId);
+        return result;
+    }
+
+    @Override
+    public File upload(ReadableByteChannel content, String name,
+            String remoteParentId) throws Exception {
+        File result = repository.upload(content, name, remoteParentId);
+        return result;
+    }
+
+    @Override
+    public List<TransferResult> uploadAll(Collection<String> localFilePaths,
+            final String remoteParentId, int parallelism,
+            Consumer<TransferResult> listener) throws Exception {
+        ExecutorService executor = WorkerPools.newWorkerPool(parallelism,
+                "drive-upload");
+
+        try {
+            CompletionService<TransferResult> completion = new ExecutorCompletionService<>(
+                    executor);
+            List<Future<TransferResult>> futureList = new ArrayList<>();
+
+            for (final String localFilePath : localFilePaths) {
+                futureList.add(completion.submit(() -> transfer(localFilePath,
+                        () -> repository.upload(localFilePath,
+                                remoteParentId))));
+            }
+
+            for (int i = 0; i < futureList.size(); i++) {
+                TransferResult result = completion.take().get();
+
+                if (listener != null) {
+                    listener.accept(result);
+                }
+            }
+
+            List<TransferResult> resultList = new ArrayList<>();
+
+            for (Future<TransferResult> future : futureList) {
+                resultList.add(future.get());
+            }
+
+            return resultList;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public List<TransferResult> uploadTree(String localDirPath,
+            String remoteParentId, int parallelism,
+            Consumer<TransferResult> listener) throws Exception {
+        ExecutorService executor = WorkerPools.newWorkerPool(parallelism,
+                "drive-upload");
+
+        try {
+            TreeUploader uploader = new TreeUploader(repository, executor);
+            List<TransferResult> resultList = uploader.upload(localDirPath,
+                    remoteParentId, listener);
+            return resultList;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public List<TransferResult> sync(String localDirPath,
+            String remoteFolderId, int parallelism,
+            Consumer<TransferResult> listener) throws Exception {
+        ExecutorService executor = WorkerPools.newWorkerPool(parallelism,
+                "drive-sync");
+
+        try {
+            TreeSynchronizer synchronizer = new TreeSynchronizer(repository,
+                    executor);
+            return synchronizer.sync(localDirPath, remoteFolderId, listener);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public void runManifest(String manifestPath, String resultsPath,
+            int parallelism, Consumer<ManifestResult> listener)
+            throws Exception {
+        ExecutorService executor = WorkerPools.newWorkerPool(parallelism,
+                "drive-manifest");
+
+        try {
+            ManifestRunner runner = new ManifestRunner(this, executor,
+                    parallelism);
+            runner.run(Paths.get(manifestPath), Paths.get(resultsPath),
+                    listener);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 転送処理を実行し、成否を {@link TransferResult} に格納する。
+     */
+    private TransferResult transfer(String localPath, Callable<File> action) {
+        TransferResult result = new TransferResult();
+        result.setLocalPath(localPath);
+
+        try {
+            result.setRemoteFile(action.call());
+        } catch (Exception e) {
+            result.setError(e);
+        }
+
+        return result;
+    }
+
     @Override
     public java.io.File download(String localDirPath, String remoteFileId)
             throws Exception {
@@ -47,16 +266,108 @@ public class DriveServiceImpl implements DriveService {
         return result;
     }
 
+    @Override
+    public java.io.File downloadByPath(String localDirPath, String remotePath)
+            throws Exception {
+        File remoteFile = pathResolver.resolve(remotePath);
+
+        // "/" はローカルの名前が決まらないため、メタデータを取得してから保存する。
+        if (remoteFile.getName() == null) {
+            return repository.download(localDirPath, remoteFile.getId());
+        }
+
+        java.io.File result = repository.download(localDirPath, remoteFile);
+        return result;
+    }
+
+    @Override
+    public java.io.File download(String localDirPath, File remoteFile)
+            throws Exception {
+        java.io.File result = repository.download(localDirPath, remoteFile);
+        return result;
+    }
+
+    @Override
+    public ReadableByteChannel openDownloadChannel(String remoteFileId)
+            throws Exception {
+        return repository.openDownloadChannel(remoteFileId);
+    }
+
+    @Override
+    public InputStream openDownloadStream(String remoteFileId)
+            throws Exception {
+        return repository.openDownloadStream(remoteFileId);
+    }
+
+    @Override
+    public List<TransferResult> downloadTree(String localDirPath,
+            String remoteFolderId, int parallelism,
+            Consumer<TransferResult> listener) throws Exception {
+        File remoteFolder = repository.findByFileId(remoteFolderId);
+        return downloadTree(localDirPath, remoteFolder, parallelism,
+                listener);
+    }
+
+    @Override
+    public List<TransferResult> downloadTree(String localDirPath,
+            File remoteFolder, int parallelism,
+            Consumer<TransferResult> listener) throws Exception {
+        ExecutorService executor = WorkerPools.newWorkerPool(parallelism,
+                "drive-download");
+
+        try {
+            TreeDownloader downloader = new TreeDownloader(repository,
+                    executor);
+            List<TransferResult> resultList = downloader
+                    .download(localDirPath, remoteFolder, listener);
+            return resultList;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
     @Override
     public File update(String localFilePath, String remoteFileId)
             throws Exception {
         File result = repository.update(localFilePath, remoteFileId);
+        // ローカルのファイル名で名前を変更するため、解決済みのパスが変わる場合がある。
+        pathResolver.forget(remoteFileId);
         return result;
     }
 
     @Override
     public void delete(String fileId) throws Exception {
         repository.delete(fileId);
+        pathResolver.forget(fileId);
+    }
+
+    @Override
+    public List<BatchResult> updateMetadataAll(Map<String, File> metaFiles)
+            throws Exception {
+        List<BatchResult> result = repository.updateMetadataAll(metaFiles);
+
+        // 名前の変更と移動により、解決済みのパスが変わる場合がある。
+        for (BatchResult batchResult : result) {
+            if (batchResult.isSuccess()) {
+                pathResolver.forget(batchResult.getFileId());
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    public List<BatchResult> deleteAll(Collection<String> fileIds)
+            throws Exception {
+        List<BatchResult> result = repository.deleteAll(fileIds);
+
+        for (BatchResult batchResult : result) {
+            if (batchResult.isSuccess()) {
+                pathResolver.forget(batchResult.getFileId());
+            }
+        }
+
+        return result;
     }
 
     @Override
@@ -0,0 +1,187 @@
+package java_itamae_g_drive.domain.service.drive;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import com.google.api.client.json.GenericJson;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.client.util.Key;
+
+import java_itamae_g_drive.domain.model.ManifestEntry;
+
+/**
+ * マニフェストを 1 行ずつ読み込む。
+ * <p>
+ * 1 行に 1 件の操作を JSON またはタブ区切りで記述する。 "{" で始まる行は JSON
+ * として解析する。空行と "#" で始まる行は読み飛ばす。相対パスはマニフェストのディレクトリを基準とする。
+ * </p>
+ *
+ * <pre>
+ * {"op": "upload", "local": "a.txt", "parent": "&lt;parent_id&gt;"}
+ * upload	a.txt	&lt;parent_id&gt;
+ * download	&lt;file_id&gt;	&lt;local_dir&gt;
+ * update	b.txt	&lt;file_id&gt;
+ * delete	&lt;file_id&gt;
+ * get	&lt;file_id&gt;
+ * rename	&lt;file_id&gt;	&lt;name&gt;
+ * </pre>
+ */
+class ManifestReader implements Closeable {
+    private final BufferedReader reader;
+    private final Path baseDir;
+    private long lineNumber = 0;
+
+    /**
+     * JSON で記述された 1 行。
+     */
+    public static class JsonLine extends GenericJson {
+        @Key
+        String op;
+
+        @Key
+        String local;
+
+        @Key
+        String id;
+
+        @Key
+        String parent;
+
+        @Key
+        String name;
+    }
+
+    ManifestReader(Path manifest) throws IOException {
+        this.reader = Files.newBufferedReader(manifest, StandardCharsets.UTF_8);
+        this.baseDir = manifest.toAbsolutePath().getParent();
+    }
+
+    /**
+     * @return lineNumber 最後に読み込んだ行の行番号を返す。
+     */
+    long getLineNumber() {
+        return lineNumber;
+    }
+
+    /**
+     * @return entry 次の操作を返す。終端に達した場合は null を返す。
+     * @throws IOException
+     *             {@link java.io.IOException}
+     * @throws IllegalArgumentException
+     *             行を解析できない場合。続けて次の行を読み込むことができる。
+     */
+    ManifestEntry next() throws IOException {
+        String line;
+
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            String trimmed = line.trim();
+
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+
+            ManifestEntry entry = trimmed.startsWith("{") ? parseJson(trimmed)
+                    : parseTsv(line);
+            entry.setLineNumber(lineNumber);
+            validate(entry);
+            return entry;
+        }
+
+        return null;
+    }
+
+    private ManifestEntry parseJson(String line) {
+        JsonLine json;
+
+        try {
+            json = JacksonFactory.getDefaultInstance().fromString(line,
+                    JsonLine.class);
+        } catch (IOException | RuntimeException e) {
+            throw new IllegalArgumentException(
+                    String.format("%d 行目の JSON を解析できません。", lineNumber), e);
+        }
+
+        ManifestEntry entry = new ManifestEntry();
+        entry.setOperation(json.op);
+        entry.setLocalPath(resolve(json.local));
+        entry.setFileId(json.id);
+        entry.setParentId(json.parent);
+        entry.setName(json.name);
+        return entry;
+    }
+
+    private ManifestEntry parseTsv(String line) {
+        String[] columns = line.split("\t", -1);
+        ManifestEntry entry = new ManifestEntry();
+        entry.setOperation(columns[0].trim());
+
+        switch (entry.getOperation()) {
+            case ManifestEntry.UPLOAD :
+                entry.setLocalPath(resolve(column(columns, 1)));
+                entry.setParentId(column(columns, 2));
+                break;
+            case ManifestEntry.DOWNLOAD :
+                entry.setFileId(column(columns, 1));
+                entry.setLocalPath(resolve(column(columns, 2)));
+                break;
+            case ManifestEntry.UPDATE :
+                entry.setLocalPath(resolve(column(columns, 1)));
+                entry.setFileId(column(columns, 2));
+                break;
+            case ManifestEntry.RENAME :
+                entry.setFileId(column(columns, 1));
+                entry.setName(column(columns, 2));
+                break;
+            default :
+                entry.setFileId(column(columns, 1));
+                break;
+        }
+
+        return entry;
+    }
+
+    private static String column(String[] columns, int index) {
+        return index < columns.length && !columns[index].isEmpty()
+                ? columns[index]
+                : null;
+    }
+
+    private String resolve(String path) {
+        return path == null ? null : baseDir.resolve(path).toString();
+    }
+
+    private void validate(ManifestEntry entry) {
+        String operation = entry.getOperation();
+        boolean valid;
+
+        if (ManifestEntry.UPLOAD.equals(operation)) {
+            valid = entry.getLocalPath() != null;
+        } else if (ManifestEntry.DOWNLOAD.equals(operation)
+                || ManifestEntry.UPDATE.equals(operation)) {
+            valid = entry.getLocalPath() != null && entry.getFileId() != null;
+        } else if (ManifestEntry.DELETE.equals(operation)
+                || ManifestEntry.GET.equals(operation)) {
+            valid = entry.getFileId() != null;
+        } else if (ManifestEntry.RENAME.equals(operation)) {
+            valid = entry.getFileId() != null && entry.getName() != null;
+        } else {
+            throw new IllegalArgumentException(
+                    String.format("%d 行目の操作 %s は指定できません。", lineNumber, operation));
+        }
+
+        if (!valid) {
+            throw new IllegalArgumentException(
+                    String.format("%d 行目の %s に必要な項目がありません。", lineNumber, operation));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
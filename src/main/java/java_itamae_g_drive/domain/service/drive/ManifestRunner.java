@@ -0,0 +1,430 @@
+package java_itamae_g_drive.domain.service.drive;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+import com.google.api.services.drive.model.File;
+
+import java_itamae_g_drive.domain.model.BatchResult;
+import java_itamae_g_drive.domain.model.ManifestEntry;
+import java_itamae_g_drive.domain.model.ManifestResult;
+import java_itamae_g_drive.domain.repository.drive.DriveRepository;
+
+/**
+ * マニフェストに記述された操作を実行し、結果ファイルへ記録する。
+ * <p>
+ * マニフェストは 1 行ずつ読み込み、取得・削除・名前の変更は
+ * {@link DriveRepository#MAX_BATCH_SIZE} 件ずつバッチリクエストにまとめる。
+ * アップロード・ダウンロード・更新はスレッドプールで実行し、未完了の転送は並列数の 2
+ * 倍までに抑える。直近の {@link #DEDUPE_WINDOW} 件と同じ操作は実行しない。
+ * 保持する情報はこれらと完了した行番号のビット列のみのため、マニフェストの行数によらず使用するメモリはほぼ一定となる。
+ * </p>
+ * <p>
+ * 結果ファイルには 1 行に 1 件、行番号、 OK・NG・SKIP のいずれか、 file_id 、メッセージをタブ区切りで追記する。
+ * 結果ファイルが存在する場合は、 OK・SKIP が記録された行を実行せずに続きから再開する。 行の間で実行順序は保証しない。
+ * </p>
+ */
+class ManifestRunner {
+    /**
+     * 重複を判定するために保持する直近の操作の件数。
+     */
+    static final int DEDUPE_WINDOW = 10000;
+
+    private static final String OK = "OK";
+    private static final String NG = "NG";
+    private static final String SKIP = "SKIP";
+
+    private final DriveService service;
+    private final ExecutorService executor;
+    private final int slotCount;
+    private final Semaphore slots;
+    private final Map<String, Long> recent = new LinkedHashMap<String, Long>() {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+            return size() > DEDUPE_WINDOW;
+        }
+    };
+    private final List<ManifestEntry> gets = new ArrayList<>();
+    private final List<ManifestEntry> deletes = new ArrayList<>();
+    private final Map<String, ManifestEntry> renames = new LinkedHashMap<>();
+
+    private BufferedWriter writer;
+    private Consumer<ManifestResult> listener;
+    private IOException writeError;
+
+    /**
+     * @param service
+     *            操作の実行に使用する {@link DriveService} を指定する。
+     * @param executor
+     *            転送を実行するスレッドプールを指定する。
+     * @param parallelism
+     *            スレッドプールのスレッド数を指定する。
+     */
+    ManifestRunner(DriveService service, ExecutorService executor,
+            int parallelism) {
+        this.service = service;
+        this.executor = executor;
+        this.slotCount = parallelism * 2;
+        this.slots = new Semaphore(slotCount);
+    }
+
+    /**
+     * @param manifest
+     *            マニフェストのパスを指定する。
+     * @param resultsFile
+     *            結果ファイルのパスを指定する。
+     * @param listener
+     *            1 行分の操作が完了するたびに呼び出される {@link Consumer} を指定する。不要な場合は null
+     *            を指定する。同時に呼び出されることはない。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    void run(Path manifest, Path resultsFile,
+            Consumer<ManifestResult> listener) throws Exception {
+        BitSet completed = readCompleted(resultsFile);
+        this.listener = listener;
+
+        try (ManifestReader reader = new ManifestReader(manifest);
+                BufferedWriter writer = openResults(resultsFile)) {
+            this.writer = writer;
+
+            try {
+                ManifestEntry entry;
+
+                while ((entry = nextEntry(reader)) != null) {
+                    long lineNumber = entry.getLineNumber();
+                    String key = entry.getKey();
+                    Long first = recent.get(key);
+
+                    if (lineNumber <= Integer.MAX_VALUE
+                            && completed.get((int) lineNumber)) {
+                        if (first == null) {
+                            recent.put(key, lineNumber);
+                        }
+                    } else if (first != null) {
+                        ManifestResult result = newResult(entry, null, null);
+                        result.setSkipped(true);
+                        report(result,
+                                String.format("%d 行目と重複しています。", first));
+                        flush();
+                    } else {
+                        recent.put(key, lineNumber);
+                        dispatch(entry);
+                    }
+                }
+
+                flushBatch(gets);
+                flushBatch(deletes);
+                flushRenames();
+            } finally {
+                // 実行中の転送の完了を待つ。
+                slots.acquire(slotCount);
+                slots.release(slotCount);
+            }
+
+            synchronized (this) {
+                if (writeError != null) {
+                    throw writeError;
+                }
+            }
+        }
+    }
+
+    private ManifestEntry nextEntry(ManifestReader reader) throws IOException {
+        while (true) {
+            try {
+                return reader.next();
+            } catch (IllegalArgumentException e) {
+                ManifestEntry invalid = new ManifestEntry();
+                invalid.setLineNumber(reader.getLineNumber());
+                report(newResult(invalid, null, e.getMessage()), null);
+                flush();
+            }
+        }
+    }
+
+    private void dispatch(final ManifestEntry entry) throws Exception {
+        switch (entry.getOperation()) {
+            case ManifestEntry.GET :
+                add(gets, entry);
+                return;
+            case ManifestEntry.DELETE :
+                add(deletes, entry);
+                return;
+            case ManifestEntry.RENAME :
+                // 同じファイルの名前の変更は 1 回のバッチリクエストにまとめられないため、先に送信する。
+                if (renames.containsKey(entry.getFileId())) {
+                    flushRenames();
+                }
+
+                renames.put(entry.getFileId(), entry);
+
+                if (renames.size() >= DriveRepository.MAX_BATCH_SIZE) {
+                    flushRenames();
+                }
+                return;
+            default :
+                break;
+        }
+
+        slots.acquire();
+
+        try {
+            executor.execute(() -> {
+                try {
+                    ManifestResult result;
+
+                    try {
+                        result = newResult(entry, transfer(entry), null);
+                    } catch (Exception e) {
+                        result = newResult(entry, null, describe(e));
+                    }
+
+                    report(result, null);
+                    flush();
+                } finally {
+                    slots.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            slots.release();
+            throw e;
+        }
+    }
+
+    private File transfer(ManifestEntry entry) throws Exception {
+        switch (entry.getOperation()) {
+            case ManifestEntry.UPLOAD :
+                return service.upload(entry.getLocalPath(),
+                        entry.getParentId() == null ? DriveRepository.ROOT_ID
+                                : entry.getParentId());
+            case ManifestEntry.DOWNLOAD :
+                File remoteFile = service.findByFileId(entry.getFileId());
+                service.download(entry.getLocalPath(), remoteFile);
+                return remoteFile;
+            default :
+                return service.update(entry.getLocalPath(), entry.getFileId());
+        }
+    }
+
+    private void add(List<ManifestEntry> batch, ManifestEntry entry) {
+        batch.add(entry);
+
+        if (batch.size() >= DriveRepository.MAX_BATCH_SIZE) {
+            flushBatch(batch);
+        }
+    }
+
+    private void flushBatch(List<ManifestEntry> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<String> fileIds = new ArrayList<>();
+
+        for (ManifestEntry entry : batch) {
+            fileIds.add(entry.getFileId());
+        }
+
+        try {
+            List<BatchResult> resultList = batch == gets
+                    ? service.findByFileIds(fileIds)
+                    : service.deleteAll(fileIds);
+            reportBatch(batch, resultList);
+        } catch (Exception e) {
+            reportBatch(batch, e);
+        }
+
+        batch.clear();
+    }
+
+    private void flushRenames() {
+        if (renames.isEmpty()) {
+            return;
+        }
+
+        Map<String, File> metaFiles = new LinkedHashMap<>();
+
+        for (ManifestEntry entry : renames.values()) {
+            metaFiles.put(entry.getFileId(),
+                    new File().setName(entry.getName()));
+        }
+
+        List<ManifestEntry> batch = new ArrayList<>(renames.values());
+
+        try {
+            reportBatch(batch, service.updateMetadataAll(metaFiles));
+        } catch (Exception e) {
+            reportBatch(batch, e);
+        }
+
+        renames.clear();
+    }
+
+    private void reportBatch(List<ManifestEntry> batch,
+            List<BatchResult> resultList) {
+        for (int i = 0; i < batch.size(); i++) {
+            BatchResult batchResult = resultList.get(i);
+            report(newResult(batch.get(i), batchResult.getFile(),
+                    batchResult.isSuccess() ? null
+                            : String.format("%d %s",
+                                    batchResult.getError().getCode(),
+                                    batchResult.getError().getMessage())),
+                    null);
+        }
+
+        flush();
+    }
+
+    private void reportBatch(Collection<ManifestEntry> batch,
+            Exception error) {
+        for (ManifestEntry entry : batch) {
+            report(newResult(entry, null, describe(error)), null);
+        }
+
+        flush();
+    }
+
+    private static ManifestResult newResult(ManifestEntry entry,
+            File remoteFile, String error) {
+        ManifestResult result = new ManifestResult();
+        result.setEntry(entry);
+        result.setRemoteFile(remoteFile);
+        result.setError(error);
+        return result;
+    }
+
+    /**
+     * @return message メッセージのない例外でも失敗として記録できるよう、 null 以外を返す。
+     */
+    private static String describe(Exception e) {
+        return e.getMessage() != null ? e.getMessage()
+                : e.getClass().getName();
+    }
+
+    /**
+     * 結果ファイルへ 1 行を書き込み、リスナーを呼び出す。書き込みに失敗した場合は、実行を続けて最後に例外を送出する。
+     */
+    private synchronized void report(ManifestResult result, String message) {
+        String status = !result.isSuccess() ? NG : result.isSkipped() ? SKIP : OK;
+        File remoteFile = result.getRemoteFile();
+
+        if (message == null) {
+            message = !result.isSuccess() ? result.getError()
+                    : remoteFile != null ? remoteFile.getName() : "";
+        }
+
+        try {
+            writer.write(String.format("%d\t%s\t%s\t%s\n",
+                    result.getEntry().getLineNumber(), status,
+                    remoteFile == null || remoteFile.getId() == null
+                            ? nullToEmpty(result.getEntry().getFileId())
+                            : remoteFile.getId(),
+                    nullToEmpty(message).replaceAll("[\t\r\n]", " ")));
+        } catch (IOException e) {
+            if (writeError == null) {
+                writeError = e;
+            }
+        }
+
+        if (listener != null) {
+            listener.accept(result);
+        }
+    }
+
+    private synchronized void flush() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            if (writeError == null) {
+                writeError = e;
+            }
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    /**
+     * @return completed 結果ファイルに OK または SKIP が記録された行番号を返す。
+     */
+    static BitSet readCompleted(Path resultsFile) throws IOException {
+        BitSet completed = new BitSet();
+
+        if (!Files.exists(resultsFile)) {
+            return completed;
+        }
+
+        try (BufferedReader reader = Files.newBufferedReader(resultsFile,
+                StandardCharsets.UTF_8)) {
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                String[] columns = line.split("\t", 3);
+
+                if (columns.length < 2 || !(OK.equals(columns[1])
+                        || SKIP.equals(columns[1]))) {
+                    continue;
+                }
+
+                try {
+                    long lineNumber = Long.parseLong(columns[0]);
+
+                    if (lineNumber > 0 && lineNumber <= Integer.MAX_VALUE) {
+                        completed.set((int) lineNumber);
+                    }
+                } catch (NumberFormatException e) {
+                    // 中断により途中までしか書き込まれなかった行。
+                }
+            }
+        }
+
+        return completed;
+    }
+
+    /**
+     * 中断により最後の行が改行で終わっていない場合は、改行を補ってから追記する。
+     */
+    private static BufferedWriter openResults(Path resultsFile)
+            throws IOException {
+        boolean newLine = false;
+
+        if (Files.exists(resultsFile) && Files.size(resultsFile) > 0) {
+            try (SeekableByteChannel channel = Files
+                    .newByteChannel(resultsFile)) {
+                ByteBuffer last = ByteBuffer.allocate(1);
+                channel.position(channel.size() - 1).read(last);
+                newLine = last.get(0) != '\n';
+            }
+        }
+
+        BufferedWriter writer = Files.newBufferedWriter(resultsFile,
+                StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+
+        if (newLine) {
+            writer.newLine();
+        }
+
+        return writer;
+    }
+}
@@ -0,0 +1,172 @@
+package java_itamae_g_drive.domain.service.drive;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.api.services.drive.model.File;
+
+import java_itamae_g_drive.domain.repository.drive.DriveRepository;
+
+/**
+ * "/reports/2026/q3" のような Google Drive 上のパスを file_id へ解決する。
+ * <p>
+ * 解決済みのディレクトリは正規化したパスをキーに file_id を保持する。 解決時は最も長い解決済みの接頭辞から辿り、
+ * 未解決の階層ごとに 1 回だけ検索するため、 同じディレクトリ配下のパスを続けて解決する場合はリクエストを送信しない。
+ * ファイルは内容が変わりやすいため保持しない。 各階層の検索は
+ * {@link DriveRepository#findByParentIdAndName(String, String)} で行うため、インデックスを使用する場合はローカルで解決する。
+ * </p>
+ */
+class PathResolver {
+    private static final String FOLDER_MIME_TYPE = "application/vnd.google-apps.folder";
+    private static final String SEPARATOR = "/";
+
+    private final DriveRepository repository;
+    private final Map<String, String> folderIds = new ConcurrentHashMap<>();
+
+    PathResolver(DriveRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * @param path
+     *            解決対象とするパスを指定する。 "/" 区切りで、先頭の "/" はマイドライブを表す。
+     * @return file パスが指すファイルまたはディレクトリを返す。解決済みのディレクトリと "/" の場合は id, name,
+     *         mimeType のみを設定して返す。
+     * @throws Exception
+     *             {@link java.lang.Exception} 存在しない場合は {@link FileNotFoundException}
+     */
+    File resolve(String path) throws Exception {
+        List<String> segments = split(path);
+
+        if (segments.isEmpty()) {
+            return new File().setId(DriveRepository.ROOT_ID)
+                    .setMimeType(FOLDER_MIME_TYPE);
+        }
+
+        String folderId = folderIds.get(join(segments, segments.size()));
+
+        if (folderId != null) {
+            return new File().setId(folderId)
+                    .setName(segments.get(segments.size() - 1))
+                    .setMimeType(FOLDER_MIME_TYPE);
+        }
+
+        int resolved = segments.size() - 1;
+        String parentId = null;
+
+        for (; resolved > 0; resolved--) {
+            parentId = folderIds.get(join(segments, resolved));
+
+            if (parentId != null) {
+                break;
+            }
+        }
+
+        if (parentId == null) {
+            parentId = DriveRepository.ROOT_ID;
+        }
+
+        File file = null;
+
+        for (int i = resolved; i < segments.size(); i++) {
+            boolean last = i == segments.size() - 1;
+            file = findChild(parentId, segments.get(i), !last);
+
+            if (file == null) {
+                throw new FileNotFoundException(String.format(
+                        "パスが存在しません。: %s", join(segments, i + 1)));
+            }
+
+            if (FOLDER_MIME_TYPE.equals(file.getMimeType())) {
+                folderIds.put(join(segments, i + 1), file.getId());
+            } else if (!last) {
+                throw new FileNotFoundException(String.format(
+                        "ディレクトリではありません。: %s", join(segments, i + 1)));
+            }
+
+            parentId = file.getId();
+        }
+
+        return file;
+    }
+
+    /**
+     * 指定した file_id のディレクトリと、その配下の解決済みのパスを破棄する。
+     *
+     * @param fileId
+     *            削除・移動したファイルまたはディレクトリの file_id を指定する。
+     */
+    void forget(String fileId) {
+        List<String> prefixList = new ArrayList<>();
+
+        for (Map.Entry<String, String> entry : folderIds.entrySet()) {
+            if (entry.getValue().equals(fileId)) {
+                prefixList.add(entry.getKey());
+            }
+        }
+
+        for (String prefix : prefixList) {
+            Iterator<String> keys = folderIds.keySet().iterator();
+
+            while (keys.hasNext()) {
+                String key = keys.next();
+
+                if (key.equals(prefix) || key.startsWith(prefix + SEPARATOR)) {
+                    keys.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return size 保持している解決済みのディレクトリの件数を返す。
+     */
+    int size() {
+        return folderIds.size();
+    }
+
+    private File findChild(String parentId, String name, boolean folderOnly)
+            throws Exception {
+        List<File> fileList = repository.findByParentIdAndName(parentId, name);
+        File found = null;
+
+        // 同名のファイルが複数存在する場合は、配下を辿れるディレクトリを優先する。
+        for (File file : fileList) {
+            if (FOLDER_MIME_TYPE.equals(file.getMimeType())) {
+                return file;
+            }
+
+            if (found == null && !folderOnly) {
+                found = file;
+            }
+        }
+
+        return found;
+    }
+
+    private static List<String> split(String path) {
+        List<String> segments = new ArrayList<>();
+
+        for (String segment : path.split(SEPARATOR)) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+
+        return segments;
+    }
+
+    private static String join(List<String> segments, int count) {
+        StringBuilder path = new StringBuilder();
+
+        for (int i = 0; i < count; i++) {
+            path.append(SEPARATOR).append(segments.get(i));
+        }
+
+        return path.toString();
+    }
+}
@@ -0,0 +1,213 @@
+package java_itamae_g_drive.domain.service.drive;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import com.google.api.services.drive.model.File;
+
+import java_itamae_g_drive.domain.model.TransferResult;
+import java_itamae_g_drive.domain.repository.drive.DriveRepository;
+import java_itamae_g_drive.domain.repository.drive.FileIterator;
+
+/**
+ * Google Drive 上のディレクトリツリーをローカルへ再帰的にダウンロードする。
+ * <p>
+ * ディレクトリの一覧取得とファイルのダウンロードは同じワーカーで並列に実行する。
+ * 一覧はページ単位で取得するため、配下のファイル数が多いディレクトリでも全件を保持しない。
+ * </p>
+ * <p>
+ * Google Drive 上の名前はローカルのパスとして安全とは限らないため、区切り文字を置き換え、 "." と ".."
+ * と空の名前は file_id に置き換える。同じディレクトリに同名のファイルが複数ある場合は、 2 件目以降の名前に
+ * " (file_id)" を付けて別のファイルとして保存する。
+ * </p>
+ */
+class TreeDownloader {
+    private static final String FOLDER_MIME_TYPE = "application/vnd.google-apps.folder";
+
+    private final DriveRepository repository;
+    private final ExecutorService executor;
+    private final BlockingQueue<TransferResult> completed = new LinkedBlockingQueue<>();
+    private final AtomicInteger submitted = new AtomicInteger();
+    private Path rootPath;
+
+    TreeDownloader(DriveRepository repository, ExecutorService executor) {
+        this.repository = repository;
+        this.executor = executor;
+    }
+
+    /**
+     * @param localDirPath
+     *            ダウンロード先ディレクトリのパスを指定する。
+     * @param remoteFolder
+     *            ダウンロード対象とするディレクトリまたはファイルを指定する。 id, name, mimeType
+     *            が設定されている必要がある。
+     * @param listener
+     *            転送が 1 件完了する度に結果を受け取るリスナーを指定する。不要な場合は null を指定する。
+     * @return resultList ディレクトリ・ファイルごとの転送結果を完了順に返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    List<TransferResult> download(String localDirPath, File remoteFolder,
+            Consumer<TransferResult> listener) throws Exception {
+        rootPath = Paths.get(localDirPath).toAbsolutePath().normalize();
+        submit(rootPath.toFile(), remoteFolder, new HashSet<String>());
+
+        List<TransferResult> resultList = new ArrayList<>();
+
+        // 各タスクは子のタスクを投入してから自身の結果を通知するため、件数が一致した時点で全て完了している。
+        while (resultList.size() < submitted.get()) {
+            TransferResult result = completed.take();
+            resultList.add(result);
+
+            if (listener != null) {
+                listener.accept(result);
+            }
+        }
+
+        return resultList;
+    }
+
+    /**
+     * ローカルの名前を決めてからダウンロードを投入する。名前を決められない場合は失敗として記録する。
+     */
+    private void submit(java.io.File localParent, File remoteFile,
+            Set<String> usedNames) {
+        java.io.File localFile;
+
+        try {
+            localFile = resolve(localParent, remoteFile, usedNames);
+        } catch (IOException e) {
+            submitted.incrementAndGet();
+            TransferResult result = newResult(localParent, remoteFile);
+            result.setError(e);
+            completed.add(result);
+            return;
+        }
+
+        if (FOLDER_MIME_TYPE.equals(remoteFile.getMimeType())) {
+            submitFolder(localFile, remoteFile);
+        } else {
+            submitFile(localFile, remoteFile);
+        }
+    }
+
+    private void submitFolder(final java.io.File localDir,
+            final File remoteFolder) {
+        submitted.incrementAndGet();
+        executor.execute(() -> {
+            TransferResult result = newResult(localDir, remoteFolder);
+
+            try {
+                if (!localDir.isDirectory() && !localDir.mkdirs()) {
+                    throw new IOException(
+                            "ディレクトリを作成できませんでした。: " + localDir.getPath());
+                }
+
+                Set<String> usedNames = new HashSet<>();
+
+                try (FileIterator children = repository.iterateByParentId(
+                        remoteFolder.getId(), DriveRepository.MAX_PAGE_SIZE)) {
+                    while (children.hasNext()) {
+                        submit(localDir, children.next(), usedNames);
+                    }
+                }
+            } catch (Exception e) {
+                result.setError(e);
+            }
+
+            completed.add(result);
+        });
+    }
+
+    private void submitFile(final java.io.File localFile,
+            final File remoteFile) {
+        submitted.incrementAndGet();
+        executor.execute(() -> {
+            TransferResult result = newResult(localFile, remoteFile);
+
+            try {
+                // ダウンロード先の名前は渡したメタデータの name で決まるため、ローカルの名前に置き換えた複製を渡す。
+                File target = localFile.getName().equals(remoteFile.getName())
+                        ? remoteFile
+                        : remoteFile.clone().setName(localFile.getName());
+                repository.download(localFile.getParent(), target);
+            } catch (Exception e) {
+                result.setError(e);
+            }
+
+            completed.add(result);
+        });
+    }
+
+    /**
+     * @return localFile 兄弟の間で重複せず、ダウンロード先ディレクトリの外を指さないローカルのパスを返す。
+     * @throws IOException
+     *             ダウンロード先ディレクトリの外を指す場合。
+     */
+    private java.io.File resolve(java.io.File localParent, File remoteFile,
+            Set<String> usedNames) throws IOException {
+        String name = sanitize(remoteFile.getName(), remoteFile.getId());
+        String localName = name;
+
+        for (int i = 1; !usedNames.add(localName); i++) {
+            String suffix = i == 1 ? " (" + remoteFile.getId() + ")"
+                    : " (" + remoteFile.getId() + "-" + i + ")";
+            int dot = name.lastIndexOf('.');
+            localName = dot > 0 ? name.substring(0, dot) + suffix
+                    + name.substring(dot) : name + suffix;
+        }
+
+        Path target = localParent.toPath().resolve(localName).toAbsolutePath()
+                .normalize();
+
+        if (!target.startsWith(rootPath)) {
+            throw new IOException(
+                    "ダウンロード先ディレクトリの外には保存できません。: " + remoteFile.getName());
+        }
+
+        return target.toFile();
+    }
+
+    /**
+     * @return name ローカルのパスの 1 要素として使える名前を返す。
+     */
+    static String sanitize(String name, String fileId) {
+        if (name == null) {
+            return fileId;
+        }
+
+        StringBuilder sb = new StringBuilder(name.length());
+
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            sb.append(c == '/' || c == '\\' || c < ' ' ? '_' : c);
+        }
+
+        String sanitized = sb.toString();
+
+        if (sanitized.isEmpty() || sanitized.equals(".")
+                || sanitized.equals("..")) {
+            return fileId;
+        }
+
+        return sanitized;
+    }
+
+    private TransferResult newResult(java.io.File localFile,
+            File remoteFile) {
+        TransferResult result = new TransferResult();
+        result.setLocalPath(localFile.getPath());
+        result.setRemoteFile(remoteFile);
+        return result;
+    }
+}
@@ -0,0 +1,201 @@
+package java_itamae_g_drive.domain.service.drive;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import com.google.api.services.drive.model.File;
+
+import java_itamae_g_drive.domain.model.FileField;
+import java_itamae_g_drive.domain.model.FileProjection;
+import java_itamae_g_drive.domain.model.TransferResult;
+import java_itamae_g_drive.domain.repository.drive.DriveRepository;
+import java_itamae_g_drive.domain.repository.drive.FileDigest;
+import java_itamae_g_drive.domain.repository.drive.FileIterator;
+
+/**
+ * ローカルのディレクトリツリーと Google Drive 上のディレクトリを同期する。
+ * <p>
+ * 同じ名前のファイルが存在する場合はサイズと md5Checksum を比較し、内容が異なるファイルのみを更新する。
+ * サイズが異なるファイルはハッシュ値を求めずに更新し、存在しないファイル・ディレクトリはアップロードする。
+ * Google Drive 上にのみ存在するファイルは削除しない。
+ * </p>
+ */
+class TreeSynchronizer {
+    private static final String FOLDER_MIME_TYPE = "application/vnd.google-apps.folder";
+    private static final FileProjection SYNC_PROJECTION = FileProjection.DEFAULT
+            .with(FileField.SIZE, FileField.MD5_CHECKSUM);
+
+    private final DriveRepository repository;
+    private final ExecutorService executor;
+    private final BlockingQueue<TransferResult> completed = new LinkedBlockingQueue<>();
+    private final AtomicInteger submitted = new AtomicInteger();
+
+    TreeSynchronizer(DriveRepository repository, ExecutorService executor) {
+        this.repository = repository;
+        this.executor = executor;
+    }
+
+    /**
+     * @param localDirPath
+     *            同期元とするディレクトリのパスを指定する。
+     * @param remoteFolderId
+     *            同期先とするディレクトリの file_id を指定する。
+     * @param listener
+     *            ファイル・ディレクトリ 1 件の処理が完了する度に結果を受け取るリスナーを指定する。不要な場合は null
+     *            を指定する。
+     * @return resultList ディレクトリ・ファイルごとの処理結果を完了順に返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    List<TransferResult> sync(String localDirPath, String remoteFolderId,
+            Consumer<TransferResult> listener) throws Exception {
+        Path localDir = Paths.get(localDirPath);
+
+        if (!Files.isDirectory(localDir)) {
+            throw new IOException("ディレクトリが存在しません。: " + localDirPath);
+        }
+
+        List<TransferResult> resultList = new ArrayList<>();
+        submitChildren(localDir, remoteFolderId, listRemote(remoteFolderId));
+
+        // 各タスクは子のタスクを投入してから自身の結果を通知するため、件数が一致した時点で全て完了している。
+        while (resultList.size() < submitted.get()) {
+            TransferResult result = completed.take();
+            resultList.add(result);
+
+            if (listener != null) {
+                listener.accept(result);
+            }
+        }
+
+        return resultList;
+    }
+
+    /**
+     * @return remoteFiles 指定したディレクトリの配下に存在するファイル・ディレクトリを名前ごとに返す。
+     */
+    private Map<String, File> listRemote(String remoteFolderId)
+            throws Exception {
+        Map<String, File> remoteFiles = new HashMap<>();
+        String query = String.format("'%s' in parents and trashed = false",
+                remoteFolderId);
+
+        try (FileIterator files = repository.iterateByQuery(query,
+                DriveRepository.MAX_PAGE_SIZE, SYNC_PROJECTION)) {
+            while (files.hasNext()) {
+                File file = files.next();
+
+                if (!remoteFiles.containsKey(file.getName())) {
+                    remoteFiles.put(file.getName(), file);
+                }
+            }
+        }
+
+        return remoteFiles;
+    }
+
+    private void submitChildren(Path localDir, String remoteFolderId,
+            Map<String, File> remoteFiles) throws IOException {
+        try (DirectoryStream<Path> children = Files
+                .newDirectoryStream(localDir)) {
+            for (Path child : children) {
+                File remote = remoteFiles.get(child.getFileName().toString());
+                boolean remoteIsFolder = remote != null
+                        && FOLDER_MIME_TYPE.equals(remote.getMimeType());
+
+                if (Files.isDirectory(child)) {
+                    submitFolder(child, remoteFolderId,
+                            remoteIsFolder ? remote : null);
+                } else {
+                    submitFile(child, remoteFolderId,
+                            remoteIsFolder ? null : remote);
+                }
+            }
+        }
+    }
+
+    private void submitFolder(final Path localDir, final String remoteParentId,
+            final File remoteFolder) {
+        submitted.incrementAndGet();
+        executor.execute(() -> {
+            TransferResult result = new TransferResult();
+            result.setLocalPath(localDir.toString());
+
+            try {
+                if (remoteFolder == null) {
+                    // 作成したばかりのディレクトリは空のため、一覧を取得せずに全てアップロードする。
+                    File created = repository.upload(localDir.toString(),
+                            remoteParentId);
+                    result.setRemoteFile(created);
+                    submitChildren(localDir, created.getId(),
+                            new HashMap<String, File>());
+                } else {
+                    result.setRemoteFile(remoteFolder);
+                    result.setSkipped(true);
+                    submitChildren(localDir, remoteFolder.getId(),
+                            listRemote(remoteFolder.getId()));
+                }
+            } catch (Exception e) {
+                result.setError(e);
+            }
+
+            completed.add(result);
+        });
+    }
+
+    private void submitFile(final Path localFile, final String remoteParentId,
+            final File remoteFile) {
+        submitted.incrementAndGet();
+        executor.execute(() -> {
+            TransferResult result = new TransferResult();
+            result.setLocalPath(localFile.toString());
+
+            try {
+                if (remoteFile == null) {
+                    result.setRemoteFile(repository
+                            .upload(localFile.toString(), remoteParentId));
+                } else if (isSame(localFile, remoteFile)) {
+                    result.setRemoteFile(remoteFile);
+                    result.setSkipped(true);
+                } else {
+                    result.setRemoteFile(repository
+                            .update(localFile.toString(), remoteFile.getId()));
+                }
+            } catch (Exception e) {
+                result.setError(e);
+            }
+
+            completed.add(result);
+        });
+    }
+
+    /**
+     * @return status ローカルファイルと Google Drive 上のファイルの内容が同じ場合は true を返す。
+     */
+    static boolean isSame(Path localFile, File remoteFile) throws IOException {
+        if (remoteFile.getMd5Checksum() == null
+                || remoteFile.getSize() == null) {
+            // Google ドキュメント形式のファイルにはハッシュ値が存在しない。
+            return false;
+        }
+
+        if (Files.size(localFile) != remoteFile.getSize()) {
+            return false;
+        }
+
+        return FileDigest.md5Hex(localFile)
+                .equalsIgnoreCase(remoteFile.getMd5Checksum());
+    }
+}
@@ -0,0 +1,148 @@
+package java_itamae_g_drive.domain.service.drive;
+
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+import com.google.api.services.drive.model.File;
+
+import java_itamae_g_drive.domain.model.TransferResult;
+import java_itamae_g_drive.domain.repository.drive.DriveRepository;
+
+/**
+ * ローカルのディレクトリツリーを Google Drive へ再帰的にアップロードする。
+ * <p>
+ * 各ディレクトリの作成は親ディレクトリの作成完了を待ってから実行し、兄弟関係にあるディレクトリは並列に作成する。
+ * ファイルは格納先ディレクトリの file_id が確定した時点でワーカーへ投入する。
+ * </p>
+ */
+class TreeUploader {
+    private final DriveRepository repository;
+    private final ExecutorService executor;
+
+    TreeUploader(DriveRepository repository, ExecutorService executor) {
+        this.repository = repository;
+        this.executor = executor;
+    }
+
+    /**
+     * @param localDirPath
+     *            アップロード対象とするディレクトリのパスを指定する。
+     * @param remoteParentId
+     *            格納先ディレクトリの file_id を指定する。
+     * @param listener
+     *            転送が 1 件完了する度に結果を受け取るリスナーを指定する。不要な場合は null を指定する。
+     * @return resultList ディレクトリ・ファイルごとの転送結果を走査順に返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    List<TransferResult> upload(String localDirPath,
+            final String remoteParentId, Consumer<TransferResult> listener)
+            throws Exception {
+        final Path root = Paths.get(localDirPath);
+        final Map<Path, CompletableFuture<String>> folderIds = new HashMap<>();
+        final List<CompletableFuture<TransferResult>> taskList = new ArrayList<>();
+        final BlockingQueue<TransferResult> completed = new LinkedBlockingQueue<>();
+
+        Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir,
+                    BasicFileAttributes attrs) throws IOException {
+                CompletableFuture<TransferResult> task = submit(dir,
+                        parentIdOf(dir), completed);
+                taskList.add(task);
+                folderIds.put(dir, task.thenApply(result -> {
+                    if (!result.isSuccess()) {
+                        throw new CompletionException(result.getError());
+                    }
+
+                    return result.getRemoteFile().getId();
+                }));
+
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file,
+                    BasicFileAttributes attrs) throws IOException {
+                taskList.add(submit(file, parentIdOf(file), completed));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir,
+                    IOException exc) throws IOException {
+                // 配下の転送は全て投入済みのため、以降は参照しない。
+                folderIds.remove(dir);
+                return FileVisitResult.CONTINUE;
+            }
+
+            private CompletableFuture<String> parentIdOf(Path path) {
+                if (path.equals(root)) {
+                    return CompletableFuture.completedFuture(remoteParentId);
+                }
+
+                return folderIds.get(path.getParent());
+            }
+        });
+
+        for (int i = 0; i < taskList.size(); i++) {
+            TransferResult result = completed.take();
+
+            if (listener != null) {
+                listener.accept(result);
+            }
+        }
+
+        List<TransferResult> resultList = new ArrayList<>();
+
+        for (CompletableFuture<TransferResult> task : taskList) {
+            resultList.add(task.join());
+        }
+
+        return resultList;
+    }
+
+    private CompletableFuture<TransferResult> submit(final Path path,
+            CompletableFuture<String> parentId,
+            final BlockingQueue<TransferResult> completed) {
+        final String localPath = path.toString();
+
+        return parentId.thenApplyAsync(id -> {
+            TransferResult result = new TransferResult();
+            result.setLocalPath(localPath);
+
+            try {
+                File remoteFile = repository.upload(localPath, id);
+                result.setRemoteFile(remoteFile);
+            } catch (Exception e) {
+                result.setError(e);
+            }
+
+            return result;
+        }, executor).exceptionally(e -> {
+            // 格納先ディレクトリの作成に失敗した場合。
+            TransferResult result = new TransferResult();
+            result.setLocalPath(localPath);
+            Throwable cause = e instanceof CompletionException
+                    && e.getCause() != null ? e.getCause() : e;
+            result.setError(cause instanceof Exception ? (Exception) cause
+                    : new Exception(cause));
+            return result;
+        }).whenComplete((result, e) -> completed.add(result));
+    }
+}
@@ -0,0 +1,132 @@
+package java_itamae_g_drive.app;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.api.services.drive.model.File;
+
+import java_itamae_g_drive.domain.model.DriveAttribute;
+import java_itamae_g_drive.domain.repository.drive.DriveRepositoryImpl;
+import java_itamae_g_drive.domain.repository.drive.FakeDriveServer;
+import java_itamae_g_drive.domain.service.drive.DriveServiceImpl;
+
+public class DriveDaemonTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private FakeDriveServer server;
+    private DriveDaemon daemon;
+    private Path stateFile;
+    private final AtomicInteger created = new AtomicInteger();
+    private final List<String> warnings = new ArrayList<>();
+    private ByteArrayOutputStream output;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new FakeDriveServer();
+        final Path sessions = temporaryFolder.newFolder("sessions").toPath();
+        stateFile = temporaryFolder.getRoot().toPath().resolve("state")
+                .resolve("daemon");
+        daemon = new DriveDaemon(driveAttr -> {
+            created.incrementAndGet();
+            driveAttr.setRequestsPerSecond(0);
+            driveAttr.setUploadSessionDirectory(sessions);
+
+            try {
+                return new DriveServiceImpl(
+                        new DriveRepositoryImpl(server.newDrive(), driveAttr));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }, stateFile, DriveAttribute.DEFAULT_CACHE_TTL);
+        daemon.start();
+    }
+
+    @After
+    public void tearDown() {
+        daemon.close();
+        server.close();
+    }
+
+    private Integer forward(String... args) throws Exception {
+        output = new ByteArrayOutputStream();
+
+        try (PrintStream out = new PrintStream(output, true, "UTF-8")) {
+            return DaemonClient.forward(stateFile, args,
+                    temporaryFolder.getRoot(), out, warnings::add);
+        }
+    }
+
+    private List<String> outputLines() throws Exception {
+        return Arrays.asList(new String(output.toByteArray(),
+                StandardCharsets.UTF_8).split("\n"));
+    }
+
+    @Test
+    public void 転送したコマンドの出力と終了ステータスを受け取れること() throws Exception {
+        File folder = server.addFolder(FakeDriveServer.ROOT_ID, "folder");
+        File file = server.addFile(folder.getId(), "a.txt", new byte[1]);
+
+        assertThat(forward("-l", "-P", folder.getId()), is(0));
+        assertThat(outputLines(), is(Arrays.asList(String.format(
+                "id: %s name: a.txt mime_type: %s", file.getId(),
+                file.getMimeType()))));
+
+        // 同じオプションのコマンドは DriveService を共有する。
+        assertThat(forward("-l", "-T", "/folder"), is(0));
+        assertThat(outputLines().size(), is(1));
+        assertThat(created.get(), is(1));
+    }
+
+    @Test
+    public void 相対パスはクライアントのディレクトリを基準とすること() throws Exception {
+        Files.write(temporaryFolder.newFile("a.txt").toPath(), new byte[10]);
+
+        assertThat(forward("-u", "-L", "a.txt"), is(2));
+        // ルートディレクトリとアップロードしたファイル。
+        assertThat(server.size(), is(2));
+    }
+
+    @Test
+    public void 警告と失敗の終了ステータスを受け取れること() throws Exception {
+        assertThat(forward("-r", "-R", "missing-1", "-R", "missing-2"), is(1));
+        assertThat(warnings.size(), is(2));
+        assertThat(warnings.get(0).startsWith("missing-1: "), is(true));
+
+        warnings.clear();
+        assertThat(forward("-d"), is(1));
+        assertThat(warnings, is(Arrays.asList("--local-path オプションを指定してください。")));
+    }
+
+    @Test
+    public void デーモンが動作していない場合は転送しないこと() throws Exception {
+        daemon.close();
+
+        assertThat(Files.exists(stateFile), is(false));
+        assertThat(forward("-l"), is(nullValue()));
+
+        // 停止したデーモンの状態ファイルが残っている場合。
+        Files.createDirectories(stateFile.getParent());
+        Files.write(stateFile, Arrays.asList(
+                String.valueOf(daemon.getPort()), "token"),
+                StandardCharsets.UTF_8);
+        assertThat(forward("-l"), is(nullValue()));
+    }
+}
@@ -0,0 +1,100 @@
+package java_itamae_g_drive.domain.repository.drive;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+
+import java_itamae_g_drive.domain.model.BatchResult;
+
+public class BatchRequestTest {
+    private static final String BOUNDARY = "batch_boundary";
+    private static final Pattern REQUEST_LINE = Pattern
+            .compile("(GET|DELETE) \\S*/files/([^?\\s]+)");
+
+    private MockDriveTransport transport;
+    private DriveRepository repository;
+
+    @Before
+    public void setUp() {
+        transport = new MockDriveTransport((method, request) -> {
+            Matcher matcher = REQUEST_LINE.matcher(request.getContentAsString());
+            StringBuilder body = new StringBuilder();
+
+            while (matcher.find()) {
+                String id = matcher.group(2);
+                body.append("--").append(BOUNDARY).append("\r\n");
+                body.append("Content-Type: application/http\r\n\r\n");
+
+                if (id.startsWith("missing")) {
+                    String error = "{\"error\":{\"code\":404,\"message\":\"File not found: "
+                            + id + "\"}}";
+                    body.append("HTTP/1.1 404 Not Found\r\n");
+                    body.append("Content-Type: application/json\r\n");
+                    body.append("Content-Length: " + error.length() + "\r\n\r\n");
+                    body.append(error).append("\r\n");
+                } else if (matcher.group(1).equals("DELETE")) {
+                    body.append("HTTP/1.1 204 No Content\r\n");
+                    body.append("Content-Length: 0\r\n\r\n\r\n");
+                } else {
+                    String json = "{\"id\":\"" + id + "\",\"name\":\"name-" + id
+                            + "\"}";
+                    body.append("HTTP/1.1 200 OK\r\n");
+                    body.append("Content-Type: application/json\r\n");
+                    body.append("Content-Length: " + json.length() + "\r\n\r\n");
+                    body.append(json).append("\r\n");
+                }
+            }
+
+            body.append("--").append(BOUNDARY).append("--\r\n");
+            return new MockLowLevelHttpResponse()
+                    .setContentType("multipart/mixed; boundary=" + BOUNDARY)
+                    .setContent(body.toString());
+        });
+        repository = new DriveRepositoryImpl(transport.newDrive());
+    }
+
+    private List<String> ids(int count) {
+        List<String> idList = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            idList.add((i % 10 == 9 ? "missing-" : "id-") + i);
+        }
+
+        return idList;
+    }
+
+    @Test
+    public void deleteAll実行時に100件ごとのバッチリクエストへまとめられること() throws Exception {
+        List<String> idList = ids(250);
+        List<BatchResult> resultList = repository.deleteAll(idList);
+
+        assertThat(transport.getRequestCount(), is(3));
+        assertThat(resultList.size(), is(250));
+
+        for (int i = 0; i < idList.size(); i++) {
+            BatchResult result = resultList.get(i);
+            assertThat(result.getFileId(), is(idList.get(i)));
+            assertThat(result.isSuccess(), is(i % 10 != 9));
+        }
+    }
+
+    @Test
+    public void findByFileIds実行時にファイルごとの結果を取得できること() throws Exception {
+        List<BatchResult> resultList = repository.findByFileIds(ids(10));
+
+        assertThat(transport.getRequestCount(), is(1));
+        assertThat(resultList.get(0).getFile().getName(), is("name-id-0"));
+        assertThat(resultList.get(9).getFile(), is(nullValue()));
+        assertThat(resultList.get(9).getError().getCode(), is(404));
+    }
+}
@@ -0,0 +1,139 @@
+package java_itamae_g_drive.domain.repository.drive;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.api.services.drive.model.File;
+import com.google.api.services.drive.model.FileList;
+
+public class CachingDriveRepositoryTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final AtomicLong clock = new AtomicLong();
+    private final List<File> children = Collections
+            .synchronizedList(new ArrayList<File>());
+
+    private MockDriveTransport transport;
+    private CachingDriveRepository repository;
+
+    @Before
+    public void setUp() {
+        transport = new MockDriveTransport((method, request) -> {
+            String url = request.getUrl();
+
+            if (method.equals("DELETE")) {
+                return new MockLowLevelHttpResponse().setStatusCode(204);
+            } else if (MockDriveTransport.queryParameter(url, "q") != null) {
+                return MockDriveTransport
+                        .json(new FileList().setFiles(new ArrayList<>(children)));
+            } else if (url.contains("/upload/")) {
+                File file = new File().setId("uploaded").setName("upload.txt")
+                        .setParents(Collections.singletonList("parent"));
+                children.add(file);
+                return MockDriveTransport.json(file);
+            }
+
+            String path = new GenericUrl(url).getRawPath();
+            String id = path.substring(path.lastIndexOf('/') + 1);
+            return MockDriveTransport.json(new File()
+                    .setId(id.equals("root") ? "root-id" : id).setName(id)
+                    .setParents(Collections.singletonList("parent")));
+        });
+        repository = new CachingDriveRepository(
+                new DriveRepositoryImpl(transport.newDrive()), 3, 10,
+                TimeUnit.SECONDS, clock::get);
+    }
+
+    @Test
+    public void 同じfileIdの検索はキャッシュから返されること() throws Exception {
+        repository.findByFileId("a");
+        File file = repository.findByFileId("a");
+
+        assertThat(file.getId(), is("a"));
+        assertThat(transport.getRequestCount(), is(1));
+        assertThat(repository.getHitCount(), is(1L));
+        assertThat(repository.getMissCount(), is(1L));
+    }
+
+    @Test
+    public void 有効期限を過ぎたエントリーは再取得されること() throws Exception {
+        repository.findByFileId("a");
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        repository.findByFileId("a");
+
+        assertThat(transport.getRequestCount(), is(2));
+        assertThat(repository.getMissCount(), is(2L));
+    }
+
+    @Test
+    public void 上限を超えた場合は最も長く参照されていないエントリーが破棄されること() throws Exception {
+        repository.findByFileId("a");
+        repository.findByFileId("b");
+        repository.findByFileId("c");
+        repository.findByFileId("a");
+        repository.findByFileId("d");
+
+        assertThat(repository.getEvictionCount(), is(1L));
+        assertThat(repository.size(), is(3));
+
+        repository.findByFileId("a");
+        assertThat(transport.getRequestCount(), is(4));
+        repository.findByFileId("b");
+        assertThat(transport.getRequestCount(), is(5));
+    }
+
+    @Test
+    public void upload実行時に格納先ディレクトリの一覧が破棄されること() throws Exception {
+        assertThat(repository.findByParentId("parent").size(), is(0));
+        assertThat(repository.findByParentId("parent").size(), is(0));
+
+        java.io.File localFile = temporaryFolder.newFile("upload.txt");
+        repository.upload(localFile.getPath(), "parent");
+
+        assertThat(repository.findByParentId("parent").size(), is(1));
+        assertThat(repository.findByFileId("uploaded").getName(),
+                is("upload.txt"));
+        assertThat(transport.getRequestCount(), is(3));
+    }
+
+    @Test
+    public void delete実行時にエントリーが破棄されること() throws Exception {
+        repository.findByFileId("a");
+        repository.findByParentId("parent");
+        repository.delete("a");
+
+        repository.findByFileId("a");
+        repository.findByParentId("parent");
+        assertThat(transport.getRequestCount(), is(5));
+    }
+
+    @Test
+    public void ディレクトリの削除時に配下のエントリーも破棄されること() throws Exception {
+        repository.findByFileId("a");
+        repository.delete("parent");
+
+        repository.findByFileId("a");
+        assertThat(transport.getRequestCount(), is(3));
+    }
+
+    @Test
+    public void ルートディレクトリのfileIdはキャッシュされること() throws Exception {
+        assertThat(repository.getDriveRootId(), is("root-id"));
+        assertThat(repository.getDriveRootId(), is("root-id"));
+        assertThat(transport.getRequestCount(), is(1));
+    }
+}
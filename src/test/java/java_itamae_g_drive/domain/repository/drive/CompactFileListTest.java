@@ -0,0 +1,121 @@
+package java_itamae_g_drive.domain.repository.drive;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.api.services.drive.model.File;
+import com.google.api.services.drive.model.FileList;
+
+import java_itamae_g_drive.domain.model.CompactFileList;
+
+public class CompactFileListTest {
+    private static final int PAGE_COUNT = 3;
+    private static final int PAGE_SIZE = 4;
+
+    private MockDriveTransport transport;
+    private DriveRepository repository;
+
+    @Before
+    public void setUp() {
+        transport = new MockDriveTransport((method, request) -> {
+            String token = MockDriveTransport.queryParameter(request.getUrl(),
+                    "pageToken");
+            int page = token == null ? 0 : Integer.parseInt(token);
+
+            List<File> files = new ArrayList<>();
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                int index = page * PAGE_SIZE + i;
+                // 子が親より前のページに現れる順序で返す。
+                String parentId = index < PAGE_SIZE * 2 ? "dir-" + (index % 2)
+                        : "root";
+                File file = new File().setId("id-" + index)
+                        .setName("日本語-" + (index % 3))
+                        .setMimeType("text/plain")
+                        .setParents(Arrays.asList(parentId, "other"))
+                        .setSize(100L);
+                files.add(file);
+            }
+
+            if (page + 1 == PAGE_COUNT) {
+                files.set(0, new File().setId("dir-0").setName("dir")
+                        .setMimeType(CompactFileList.FOLDER_MIME_TYPE)
+                        .setParents(Collections.singletonList("root")));
+                files.set(1, new File().setId("dir-1").setName("dir"));
+            }
+
+            FileList fileList = new FileList().setFiles(files);
+            if (page + 1 < PAGE_COUNT) {
+                fileList.setNextPageToken(String.valueOf(page + 1));
+            }
+
+            return MockDriveTransport.json(fileList);
+        });
+        repository = new DriveRepositoryImpl(transport.newDrive());
+    }
+
+    @Test
+    public void 全てのページを列形式で取得できること() throws Exception {
+        CompactFileList list = repository.findCompactByQuery(null);
+
+        assertThat(list.size(), is(PAGE_COUNT * PAGE_SIZE));
+        assertThat(transport.getRequestCount(), is(PAGE_COUNT));
+        assertThat(list.getId(5), is("id-5"));
+        assertThat(list.getName(5), is("日本語-2"));
+        assertThat(list.getMimeType(5), is("text/plain"));
+        assertThat(list.isFolder(8), is(true));
+        assertThat(list.getMimeType(9), is(nullValue()));
+    }
+
+    @Test
+    public void 一覧に含まれる親は位置で参照すること() throws Exception {
+        CompactFileList list = repository.findCompactByQuery(null);
+        int dirIndex = list.indexOf("dir-0");
+
+        assertThat(dirIndex, is(8));
+        assertThat(list.getParentIndex(0), is(dirIndex));
+        assertThat(list.getParentId(1), is("dir-1"));
+        assertThat(list.getParentIndex(8) < 0, is(true));
+        assertThat(list.getParentId(8), is("root"));
+        assertThat(list.getParentIndex(9), is(CompactFileList.NO_PARENT));
+        assertThat(list.getParentId(9), is(nullValue()));
+        assertThat(list.indexOf("missing"), is(-1));
+    }
+
+    @Test
+    public void toFile実行時に必要な時だけFileを生成すること() throws Exception {
+        CompactFileList list = repository.findCompactByQuery(null);
+        File file = list.toFile(3);
+
+        assertThat(file.getId(), is("id-3"));
+        assertThat(file.getName(), is("日本語-0"));
+        assertThat(file.getParents(), is(Collections.singletonList("dir-1")));
+        assertThat(file.getSize(), is(nullValue()));
+        assertThat(list.toFile(9).getParents(), is(nullValue()));
+    }
+
+    @Test
+    public void 名前の重複を取り除いて保持すること() {
+        CompactFileList.Builder builder = new CompactFileList.Builder();
+
+        for (int i = 0; i < 1000; i++) {
+            builder.add("id-" + i, "same.txt", "text/plain", "root");
+        }
+
+        CompactFileList distinct = new CompactFileList.Builder()
+                .add("id-0", "same.txt", "text/plain", "root").build();
+        CompactFileList list = builder.build();
+
+        assertThat(list.getName(999), is("same.txt"));
+        assertThat(list.memoryUsage() < distinct.memoryUsage() + 1000 * 30,
+                is(true));
+    }
+}
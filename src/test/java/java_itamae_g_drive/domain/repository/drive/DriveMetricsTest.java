@@ -0,0 +1,145 @@
+package java_itamae_g_drive.domain.repository.drive;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.api.services.drive.model.File;
+import com.google.api.services.drive.model.FileList;
+
+import java_itamae_g_drive.domain.model.DriveAttribute;
+import java_itamae_g_drive.domain.model.DriveMetrics;
+import java_itamae_g_drive.domain.model.InMemoryDriveMetrics;
+
+public class DriveMetricsTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final AtomicInteger failures = new AtomicInteger();
+    private final InMemoryDriveMetrics metrics = new InMemoryDriveMetrics();
+
+    private int failureStatus;
+    private String failureReason;
+    private DriveRepository repository;
+
+    @Before
+    public void setUp() {
+        MockDriveTransport transport = new MockDriveTransport(
+                (method, request) -> {
+                    String url = request.getUrl();
+
+                    if (failures.getAndDecrement() > 0) {
+                        return MockDriveTransport.error(failureStatus,
+                                failureReason);
+                    }
+
+                    if (MockDriveTransport.queryParameter(url, "q") != null) {
+                        List<File> files = new ArrayList<>();
+
+                        for (int i = 0; i < 10; i++) {
+                            files.add(new File().setId("id-" + i)
+                                    .setName("file-" + i + ".txt"));
+                        }
+
+                        return MockDriveTransport
+                                .json(new FileList().setFiles(files));
+                    }
+
+                    if ("media".equals(
+                            MockDriveTransport.queryParameter(url, "alt"))) {
+                        return new MockLowLevelHttpResponse()
+                                .setContent(new byte[12345]);
+                    }
+
+                    return MockDriveTransport
+                            .json(new File().setId("a").setName("a.txt"));
+                });
+
+        DriveAttribute driveAttr = new DriveAttribute();
+        driveAttr.setMetrics(metrics);
+        driveAttr.setRequestsPerSecond(0);
+        driveAttr.setRetryInitialDelay(1);
+        repository = new DriveRepositoryImpl(transport.newDrive(), driveAttr);
+    }
+
+    @Test
+    public void 再試行した操作は試行ごとに記録されること() throws Exception {
+        failureStatus = 503;
+        failureReason = "backendError";
+        failures.set(2);
+
+        repository.findByFileId("a");
+
+        assertThat(metrics.getRequestCount(DriveMetrics.GET), is(3L));
+        assertThat(metrics.getRetryCount(DriveMetrics.GET), is(2L));
+        assertThat(metrics.getErrorCounts(DriveMetrics.GET),
+                is(Collections.singletonMap("503 backendError", 2L)));
+    }
+
+    @Test
+    public void 再試行しないエラーはエラーコードで記録されること() throws Exception {
+        failureStatus = 404;
+        failureReason = "notFound";
+        failures.set(1);
+
+        try {
+            repository.findByFileId("a");
+            fail();
+        } catch (GoogleJsonResponseException e) {
+            // 404 は再試行しない。
+        }
+
+        assertThat(metrics.getRequestCount(DriveMetrics.GET), is(1L));
+        assertThat(metrics.getRetryCount(DriveMetrics.GET), is(0L));
+        assertThat(metrics.summary(),
+                containsString("error: files.get 404 notFound x1"));
+    }
+
+    @Test
+    public void 一覧とダウンロードの受信量が記録されること() throws Exception {
+        repository.findByParentId("parent");
+        repository.download(temporaryFolder.newFolder("download").getPath(),
+                new File().setId("a").setName("a.bin")
+                        .setMimeType("application/octet-stream"));
+
+        assertThat(metrics.getRequestCount(DriveMetrics.LIST), is(1L));
+        assertThat(metrics.getBytesReceived(DriveMetrics.LIST) > 0, is(true));
+        assertThat(metrics.getRequestCount(DriveMetrics.DOWNLOAD), is(1L));
+        assertThat(metrics.getBytesReceived(DriveMetrics.DOWNLOAD),
+                is(12345L));
+        assertThat(metrics.getErrorCounts(DriveMetrics.DOWNLOAD).isEmpty(),
+                is(true));
+    }
+
+    @Test
+    public void パーセンタイルは記録した所要時間の区間から求めること() {
+        InMemoryDriveMetrics latency = new InMemoryDriveMetrics();
+
+        for (int i = 1; i <= 100; i++) {
+            latency.recordRequest("op", TimeUnit.MILLISECONDS.toNanos(i),
+                    null);
+        }
+
+        // 区間の幅は下限の 1/4 以下であるため、誤差は 25% 未満となる。
+        long p50 = latency.getLatencyPercentile("op", 50);
+        long p99 = latency.getLatencyPercentile("op", 99);
+        assertThat(p50 >= 50 * 1000 && p50 < 50 * 1000 * 5 / 4, is(true));
+        assertThat(p99 >= 99 * 1000 && p99 <= 100 * 1000, is(true));
+        assertThat(latency.getLatencyPercentile("op", 100), is(100L * 1000));
+        assertThat(latency.getLatencyPercentile("none", 50), is(0L));
+    }
+}
@@ -0,0 +1,341 @@
+package java_itamae_g_drive.domain.repository.drive;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.api.client.http.HttpTransport;
+import com.google.api.services.drive.Drive;
+import com.google.api.services.drive.model.File;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java_itamae_g_drive.domain.model.DriveAttribute;
+import java_itamae_g_drive.domain.model.TransportAttribute;
+
+public class DriveTransportTest {
+    private final Set<Integer> clientPorts = Collections
+            .synchronizedSet(new HashSet<Integer>());
+    private final List<String> contentEncodings = Collections
+            .synchronizedList(new ArrayList<String>());
+    private final List<String> acceptEncodings = Collections
+            .synchronizedList(new ArrayList<String>());
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicInteger maxActive = new AtomicInteger();
+
+    private volatile long delay;
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private TransportAttribute transportAttr;
+
+    @Before
+    public void setUp() throws Exception {
+        server = HttpServer.create(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/", this::handle);
+        server.start();
+
+        transportAttr = new TransportAttribute();
+        transportAttr.setConnectTimeout(5000);
+        transportAttr.setReadTimeout(5000);
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        int current = active.incrementAndGet();
+        maxActive.accumulateAndGet(current, Math::max);
+
+        try {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            contentEncodings.add(String.valueOf(
+                    exchange.getRequestHeaders().getFirst("Content-Encoding")));
+            acceptEncodings.add(String.valueOf(
+                    exchange.getRequestHeaders().getFirst("Accept-Encoding")));
+
+            while (exchange.getRequestBody().read() >= 0) {
+                // リクエスト本文を読み捨てる。
+            }
+
+            if (delay > 0) {
+                Thread.sleep(delay);
+            }
+
+            byte[] body = "{\"id\":\"a\",\"name\":\"a.txt\"}".getBytes("UTF-8");
+            String acceptEncoding = exchange.getRequestHeaders()
+                    .getFirst("Accept-Encoding");
+
+            if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+                ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+                try (GZIPOutputStream gzip = new GZIPOutputStream(buffer)) {
+                    gzip.write(body);
+                }
+
+                body = buffer.toByteArray();
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+
+            exchange.getResponseHeaders().set("Content-Type",
+                    "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            active.decrementAndGet();
+        }
+    }
+
+    private Drive newDrive() throws Exception {
+        HttpTransport transport = DriveClientFactory
+                .newPooledTransport(transportAttr);
+        return DriveClientFactory
+                .newDriveBuilder(transport, MockDriveTransport.JSON_FACTORY,
+                        null, transportAttr)
+                .setRootUrl("http://127.0.0.1:"
+                        + server.getAddress().getPort() + "/")
+                .setApplicationName("java-itamae-g-drive-test").build();
+    }
+
+    @Test
+    public void 同じ設定のトランスポートは共有されること() throws Exception {
+        HttpTransport first = DriveClientFactory
+                .getSharedTransport(transportAttr);
+
+        assertThat(DriveClientFactory.getSharedTransport(transportAttr),
+                is(sameInstance(first)));
+
+        TransportAttribute other = new TransportAttribute();
+        other.setMaxConnectionsPerRoute(3);
+        assertThat(DriveClientFactory.getSharedTransport(other),
+                is(not(sameInstance(first))));
+    }
+
+    @Test
+    public void 連続したリクエストで接続が再利用されること() throws Exception {
+        Drive drive = newDrive();
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(drive.files().get("a").execute().getName(),
+                    is("a.txt"));
+        }
+
+        assertThat(clientPorts.size(), is(1));
+    }
+
+    @Test
+    public void 同時接続数が上限を超えないこと() throws Exception {
+        transportAttr.setMaxConnectionsPerRoute(2);
+        delay = 100;
+        final Drive drive = newDrive();
+        ExecutorService executor = Executors.newFixedThreadPool(6);
+
+        try {
+            List<Future<File>> futures = new ArrayList<>();
+
+            for (int i = 0; i < 6; i++) {
+                futures.add(executor
+                        .submit(() -> drive.files().get("a").execute()));
+            }
+
+            for (Future<File> future : futures) {
+                assertThat(future.get(10, TimeUnit.SECONDS).getId(),
+                        is("a"));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(maxActive.get() <= 2, is(true));
+        assertThat(clientPorts.size() <= 2, is(true));
+    }
+
+    @Test
+    public void 読み込みのタイムアウトを超えた場合はSocketTimeoutExceptionを送出すること()
+            throws Exception {
+        transportAttr.setReadTimeout(200);
+        delay = 2000;
+
+        try {
+            newDrive().files().get("a").execute();
+            fail();
+        } catch (SocketTimeoutException e) {
+            assertThat(e, is(not(nullValue())));
+        }
+    }
+
+    @Test
+    public void リクエストとレスポンスがgzipで圧縮されること() throws Exception {
+        File file = newDrive().files().create(new File().setName("a.txt"))
+                .execute();
+
+        assertThat(file.getName(), is("a.txt"));
+        assertThat(contentEncodings.get(0), is("gzip"));
+        assertThat(acceptEncodings.get(0), is("gzip"));
+    }
+
+    @Test
+    public void gzipを無効にした場合は圧縮しないこと() throws Exception {
+        transportAttr.setGzip(false);
+
+        File file = newDrive().files().create(new File().setName("a.txt"))
+                .execute();
+
+        assertThat(file.getName(), is("a.txt"));
+        assertThat(contentEncodings.get(0), is("null"));
+        assertThat(acceptEncodings.get(0), is("null"));
+    }
+
+    /**
+     * 接続ごとに指定した件数のリクエストに応答してから切断するサーバー。 1 件目の接続のみ、応答後に届いたリクエストを
+     * 読み込んでから応答せずに切断する。
+     */
+    private static class DroppingServer implements AutoCloseable {
+        private final ServerSocket serverSocket;
+        private final AtomicInteger connections = new AtomicInteger();
+        private final ExecutorService executor = Executors
+                .newCachedThreadPool();
+
+        DroppingServer(final boolean dropRequest) throws IOException {
+            serverSocket = new ServerSocket(0, 0,
+                    InetAddress.getLoopbackAddress());
+            executor.execute(() -> {
+                while (!serverSocket.isClosed()) {
+                    try {
+                        final Socket socket = serverSocket.accept();
+                        final boolean first = connections
+                                .incrementAndGet() == 1;
+                        executor.execute(
+                                () -> serve(socket, first && dropRequest));
+                    } catch (IOException e) {
+                        return;
+                    }
+                }
+            });
+        }
+
+        private void serve(Socket socket, boolean dropRequest) {
+            try (Socket s = socket) {
+                BufferedReader in = new BufferedReader(new InputStreamReader(
+                        s.getInputStream(), StandardCharsets.ISO_8859_1));
+                readRequest(in);
+                byte[] body = "{\"id\":\"a\",\"name\":\"a.txt\"}"
+                        .getBytes(StandardCharsets.UTF_8);
+                OutputStream out = s.getOutputStream();
+                out.write(("HTTP/1.1 200 OK\r\n"
+                        + "Content-Type: application/json\r\n"
+                        + "Content-Length: " + body.length + "\r\n"
+                        + "Connection: keep-alive\r\n\r\n")
+                                .getBytes(StandardCharsets.ISO_8859_1));
+                out.write(body);
+                out.flush();
+
+                if (dropRequest) {
+                    // 次のリクエストを受け取ってから、応答せずに切断する。
+                    readRequest(in);
+                }
+            } catch (IOException e) {
+                // クライアントが先に切断した場合は何もしない。
+            }
+        }
+
+        private static void readRequest(BufferedReader in) throws IOException {
+            String line;
+
+            while ((line = in.readLine()) != null && !line.isEmpty()) {
+                // GET のため本文はない。
+            }
+        }
+
+        String getRootUrl() {
+            return "http://127.0.0.1:" + serverSocket.getLocalPort() + "/";
+        }
+
+        int getConnectionCount() {
+            return connections.get();
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+            executor.shutdownNow();
+        }
+    }
+
+    private Drive newDrive(String rootUrl) throws Exception {
+        return DriveClientFactory
+                .newDriveBuilder(
+                        DriveClientFactory.newPooledTransport(transportAttr),
+                        MockDriveTransport.JSON_FACTORY, null, transportAttr)
+                .setRootUrl(rootUrl)
+                .setApplicationName("java-itamae-g-drive-test").build();
+    }
+
+    @Test
+    public void サーバー側で切断済みの接続は再利用しないこと() throws Exception {
+        try (DroppingServer dropping = new DroppingServer(false)) {
+            Drive drive = newDrive(dropping.getRootUrl());
+
+            assertThat(drive.files().get("a").execute().getId(), is("a"));
+            // サーバーが接続を閉じるまで待つ。
+            Thread.sleep(200);
+            assertThat(drive.files().get("a").execute().getId(), is("a"));
+            assertThat(dropping.getConnectionCount(), is(2));
+        }
+    }
+
+    @Test
+    public void 再利用した接続で応答がない場合は再試行すること() throws Exception {
+        try (DroppingServer dropping = new DroppingServer(true)) {
+            DriveAttribute driveAttr = new DriveAttribute();
+            driveAttr.setRequestsPerSecond(0);
+            driveAttr.setRetryInitialDelay(1);
+            DriveRepository repository = new DriveRepositoryImpl(
+                    newDrive(dropping.getRootUrl()), driveAttr);
+
+            assertThat(repository.findByFileId("a").getId(), is("a"));
+            assertThat(repository.findByFileId("a").getId(), is("a"));
+            assertThat(dropping.getConnectionCount(), is(2));
+        }
+    }
+}
@@ -0,0 +1,1237 @@
+package java_itamae_g_drive.domain.repository.drive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+import com.google.api.client.json.Json;
+import com.google.api.client.util.DateTime;
+import com.google.api.services.drive.Drive;
+import com.google.api.services.drive.model.File;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java_itamae_g_drive.domain.model.TransportAttribute;
+
+/**
+ * Google Drive API v3 の REST エンドポイントをメモリ上で模倣する HTTP サーバー。
+ * <p>
+ * ループバックアドレスの空いているポートで待ち受け、 {@link #newDrive()} が返す {@link Drive}
+ * から実際の HTTP 通信で操作する。次のリクエストに対応する。
+ * </p>
+ * <ul>
+ * <li>files.list: q パラメータの「'id' in parents」「name = '...'」「mimeType = '...'」
+ * 「mimeType != '...'」「trashed = false」を and で連結した条件と、ページ分割。</li>
+ * <li>files.get: メタデータ、 alt=media による内容 (Range ヘッダー対応) 。</li>
+ * <li>files.create, files.update: メタデータのみ、 uploadType=media, multipart,
+ * resumable によるアップロード。</li>
+ * <li>files.delete: 配下のファイルも削除する。</li>
+ * <li>batch/drive/v3: multipart/mixed のバッチリクエスト。</li>
+ * </ul>
+ * <p>
+ * fields パラメータに含まれるフィールドのみを応答に出力する。 {@link #setLatency(long)}
+ * で応答までの遅延、 {@link #setErrorRate(double, int, String)} と
+ * {@link #failNext(int, int, String)} でエラーを注入できる。エラーはバッチ内の各リクエストにも注入する。
+ * </p>
+ */
+public class FakeDriveServer implements AutoCloseable {
+    /**
+     * マイドライブの File ID 。
+     */
+    public static final String ROOT_ID = "root";
+
+    private static final String FOLDER_MIME_TYPE = "application/vnd.google-apps.folder";
+    private static final String DEFAULT_FIELDS = "kind,id,name,mimeType";
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int STATUS_RESUME_INCOMPLETE = 308;
+
+    private static final Pattern CLAUSE = Pattern.compile(
+            "\\s*(?:'((?:[^'\\\\]|\\\\.)*)'\\s+in\\s+parents"
+                    + "|(name|mimeType)\\s*(=|!=)\\s*'((?:[^'\\\\]|\\\\.)*)'"
+                    + "|trashed\\s*=\\s*(true|false))\\s*(?:and\\s+|$)");
+    private static final Pattern CONTENT_RANGE = Pattern
+            .compile("bytes (?:(\\d+)-(\\d+)|\\*)/(\\d+|\\*)");
+    private static final Pattern RANGE = Pattern
+            .compile("bytes=(\\d+)-(\\d*)");
+
+    /**
+     * 保存しているファイル。置き換えのみで更新し、変更しない。
+     */
+    private static class Entry {
+        final File file;
+        final byte[] content;
+
+        Entry(File file, byte[] content) {
+            this.file = file;
+            this.content = content;
+        }
+    }
+
+    /**
+     * レジューム可能なアップロードのセッション。
+     */
+    private static class Session {
+        final File metaFile;
+        final String fileId;
+        final String addParents;
+        final String fields;
+        final ByteArrayOutputStream received = new ByteArrayOutputStream();
+        File result;
+
+        Session(File metaFile, String fileId, String addParents,
+                String fields) {
+            this.metaFile = metaFile;
+            this.fileId = fileId;
+            this.addParents = addParents;
+            this.fields = fields;
+        }
+    }
+
+    private static class Request {
+        String method;
+        String path;
+        Map<String, String> query = new HashMap<>();
+        Map<String, String> headers = new HashMap<>();
+        byte[] body = new byte[0];
+
+        String header(String name) {
+            return headers.get(name.toLowerCase());
+        }
+    }
+
+    private static class Response {
+        final int status;
+        final String contentType;
+        final byte[] body;
+        final Map<String, String> headers = new HashMap<>();
+
+        Response(int status, String contentType, byte[] body) {
+            this.status = status;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        Response header(String name, String value) {
+            headers.put(name, value);
+            return this;
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final String rootUrl;
+    private final ConcurrentSkipListMap<String, Entry> files = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<String, NavigableSet<String>> children = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+    private final AtomicLong nextVersion = new AtomicLong();
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final AtomicInteger pendingFailures = new AtomicInteger();
+    private final Random random = new Random(1);
+
+    private volatile long latency;
+    private volatile double errorRate;
+    private volatile int errorStatus = 503;
+    private volatile String errorReason = "backendError";
+
+    static {
+        // 応答のヘッダーと本文が別々に送信されるため、遅延 ACK で 1 リクエストごとに 40 ミリ秒程度待たされないようにする。
+        // 最初の HttpServer の作成時に読み込まれる。
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    /**
+     * @throws IOException
+     *             {@link java.io.IOException}
+     */
+    public FakeDriveServer() throws IOException {
+        server = HttpServer.create(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                128);
+        executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "fake-drive-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        rootUrl = String.format("http://%s:%d/",
+                server.getAddress().getHostString(),
+                server.getAddress().getPort());
+
+        File root = new File().setId(ROOT_ID).setName("My Drive")
+                .setMimeType(FOLDER_MIME_TYPE);
+        files.put(ROOT_ID, new Entry(stamp(root, null), null));
+    }
+
+    /**
+     * @return rootUrl {@link Drive.Builder#setRootUrl(String)} に指定する URL を返す。
+     */
+    public String getRootUrl() {
+        return rootUrl;
+    }
+
+    /**
+     * @return drive 接続プールを持つトランスポートでこのサーバーへ接続する {@link Drive} を返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public Drive newDrive() throws Exception {
+        return newDrive(new TransportAttribute());
+    }
+
+    /**
+     * @param transportAttr
+     *            HTTP 接続の設定を指定する。
+     * @return drive このサーバーへ接続する {@link Drive} を返す。
+     * @throws Exception
+     *             {@link java.lang.Exception}
+     */
+    public Drive newDrive(TransportAttribute transportAttr) throws Exception {
+        return DriveClientFactory
+                .newDriveBuilder(
+                        DriveClientFactory.newPooledTransport(transportAttr),
+                        MockDriveTransport.JSON_FACTORY, null, transportAttr)
+                .setRootUrl(rootUrl)
+                .setApplicationName("java-itamae-g-drive-test").build();
+    }
+
+    /**
+     * @param millis
+     *            各リクエストの応答を返すまでの遅延をミリ秒単位で指定する。
+     */
+    public void setLatency(long millis) {
+        this.latency = millis;
+    }
+
+    /**
+     * @param rate
+     *            エラーを返すリクエストの割合を 0 から 1 の範囲で指定する。
+     * @param status
+     *            エラーのステータスコードを指定する。
+     * @param reason
+     *            エラーの理由 (例: rateLimitExceeded) を指定する。
+     */
+    public void setErrorRate(double rate, int status, String reason) {
+        this.errorStatus = status;
+        this.errorReason = reason;
+        this.errorRate = rate;
+    }
+
+    /**
+     * @param count
+     *            エラーを返すリクエストの件数を指定する。以降のリクエストから順にエラーを返す。
+     * @param status
+     *            エラーのステータスコードを指定する。
+     * @param reason
+     *            エラーの理由を指定する。
+     */
+    public void failNext(int count, int status, String reason) {
+        this.errorStatus = status;
+        this.errorReason = reason;
+        pendingFailures.set(count);
+    }
+
+    /**
+     * @return count 受信したリクエストの件数を返す。バッチ内のリクエストは含まない。
+     */
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * HTTP を経由せずにファイルを追加する。
+     *
+     * @param parentId
+     *            親ディレクトリの File ID を指定する。
+     * @param name
+     *            ファイル名を指定する。
+     * @param content
+     *            ファイルの内容を指定する。
+     * @return file 追加したファイルを返す。
+     */
+    public File addFile(String parentId, String name, byte[] content) {
+        File metaFile = new File().setName(name)
+                .setMimeType("application/octet-stream")
+                .setParents(Collections.singletonList(parentId));
+        return store(newId(), metaFile, content).clone();
+    }
+
+    /**
+     * HTTP を経由せずにディレクトリを追加する。
+     *
+     * @param parentId
+     *            親ディレクトリの File ID を指定する。
+     * @param name
+     *            ディレクトリ名を指定する。
+     * @return file 追加したディレクトリを返す。
+     */
+    public File addFolder(String parentId, String name) {
+        File metaFile = new File().setName(name).setMimeType(FOLDER_MIME_TYPE)
+                .setParents(Collections.singletonList(parentId));
+        return store(newId(), metaFile, null).clone();
+    }
+
+    /**
+     * @param fileId
+     *            File ID を指定する。
+     * @return file 保存しているファイルを返す。存在しない場合は null を返す。
+     */
+    public File getFile(String fileId) {
+        Entry entry = files.get(fileId);
+        return entry == null ? null : entry.file.clone();
+    }
+
+    /**
+     * @param fileId
+     *            File ID を指定する。
+     * @return content 保存しているファイルの内容を返す。存在しない場合は null を返す。
+     */
+    public byte[] getContent(String fileId) {
+        Entry entry = files.get(fileId);
+        return entry == null ? null : entry.content;
+    }
+
+    /**
+     * HTTP を経由せずにファイルを削除する。配下のファイルも削除する。
+     *
+     * @param fileId
+     *            File ID を指定する。
+     * @return deleted 削除した場合は true を返す。
+     */
+    public boolean remove(String fileId) {
+        Entry entry = files.remove(fileId);
+
+        if (entry == null) {
+            return false;
+        }
+
+        unlink(fileId, entry.file.getParents());
+        NavigableSet<String> childIds = children.remove(fileId);
+
+        if (childIds != null) {
+            for (String childId : childIds) {
+                remove(childId);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return size ルートを含む保存しているファイルの件数を返す。
+     */
+    public int size() {
+        return files.size();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            Request request = new Request();
+            URI uri = exchange.getRequestURI();
+            request.path = uri.getRawPath();
+            request.query = parseQuery(uri.getRawQuery());
+
+            for (Map.Entry<String, List<String>> header : exchange
+                    .getRequestHeaders().entrySet()) {
+                request.headers.put(header.getKey().toLowerCase(),
+                        header.getValue().get(0));
+            }
+
+            String override = request.header("X-HTTP-Method-Override");
+            request.method = override != null ? override
+                    : exchange.getRequestMethod();
+
+            try (InputStream body = "gzip"
+                    .equalsIgnoreCase(request.header("Content-Encoding"))
+                            ? new GZIPInputStream(exchange.getRequestBody())
+                            : exchange.getRequestBody()) {
+                request.body = readAll(body);
+            }
+
+            requestCount.incrementAndGet();
+            long delay = latency;
+
+            if (delay > 0) {
+                Thread.sleep(delay);
+            }
+
+            Response response;
+
+            try {
+                response = request.path.startsWith("/batch/")
+                        ? handleBatch(request)
+                        : dispatch(request);
+            } catch (RuntimeException e) {
+                response = error(500, "internalError", e.toString());
+            }
+
+            for (Map.Entry<String, String> header : response.headers
+                    .entrySet()) {
+                exchange.getResponseHeaders().set(header.getKey(),
+                        header.getValue());
+            }
+
+            if (response.contentType != null) {
+                exchange.getResponseHeaders().set("Content-Type",
+                        response.contentType);
+            }
+
+            exchange.sendResponseHeaders(response.status,
+                    response.body.length == 0 ? -1 : response.body.length);
+
+            // 本文がない応答で出力ストリームを閉じると、接続を再利用した次のリクエストが切断される。
+            if (response.body.length > 0) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(response.body);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * エラーを注入した上で、リクエストを処理する。
+     */
+    private Response dispatch(Request request) {
+        if (pendingFailures.getAndUpdate(count -> Math.max(0, count - 1)) > 0
+                || (errorRate > 0 && random.nextDouble() < errorRate)) {
+            return error(errorStatus, errorReason, errorReason);
+        }
+
+        try {
+            return route(request);
+        } catch (IllegalArgumentException e) {
+            return error(400, "invalid", e.getMessage());
+        }
+    }
+
+    private Response route(Request request) {
+        String method = request.method;
+        // alt=media の files.get は /download/drive/v3/files/{fileId} へ送信される。
+        String path = request.path.startsWith("/download/")
+                ? request.path.substring("/download".length())
+                : request.path;
+        String fields = request.query.get("fields");
+
+        if (path.equals("/drive/v3/files")) {
+            if (method.equals("GET")) {
+                return list(request);
+            } else if (method.equals("POST")) {
+                File metaFile = parseFile(request.body);
+                return json(project(store(newId(), metaFile, null), fields));
+            }
+        } else if (path.startsWith("/drive/v3/files/")) {
+            String fileId = path.substring("/drive/v3/files/".length());
+            Entry entry = files.get(fileId);
+
+            if (entry == null) {
+                return notFound(fileId);
+            } else if (method.equals("GET")) {
+                return "media".equals(request.query.get("alt"))
+                        ? media(entry, request.header("Range"))
+                        : json(project(entry.file, fields));
+            } else if (method.equals("PATCH")) {
+                File updated = update(fileId, parseFile(request.body),
+                        request.query.get("addParents"),
+                        request.query.get("removeParents"), null);
+                return updated == null ? notFound(fileId)
+                        : json(project(updated, fields));
+            } else if (method.equals("DELETE")) {
+                remove(fileId);
+                return new Response(204, null, new byte[0]);
+            }
+        } else if (path.equals("/upload/drive/v3/files")
+                && request.query.containsKey("upload_id")) {
+            return resume(request);
+        } else if (path.startsWith("/upload/drive/v3/files")) {
+            String fileId = path.length() > "/upload/drive/v3/files/".length()
+                    ? path.substring("/upload/drive/v3/files/".length())
+                    : null;
+
+            if (fileId != null && !files.containsKey(fileId)) {
+                return notFound(fileId);
+            }
+
+            return upload(request, fileId);
+        }
+
+        return error(404, "notFound", "Not Found: " + method + " " + path);
+    }
+
+    private Response list(Request request) {
+        List<Predicate<File>> conditions = new ArrayList<>();
+        String parentId = parseQ(request.query.get("q"), conditions);
+        int pageSize = request.query.containsKey("pageSize")
+                ? Integer.parseInt(request.query.get("pageSize"))
+                : DEFAULT_PAGE_SIZE;
+
+        if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Invalid pageSize: " + pageSize);
+        }
+
+        NavigableSet<String> candidates;
+
+        if (parentId != null) {
+            candidates = children.get(parentId);
+
+            if (candidates == null) {
+                candidates = new ConcurrentSkipListSet<>();
+            }
+        } else {
+            candidates = files.keySet();
+        }
+
+        String pageToken = request.query.get("pageToken");
+
+        if (pageToken != null) {
+            candidates = candidates.tailSet(pageToken, false);
+        }
+
+        Set<String> fieldSet = fileFields(request.query.get("fields"));
+        List<File> page = new ArrayList<>();
+        String nextPageToken = null;
+
+        for (String id : candidates) {
+            Entry entry = files.get(id);
+
+            if (entry == null || !matches(entry.file, conditions)) {
+                continue;
+            }
+
+            if (page.size() == pageSize) {
+                nextPageToken = page.get(page.size() - 1).getId();
+                break;
+            }
+
+            page.add(entry.file);
+        }
+
+        // Google Drive と同様に nextPageToken を files より前に出力する。
+        StringBuilder json = new StringBuilder("{\"kind\":\"drive#fileList\",");
+
+        if (nextPageToken != null) {
+            json.append("\"nextPageToken\":\"").append(nextPageToken)
+                    .append("\",");
+        }
+
+        json.append("\"files\":[");
+
+        for (int i = 0; i < page.size(); i++) {
+            json.append(i == 0 ? "" : ",")
+                    .append(toJson(project(page.get(i), fieldSet)));
+        }
+
+        json.append("]}");
+        return new Response(200, Json.MEDIA_TYPE,
+                json.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return parentId 「'id' in parents」で指定した親ディレクトリの File ID を返す。指定していない場合は
+     *         null を返す。
+     */
+    private String parseQ(String q, List<Predicate<File>> conditions) {
+        if (q == null || q.trim().isEmpty()) {
+            return null;
+        }
+
+        String parentId = null;
+        Matcher matcher = CLAUSE.matcher(q);
+        int position = 0;
+
+        while (position < q.length()) {
+            matcher.region(position, q.length());
+
+            if (!matcher.lookingAt()) {
+                throw new IllegalArgumentException("Invalid Value: " + q);
+            }
+
+            position = matcher.end();
+
+            if (matcher.group(1) != null) {
+                final String id = unescape(matcher.group(1));
+
+                if (parentId == null) {
+                    parentId = id;
+                }
+
+                conditions.add(file -> file.getParents() != null
+                        && file.getParents().contains(id));
+            } else if (matcher.group(2) != null) {
+                final String key = matcher.group(2);
+                final boolean equal = matcher.group(3).equals("=");
+                final String value = unescape(matcher.group(4));
+                conditions.add(file -> value.equals(file.get(key)) == equal);
+            } else {
+                final boolean trashed = Boolean.parseBoolean(matcher.group(5));
+                conditions.add(file -> Boolean.TRUE.equals(file.getTrashed())
+                        == trashed);
+            }
+        }
+
+        return parentId;
+    }
+
+    private static String unescape(String value) {
+        return value.replaceAll("\\\\(.)", "$1");
+    }
+
+    private static boolean matches(File file,
+            List<Predicate<File>> conditions) {
+        for (Predicate<File> condition : conditions) {
+            if (!condition.test(file)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private Response media(Entry entry, String range) {
+        byte[] content = entry.content == null ? new byte[0] : entry.content;
+
+        if (range == null) {
+            return new Response(200, "application/octet-stream", content);
+        }
+
+        Matcher matcher = RANGE.matcher(range);
+
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Invalid Range: " + range);
+        }
+
+        int start = Integer.parseInt(matcher.group(1));
+        int end = matcher.group(2).isEmpty() ? content.length - 1
+                : (int) Math.min(Long.parseLong(matcher.group(2)),
+                        content.length - 1);
+
+        if (start > end) {
+            return error(416, "requestedRangeNotSatisfiable", range);
+        }
+
+        return new Response(206, "application/octet-stream",
+                Arrays.copyOfRange(content, start, end + 1)).header(
+                        "Content-Range", String.format("bytes %d-%d/%d",
+                                start, end, content.length));
+    }
+
+    private Response upload(Request request, String fileId) {
+        String uploadType = request.query.get("uploadType");
+        String fields = request.query.get("fields");
+        String addParents = request.query.get("addParents");
+        String removeParents = request.query.get("removeParents");
+
+        if ("resumable".equals(uploadType)) {
+            File metaFile = request.body.length == 0 ? new File()
+                    : parseFile(request.body);
+            String uploadId = Long.toString(nextId.incrementAndGet());
+            sessions.put(uploadId,
+                    new Session(metaFile, fileId, addParents, fields));
+            return new Response(200, null, new byte[0]).header("Location",
+                    rootUrl + "upload/drive/v3/files?uploadType=resumable"
+                            + "&upload_id=" + uploadId);
+        }
+
+        File metaFile;
+        byte[] content;
+
+        if ("multipart".equals(uploadType)) {
+            List<byte[][]> parts = parseMultipart(request);
+
+            if (parts.size() != 2) {
+                throw new IllegalArgumentException("Invalid multipart body");
+            }
+
+            metaFile = parseFile(parts.get(0)[1]);
+            content = parts.get(1)[1];
+        } else if ("media".equals(uploadType)) {
+            metaFile = new File();
+            content = request.body;
+        } else {
+            throw new IllegalArgumentException(
+                    "Invalid uploadType: " + uploadType);
+        }
+
+        File result = fileId == null ? store(newId(), metaFile, content)
+                : update(fileId, metaFile, addParents, removeParents, content);
+        return result == null ? notFound(fileId)
+                : json(project(result, fields));
+    }
+
+    private Response resume(Request request) {
+        Session session = sessions.get(request.query.get("upload_id"));
+
+        if (session == null) {
+            return error(404, "notFound", "Upload session not found");
+        }
+
+        String contentRange = request.header("Content-Range");
+        Matcher matcher = contentRange == null ? null
+                : CONTENT_RANGE.matcher(contentRange);
+
+        if (matcher == null || !matcher.matches()) {
+            throw new IllegalArgumentException(
+                    "Invalid Content-Range: " + contentRange);
+        }
+
+        synchronized (session) {
+            if (session.result != null) {
+                return json(project(session.result, session.fields));
+            }
+
+            long received = session.received.size();
+
+            if (matcher.group(1) != null) {
+                long start = Long.parseLong(matcher.group(1));
+
+                if (start > received) {
+                    throw new IllegalArgumentException(
+                            "Content-Range skips bytes: " + contentRange);
+                }
+
+                // 受信済みの部分は読み飛ばす。
+                int skip = (int) (received - start);
+
+                if (skip < request.body.length) {
+                    session.received.write(request.body, skip,
+                            request.body.length - skip);
+                }
+
+                received = session.received.size();
+            }
+
+            String total = matcher.group(3);
+
+            if (!total.equals("*") && Long.parseLong(total) == received) {
+                byte[] content = session.received.toByteArray();
+                session.result = session.fileId == null
+                        ? store(newId(), session.metaFile, content)
+                        : update(session.fileId, session.metaFile,
+                                session.addParents, null, content);
+
+                if (session.result == null) {
+                    return notFound(session.fileId);
+                }
+
+                return json(project(session.result, session.fields));
+            }
+
+            Response response = new Response(STATUS_RESUME_INCOMPLETE, null,
+                    new byte[0]);
+            return received == 0 ? response
+                    : response.header("Range", "bytes=0-" + (received - 1));
+        }
+    }
+
+    private Response handleBatch(Request request) {
+        String boundary = "batch_" + nextId.incrementAndGet();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        for (byte[][] part : parseMultipart(request)) {
+            Request inner = parseHttpRequest(part[1]);
+            Response response = dispatch(inner);
+            StringBuilder head = new StringBuilder();
+            head.append("--").append(boundary).append("\r\n");
+            head.append("Content-Type: application/http\r\n");
+
+            String contentId = headerOf(part[0], "Content-ID");
+
+            if (contentId != null) {
+                head.append("Content-ID: ")
+                        .append(contentId.replaceFirst("^<?", "<response-"))
+                        .append("\r\n");
+            }
+
+            head.append("\r\n");
+            head.append("HTTP/1.1 ").append(response.status).append(' ')
+                    .append(response.status < 300 ? "OK" : "Error")
+                    .append("\r\n");
+
+            if (response.contentType != null) {
+                head.append("Content-Type: ").append(response.contentType)
+                        .append("\r\n");
+            }
+
+            head.append("Content-Length: ").append(response.body.length)
+                    .append("\r\n\r\n");
+            write(body, head.toString().getBytes(StandardCharsets.UTF_8));
+            write(body, response.body);
+            write(body, "\r\n".getBytes(StandardCharsets.UTF_8));
+        }
+
+        write(body, ("--" + boundary + "--\r\n")
+                .getBytes(StandardCharsets.UTF_8));
+        return new Response(200, "multipart/mixed; boundary=" + boundary,
+                body.toByteArray());
+    }
+
+    private static void write(ByteArrayOutputStream out, byte[] bytes) {
+        out.write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * バッチ内の「メソッド URL HTTP/1.1」、ヘッダー、本文からなるリクエストを解析する。
+     */
+    private Request parseHttpRequest(byte[] bytes) {
+        int headerEnd = indexOf(bytes, "\r\n\r\n".getBytes(StandardCharsets.UTF_8),
+                0);
+        String head = new String(bytes, 0,
+                headerEnd < 0 ? bytes.length : headerEnd,
+                StandardCharsets.UTF_8);
+        String[] lines = head.split("\r\n");
+        String[] requestLine = lines[0].split(" ");
+        URI uri = URI.create(requestLine[1]);
+
+        Request request = new Request();
+        request.method = requestLine[0];
+        request.path = uri.getRawPath();
+        request.query = parseQuery(uri.getRawQuery());
+
+        for (int i = 1; i < lines.length; i++) {
+            int colon = lines[i].indexOf(':');
+
+            if (colon > 0) {
+                request.headers.put(
+                        lines[i].substring(0, colon).trim().toLowerCase(),
+                        lines[i].substring(colon + 1).trim());
+            }
+        }
+
+        String override = request.header("X-HTTP-Method-Override");
+
+        if (override != null) {
+            request.method = override;
+        }
+
+        if (headerEnd >= 0) {
+            request.body = Arrays.copyOfRange(bytes, headerEnd + 4,
+                    bytes.length);
+        }
+
+        return request;
+    }
+
+    /**
+     * @return parts 各パートのヘッダーと本文の組の一覧を返す。
+     */
+    private static List<byte[][]> parseMultipart(Request request) {
+        String contentType = request.header("Content-Type");
+        Matcher matcher = contentType == null ? null
+                : Pattern.compile("boundary=\"?([^\";]+)\"?")
+                        .matcher(contentType);
+
+        if (matcher == null || !matcher.find()) {
+            throw new IllegalArgumentException(
+                    "Invalid Content-Type: " + contentType);
+        }
+
+        byte[] delimiter = ("--" + matcher.group(1))
+                .getBytes(StandardCharsets.UTF_8);
+        byte[] separator = "\r\n\r\n".getBytes(StandardCharsets.UTF_8);
+        byte[] body = request.body;
+        List<byte[][]> parts = new ArrayList<>();
+        int position = indexOf(body, delimiter, 0);
+
+        while (position >= 0) {
+            int start = position + delimiter.length;
+
+            if (start + 1 < body.length && body[start] == '-'
+                    && body[start + 1] == '-') {
+                break;
+            }
+
+            int next = indexOf(body, delimiter, start);
+
+            if (next < 0) {
+                throw new IllegalArgumentException("Unterminated multipart body");
+            }
+
+            // 区切りの直前の改行は本文に含めない。
+            int end = next >= 2 && body[next - 2] == '\r'
+                    && body[next - 1] == '\n' ? next - 2 : next;
+            int headerStart = start + 2;
+            int headerEnd = indexOf(body, separator, headerStart);
+
+            if (headerEnd < 0 || headerEnd > end) {
+                parts.add(new byte[][]{
+                        Arrays.copyOfRange(body, headerStart, end),
+                        new byte[0]});
+            } else {
+                parts.add(new byte[][]{
+                        Arrays.copyOfRange(body, headerStart, headerEnd),
+                        Arrays.copyOfRange(body, headerEnd + 4, end)});
+            }
+
+            position = next;
+        }
+
+        return parts;
+    }
+
+    private static String headerOf(byte[] headers, String name) {
+        for (String line : new String(headers, StandardCharsets.UTF_8)
+                .split("\r\n")) {
+            int colon = line.indexOf(':');
+
+            if (colon > 0 && line.substring(0, colon).trim()
+                    .equalsIgnoreCase(name)) {
+                return line.substring(colon + 1).trim();
+            }
+        }
+
+        return null;
+    }
+
+    private static int indexOf(byte[] bytes, byte[] target, int from) {
+        outer: for (int i = from; i <= bytes.length - target.length; i++) {
+            for (int j = 0; j < target.length; j++) {
+                if (bytes[i + j] != target[j]) {
+                    continue outer;
+                }
+            }
+
+            return i;
+        }
+
+        return -1;
+    }
+
+    private String newId() {
+        return String.format("fake%012d", nextId.incrementAndGet());
+    }
+
+    /**
+     * 新しいファイルを保存する。
+     *
+     * @return file 保存したファイルを返す。
+     */
+    private File store(String fileId, File metaFile, byte[] content) {
+        List<String> parents = metaFile.getParents() == null
+                || metaFile.getParents().isEmpty()
+                        ? Collections.singletonList(ROOT_ID)
+                        : metaFile.getParents();
+
+        for (String parentId : parents) {
+            if (!files.containsKey(parentId)) {
+                throw new IllegalArgumentException(
+                        "File not found: " + parentId);
+            }
+        }
+
+        File file = new File();
+        file.putAll(metaFile);
+        file.setId(fileId).setParents(new ArrayList<>(parents))
+                .setCreatedTime(new DateTime(System.currentTimeMillis()));
+
+        if (file.getMimeType() == null) {
+            file.setMimeType("application/octet-stream");
+        }
+
+        file = stamp(file, content);
+        files.put(fileId, new Entry(file, content));
+        link(fileId, parents);
+        return file;
+    }
+
+    /**
+     * 保存しているファイルのメタデータと内容を更新する。
+     *
+     * @param content
+     *            内容を変更しない場合は null を指定する。
+     * @return file 更新したファイルを返す。存在しない場合は null を返す。
+     */
+    private File update(String fileId, File metaFile, String addParents,
+            String removeParents, byte[] content) {
+        Entry[] before = new Entry[1];
+        Entry after = files.computeIfPresent(fileId, (id, entry) -> {
+            before[0] = entry;
+            File file = entry.file.clone();
+
+            for (Map.Entry<String, Object> field : metaFile.entrySet()) {
+                if (!field.getKey().equals("parents")
+                        && !field.getKey().equals("id")) {
+                    file.set(field.getKey(), field.getValue());
+                }
+            }
+
+            Set<String> parents = new LinkedHashSet<>(file.getParents());
+
+            if (addParents != null) {
+                parents.addAll(Arrays.asList(addParents.split(",")));
+            }
+
+            if (removeParents != null) {
+                parents.removeAll(Arrays.asList(removeParents.split(",")));
+            }
+
+            file.setParents(new ArrayList<>(parents));
+            byte[] newContent = content != null ? content : entry.content;
+            return new Entry(stamp(file, newContent), newContent);
+        });
+
+        if (after == null) {
+            return null;
+        }
+
+        unlink(fileId, before[0].file.getParents());
+        link(fileId, after.file.getParents());
+        return after.file;
+    }
+
+    /**
+     * 内容から求まるフィールドと更新日時、バージョンを設定する。
+     */
+    private File stamp(File file, byte[] content) {
+        file.setKind("drive#file").setTrashed(false)
+                .setModifiedTime(new DateTime(System.currentTimeMillis()))
+                .setVersion(nextVersion.incrementAndGet());
+
+        if (content != null) {
+            file.setSize((long) content.length).setMd5Checksum(md5(content));
+        }
+
+        return file;
+    }
+
+    private void link(String fileId, List<String> parents) {
+        if (parents == null) {
+            return;
+        }
+
+        for (String parentId : parents) {
+            children.computeIfAbsent(parentId,
+                    key -> new ConcurrentSkipListSet<>()).add(fileId);
+        }
+    }
+
+    private void unlink(String fileId, List<String> parents) {
+        if (parents == null) {
+            return;
+        }
+
+        for (String parentId : parents) {
+            NavigableSet<String> childIds = children.get(parentId);
+
+            if (childIds != null) {
+                childIds.remove(fileId);
+            }
+        }
+    }
+
+    private static String md5(byte[] content) {
+        try {
+            StringBuilder hex = new StringBuilder();
+
+            for (byte b : MessageDigest.getInstance("MD5").digest(content)) {
+                hex.append(String.format("%02x", b & 0xff));
+            }
+
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param mask
+     *            files.list の fields パラメータを指定する。
+     * @return fields files(...) に含まれるフィールド名を返す。全てのフィールドの場合は null を返す。
+     */
+    private static Set<String> fileFields(String mask) {
+        if (mask == null) {
+            return fieldNames(DEFAULT_FIELDS);
+        }
+
+        int start = mask.indexOf("files(");
+
+        if (start < 0) {
+            return mask.contains("files") || mask.contains("*") ? null
+                    : fieldNames(DEFAULT_FIELDS);
+        }
+
+        int depth = 0;
+
+        for (int i = start + "files".length(); i < mask.length(); i++) {
+            char c = mask.charAt(i);
+
+            if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return fieldNames(
+                        mask.substring(start + "files(".length(), i));
+            }
+        }
+
+        throw new IllegalArgumentException("Invalid field selection: " + mask);
+    }
+
+    /**
+     * @return fields 最上位のフィールド名を返す。全てのフィールドの場合は null を返す。
+     */
+    private static Set<String> fieldNames(String mask) {
+        Set<String> names = new LinkedHashSet<>();
+        int depth = 0;
+        StringBuilder name = new StringBuilder();
+
+        for (char c : (mask + ",").toCharArray()) {
+            if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            } else if (depth == 0 && c == ',') {
+                String trimmed = name.toString().trim();
+
+                if (trimmed.equals("*")) {
+                    return null;
+                } else if (!trimmed.isEmpty()) {
+                    names.add(trimmed.split("/")[0]);
+                }
+
+                name.setLength(0);
+            } else if (depth == 0) {
+                name.append(c);
+            }
+        }
+
+        return names;
+    }
+
+    private static File project(File file, String mask) {
+        return project(file, fieldNames(mask == null ? DEFAULT_FIELDS : mask));
+    }
+
+    private static File project(File file, Set<String> fields) {
+        if (fields == null) {
+            return file;
+        }
+
+        File result = new File();
+
+        for (String field : fields) {
+            Object value = file.get(field);
+
+            if (value != null) {
+                result.set(field, value);
+            }
+        }
+
+        return result;
+    }
+
+    private static File parseFile(byte[] body) {
+        try {
+            return MockDriveTransport.JSON_FACTORY.fromString(
+                    new String(body, StandardCharsets.UTF_8), File.class);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid JSON: " + e.getMessage());
+        }
+    }
+
+    private static String toJson(File file) {
+        try {
+            return MockDriveTransport.JSON_FACTORY.toString(file);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Response json(File file) {
+        return new Response(200, Json.MEDIA_TYPE,
+                toJson(file).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Response notFound(String fileId) {
+        return error(404, "notFound", "File not found: " + fileId);
+    }
+
+    private static Response error(int status, String reason, String message) {
+        String body = String.format(
+                "{\"error\":{\"code\":%d,\"message\":\"%s\",\"errors\":[{\"domain\":\"%s\",\"reason\":\"%s\",\"message\":\"%s\"}]}}",
+                status, message.replace("\"", "'"),
+                status == 403 || status == 429 ? "usageLimits" : "global",
+                reason, message.replace("\"", "'"));
+        return new Response(status, Json.MEDIA_TYPE,
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> query = new HashMap<>();
+
+        if (rawQuery == null) {
+            return query;
+        }
+
+        for (String pair : rawQuery.split("&")) {
+            int equal = pair.indexOf('=');
+
+            try {
+                if (equal < 0) {
+                    query.put(URLDecoder.decode(pair, "UTF-8"), "");
+                } else {
+                    query.put(URLDecoder.decode(pair.substring(0, equal), "UTF-8"),
+                            URLDecoder.decode(pair.substring(equal + 1), "UTF-8"));
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        return query;
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[64 * 1024];
+        int read;
+
+        while ((read = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, read);
+        }
+
+        return out.toByteArray();
+    }
+}
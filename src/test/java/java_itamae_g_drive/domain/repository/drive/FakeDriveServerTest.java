@@ -0,0 +1,183 @@
+package java_itamae_g_drive.domain.repository.drive;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.services.drive.model.File;
+
+import java_itamae_g_drive.domain.model.BatchResult;
+import java_itamae_g_drive.domain.model.DriveAttribute;
+
+public class FakeDriveServerTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private FakeDriveServer server;
+    private DriveAttribute driveAttr;
+    private DriveRepository repository;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new FakeDriveServer();
+        driveAttr = new DriveAttribute();
+        driveAttr.setRequestsPerSecond(0);
+        driveAttr.setRetryInitialDelay(1);
+        driveAttr.setUploadSessionDirectory(
+                temporaryFolder.newFolder("sessions").toPath());
+        repository = new DriveRepositoryImpl(server.newDrive(), driveAttr);
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    private java.io.File localFile(String name, int size) throws Exception {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        java.io.File file = temporaryFolder.newFile(name);
+        Files.write(file.toPath(), content);
+        return file;
+    }
+
+    @Test
+    public void 一覧をページ単位で取得できること() throws Exception {
+        File folder = server.addFolder(FakeDriveServer.ROOT_ID, "folder");
+
+        for (int i = 0; i < 250; i++) {
+            server.addFile(folder.getId(), "file-" + i, new byte[1]);
+        }
+
+        server.addFile(FakeDriveServer.ROOT_ID, "other", new byte[1]);
+        int count = 0;
+
+        try (FileIterator files = repository
+                .iterateByParentId(folder.getId(), 100)) {
+            while (files.hasNext()) {
+                files.next();
+                count++;
+            }
+        }
+
+        assertThat(count, is(250));
+        assertThat(server.getRequestCount(), is(3));
+        assertThat(repository
+                .findByQuery("name = 'file-7' and '" + folder.getId()
+                        + "' in parents and trashed = false")
+                .size(), is(1));
+    }
+
+    @Test
+    public void アップロードした内容をダウンロードできること() throws Exception {
+        // 1 MiB 以上はレジューム可能なアップロードで 256 KiB ずつ送信する。
+        driveAttr.setResumableThreshold(1024 * 1024);
+        driveAttr.setChunkSize(256 * 1024);
+        repository = new DriveRepositoryImpl(server.newDrive(), driveAttr);
+        java.io.File downloadDir = temporaryFolder.newFolder("download");
+
+        for (java.io.File localFile : Arrays.asList(localFile("small.bin", 1000),
+                localFile("large.bin", 1024 * 1024 + 17))) {
+            File remoteFile = repository.upload(localFile.getPath(),
+                    FakeDriveServer.ROOT_ID);
+            java.io.File downloaded = repository.download(
+                    downloadDir.getPath(),
+                    repository.findByFileId(remoteFile.getId()));
+
+            assertThat(Arrays.equals(Files.readAllBytes(downloaded.toPath()),
+                    Files.readAllBytes(localFile.toPath())), is(true));
+            assertThat(server.getFile(remoteFile.getId()).getSize(),
+                    is(localFile.length()));
+        }
+    }
+
+    @Test
+    public void 範囲に分割してダウンロードできること() throws Exception {
+        driveAttr.setRangeParallelism(4);
+        driveAttr.setRangedDownloadThreshold(1024);
+        driveAttr.setRangeSize(1000);
+        repository = new DriveRepositoryImpl(server.newDrive(), driveAttr);
+
+        byte[] content = new byte[10 * 1000 + 1];
+        new Random(1).nextBytes(content);
+        File remoteFile = server.addFile(FakeDriveServer.ROOT_ID, "a.bin",
+                content);
+
+        java.io.File downloaded = repository.download(
+                temporaryFolder.newFolder("download").getPath(), remoteFile);
+
+        assertThat(Arrays.equals(Files.readAllBytes(downloaded.toPath()),
+                content), is(true));
+        // サイズが分かっているためメタデータは取得せず、 11 個の範囲のみを取得する。
+        assertThat(server.getRequestCount(), is(11));
+    }
+
+    @Test
+    public void 更新と一括削除が反映されること() throws Exception {
+        File remoteFile = repository.upload(localFile("a.txt", 10).getPath(),
+                FakeDriveServer.ROOT_ID);
+        java.io.File renamed = localFile("b.txt", 20);
+
+        File updated = repository.update(renamed.getPath(),
+                remoteFile.getId());
+        assertThat(updated.getName(), is("b.txt"));
+        assertThat(server.getContent(remoteFile.getId()).length, is(20));
+
+        List<String> idList = new ArrayList<>();
+        idList.add(remoteFile.getId());
+        idList.add(server.addFile(FakeDriveServer.ROOT_ID, "c", new byte[1])
+                .getId());
+        idList.add("missing");
+
+        List<BatchResult> resultList = repository.deleteAll(idList);
+
+        assertThat(resultList.get(0).isSuccess(), is(true));
+        assertThat(resultList.get(1).isSuccess(), is(true));
+        assertThat(resultList.get(2).getError().getCode(), is(404));
+        assertThat(server.getFile(remoteFile.getId()), is(nullValue()));
+        assertThat(server.size(), is(1));
+    }
+
+    @Test
+    public void 注入したエラーは再試行されること() throws Exception {
+        server.failNext(2, 503, "backendError");
+
+        assertThat(repository.findByFileId(FakeDriveServer.ROOT_ID).getId(),
+                is(FakeDriveServer.ROOT_ID));
+        assertThat(server.getRequestCount(), is(3));
+
+        server.failNext(1, 404, "notFound");
+
+        try {
+            repository.findByFileId(FakeDriveServer.ROOT_ID);
+            fail();
+        } catch (GoogleJsonResponseException e) {
+            assertThat(e.getDetails().getErrors().get(0).getReason(),
+                    is("notFound"));
+        }
+    }
+
+    @Test
+    public void 指定した遅延の後に応答すること() throws Exception {
+        server.setLatency(100);
+        long start = System.nanoTime();
+
+        repository.findByFileId(FakeDriveServer.ROOT_ID);
+
+        assertThat((System.nanoTime() - start) / 1000000 >= 100, is(true));
+    }
+}
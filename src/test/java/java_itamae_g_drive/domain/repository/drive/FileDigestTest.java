@@ -0,0 +1,62 @@
+package java_itamae_g_drive.domain.repository.drive;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FileDigestTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void 空のファイルのハッシュ値を求められること() throws Exception {
+        Path path = temporaryFolder.newFile("empty").toPath();
+
+        assertThat(FileDigest.md5Hex(path),
+                is("d41d8cd98f00b204e9800998ecf8427e"));
+    }
+
+    @Test
+    public void ファイルの内容からmd5Checksumと同じ形式のハッシュ値を求められること()
+            throws Exception {
+        Path path = temporaryFolder.newFile("abc").toPath();
+        Files.write(path, "abc".getBytes("UTF-8"));
+
+        assertThat(FileDigest.md5Hex(path),
+                is("900150983cd24fb0d6963f7d28e17f72"));
+    }
+
+    @Test
+    public void マップ範囲を跨ぐファイルのハッシュ値を求められること() throws Exception {
+        Path path = temporaryFolder.newFile("sparse").toPath();
+
+        try (RandomAccessFile raf = new RandomAccessFile(path.toFile(),
+                "rw")) {
+            raf.setLength(FileDigest.MAP_WINDOW_SIZE + 1L);
+        }
+
+        assertThat(FileDigest.md5Hex(path),
+                is(md5OfZeros(FileDigest.MAP_WINDOW_SIZE + 1L)));
+    }
+
+    private static String md5OfZeros(long length) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("MD5");
+        byte[] zeros = new byte[8192];
+
+        for (long remaining = length; remaining > 0;) {
+            int n = (int) Math.min(zeros.length, remaining);
+            digest.update(zeros, 0, n);
+            remaining -= n;
+        }
+
+        return FileDigest.toHex(digest.digest());
+    }
+}
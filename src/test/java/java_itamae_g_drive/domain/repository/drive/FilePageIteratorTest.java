@@ -0,0 +1,134 @@
+package java_itamae_g_drive.domain.repository.drive;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.api.services.drive.model.File;
+import com.google.api.services.drive.model.FileList;
+
+import java_itamae_g_drive.domain.model.FileField;
+import java_itamae_g_drive.domain.model.FileProjection;
+
+public class FilePageIteratorTest {
+    private static final int PAGE_COUNT = 25;
+
+    private MockDriveTransport transport;
+    private DriveRepository repository;
+
+    @Before
+    public void setUp() {
+        transport = new MockDriveTransport((method, request) -> {
+            String url = request.getUrl();
+            String token = MockDriveTransport.queryParameter(url, "pageToken");
+            int pageSize = Integer.parseInt(
+                    MockDriveTransport.queryParameter(url, "pageSize"));
+            int page = token == null ? 0 : Integer.parseInt(token);
+
+            List<File> files = new ArrayList<>();
+            for (int i = 0; i < pageSize; i++) {
+                int index = page * pageSize + i;
+                files.add(new File().setId("id-" + index)
+                        .setName("name-" + index));
+            }
+
+            FileList fileList = new FileList().setFiles(files);
+            if (page + 1 < PAGE_COUNT) {
+                fileList.setNextPageToken(String.valueOf(page + 1));
+            }
+
+            return MockDriveTransport.json(fileList);
+        });
+        repository = new DriveRepositoryImpl(transport.newDrive());
+    }
+
+    @Test
+    public void iterateByParentId実行時に全てのページを順番に取得できること() throws Exception {
+        int count = 0;
+
+        try (FileIterator files = repository.iterateByParentId("parent", 10)) {
+            while (files.hasNext()) {
+                assertThat(files.next().getId(), is("id-" + count));
+                count++;
+            }
+        }
+
+        assertThat(count, is(PAGE_COUNT * 10));
+        assertThat(transport.getRequestCount(), is(PAGE_COUNT));
+    }
+
+    @Test
+    public void findAll実行時にnextPageTokenを辿って全件取得できること() throws Exception {
+        List<File> fileList = repository.findAll();
+
+        assertThat(fileList.size(),
+                is(PAGE_COUNT * DriveRepository.MAX_PAGE_SIZE));
+    }
+
+    @Test
+    public void close実行後は後続のページを取得しないこと() throws Exception {
+        try (FileIterator files = repository.iterateAll(10)) {
+            files.next();
+        }
+
+        assertThat(transport.getRequestCount() <= 2, is(true));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void pageSizeが上限を超える場合はIllegalArgumentExceptionを送出すること()
+            throws Exception {
+        repository.iterateAll(DriveRepository.MAX_PAGE_SIZE + 1);
+    }
+
+    @Test
+    public void 射影に指定したフィールドのみを要求すること() throws Exception {
+        FileProjection projection = FileProjection.of(FileField.SIZE,
+                FileField.NAME);
+
+        try (FileIterator files = repository.iterateByQuery(null, 10,
+                projection)) {
+            files.next();
+        }
+
+        String url = transport.getRequestLog().get(0);
+        assertThat(MockDriveTransport.queryParameter(url.substring(4),
+                "fields"), is("nextPageToken,files(id,name,size)"));
+    }
+
+    @Test
+    public void 応答の末尾にあるnextPageTokenを取得できること() throws Exception {
+        String json = "{\"kind\":\"drive#fileList\",\"files\":["
+                + "{\"id\":\"a\",\"parents\":[\"p\"],\"size\":\"10\"},"
+                + "{\"id\":\"b\",\"name\":\"x\"}],"
+                + "\"nextPageToken\":\"next\"}";
+        FilePage page = new FilePage(MockDriveTransport.JSON_FACTORY,
+                json.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(page.getNextPageToken(), is("next"));
+
+        Iterator<File> files = page.iterator();
+        File first = files.next();
+        assertThat(first.getId(), is("a"));
+        assertThat(first.getSize(), is(10L));
+        assertThat(first.getParents().get(0), is("p"));
+        assertThat(files.next().getName(), is("x"));
+        assertThat(files.hasNext(), is(false));
+    }
+
+    @Test
+    public void filesを含まない応答は空のページとして扱うこと() throws Exception {
+        FilePage page = new FilePage(MockDriveTransport.JSON_FACTORY,
+                "{\"incompleteSearch\":false}"
+                        .getBytes(StandardCharsets.UTF_8));
+
+        assertThat(page.getNextPageToken() == null, is(true));
+        assertThat(page.iterator().hasNext(), is(false));
+    }
+}
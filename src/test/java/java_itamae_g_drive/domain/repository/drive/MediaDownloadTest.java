@@ -0,0 +1,101 @@
+package java_itamae_g_drive.domain.repository.drive;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.api.services.drive.model.File;
+
+import java_itamae_g_drive.domain.model.DriveAttribute;
+
+public class MediaDownloadTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final AtomicInteger disconnected = new AtomicInteger();
+
+    private byte[] content;
+    private DriveRepository repository;
+
+    @Before
+    public void setUp() {
+        content = new byte[3 * 1024 * 1024 + 17];
+        new Random(1).nextBytes(content);
+
+        MockDriveTransport transport = new MockDriveTransport(
+                (method, request) -> new MockLowLevelHttpResponse() {
+                    @Override
+                    public void disconnect() {
+                        disconnected.incrementAndGet();
+                    }
+                }.setContent(content));
+        DriveAttribute driveAttr = new DriveAttribute();
+        driveAttr.setDownloadBufferSize(256 * 1024);
+        repository = new DriveRepositoryImpl(transport.newDrive(), driveAttr);
+    }
+
+    @Test
+    public void download実行時にバッファーの大きさに関わらず内容が一致すること() throws Exception {
+        java.io.File localDir = temporaryFolder.newFolder("download");
+        File remoteFile = new File().setId("a").setName("a.bin")
+                .setMimeType("application/octet-stream");
+
+        java.io.File localFile = repository.download(localDir.getPath(),
+                remoteFile);
+
+        assertThat(Arrays.equals(Files.readAllBytes(localFile.toPath()),
+                content), is(true));
+        assertThat(disconnected.get(), is(1));
+    }
+
+    @Test
+    public void ダイレクトバッファーへ読み込めること() throws Exception {
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(100 * 1000);
+
+        try (ReadableByteChannel channel = repository
+                .openDownloadChannel("a")) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                byte[] chunk = new byte[buffer.remaining()];
+                buffer.get(chunk);
+                received.write(chunk);
+                buffer.clear();
+            }
+        }
+
+        assertThat(Arrays.equals(received.toByteArray(), content), is(true));
+        assertThat(disconnected.get(), is(1));
+    }
+
+    @Test
+    public void InputStreamとして読み込めること() throws Exception {
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        byte[] buffer = new byte[12345];
+
+        try (InputStream stream = repository.openDownloadStream("a")) {
+            int read;
+
+            while ((read = stream.read(buffer)) >= 0) {
+                received.write(buffer, 0, read);
+            }
+        }
+
+        assertThat(Arrays.equals(received.toByteArray(), content), is(true));
+        assertThat(disconnected.get(), is(1));
+    }
+}
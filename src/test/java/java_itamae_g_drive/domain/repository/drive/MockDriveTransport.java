@@ -0,0 +1,131 @@
+package java_itamae_g_drive.domain.repository.drive;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.json.GenericJson;
+import com.google.api.client.json.Json;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.api.services.drive.Drive;
+
+/**
+ * Google Drive API の応答をテストコードから差し替えるための
+ * {@link MockHttpTransport} 。受信したリクエストの件数と内容を記録する。
+ */
+public class MockDriveTransport extends MockHttpTransport {
+    /**
+     * リクエストに対する応答を生成する。
+     */
+    public interface Handler {
+        /**
+         * @param method
+         *            HTTP メソッドを指定する。
+         * @param request
+         *            受信したリクエストを指定する。
+         * @return response 応答を返す。
+         * @throws IOException
+         *             {@link java.io.IOException}
+         */
+        public LowLevelHttpResponse handle(String method,
+                MockLowLevelHttpRequest request) throws IOException;
+    }
+
+    public static final JsonFactory JSON_FACTORY = JacksonFactory
+            .getDefaultInstance();
+
+    private final Handler handler;
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final List<String> requestLog = Collections
+            .synchronizedList(new ArrayList<String>());
+
+    public MockDriveTransport(Handler handler) {
+        this.handler = handler;
+    }
+
+    @Override
+    public MockLowLevelHttpRequest buildRequest(final String method,
+            String url) throws IOException {
+        return new MockLowLevelHttpRequest(url) {
+            @Override
+            public LowLevelHttpResponse execute() throws IOException {
+                requestCount.incrementAndGet();
+                requestLog.add(method + " " + getUrl());
+                return handler.handle(method, this);
+            }
+        };
+    }
+
+    /**
+     * @return count 受信したリクエストの件数を返す。
+     */
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    /**
+     * @return requestLog 受信したリクエストの「メソッド URL」の一覧を返す。
+     */
+    public List<String> getRequestLog() {
+        synchronized (requestLog) {
+            return new ArrayList<>(requestLog);
+        }
+    }
+
+    /**
+     * @return drive このトランスポートを使用する {@link Drive} を返す。
+     */
+    public Drive newDrive() {
+        return new Drive.Builder(this, JSON_FACTORY, null)
+                .setApplicationName("java-itamae-g-drive-test").build();
+    }
+
+    /**
+     * @param content
+     *            応答本文とするオブジェクトを指定する。
+     * @return response JSON 形式の応答を返す。
+     * @throws IOException
+     *             {@link java.io.IOException}
+     */
+    public static MockLowLevelHttpResponse json(GenericJson content)
+            throws IOException {
+        return new MockLowLevelHttpResponse().setContentType(Json.MEDIA_TYPE)
+                .setContent(JSON_FACTORY.toString(content));
+    }
+
+    /**
+     * @param statusCode
+     *            ステータスコードを指定する。
+     * @param reason
+     *            エラーの理由を指定する。
+     * @return response Google API 形式のエラー応答を返す。
+     */
+    public static MockLowLevelHttpResponse error(int statusCode,
+            String reason) {
+        String body = String.format(
+                "{\"error\":{\"code\":%d,\"message\":\"%s\",\"errors\":[{\"domain\":\"usageLimits\",\"reason\":\"%s\",\"message\":\"%s\"}]}}",
+                statusCode, reason, reason, reason);
+        return new MockLowLevelHttpResponse().setStatusCode(statusCode)
+                .setContentType(Json.MEDIA_TYPE).setContent(body);
+    }
+
+    /**
+     * @param url
+     *            対象とする URL を指定する。
+     * @param name
+     *            取得対象とするクエリパラメータの名前を指定する。
+     * @return value クエリパラメータの値を返す。存在しない場合は null を返す。
+     */
+    public static String queryParameter(String url, String name) {
+        Object value = new GenericUrl(url).getFirst(name);
+        return value == null ? null : value.toString();
+    }
+}
@@ -0,0 +1,164 @@
+package java_itamae_g_drive.domain.repository.drive;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.api.services.drive.model.File;
+
+import java_itamae_g_drive.domain.model.DriveAttribute;
+
+public class RangedDownloadTest {
+    private static final Pattern RANGE = Pattern.compile("bytes=(\\d+)-(\\d+)");
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final List<String> rangeLog = new CopyOnWriteArrayList<>();
+    private final Set<String> failOnce = Collections
+            .synchronizedSet(new HashSet<String>());
+
+    private byte[] content;
+    private String md5;
+    private DriveRepository repository;
+
+    @Before
+    public void setUp() throws Exception {
+        content = new byte[1000 * 1000 + 7];
+        new Random(1).nextBytes(content);
+        md5 = FileDigest.toHex(
+                MessageDigest.getInstance("MD5").digest(content));
+
+        MockDriveTransport transport = new MockDriveTransport(
+                (method, request) -> {
+                    if (!"media".equals(MockDriveTransport
+                            .queryParameter(request.getUrl(), "alt"))) {
+                        return MockDriveTransport.json(new File()
+                                .setSize((long) content.length)
+                                .setMd5Checksum(md5));
+                    }
+
+                    String range = request.getFirstHeaderValue("Range");
+                    rangeLog.add(String.valueOf(range));
+                    Matcher matcher = RANGE.matcher(String.valueOf(range));
+
+                    if (!matcher.matches()) {
+                        throw new IOException("Range ヘッダーがありません。");
+                    }
+
+                    int start = Integer.parseInt(matcher.group(1));
+                    int end = Integer.parseInt(matcher.group(2));
+
+                    if (failOnce.remove(range)) {
+                        // 途中で切断された応答を返す。
+                        return new MockLowLevelHttpResponse().setStatusCode(206)
+                                .setContent(Arrays.copyOfRange(content, start,
+                                        start + 10));
+                    }
+
+                    return new MockLowLevelHttpResponse().setStatusCode(206)
+                            .setContent(Arrays.copyOfRange(content, start,
+                                    Math.min(end + 1, content.length)));
+                });
+
+        DriveAttribute driveAttr = new DriveAttribute();
+        driveAttr.setRequestsPerSecond(0);
+        driveAttr.setRangeParallelism(4);
+        driveAttr.setRangedDownloadThreshold(1000);
+        driveAttr.setRangeSize(100 * 1000);
+        driveAttr.setDownloadBufferSize(64 * 1024);
+        repository = new DriveRepositoryImpl(transport.newDrive(), driveAttr);
+    }
+
+    private File remoteFile() {
+        return new File().setId("a").setName("a.bin")
+                .setMimeType("application/octet-stream");
+    }
+
+    @Test
+    public void 範囲に分割してダウンロードした内容が一致すること() throws Exception {
+        java.io.File localDir = temporaryFolder.newFolder("download");
+        java.io.File localFile = repository.download(localDir.getPath(),
+                remoteFile());
+
+        assertThat(Arrays.equals(Files.readAllBytes(localFile.toPath()),
+                content), is(true));
+        assertThat(rangeLog.size(), is(11));
+        assertThat(rangeLog.contains("bytes=1000000-1000006"), is(true));
+    }
+
+    @Test
+    public void 失敗した範囲のみを再試行すること() throws Exception {
+        failOnce.add("bytes=300000-399999");
+        failOnce.add("bytes=800000-899999");
+
+        java.io.File localDir = temporaryFolder.newFolder("download");
+        java.io.File localFile = repository.download(localDir.getPath(),
+                remoteFile());
+
+        assertThat(Arrays.equals(Files.readAllBytes(localFile.toPath()),
+                content), is(true));
+        assertThat(rangeLog.size(), is(13));
+        assertThat(Collections.frequency(rangeLog, "bytes=300000-399999"),
+                is(2));
+        assertThat(Collections.frequency(rangeLog, "bytes=0-99999"), is(1));
+    }
+
+    @Test
+    public void md5Checksumが一致しない場合は例外を送出してファイルを残さないこと() throws Exception {
+        java.io.File localDir = temporaryFolder.newFolder("download");
+        File remoteFile = remoteFile().setSize((long) content.length)
+                .setMd5Checksum("00000000000000000000000000000000");
+
+        try {
+            repository.download(localDir.getPath(), remoteFile);
+            fail();
+        } catch (IOException e) {
+            assertThat(localDir.list().length, is(0));
+        }
+    }
+
+    @Test
+    public void 閾値未満のファイルは範囲に分割しないこと() throws Exception {
+        java.io.File localDir = temporaryFolder.newFolder("download");
+        File remoteFile = remoteFile().setSize(999L);
+
+        try {
+            repository.download(localDir.getPath(), remoteFile);
+            fail();
+        } catch (IOException e) {
+            // このモックは Range ヘッダーのないダウンロードを拒否する。
+            assertThat(rangeLog.size(), is(1));
+        }
+    }
+
+    @Test
+    public void splitがファイルを重複なく分割すること() {
+        List<RangedDownloader.Range> rangeList = RangedDownloader.split(250,
+                100);
+
+        assertThat(rangeList.size(), is(3));
+        assertThat(rangeList.get(0).toString(), is("bytes=0-99"));
+        assertThat(rangeList.get(2).toString(), is("bytes=200-249"));
+        assertThat(RangedDownloader.split(0, 100).size(), is(0));
+    }
+}
@@ -0,0 +1,133 @@
+package java_itamae_g_drive.domain.repository.drive;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.api.services.drive.Drive;
+import com.google.api.services.drive.model.File;
+
+import java_itamae_g_drive.domain.model.DriveAttribute;
+
+public class RateLimiterTest {
+    private final AtomicLong clock = new AtomicLong();
+    private final List<Long> sleeps = Collections
+            .synchronizedList(new ArrayList<Long>());
+
+    private RateLimiter rateLimiter;
+
+    @Before
+    public void setUp() {
+        rateLimiter = newRateLimiter(10, 20);
+    }
+
+    private RateLimiter newRateLimiter(double initialRate, double maxRate) {
+        return new RateLimiter(initialRate, maxRate, 1.0, millis -> {
+            sleeps.add(millis);
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+        }, clock::get);
+    }
+
+    @Test
+    public void バケットの容量を超える送信は待機させられること() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            rateLimiter.acquire(1);
+        }
+
+        assertThat(sleeps.size(), is(0));
+
+        rateLimiter.acquire(1);
+        rateLimiter.acquire(5);
+
+        // 10 QPS のため、不足した 1 件分と 5 件分だけ待機する。
+        assertThat(sleeps.get(0), is(101L));
+        assertThat(sleeps.get(1) >= 500L, is(true));
+    }
+
+    @Test
+    public void レート制限のエラーでレートが半分になること() {
+        rateLimiter.onThrottled();
+
+        assertThat(rateLimiter.getRate(), is(5.0));
+    }
+
+    @Test
+    public void 同時に受け取ったエラーでは一度しかレートを下げないこと() {
+        rateLimiter.onThrottled();
+        rateLimiter.onThrottled();
+        rateLimiter.onThrottled();
+
+        assertThat(rateLimiter.getRate(), is(5.0));
+
+        clock.addAndGet(RateLimiter.DECREASE_COOLDOWN);
+        rateLimiter.onThrottled();
+
+        assertThat(rateLimiter.getRate(), is(2.5));
+    }
+
+    @Test
+    public void 成功が続くとレートが上限まで上がること() {
+        rateLimiter.onThrottled();
+
+        for (int i = 0; i < 1000; i++) {
+            rateLimiter.onSuccess();
+        }
+
+        assertThat(rateLimiter.getRate(), is(20.0));
+    }
+
+    @Test
+    public void 同じDriveを使用するリポジトリ間で共有されること() {
+        MockDriveTransport transport = new MockDriveTransport(
+                (method, request) -> MockDriveTransport
+                        .json(new File().setId("a")));
+        Drive drive = transport.newDrive();
+        DriveAttribute driveAttr = new DriveAttribute();
+
+        RateLimiter first = RateLimiter.forDrive(drive, driveAttr);
+
+        assertThat(RateLimiter.forDrive(drive, driveAttr),
+                is(sameInstance(first)));
+        assertThat(RateLimiter.forDrive(transport.newDrive(), driveAttr),
+                is(not(sameInstance(first))));
+
+        driveAttr.setRequestsPerSecond(0);
+        assertThat(RateLimiter.forDrive(drive, driveAttr), is(nullValue()));
+    }
+
+    @Test
+    public void ステータス429を受け取るとリポジトリのレートが下がること() throws Exception {
+        final AtomicLong failures = new AtomicLong(1);
+        MockDriveTransport transport = new MockDriveTransport(
+                (method, request) -> {
+                    if (failures.getAndDecrement() > 0) {
+                        return MockDriveTransport.error(429,
+                                "rateLimitExceeded");
+                    }
+
+                    return MockDriveTransport.json(new File().setId("a"));
+                });
+        RetryPolicy retryPolicy = new RetryPolicy(5, 1000, 32 * 1000,
+                60 * 1000, millis -> {
+                }, () -> 0.0, () -> 0L);
+        DriveRepository repository = new DriveRepositoryImpl(
+                transport.newDrive(), new DriveAttribute(), retryPolicy,
+                rateLimiter);
+
+        repository.findByFileId("a");
+
+        assertThat(transport.getRequestCount(), is(2));
+        assertThat(rateLimiter.getRate() < 10, is(true));
+    }
+}
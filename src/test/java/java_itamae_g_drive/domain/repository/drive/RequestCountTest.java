@@ -0,0 +1,89 @@
+package java_itamae_g_drive.domain.repository.drive;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.nio.file.Files;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.api.services.drive.model.File;
+
+public class RequestCountTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private MockDriveTransport transport;
+    private DriveRepository repository;
+
+    @Before
+    public void setUp() {
+        transport = new MockDriveTransport((method, request) -> {
+            if (method.equals("DELETE")) {
+                return new MockLowLevelHttpResponse().setStatusCode(204);
+            } else if ("media".equals(MockDriveTransport
+                    .queryParameter(request.getUrl(), "alt"))) {
+                return new MockLowLevelHttpResponse().setContent("content");
+            }
+
+            return MockDriveTransport.json(new File().setId("file-id")
+                    .setName("update.txt").setMimeType("text/plain")
+                    .setParents(Collections.singletonList("parent-id")));
+        });
+        repository = new DriveRepositoryImpl(transport.newDrive());
+    }
+
+    @Test
+    public void 取得済みのメタデータを渡したdownloadは1回のリクエストで完了すること() throws Exception {
+        File remoteFile = new File().setId("file-id").setName("download.txt")
+                .setMimeType("text/plain");
+
+        java.io.File localFile = repository.download(
+                temporaryFolder.getRoot().getPath(), remoteFile);
+
+        assertThat(transport.getRequestCount(), is(1));
+        assertThat(new String(Files.readAllBytes(localFile.toPath()), "UTF-8"),
+                is("content"));
+    }
+
+    @Test
+    public void updateは1回のリクエストで完了しメタデータを返すこと() throws Exception {
+        java.io.File localFile = temporaryFolder.newFile("update.txt");
+
+        File result = repository.update(localFile.getPath(), "file-id");
+
+        assertThat(transport.getRequestCount(), is(1));
+        assertThat(result.getParents().get(0), is("parent-id"));
+        assertThat(transport.getRequestLog().get(0)
+                .contains("fields=id,name,mimeType,parents"), is(true));
+    }
+
+    @Test
+    public void deleteは1回のリクエストで完了すること() throws Exception {
+        repository.delete("file-id");
+
+        assertThat(transport.getRequestCount(), is(1));
+    }
+
+    @Test
+    public void 親ディレクトリを省略したuploadはルートの別名を使用すること() throws Exception {
+        java.io.File localFile = temporaryFolder.newFile("upload.txt");
+
+        repository.upload(localFile.getPath());
+
+        assertThat(transport.getRequestCount(), is(1));
+    }
+
+    @Test
+    public void getDriveRootIdは2回目以降リクエストを送信しないこと() throws Exception {
+        assertThat(repository.getDriveRootId(), is("file-id"));
+        assertThat(repository.getDriveRootId(), is("file-id"));
+
+        assertThat(transport.getRequestCount(), is(1));
+    }
+}
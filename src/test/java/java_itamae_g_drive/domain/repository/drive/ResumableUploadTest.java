@@ -0,0 +1,160 @@
+package java_itamae_g_drive.domain.repository.drive;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.api.client.googleapis.media.MediaHttpUploader;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.api.services.drive.model.File;
+
+import java_itamae_g_drive.domain.model.DriveAttribute;
+
+public class ResumableUploadTest {
+    private static final String SESSION_URI = "https://www.googleapis.com/upload/drive/v3/files?upload_id=session";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final ByteArrayOutputStream received = new ByteArrayOutputStream();
+    private final List<String> contentRanges = new ArrayList<>();
+    private int failOnChunk;
+    private boolean stall;
+    private int chunkCount;
+
+    private DriveAttribute driveAttr;
+    private byte[] content;
+    private Path localFile;
+
+    @Before
+    public void setUp() throws Exception {
+        driveAttr = new DriveAttribute();
+        driveAttr.setChunkSize(MediaHttpUploader.MINIMUM_CHUNK_SIZE);
+        driveAttr.setResumableThreshold(MediaHttpUploader.MINIMUM_CHUNK_SIZE);
+        driveAttr.setUploadSessionDirectory(
+                temporaryFolder.newFolder("sessions").toPath());
+
+        content = new byte[MediaHttpUploader.MINIMUM_CHUNK_SIZE * 2 + 1000];
+        new Random(0).nextBytes(content);
+        localFile = temporaryFolder.newFile("large.bin").toPath();
+        Files.write(localFile, content);
+    }
+
+    private MockLowLevelHttpResponse handle(String method,
+            MockLowLevelHttpRequest request) throws IOException {
+        if (!request.getUrl().equals(SESSION_URI)) {
+            return new MockLowLevelHttpResponse().addHeader("Location",
+                    SESSION_URI);
+        }
+
+        String range = request.getFirstHeaderValue("Content-Range");
+        contentRanges.add(range);
+
+        if (!range.startsWith("bytes */")) {
+            chunkCount++;
+
+            if (chunkCount == failOnChunk) {
+                throw new IOException("connection reset");
+            }
+
+            if (stall) {
+                // 受信したことにせず、同じ Range を返し続ける。
+                return new MockLowLevelHttpResponse().setStatusCode(308);
+            }
+
+            received.write(request.getContentAsString().getBytes("ISO-8859-1"));
+        }
+
+        if (received.size() == content.length) {
+            return MockDriveTransport
+                    .json(new File().setId("uploaded").setName("large.bin"));
+        }
+
+        MockLowLevelHttpResponse response = new MockLowLevelHttpResponse()
+                .setStatusCode(308);
+
+        if (received.size() > 0) {
+            response.addHeader("Range", "bytes=0-" + (received.size() - 1));
+        }
+
+        return response;
+    }
+
+    private DriveRepository newRepository() {
+        MockDriveTransport transport = new MockDriveTransport(this::handle);
+        return new DriveRepositoryImpl(transport.newDrive(), driveAttr);
+    }
+
+    @Test
+    public void upload実行時にチャンク単位で送信されること() throws Exception {
+        File file = newRepository().upload(localFile.toString(), "parent");
+
+        assertThat(file.getId(), is("uploaded"));
+        assertThat(chunkCount, is(3));
+        assertArrayEquals(content, received.toByteArray());
+    }
+
+    @Test
+    public void 中断されたupload再実行時に続きから送信されること() throws Exception {
+        failOnChunk = 2;
+
+        try {
+            newRepository().upload(localFile.toString(), "parent");
+            fail();
+        } catch (IOException e) {
+            assertThat(received.size(), is(MediaHttpUploader.MINIMUM_CHUNK_SIZE));
+        }
+
+        contentRanges.clear();
+        File file = newRepository().upload(localFile.toString(), "parent");
+
+        assertThat(file.getId(), is("uploaded"));
+        assertThat(contentRanges.get(0), is("bytes */" + content.length));
+        assertThat(contentRanges.get(1).startsWith(
+                "bytes " + MediaHttpUploader.MINIMUM_CHUNK_SIZE + "-"), is(true));
+        assertArrayEquals(content, received.toByteArray());
+    }
+
+    @Test
+    public void 受信済みのバイト数が増えない場合は送信を打ち切ること() throws Exception {
+        stall = true;
+
+        try {
+            newRepository().upload(localFile.toString(), "parent");
+            fail();
+        } catch (IOException e) {
+            assertThat(chunkCount, is(ResumableUploader.MAX_STALLED_CHUNKS));
+        }
+
+        // 次回は新しいセッションから送信する。
+        stall = false;
+        chunkCount = 0;
+        contentRanges.clear();
+        File file = newRepository().upload(localFile.toString(), "parent");
+
+        assertThat(file.getId(), is("uploaded"));
+        assertThat(contentRanges.get(0).startsWith("bytes 0-"), is(true));
+        assertArrayEquals(content, received.toByteArray());
+    }
+
+    @Test
+    public void parseRange実行時に受信済みのバイト数を取得できること() {
+        assertThat(ResumableUploader.parseRange("bytes=0-262143"), is(262144L));
+        assertThat(ResumableUploader.parseRange(null), is(0L));
+    }
+}
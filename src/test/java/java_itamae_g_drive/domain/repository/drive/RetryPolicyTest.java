@@ -0,0 +1,190 @@
+package java_itamae_g_drive.domain.repository.drive;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.api.client.googleapis.json.GoogleJsonResponseException;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.api.services.drive.model.File;
+
+import java_itamae_g_drive.domain.model.BatchResult;
+import java_itamae_g_drive.domain.model.DriveAttribute;
+
+public class RetryPolicyTest {
+    private static final String BOUNDARY = "batch_boundary";
+
+    private final List<Long> delays = Collections
+            .synchronizedList(new ArrayList<Long>());
+    private final AtomicInteger failures = new AtomicInteger();
+
+    private MockLowLevelHttpResponse failure;
+    private MockDriveTransport transport;
+    private DriveRepository repository;
+
+    @Before
+    public void setUp() {
+        transport = new MockDriveTransport((method, request) -> {
+            if (failures.getAndDecrement() > 0) {
+                return failure;
+            }
+
+            return MockDriveTransport
+                    .json(new File().setId("a").setName("a.txt"));
+        });
+        repository = newRepository(5, 60 * 1000);
+    }
+
+    private DriveRepository newRepository(int maxRetries, long budget) {
+        RetryPolicy retryPolicy = new RetryPolicy(maxRetries, 1000, 32 * 1000,
+                budget, delays::add, () -> 0.5, () -> 0L);
+        return new DriveRepositoryImpl(transport.newDrive(),
+                new DriveAttribute(), retryPolicy);
+    }
+
+    @Test
+    public void 一時的なエラーは指数バックオフで再試行されること() throws Exception {
+        failure = MockDriveTransport.error(503, "backendError");
+        failures.set(3);
+
+        File file = repository.findByFileId("a");
+
+        assertThat(file.getId(), is("a"));
+        assertThat(transport.getRequestCount(), is(4));
+        // 乱数が 0.5 の場合、待機時間は上限 (1 秒, 2 秒, 4 秒) の半分となる。
+        assertThat(delays, is(Arrays.asList(500L, 1000L, 2000L)));
+    }
+
+    @Test
+    public void userRateLimitExceededの403は再試行されること() throws Exception {
+        failure = MockDriveTransport.error(403, "userRateLimitExceeded");
+        failures.set(1);
+
+        repository.findByFileId("a");
+
+        assertThat(transport.getRequestCount(), is(2));
+    }
+
+    @Test
+    public void RetryAfterヘッダーの待機時間に従うこと() throws Exception {
+        failure = MockDriveTransport.error(429, "rateLimitExceeded");
+        failure.addHeader("Retry-After", "7");
+        failures.set(1);
+
+        repository.findByFileId("a");
+
+        assertThat(delays, is(Arrays.asList(7000L)));
+    }
+
+    @Test
+    public void 再試行の対象ではないエラーは再試行しないこと() throws Exception {
+        failure = MockDriveTransport.error(403, "insufficientFilePermissions");
+        failures.set(1);
+
+        try {
+            repository.findByFileId("a");
+            fail();
+        } catch (GoogleJsonResponseException e) {
+            assertThat(e.getStatusCode(), is(403));
+            assertThat(transport.getRequestCount(), is(1));
+        }
+    }
+
+    @Test
+    public void 再試行回数の上限に達した場合は最後のエラーを送出すること() throws Exception {
+        failure = MockDriveTransport.error(500, "backendError");
+        failures.set(Integer.MAX_VALUE);
+        repository = newRepository(2, 60 * 1000);
+
+        try {
+            repository.findByFileId("a");
+            fail();
+        } catch (GoogleJsonResponseException e) {
+            assertThat(e.getStatusCode(), is(500));
+            assertThat(transport.getRequestCount(), is(3));
+        }
+    }
+
+    @Test
+    public void 待機時間の合計が上限を超える場合は再試行しないこと() throws Exception {
+        failure = MockDriveTransport.error(429, "rateLimitExceeded");
+        failure.addHeader("Retry-After", "30");
+        failures.set(Integer.MAX_VALUE);
+        repository = newRepository(5, 45 * 1000);
+
+        try {
+            repository.findByFileId("a");
+            fail();
+        } catch (GoogleJsonResponseException e) {
+            assertThat(delays, is(Arrays.asList(30000L)));
+            assertThat(transport.getRequestCount(), is(2));
+        }
+    }
+
+    @Test
+    public void バッチ内で一時的なエラーとなった操作のみ再送されること() throws Exception {
+        final List<Integer> batchSizes = new ArrayList<>();
+        final AtomicInteger rateLimited = new AtomicInteger(2);
+
+        transport = new MockDriveTransport((method, request) -> {
+            String content = request.getContentAsString();
+            String[] parts = content.split("DELETE ");
+            StringBuilder body = new StringBuilder();
+            batchSizes.add(parts.length - 1);
+
+            for (int i = 1; i < parts.length; i++) {
+                body.append("--").append(BOUNDARY).append("\r\n");
+                body.append("Content-Type: application/http\r\n\r\n");
+
+                if (rateLimited.getAndDecrement() > 0) {
+                    String error = "{\"error\":{\"code\":429,\"message\":\"slow down\","
+                            + "\"errors\":[{\"reason\":\"rateLimitExceeded\"}]}}";
+                    body.append("HTTP/1.1 429 Too Many Requests\r\n");
+                    body.append("Content-Type: application/json\r\n");
+                    body.append("Content-Length: " + error.length() + "\r\n\r\n");
+                    body.append(error).append("\r\n");
+                } else {
+                    body.append("HTTP/1.1 204 No Content\r\n");
+                    body.append("Content-Length: 0\r\n\r\n\r\n");
+                }
+            }
+
+            body.append("--").append(BOUNDARY).append("--\r\n");
+            return new MockLowLevelHttpResponse()
+                    .setContentType("multipart/mixed; boundary=" + BOUNDARY)
+                    .setContent(body.toString());
+        });
+        repository = newRepository(5, 60 * 1000);
+
+        List<BatchResult> resultList = repository
+                .deleteAll(Arrays.asList("a", "b", "c", "d", "e"));
+
+        for (BatchResult result : resultList) {
+            assertThat(result.isSuccess(), is(true));
+        }
+
+        assertThat(batchSizes, is(Arrays.asList(5, 2)));
+        assertThat(delays.size(), is(1));
+    }
+
+    @Test
+    public void RetryAfterはHTTP日付でも指定できること() {
+        RetryPolicy retryPolicy = new RetryPolicy(5, 1000, 32 * 1000,
+                60 * 1000, delays::add, () -> 0.5,
+                () -> 784111777000L - 10 * 1000);
+
+        assertThat(retryPolicy
+                .parseRetryAfter("Sun, 06 Nov 1994 08:49:37 GMT"),
+                is(10000L));
+        assertThat(retryPolicy.parseRetryAfter("invalid"), is(-1L));
+    }
+}
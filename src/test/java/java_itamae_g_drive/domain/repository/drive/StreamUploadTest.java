@@ -0,0 +1,188 @@
+package java_itamae_g_drive.domain.repository.drive;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketException;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.api.client.googleapis.media.MediaHttpUploader;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.api.services.drive.model.File;
+
+import java_itamae_g_drive.domain.model.DriveAttribute;
+
+public class StreamUploadTest {
+    private static final String SESSION_URI = "https://www.googleapis.com/upload/drive/v3/files?upload_id=stream";
+    private static final int CHUNK = MediaHttpUploader.MINIMUM_CHUNK_SIZE;
+    private static final Pattern CONTENT_RANGE = Pattern
+            .compile("bytes (\\d+)-(\\d+)/(\\d+|\\*)");
+
+    private final ByteArrayOutputStream received = new ByteArrayOutputStream();
+    private final List<String> contentRanges = new ArrayList<>();
+    private String uploadContentLength;
+    private int acceptLimit = Integer.MAX_VALUE;
+    private int failOnChunk;
+    private int chunkCount;
+
+    private DriveRepository repository;
+
+    @Before
+    public void setUp() {
+        DriveAttribute driveAttr = new DriveAttribute();
+        driveAttr.setChunkSize(CHUNK);
+        driveAttr.setRequestsPerSecond(0);
+        driveAttr.setRetryInitialDelay(1);
+        repository = new DriveRepositoryImpl(
+                new MockDriveTransport(this::handle).newDrive(), driveAttr);
+    }
+
+    private MockLowLevelHttpResponse handle(String method,
+            MockLowLevelHttpRequest request) throws IOException {
+        if (!request.getUrl().equals(SESSION_URI)) {
+            uploadContentLength = request
+                    .getFirstHeaderValue("X-Upload-Content-Length");
+            return new MockLowLevelHttpResponse().addHeader("Location",
+                    SESSION_URI);
+        }
+
+        String range = request.getFirstHeaderValue("Content-Range");
+        contentRanges.add(range);
+        String total = range.substring(range.indexOf('/') + 1);
+        Matcher matcher = CONTENT_RANGE.matcher(range);
+
+        if (matcher.matches()) {
+            chunkCount++;
+
+            if (chunkCount == failOnChunk) {
+                throw new SocketException("connection reset");
+            }
+
+            byte[] chunk = request.getContentAsString()
+                    .getBytes("ISO-8859-1");
+
+            if (Long.parseLong(matcher.group(1)) == received.size()) {
+                // サーバーがチャンクの一部のみを受信した状況を再現する。
+                received.write(chunk, 0, Math.min(chunk.length, acceptLimit));
+            }
+        }
+
+        if (!total.equals("*") && received.size() == Long.parseLong(total)) {
+            return MockDriveTransport
+                    .json(new File().setId("uploaded").setName("stream.bin"));
+        }
+
+        MockLowLevelHttpResponse response = new MockLowLevelHttpResponse()
+                .setStatusCode(308);
+
+        if (received.size() > 0) {
+            response.addHeader("Range", "bytes=0-" + (received.size() - 1));
+        }
+
+        return response;
+    }
+
+    private static byte[] content(int length) {
+        byte[] content = new byte[length];
+        new Random(0).nextBytes(content);
+        return content;
+    }
+
+    /**
+     * 1 回の read で少量ずつしか返さない InputStream 。
+     */
+    private static InputStream trickle(byte[] content) {
+        return new FilterInputStream(new ByteArrayInputStream(content)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return super.read(b, off, Math.min(len, 1000));
+            }
+        };
+    }
+
+    @Test
+    public void 長さが不明なInputStreamをチャンク単位で送信できること() throws Exception {
+        byte[] content = content(CHUNK * 2 + 1000);
+        File file = repository.upload(trickle(content), "stream.bin",
+                "parent");
+
+        assertThat(file.getId(), is("uploaded"));
+        assertThat(uploadContentLength, is(nullValue()));
+        assertThat(contentRanges.get(0), is("bytes 0-" + (CHUNK - 1) + "/*"));
+        assertThat(contentRanges.get(2), is("bytes " + (CHUNK * 2) + "-"
+                + (content.length - 1) + "/" + content.length));
+        assertArrayEquals(content, received.toByteArray());
+    }
+
+    @Test
+    public void 内容がチャンクの倍数の場合は空のリクエストで完了すること() throws Exception {
+        byte[] content = content(CHUNK * 2);
+        File file = repository.upload(
+                Channels.newChannel(new ByteArrayInputStream(content)),
+                "stream.bin", "parent");
+
+        assertThat(file.getId(), is("uploaded"));
+        assertThat(contentRanges.size(), is(3));
+        assertThat(contentRanges.get(2), is("bytes */" + content.length));
+        assertArrayEquals(content, received.toByteArray());
+    }
+
+    @Test
+    public void サーバーが受信しなかった部分を次のチャンクで送信すること() throws Exception {
+        byte[] content = content(CHUNK + 1000);
+        acceptLimit = CHUNK / 2;
+
+        File file = repository.upload(new ByteArrayInputStream(content),
+                "stream.bin", "parent");
+
+        assertThat(file.getId(), is("uploaded"));
+        assertThat(contentRanges.get(1).startsWith("bytes " + CHUNK / 2 + "-"),
+                is(true));
+        assertArrayEquals(content, received.toByteArray());
+    }
+
+    @Test
+    public void チャンクの送信に失敗した場合は受信済みの位置を確認して送り直すこと() throws Exception {
+        byte[] content = content(CHUNK * 2 + 1000);
+        failOnChunk = 2;
+
+        File file = repository.upload(new ByteArrayInputStream(content),
+                "stream.bin", "parent");
+
+        assertThat(file.getId(), is("uploaded"));
+        assertThat(contentRanges.get(2), is("bytes */*"));
+        assertThat(contentRanges.get(3),
+                is("bytes " + CHUNK + "-" + (CHUNK * 2 - 1) + "/*"));
+        assertArrayEquals(content, received.toByteArray());
+    }
+
+    @Test
+    public void 受信済みのバイト数が増えない場合は送信を打ち切ること() throws Exception {
+        acceptLimit = 0;
+
+        try {
+            repository.upload(new ByteArrayInputStream(content(CHUNK * 2)),
+                    "stream.bin", "parent");
+            fail();
+        } catch (IOException e) {
+            assertThat(chunkCount, is(ResumableUploader.MAX_STALLED_CHUNKS));
+        }
+    }
+}
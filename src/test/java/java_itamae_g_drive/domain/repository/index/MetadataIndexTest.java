@@ -0,0 +1,244 @@
+package java_itamae_g_drive.domain.repository.index;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.services.drive.model.Change;
+import com.google.api.services.drive.model.ChangeList;
+import com.google.api.services.drive.model.File;
+import com.google.api.services.drive.model.FileList;
+import com.google.api.services.drive.model.StartPageToken;
+
+import java_itamae_g_drive.domain.model.FileField;
+import java_itamae_g_drive.domain.model.FileProjection;
+import java_itamae_g_drive.domain.repository.drive.DriveRepository;
+import java_itamae_g_drive.domain.repository.drive.DriveRepositoryImpl;
+import java_itamae_g_drive.domain.repository.drive.MockDriveTransport;
+import java_itamae_g_drive.domain.service.drive.DriveServiceImpl;
+
+public class MetadataIndexTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final List<File> files = new ArrayList<>();
+    private final List<Change> changes = new ArrayList<>();
+
+    private MockDriveTransport transport;
+    private DriveRepository repository;
+    private Path indexDirectory;
+
+    private static File file(String id, String name, String parent) {
+        return new File().setId(id).setName(name)
+                .setMimeType("text/plain").setMd5Checksum("md5-" + id)
+                .setSize(10L).setParents(Arrays.asList(parent));
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        files.add(new File().setId("dir").setName("reports")
+                .setMimeType("application/vnd.google-apps.folder")
+                .setParents(Arrays.asList("root-id")));
+        files.add(file("a", "a.txt", "dir"));
+        files.add(file("b", "b.txt", "dir"));
+
+        transport = new MockDriveTransport((method, request) -> {
+            String path = new GenericUrl(request.getUrl()).getRawPath();
+
+            if (path.endsWith("/changes/startPageToken")) {
+                return MockDriveTransport
+                        .json(new StartPageToken().setStartPageToken("1"));
+            } else if (path.endsWith("/changes")) {
+                return MockDriveTransport.json(new ChangeList()
+                        .setChanges(changes).setNewStartPageToken("2"));
+            } else if (path.startsWith("/upload/")) {
+                // 変更操作の応答は既定のフィールドのみを含む。
+                return MockDriveTransport.json(new File().setId("new")
+                        .setName("new.txt").setMimeType("text/plain")
+                        .setParents(Arrays.asList("dir")));
+            } else if (path.endsWith("/files/new")) {
+                return MockDriveTransport.json(file("new", "new.txt", "dir"));
+            } else if (path.endsWith("/files")) {
+                return MockDriveTransport.json(new FileList().setFiles(files));
+            }
+
+            return MockDriveTransport
+                    .json(new File().setId("root-id").setName("My Drive"));
+        });
+        repository = new DriveRepositoryImpl(transport.newDrive());
+        indexDirectory = temporaryFolder.getRoot().toPath();
+    }
+
+    @Test
+    public void 初回のrefreshで全件を取得しローカルから検索できること() throws Exception {
+        try (MetadataIndex index = MetadataIndex.open(indexDirectory)) {
+            index.refresh(repository);
+            int requestCount = transport.getRequestCount();
+
+            assertThat(index.size(), is(3));
+            assertThat(index.getRootId(), is("root-id"));
+            assertThat(index.getPageToken(), is("1"));
+            assertThat(index.findByParentId("dir").size(), is(2));
+            assertThat(index.findByParentId("root").get(0).getId(),
+                    is("dir"));
+            assertThat(index.findByPath("/reports/b.txt").getMd5Checksum(),
+                    is("md5-b"));
+            assertThat(index.findByPath("/reports/c.txt"), is(nullValue()));
+            assertThat(transport.getRequestCount(), is(requestCount));
+        }
+    }
+
+    @Test
+    public void 二回目以降のrefreshは変更のみを取り込むこと() throws Exception {
+        try (MetadataIndex index = MetadataIndex.open(indexDirectory)) {
+            index.refresh(repository);
+        }
+
+        changes.add(new Change().setFileId("a").setRemoved(true));
+        changes.add(new Change().setFileId("c")
+                .setFile(file("c", "c.txt", "dir")));
+        changes.add(new Change().setFileId("b")
+                .setFile(file("b", "b.txt", "dir").setTrashed(true)));
+        files.clear();
+
+        try (MetadataIndex index = MetadataIndex.open(indexDirectory)) {
+            assertThat(index.size(), is(3));
+
+            index.refresh(repository);
+
+            assertThat(index.size(), is(2));
+            assertThat(index.findByFileId("a"), is(nullValue()));
+            assertThat(index.findByFileId("b"), is(nullValue()));
+            assertThat(index.findByPath("/reports/c.txt").getId(), is("c"));
+            assertThat(index.getPageToken(), is("2"));
+        }
+    }
+
+    @Test
+    public void 末尾の不完全なレコードは読み込み時に破棄されること() throws Exception {
+        try (MetadataIndex index = MetadataIndex.open(indexDirectory)) {
+            index.refresh(repository);
+            index.put(file("c", "c.txt", "dir"));
+        }
+
+        java.io.File logFile = indexDirectory.resolve("index.log").toFile();
+
+        try (RandomAccessFile raf = new RandomAccessFile(logFile, "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+
+        try (MetadataIndex index = MetadataIndex.open(indexDirectory)) {
+            assertThat(index.size(), is(3));
+            assertThat(index.findByFileId("c"), is(nullValue()));
+
+            index.put(file("d", "d.txt", "dir"));
+        }
+
+        try (MetadataIndex index = MetadataIndex.open(indexDirectory)) {
+            assertThat(index.findByFileId("d").getName(), is("d.txt"));
+        }
+    }
+
+    @Test
+    public void compact実行後も内容が保持されること() throws Exception {
+        try (MetadataIndex index = MetadataIndex.open(indexDirectory)) {
+            index.refresh(repository);
+            index.put(file("a", "renamed.txt", "dir"));
+            index.remove("b");
+            index.compact();
+        }
+
+        try (MetadataIndex index = MetadataIndex.open(indexDirectory)) {
+            assertThat(index.size(), is(2));
+            assertThat(index.findByFileId("a").getName(), is("renamed.txt"));
+            assertThat(index.getPageToken(), is("1"));
+        }
+    }
+
+    @Test
+    public void IndexedDriveRepositoryは検索をインデックスから応答すること()
+            throws Exception {
+        IndexedDriveRepository indexed = new IndexedDriveRepository(
+                repository, indexDirectory);
+
+        try {
+            indexed.findByParentId("dir");
+            int requestCount = transport.getRequestCount();
+
+            assertThat(indexed.findByParentId("dir").size(), is(2));
+            assertThat(indexed.findByFileId("a").getName(), is("a.txt"));
+            assertThat(indexed.findByPath("/reports").getId(), is("dir"));
+            assertThat(indexed.getDriveRootId(), is("root-id"));
+            assertThat(transport.getRequestCount(), is(requestCount));
+        } finally {
+            indexed.close();
+        }
+    }
+
+    @Test
+    public void インデックスを開く前のgetDriveRootIdは全件を取得しないこと()
+            throws Exception {
+        IndexedDriveRepository indexed = new IndexedDriveRepository(
+                repository, indexDirectory);
+
+        try {
+            assertThat(indexed.getDriveRootId(), is("root-id"));
+            assertThat(transport.getRequestCount(), is(1));
+        } finally {
+            indexed.close();
+        }
+    }
+
+    @Test
+    public void アップロードしたファイルもMD5を含めてインデックスから応答すること()
+            throws Exception {
+        IndexedDriveRepository indexed = new IndexedDriveRepository(
+                repository, indexDirectory);
+
+        try {
+            indexed.refresh();
+            java.io.File localFile = temporaryFolder.newFile("new.txt");
+            Files.write(localFile.toPath(), new byte[10]);
+            indexed.upload(localFile.getPath(), "dir");
+            int requestCount = transport.getRequestCount();
+
+            File file = indexed.findByFileId("new",
+                    FileProjection.DEFAULT.with(FileField.MD5_CHECKSUM));
+            assertThat(file.getMd5Checksum(), is("md5-new"));
+            assertThat(file.getSize(), is(10L));
+            assertThat(transport.getRequestCount(), is(requestCount));
+        } finally {
+            indexed.close();
+        }
+    }
+
+    @Test
+    public void インデックスを使用する場合はパスをローカルで解決すること() throws Exception {
+        IndexedDriveRepository indexed = new IndexedDriveRepository(
+                repository, indexDirectory);
+
+        try {
+            indexed.refresh();
+            int requestCount = transport.getRequestCount();
+
+            assertThat(new DriveServiceImpl(indexed)
+                    .resolvePath("/reports/b.txt").getId(), is("b"));
+            assertThat(transport.getRequestCount(), is(requestCount));
+        } finally {
+            indexed.close();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package java_itamae_g_drive.domain.service.drive;
+
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.api.services.drive.model.File;
+import com.google.api.services.drive.model.FileList;
+
+import java_itamae_g_drive.domain.model.DriveAttribute;
+import java_itamae_g_drive.domain.repository.drive.DriveRepositoryImpl;
+import java_itamae_g_drive.domain.repository.drive.MockDriveTransport;
+
+public class AsyncDriveServiceTest {
+    private static final int FILE_COUNT = 8;
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicInteger mediaCount = new AtomicInteger();
+    private final CountDownLatch allStarted = new CountDownLatch(FILE_COUNT);
+    private final CountDownLatch interrupted = new CountDownLatch(1);
+    private volatile CountDownLatch release = new CountDownLatch(0);
+    private volatile String failId;
+
+    private DriveService driveService;
+    private AsyncDriveService service;
+
+    @Before
+    public void setUp() {
+        MockDriveTransport transport = new MockDriveTransport(
+                (method, request) -> {
+                    String url = request.getUrl();
+
+                    if (MockDriveTransport.queryParameter(url, "q") != null) {
+                        List<File> files = new ArrayList<>();
+
+                        for (int i = 0; i < FILE_COUNT; i++) {
+                            files.add(new File().setId("id-" + i)
+                                    .setName("file-" + i + ".txt")
+                                    .setMimeType("text/plain"));
+                        }
+
+                        files.add(new File().setId("dir").setName("dir")
+                                .setMimeType(
+                                        "application/vnd.google-apps.folder"));
+                        return MockDriveTransport
+                                .json(new FileList().setFiles(files));
+                    }
+
+                    String id = url.replaceAll(".*/files/([^?]+).*", "$1");
+                    mediaCount.incrementAndGet();
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(),
+                            Math::max);
+                    allStarted.countDown();
+
+                    try {
+                        if (!release.await(5, TimeUnit.SECONDS)) {
+                            throw new IOException("timeout");
+                        }
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                        throw new InterruptedIOException();
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+
+                    if (id.equals(failId)) {
+                        return MockDriveTransport.error(404, "notFound");
+                    }
+
+                    return new MockLowLevelHttpResponse()
+                            .setContent(id.getBytes("UTF-8"));
+                });
+
+        DriveAttribute driveAttr = new DriveAttribute();
+        driveAttr.setRequestsPerSecond(0);
+        driveAttr.setMaxRetries(0);
+        driveService = new DriveServiceImpl(
+                new DriveRepositoryImpl(transport.newDrive(), driveAttr));
+        service = new AsyncDriveServiceImpl(driveService);
+    }
+
+    @After
+    public void tearDown() {
+        service.close();
+    }
+
+    @Test
+    public void 一覧の取得から絞り込みとダウンロードまでを同時に実行できること() throws Exception {
+        release = new CountDownLatch(1);
+        String localDir = temporaryFolder.newFolder("download").getPath();
+
+        CompletableFuture<List<java.io.File>> future = service
+                .findByParentId("parent")
+                .thenCompose(files -> service.downloadAll(localDir,
+                        files.stream()
+                                .filter(file -> file.getName()
+                                        .endsWith(".txt"))
+                                .collect(Collectors.toList())));
+
+        // 全てのダウンロードが同時に開始されるまで応答を保留する。
+        assertThat(allStarted.await(5, TimeUnit.SECONDS), is(true));
+        release.countDown();
+
+        List<java.io.File> fileList = future.get(5, TimeUnit.SECONDS);
+        assertThat(fileList.size(), is(FILE_COUNT));
+        assertThat(fileList.get(3).getName(), is("file-3.txt"));
+        assertThat(maxInFlight.get(), is(FILE_COUNT));
+    }
+
+    @Test
+    public void 失敗した操作は例外で完了すること() throws Exception {
+        failId = "id-1";
+        String localDir = temporaryFolder.newFolder("download").getPath();
+
+        try {
+            service.download(localDir, new File().setId("id-1")
+                    .setName("a.txt").setMimeType("text/plain")).join();
+            fail();
+        } catch (CompletionException e) {
+            assertThat(e.getCause(), is(instanceOf(IOException.class)));
+        }
+    }
+
+    @Test
+    public void 取り消した操作は実行中のスレッドに割り込むこと() throws Exception {
+        release = new CountDownLatch(1);
+        String localDir = temporaryFolder.newFolder("download").getPath();
+
+        CompletableFuture<java.io.File> future = service.download(localDir,
+                new File().setId("id-0").setName("a.txt")
+                        .setMimeType("text/plain"));
+
+        assertThat(awaitStarted(), is(true));
+        assertThat(future.cancel(true), is(true));
+        assertThat(interrupted.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(future.isCancelled(), is(true));
+    }
+
+    @Test
+    public void 開始前に取り消した操作は実行しないこと() throws Exception {
+        release = new CountDownLatch(1);
+        String localDir = temporaryFolder.newFolder("download").getPath();
+        List<File> remoteFiles = new ArrayList<>();
+
+        for (int i = 0; i < FILE_COUNT; i++) {
+            remoteFiles.add(new File().setId("id-" + i)
+                    .setName("file-" + i + ".txt").setMimeType("text/plain"));
+        }
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AsyncDriveService single = new AsyncDriveServiceImpl(driveService,
+                executor);
+
+        CompletableFuture<List<java.io.File>> future = single
+                .downloadAll(localDir, remoteFiles);
+        awaitStarted();
+        future.cancel(true);
+
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (CancellationException e) {
+            // 取り消し済み
+        }
+
+        // 1 件目は割り込みで中断し、残りはスレッドが空いても実行しない。
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS), is(true));
+        assertThat(interrupted.getCount(), is(0L));
+        assertThat(mediaCount.get(), is(1));
+    }
+
+    private boolean awaitStarted() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+
+        while (mediaCount.get() == 0
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        return mediaCount.get() > 0;
+    }
+}
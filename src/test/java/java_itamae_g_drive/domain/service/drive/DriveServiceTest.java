@@ -0,0 +1,594 @@
+package java_itamae_g_drive.domain.service.drive;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.runners.Enclosed;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import com.google.api.client.http.GenericUrl;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import com.google.api.services.drive.model.File;
+import com.google.api.services.drive.model.FileList;
+
+import java_itamae_g_drive.domain.model.TransferResult;
+import java_itamae_g_drive.domain.repository.drive.DriveRepositoryImpl;
+import java_itamae_g_drive.domain.repository.drive.MockDriveTransport;
+
+@RunWith(Enclosed.class)
+public class DriveServiceTest {
+    public static class 並列アップロードのテスト {
+        @Rule
+        public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+        private MockDriveTransport transport;
+        private DriveService service;
+
+        @Before
+        public void setUp() {
+            final AtomicInteger sequence = new AtomicInteger();
+
+            transport = new MockDriveTransport((method, request) -> {
+                if (request.getContentAsString().contains("fail.txt")) {
+                    return MockDriveTransport.error(400, "badRequest");
+                }
+
+                return MockDriveTransport.json(new File()
+                        .setId("id-" + sequence.incrementAndGet()));
+            });
+            service = new DriveServiceImpl(
+                    new DriveRepositoryImpl(transport.newDrive()));
+        }
+
+        private List<String> createFiles(String... names) throws IOException {
+            List<String> pathList = new ArrayList<>();
+
+            for (String name : names) {
+                Path path = temporaryFolder.newFile(name).toPath();
+                Files.write(path, name.getBytes("UTF-8"));
+                pathList.add(path.toString());
+            }
+
+            return pathList;
+        }
+
+        @Test
+        public void uploadAll実行時に入力と同じ順序で結果を取得できること() throws Exception {
+            List<String> pathList = new ArrayList<>();
+
+            for (int i = 0; i < 50; i++) {
+                pathList.addAll(createFiles("upload-" + i + ".txt"));
+            }
+
+            final Thread caller = Thread.currentThread();
+            final AtomicInteger notified = new AtomicInteger();
+
+            List<TransferResult> resultList = service.uploadAll(pathList,
+                    "parent", 8, result -> {
+                        assertThat(Thread.currentThread(), is(caller));
+                        notified.incrementAndGet();
+                    });
+
+            assertThat(resultList.size(), is(pathList.size()));
+            assertThat(notified.get(), is(pathList.size()));
+            assertThat(transport.getRequestCount(), is(pathList.size()));
+
+            for (int i = 0; i < pathList.size(); i++) {
+                assertThat(resultList.get(i).getLocalPath(),
+                        is(pathList.get(i)));
+                assertThat(resultList.get(i).isSuccess(), is(true));
+            }
+        }
+
+        @Test
+        public void uploadAll実行時に失敗したファイルがあっても残りの転送を継続すること()
+                throws Exception {
+            List<String> pathList = createFiles("ok-1.txt", "fail.txt",
+                    "ok-2.txt");
+
+            List<TransferResult> resultList = service.uploadAll(pathList,
+                    "parent", 2, null);
+
+            assertThat(resultList.get(0).isSuccess(), is(true));
+            assertThat(resultList.get(1).isSuccess(), is(false));
+            assertThat(resultList.get(2).isSuccess(), is(true));
+        }
+    }
+
+    public static class ツリーアップロードのテスト {
+        private static final Pattern METADATA = Pattern.compile(
+                "\"name\":\"([^\"]+)\",\"parents\":\\[\"([^\"]+)\"\\]");
+
+        @Rule
+        public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+        private final Map<String, String> parentOf = new ConcurrentHashMap<>();
+        private DriveService service;
+
+        @Before
+        public void setUp() {
+            MockDriveTransport transport = new MockDriveTransport(
+                    (method, request) -> {
+                        Matcher matcher = METADATA
+                                .matcher(request.getContentAsString());
+
+                        if (!matcher.find()) {
+                            return MockDriveTransport.error(400, "badRequest");
+                        }
+
+                        String name = matcher.group(1);
+                        parentOf.put(name, matcher.group(2));
+
+                        if (name.equals("broken")) {
+                            return MockDriveTransport.error(403,
+                                    "insufficientFilePermissions");
+                        }
+
+                        return MockDriveTransport
+                                .json(new File().setId("id-" + name));
+                    });
+            service = new DriveServiceImpl(
+                    new DriveRepositoryImpl(transport.newDrive()));
+        }
+
+        @Test
+        public void uploadTree実行時に配下のファイルが親ディレクトリへ格納されること()
+                throws Exception {
+            java.io.File root = temporaryFolder.newFolder("tree");
+            java.io.File sub = new java.io.File(root, "sub");
+            sub.mkdir();
+            Files.write(new java.io.File(root, "a.txt").toPath(),
+                    "a".getBytes("UTF-8"));
+            Files.write(new java.io.File(sub, "b.txt").toPath(),
+                    "b".getBytes("UTF-8"));
+            Files.write(new java.io.File(sub, "c.txt").toPath(),
+                    "c".getBytes("UTF-8"));
+
+            List<TransferResult> resultList = service
+                    .uploadTree(root.getPath(), "root", 4, null);
+
+            assertThat(resultList.size(), is(5));
+            assertThat(resultList.get(0).getLocalPath(), is(root.getPath()));
+
+            for (TransferResult result : resultList) {
+                assertThat(result.isSuccess(), is(true));
+            }
+
+            assertThat(parentOf.get("tree"), is("root"));
+            assertThat(parentOf.get("a.txt"), is("id-tree"));
+            assertThat(parentOf.get("sub"), is("id-tree"));
+            assertThat(parentOf.get("b.txt"), is("id-sub"));
+            assertThat(parentOf.get("c.txt"), is("id-sub"));
+        }
+
+        @Test
+        public void ディレクトリの作成に失敗した場合は配下の転送も失敗となること() throws Exception {
+            java.io.File root = temporaryFolder.newFolder("tree");
+            java.io.File broken = new java.io.File(root, "broken");
+            broken.mkdir();
+            Files.write(new java.io.File(broken, "d.txt").toPath(),
+                    "d".getBytes("UTF-8"));
+
+            List<TransferResult> resultList = service
+                    .uploadTree(root.getPath(), "root", 2, null);
+
+            assertThat(resultList.size(), is(3));
+            assertThat(resultList.get(0).isSuccess(), is(true));
+            assertThat(resultList.get(1).isSuccess(), is(false));
+            assertThat(resultList.get(2).isSuccess(), is(false));
+            assertThat(parentOf.containsKey("d.txt"), is(false));
+        }
+    }
+
+    public static class ツリーダウンロードのテスト {
+        private static final String FOLDER = "application/vnd.google-apps.folder";
+
+        @Rule
+        public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+        private final Map<String, File> files = new HashMap<>();
+        private DriveService service;
+
+        private void put(String id, String name, String mimeType,
+                String parentId) {
+            files.put(id, new File().setId(id).setName(name)
+                    .setMimeType(mimeType)
+                    .setParents(Collections.singletonList(parentId)));
+        }
+
+        @Before
+        public void setUp() {
+            put("top", "top", FOLDER, "root");
+            put("sub", "sub", FOLDER, "top");
+            put("a", "a.txt", "text/plain", "top");
+            put("b", "b.txt", "text/plain", "sub");
+            put("broken", "broken.txt", "text/plain", "sub");
+
+            MockDriveTransport transport = new MockDriveTransport(
+                    (method, request) -> {
+                        String url = request.getUrl();
+                        String q = MockDriveTransport.queryParameter(url, "q");
+
+                        if (q != null) {
+                            List<File> children = new ArrayList<>();
+
+                            for (File file : files.values()) {
+                                if (q.contains("'" + file.getParents().get(0)
+                                        + "'")) {
+                                    children.add(file);
+                                }
+                            }
+
+                            return MockDriveTransport
+                                    .json(new FileList().setFiles(children));
+                        }
+
+                        String path = new GenericUrl(url).getRawPath();
+                        String id = path.substring(path.lastIndexOf('/') + 1);
+
+                        if ("media".equals(
+                                MockDriveTransport.queryParameter(url, "alt"))) {
+                            if (id.equals("broken")) {
+                                throw new IOException("connection reset");
+                            }
+
+                            return new MockLowLevelHttpResponse()
+                                    .setContent("content-" + id);
+                        }
+
+                        return MockDriveTransport.json(files.get(id));
+                    });
+            service = new DriveServiceImpl(
+                    new DriveRepositoryImpl(transport.newDrive()));
+        }
+
+        @Test
+        public void downloadTree実行時に配下のファイルがダウンロードされること() throws Exception {
+            java.io.File localDir = temporaryFolder.newFolder("download");
+
+            List<TransferResult> resultList = service
+                    .downloadTree(localDir.getPath(), "top", 4, null);
+
+            assertThat(resultList.size(), is(5));
+            assertThat(new String(Files.readAllBytes(
+                    localDir.toPath().resolve("top/a.txt")), "UTF-8"),
+                    is("content-a"));
+            assertThat(new String(Files.readAllBytes(
+                    localDir.toPath().resolve("top/sub/b.txt")), "UTF-8"),
+                    is("content-b"));
+
+            for (TransferResult result : resultList) {
+                boolean broken = result.getRemoteFile().getId()
+                        .equals("broken");
+                assertThat(result.isSuccess(), is(!broken));
+            }
+        }
+
+        @Test
+        public void ダウンロードが中断された場合は不完全なファイルを残さないこと() throws Exception {
+            java.io.File localDir = temporaryFolder.newFolder("download");
+
+            service.downloadTree(localDir.getPath(), "top", 2, null);
+
+            String[] names = localDir.toPath().resolve("top/sub").toFile()
+                    .list();
+            Arrays.sort(names);
+            assertThat(Arrays.asList(names),
+                    is(Arrays.asList("b.txt")));
+        }
+
+        @Test
+        public void ローカルのパスとして不正な名前と重複した名前を置き換えること() throws Exception {
+            put("escape", "../escape.txt", "text/plain", "top");
+            put("parent", "..", "text/plain", "top");
+            put("dup", "a.txt", "text/plain", "top");
+            java.io.File localDir = temporaryFolder.newFolder("download");
+
+            List<TransferResult> resultList = service
+                    .downloadTree(localDir.getPath(), "top", 4, null);
+
+            for (TransferResult result : resultList) {
+                boolean broken = result.getRemoteFile().getId()
+                        .equals("broken");
+                assertThat(result.isSuccess(), is(!broken));
+            }
+
+            java.nio.file.Path top = localDir.toPath().resolve("top");
+            assertThat(new String(
+                    Files.readAllBytes(top.resolve(".._escape.txt")),
+                    "UTF-8"), is("content-escape"));
+            assertThat(new String(Files.readAllBytes(top.resolve("parent")),
+                    "UTF-8"), is("content-parent"));
+            assertThat(temporaryFolder.getRoot().toPath()
+                    .resolve("escape.txt").toFile().exists(), is(false));
+
+            // 先に一覧に現れた方が元の名前を使い、もう一方には file_id を付ける。
+            String a = new String(Files.readAllBytes(top.resolve("a.txt")),
+                    "UTF-8");
+            String other = a.equals("content-a") ? "a (dup).txt" : "a (a).txt";
+            assertThat(new String(Files.readAllBytes(top.resolve(other)),
+                    "UTF-8"), is(a.equals("content-a") ? "content-dup"
+                            : "content-a"));
+        }
+    }
+
+    public static class 同期のテスト {
+        @Rule
+        public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+        private final List<String> created = Collections
+                .synchronizedList(new ArrayList<String>());
+        private final List<String> updated = Collections
+                .synchronizedList(new ArrayList<String>());
+
+        private MockDriveTransport transport;
+        private DriveService service;
+        private java.io.File localDir;
+
+        private static File remote(String id, String content)
+                throws Exception {
+            byte[] bytes = content.getBytes("UTF-8");
+            return new File().setId(id).setName(id + ".txt")
+                    .setMimeType("text/plain").setSize((long) bytes.length)
+                    .setMd5Checksum(md5Hex(bytes));
+        }
+
+        private static String md5Hex(byte[] bytes) throws Exception {
+            StringBuilder builder = new StringBuilder();
+
+            for (byte b : MessageDigest.getInstance("MD5").digest(bytes)) {
+                builder.append(String.format("%02x", b));
+            }
+
+            return builder.toString();
+        }
+
+        @Before
+        public void setUp() throws Exception {
+            final Map<String, List<File>> children = new HashMap<>();
+            children.put("top", Arrays.asList(remote("same", "same"),
+                    remote("changed", "before"),
+                    remote("resized", "before"),
+                    new File().setId("sub").setName("sub").setMimeType(
+                            "application/vnd.google-apps.folder")));
+            children.put("sub", Arrays.asList(remote("nested", "nested")));
+
+            final Pattern parentPattern = Pattern.compile("'([^']+)' in parents");
+            final AtomicInteger sequence = new AtomicInteger();
+
+            transport = new MockDriveTransport((method, request) -> {
+                String url = request.getUrl();
+                String path = new GenericUrl(url).getRawPath();
+                String q = MockDriveTransport.queryParameter(url, "q");
+
+                if (q != null) {
+                    Matcher matcher = parentPattern.matcher(q);
+                    matcher.find();
+                    List<File> files = children.get(matcher.group(1));
+                    return MockDriveTransport.json(new FileList().setFiles(
+                            files == null ? new ArrayList<File>() : files));
+                } else if (path.endsWith("/files")) {
+                    String id = "new-" + sequence.incrementAndGet();
+                    created.add(id);
+                    return MockDriveTransport
+                            .json(new File().setId(id).setName(id));
+                }
+
+                String id = path.substring(path.lastIndexOf('/') + 1);
+                updated.add(id);
+                return MockDriveTransport.json(new File().setId(id));
+            });
+            service = new DriveServiceImpl(
+                    new DriveRepositoryImpl(transport.newDrive()));
+
+            localDir = temporaryFolder.newFolder("local");
+            Path root = localDir.toPath();
+            Files.write(root.resolve("same.txt"), "same".getBytes("UTF-8"));
+            Files.write(root.resolve("changed.txt"),
+                    "after!".getBytes("UTF-8"));
+            Files.write(root.resolve("resized.txt"),
+                    "resized".getBytes("UTF-8"));
+            Files.write(root.resolve("added.txt"), "added".getBytes("UTF-8"));
+            Files.createDirectories(root.resolve("sub"));
+            Files.write(root.resolve("sub/nested.txt"),
+                    "nested".getBytes("UTF-8"));
+            Files.createDirectories(root.resolve("newdir"));
+            Files.write(root.resolve("newdir/x.txt"), "x".getBytes("UTF-8"));
+        }
+
+        @Test
+        public void sync実行時に内容が異なるファイルのみ転送されること() throws Exception {
+            List<TransferResult> resultList = service.sync(localDir.getPath(),
+                    "top", 4, null);
+
+            int skipped = 0;
+
+            for (TransferResult result : resultList) {
+                assertThat(result.isSuccess(), is(true));
+
+                if (result.isSkipped()) {
+                    skipped++;
+                }
+            }
+
+            // same.txt, sub, sub/nested.txt
+            assertThat(skipped, is(3));
+            assertThat(resultList.size(), is(8));
+
+            List<String> updatedIds = new ArrayList<>(updated);
+            Collections.sort(updatedIds);
+            assertThat(updatedIds, is(Arrays.asList("changed", "resized")));
+            // added.txt, newdir, newdir/x.txt
+            assertThat(created.size(), is(3));
+        }
+
+        @Test
+        public void 新規作成したディレクトリの一覧は取得しないこと() throws Exception {
+            service.sync(localDir.getPath(), "top", 1, null);
+
+            int listCount = 0;
+
+            for (String request : transport.getRequestLog()) {
+                if (request.contains("q=")) {
+                    listCount++;
+                }
+            }
+
+            assertThat(listCount, is(2));
+        }
+    }
+
+    public static class パス解決のテスト {
+        private static final String FOLDER = "application/vnd.google-apps.folder";
+
+        @Rule
+        public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+        private MockDriveTransport transport;
+        private DriveService service;
+
+        @Before
+        public void setUp() {
+            final Map<String, List<File>> children = new HashMap<>();
+            children.put("root", Arrays.asList(new File().setId("reports")
+                    .setName("reports").setMimeType(FOLDER)));
+            children.put("reports", Arrays.asList(new File().setId("2026")
+                    .setName("2026").setMimeType(FOLDER)));
+            children.put("2026", Arrays.asList(
+                    new File().setId("q3").setName("q3").setMimeType(FOLDER),
+                    new File().setId("q4.csv").setName("q4.csv")
+                            .setMimeType("text/csv"),
+                    new File().setId("quote").setName("it's")
+                            .setMimeType("text/plain")));
+
+            final Pattern queryPattern = Pattern.compile(
+                    "name = '((?:[^'\\\\]|\\\\.)*)' and '([^']+)' in parents.*");
+
+            transport = new MockDriveTransport((method, request) -> {
+                String q = MockDriveTransport.queryParameter(request.getUrl(),
+                        "q");
+
+                if (q == null) {
+                    return method.equals("DELETE")
+                            ? new MockLowLevelHttpResponse().setStatusCode(204)
+                            : MockDriveTransport.json(
+                                    new File().setId("updated"));
+                }
+
+                Matcher matcher = queryPattern.matcher(q);
+                matcher.matches();
+                String name = matcher.group(1).replace("\\'", "'");
+                List<File> files = new ArrayList<>();
+
+                for (File file : children.getOrDefault(matcher.group(2),
+                        Collections.<File>emptyList())) {
+                    if (file.getName().equals(name)
+                            && (!q.contains("mimeType") || FOLDER
+                                    .equals(file.getMimeType()))) {
+                        files.add(file);
+                    }
+                }
+
+                return MockDriveTransport
+                        .json(new FileList().setFiles(files));
+            });
+            service = new DriveServiceImpl(
+                    new DriveRepositoryImpl(transport.newDrive()));
+        }
+
+        @Test
+        public void 未解決の階層ごとに1回だけ検索すること() throws Exception {
+            File file = service.resolvePath("/reports/2026/q3");
+
+            assertThat(file.getId(), is("q3"));
+            assertThat(transport.getRequestCount(), is(3));
+        }
+
+        @Test
+        public void 解決済みのディレクトリ配下はリクエストを送信しないこと() throws Exception {
+            service.resolvePath("/reports/2026/q3");
+            File q3 = service.resolvePath("reports//2026/q3/");
+            File parent = service.resolvePath("/reports/2026");
+
+            assertThat(q3.getId(), is("q3"));
+            assertThat(parent.getId(), is("2026"));
+            assertThat(transport.getRequestCount(), is(3));
+
+            // 兄弟のファイルは最後の階層のみを検索する。
+            assertThat(service.resolvePath("/reports/2026/q4.csv").getId(),
+                    is("q4.csv"));
+            assertThat(service.resolvePath("/reports/2026/it's").getId(),
+                    is("quote"));
+            assertThat(transport.getRequestCount(), is(5));
+        }
+
+        @Test
+        public void ルートはリクエストを送信せずに解決すること() throws Exception {
+            assertThat(service.resolvePath("/").getId(), is("root"));
+            assertThat(transport.getRequestCount(), is(0));
+        }
+
+        @Test(expected = FileNotFoundException.class)
+        public void 存在しないパスの場合は例外を送出すること() throws Exception {
+            service.resolvePath("/reports/2025/q3");
+        }
+
+        @Test(expected = FileNotFoundException.class)
+        public void ファイルの配下は辿らないこと() throws Exception {
+            service.resolvePath("/reports/2026/q4.csv/x");
+        }
+
+        @Test
+        public void 削除したディレクトリの解決結果を破棄すること() throws Exception {
+            service.resolvePath("/reports/2026/q3");
+            service.delete("2026");
+            service.resolvePath("/reports/2026/q3");
+
+            // 削除、 2026 と q3 の再検索
+            assertThat(transport.getRequestCount(), is(6));
+        }
+
+        @Test
+        public void 解決済みのパスはメタデータを再取得せずにダウンロードすること() throws Exception {
+            service.resolvePath("/reports/2026/q3");
+            java.io.File localDir = temporaryFolder.newFolder("download");
+
+            java.io.File result = service.downloadByPath(localDir.getPath(),
+                    "/reports/2026/q3");
+
+            assertThat(result.isDirectory(), is(true));
+            assertThat(transport.getRequestCount(), is(3));
+        }
+
+        @Test
+        public void 更新したファイルの解決結果を破棄すること() throws Exception {
+            service.resolvePath("/reports/2026/q3");
+            java.io.File localFile = temporaryFolder.newFile("q3-renamed");
+            service.update(localFile.getPath(), "2026");
+            service.resolvePath("/reports/2026/q3");
+
+            // 更新、 2026 と q3 の再検索
+            assertThat(transport.getRequestCount(), is(6));
+        }
+    }
+}
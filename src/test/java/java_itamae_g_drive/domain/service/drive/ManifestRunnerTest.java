@@ -0,0 +1,172 @@
+package java_itamae_g_drive.domain.service.drive;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.api.services.drive.model.File;
+
+import java_itamae_g_drive.domain.model.DriveAttribute;
+import java_itamae_g_drive.domain.model.ManifestResult;
+import java_itamae_g_drive.domain.repository.drive.DriveRepositoryImpl;
+import java_itamae_g_drive.domain.repository.drive.FakeDriveServer;
+
+public class ManifestRunnerTest {
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private FakeDriveServer server;
+    private DriveService service;
+    private Path manifest;
+    private Path results;
+    private final List<ManifestResult> resultList = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        server = new FakeDriveServer();
+        DriveAttribute driveAttr = new DriveAttribute();
+        driveAttr.setRequestsPerSecond(0);
+        driveAttr.setMaxRetries(0);
+        driveAttr.setUploadSessionDirectory(
+                temporaryFolder.newFolder("sessions").toPath());
+        service = new DriveServiceImpl(
+                new DriveRepositoryImpl(server.newDrive(), driveAttr));
+        manifest = temporaryFolder.getRoot().toPath().resolve("manifest.txt");
+        results = temporaryFolder.getRoot().toPath()
+                .resolve("manifest.txt.results");
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+    }
+
+    private void run(List<String> lines) throws Exception {
+        Files.write(manifest, lines, StandardCharsets.UTF_8);
+        resultList.clear();
+        service.runManifest(manifest.toString(), results.toString(), 4,
+                resultList::add);
+    }
+
+    /**
+     * @return statusMap 結果ファイルの行番号ごとの最後の状態を返す。
+     */
+    private Map<Long, String> readResults() throws Exception {
+        Map<Long, String> statusMap = new HashMap<>();
+
+        for (String line : Files.readAllLines(results,
+                StandardCharsets.UTF_8)) {
+            String[] columns = line.split("\t");
+            statusMap.put(Long.parseLong(columns[0]), columns[1]);
+        }
+
+        return statusMap;
+    }
+
+    @Test
+    public void 取得と削除と名前の変更はバッチリクエストにまとめること() throws Exception {
+        List<String> lines = new ArrayList<>();
+
+        for (int i = 0; i < 150; i++) {
+            String id = server.addFile(FakeDriveServer.ROOT_ID, "d-" + i,
+                    new byte[1]).getId();
+            lines.add("delete\t" + id);
+        }
+
+        File renamed = server.addFile(FakeDriveServer.ROOT_ID, "before",
+                new byte[1]);
+        lines.add("{\"op\": \"rename\", \"id\": \"" + renamed.getId()
+                + "\", \"name\": \"after\"}");
+        lines.add("get\t" + renamed.getId());
+        lines.add("get\tmissing");
+
+        run(lines);
+
+        // 削除 2 回、名前の変更 1 回、取得 1 回
+        assertThat(server.getRequestCount(), is(4));
+        assertThat(server.size(), is(2));
+        assertThat(server.getFile(renamed.getId()).getName(), is("after"));
+        assertThat(resultList.size(), is(153));
+
+        Map<Long, String> statusMap = readResults();
+        assertThat(statusMap.get(1L), is("OK"));
+        assertThat(statusMap.get(151L), is("OK"));
+        assertThat(statusMap.get(153L), is("NG"));
+    }
+
+    @Test
+    public void 転送と重複と不正な行を記録すること() throws Exception {
+        Files.write(temporaryFolder.newFile("a.txt").toPath(), new byte[10]);
+        java.io.File downloadDir = temporaryFolder.newFolder("download");
+        File remoteFile = server.addFile(FakeDriveServer.ROOT_ID, "b.txt",
+                new byte[20]);
+        List<String> lines = new ArrayList<>();
+        lines.add("# コメント");
+        lines.add("upload\ta.txt");
+        lines.add("{\"op\": \"upload\", \"local\": \"a.txt\"}");
+        lines.add("download\t" + remoteFile.getId() + "\tdownload");
+        lines.add("move\tx");
+        lines.add("{\"op\": ");
+        lines.add("");
+
+        run(lines);
+
+        Map<Long, String> statusMap = readResults();
+        assertThat(statusMap.size(), is(5));
+        assertThat(statusMap.get(2L), is("OK"));
+        assertThat(statusMap.get(3L), is("SKIP"));
+        assertThat(statusMap.get(4L), is("OK"));
+        assertThat(statusMap.get(5L), is("NG"));
+        assertThat(statusMap.get(6L), is("NG"));
+        assertThat(statusMap.get(1L), is(nullValue()));
+        // ルートディレクトリ、 b.txt 、アップロードした a.txt
+        assertThat(server.size(), is(3));
+        assertThat(new java.io.File(downloadDir, "b.txt").length(), is(20L));
+    }
+
+    @Test
+    public void 再実行時は失敗した行のみを実行すること() throws Exception {
+        List<String> lines = new ArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            Files.write(temporaryFolder.newFile(i + ".txt").toPath(),
+                    new byte[i + 1]);
+            lines.add("upload\t" + i + ".txt");
+        }
+
+        // 並列数に関わらず 1 件のみ失敗させる。
+        server.failNext(1, 404, "notFound");
+        run(lines);
+
+        Map<Long, String> statusMap = readResults();
+        assertThat(statusMap.values().stream().filter("NG"::equals).count(),
+                is(1L));
+        assertThat(server.size(), is(3));
+
+        run(lines);
+
+        assertThat(resultList.size(), is(1));
+        assertThat(resultList.get(0).isSuccess(), is(true));
+        assertThat(readResults().values().stream().filter("OK"::equals)
+                .count(), is(3L));
+        assertThat(server.size(), is(4));
+
+        // すべて成功した後は何も実行しない。
+        run(lines);
+        assertThat(resultList.size(), is(0));
+    }
+}